@@ -1,7 +1,9 @@
 package com.spotease.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -11,13 +13,35 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig {
 
+    /**
+     * Runs the jobs claimed by {@link com.spotease.service.JobDispatcher}, which never claims more
+     * than there are threads. The queue only absorbs a job handed over while a worker is still
+     * returning from its previous one; waiting jobs stay in the database.
+     * <p>
+     * In virtual-thread mode (Java 21+) every job gets a virtual thread instead, the dispatcher
+     * claims up to {@code virtual-threads.max-jobs}, and the platform call limits govern how much
+     * of that work actually runs at once.
+     * <p>
+     * Neither executor interrupts running jobs on shutdown, which would fail them:
+     * {@link com.spotease.worker.WorkerShutdown} has already asked them to checkpoint, and a job
+     * still running rolls back with the process.
+     */
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    public Executor taskExecutor(@Value("${spotease.scheduler.worker-threads:5}") int workerThreads,
+                                 @Value("${spotease.scheduler.virtual-threads.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("conversion-worker-");
+            // Fails at startup on a JDK without virtual threads
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(workerThreads);
         executor.setThreadNamePrefix("conversion-worker-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.initialize();
         return executor;
     }
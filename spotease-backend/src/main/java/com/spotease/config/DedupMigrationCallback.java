@@ -0,0 +1,71 @@
+package com.spotease.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Fails duplicate in-flight jobs right before migration 6 builds uq_conversion_jobs_user_active_dedup,
+ * which cannot be built while a user has two queued or processing jobs for the same conversion.
+ * Of each group of duplicates the processing job is kept, otherwise the newest one.
+ * <p>
+ * This runs as a callback rather than as part of V6 so databases that already applied V6 keep
+ * its checksum.
+ */
+@Component
+@Slf4j
+public class DedupMigrationCallback implements Callback {
+
+    static final MigrationVersion DEDUP_VERSION = MigrationVersion.fromVersion("6");
+
+    // Groups jobs by the dedup_key V6 computes for them
+    private static final String FAIL_DUPLICATES = """
+            UPDATE conversion_jobs
+            SET status = 'FAILED', completed_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP
+            WHERE id IN (
+                SELECT id FROM (
+                    SELECT id, ROW_NUMBER() OVER (
+                        PARTITION BY user_id, source_platform, source_playlist_id, destination_platform, mode,
+                            COALESCE(CASE WHEN mode = 'CREATE' THEN destination_playlist_name
+                                ELSE destination_playlist_id END, '')
+                        ORDER BY CASE WHEN status = 'PROCESSING' THEN 0 ELSE 1 END, id DESC) AS position
+                    FROM conversion_jobs
+                    WHERE status IN ('QUEUED', 'PROCESSING')) ranked
+                WHERE position > 1)
+            """;
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.BEFORE_EACH_MIGRATE
+                && context.getMigrationInfo() != null
+                && DEDUP_VERSION.equals(context.getMigrationInfo().getVersion());
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        try (Statement statement = context.getConnection().createStatement()) {
+            int failed = statement.executeUpdate(FAIL_DUPLICATES);
+            if (failed > 0) {
+                log.warn("Failed {} duplicate in-flight conversion jobs before building the dedup index", failed);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to fail duplicate conversion jobs", e);
+        }
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "dedup-duplicate-jobs";
+    }
+}
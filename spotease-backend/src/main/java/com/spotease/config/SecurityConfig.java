@@ -38,10 +38,11 @@ public class SecurityConfig {
                 Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
         );
         configuration.setAllowedHeaders(
-                Arrays.asList("Content-Type", "Authorization", "Accept", "X-Requested-With")
+                Arrays.asList("Content-Type", "Authorization", "Accept", "X-Requested-With", "Last-Event-ID",
+                        "Idempotency-Key")
         );
         configuration.setExposedHeaders(
-                Arrays.asList("Set-Cookie")
+                Arrays.asList("Set-Cookie", "X-Next-Cursor")
         );
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
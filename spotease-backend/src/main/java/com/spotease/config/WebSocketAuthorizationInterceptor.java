@@ -0,0 +1,74 @@
+package com.spotease.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Authorizes STOMP frames against the HTTP session the WebSocket was opened from.
+ * <p>
+ * Clients may only subscribe to their own {@code /topic/users/{userId}/...} destinations, and
+ * may never SEND to broker destinations directly (that would let them publish to other users).
+ * Signed-in clients may also subscribe to {@code /app/...} destinations, whose handlers check
+ * job ownership themselves.
+ */
+@Slf4j
+public class WebSocketAuthorizationInterceptor implements ChannelInterceptor {
+
+    private static final Pattern USER_DESTINATION = Pattern.compile("^/topic/users/(\\d+)(/.*)?$");
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            Long userId = getUserId(accessor);
+            if (!isOwnDestination(destination, userId) && !isApplicationDestination(destination, userId)) {
+                log.warn("Rejected subscription of user {} to {}", userId, destination);
+                throw new MessageDeliveryException(message, "Not authorized to subscribe to " + destination);
+            }
+        } else if (accessor.getCommand() == StompCommand.SEND
+                && destination != null && destination.startsWith("/topic")) {
+            throw new MessageDeliveryException(message, "Clients may not send to " + destination);
+        }
+        return message;
+    }
+
+    static boolean isOwnDestination(String destination, Long userId) {
+        if (destination == null || userId == null) {
+            return false;
+        }
+        Matcher matcher = USER_DESTINATION.matcher(destination);
+        return matcher.matches() && matcher.group(1).equals(userId.toString());
+    }
+
+    static boolean isApplicationDestination(String destination, Long userId) {
+        return destination != null && userId != null && destination.startsWith("/app/");
+    }
+
+    private Long getUserId(StompHeaderAccessor accessor) {
+        // Copied from the HTTP session by HttpSessionHandshakeInterceptor
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object userIdObj = attributes.get("userId");
+        if (userIdObj instanceof Long) {
+            return (Long) userIdObj;
+        }
+        return null;
+    }
+}
@@ -1,23 +1,92 @@
 package com.spotease.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.messaging.simp.stomp.StompReactorNettyCodec;
+import org.springframework.messaging.tcp.ReconnectStrategy;
+import org.springframework.messaging.tcp.TcpConnectionHandler;
+import org.springframework.messaging.tcp.reactor.ReactorNettyTcpClient;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Value("${cors.allowed-origins}")
     private String allowedOrigins;
 
+    // External STOMP broker (e.g. ActiveMQ Artemis) shared by all replicas; off by default
+    @Value("${spotease.websocket.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${spotease.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${spotease.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${spotease.websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${spotease.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${spotease.websocket.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${spotease.websocket.relay.heartbeat-interval:PT10S}")
+    private Duration relayHeartbeatInterval;
+
+    @Value("${spotease.websocket.relay.reconnect-initial-delay:PT1S}")
+    private Duration relayReconnectInitialDelay;
+
+    @Value("${spotease.websocket.relay.reconnect-max-delay:PT30S}")
+    private Duration relayReconnectMaxDelay;
+
+    // Per-session backpressure: slow clients are disconnected instead of buffering without bound
+    @Value("${spotease.websocket.send-time-limit:PT15S}")
+    private Duration sendTimeLimit;
+
+    @Value("${spotease.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${spotease.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable simple broker for topics
-        config.enableSimpleBroker("/topic");
+        if (relayEnabled) {
+            log.info("Relaying /topic destinations to STOMP broker at {}:{}", relayHost, relayPort);
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setSystemHeartbeatSendInterval(relayHeartbeatInterval.toMillis())
+                    .setSystemHeartbeatReceiveInterval(relayHeartbeatInterval.toMillis())
+                    .setTcpClient(new BackoffTcpClient(relayHost, relayPort,
+                            relayReconnectInitialDelay, relayReconnectMaxDelay));
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else {
+            // Enable simple broker for topics
+            config.enableSimpleBroker("/topic");
+        }
         // Prefix for messages FROM client TO server
         config.setApplicationDestinationPrefixes("/app");
     }
@@ -29,6 +98,49 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .toArray(String[]::new);
         registry.addEndpoint("/ws/conversions")
                 .setAllowedOrigins(origins)
+                // Expose the HTTP session's userId to the authorization interceptor
+                .addInterceptors(new HttpSessionHandshakeInterceptor())
                 .withSockJS();
+        // Handle a client's frames in order, so a SUBSCRIBE to a job's match topic is registered
+        // before the snapshot subscription that follows it is answered
+        registry.setPreserveReceiveOrder(true);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit((int) sendTimeLimit.toMillis())
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new WebSocketAuthorizationInterceptor());
+    }
+
+    /**
+     * Relay TCP client that reconnects its system session with capped exponential backoff,
+     * instead of the relay's fixed 5 second interval.
+     */
+    static class BackoffTcpClient extends ReactorNettyTcpClient<byte[]> {
+
+        private final ReconnectStrategy reconnectStrategy;
+
+        BackoffTcpClient(String host, int port, Duration initialDelay, Duration maxDelay) {
+            super(host, port, new StompReactorNettyCodec());
+            this.reconnectStrategy = backoff(initialDelay, maxDelay);
+        }
+
+        @Override
+        public CompletableFuture<Void> connectAsync(TcpConnectionHandler<byte[]> handler, ReconnectStrategy strategy) {
+            return super.connectAsync(handler, reconnectStrategy);
+        }
+
+        static ReconnectStrategy backoff(Duration initialDelay, Duration maxDelay) {
+            return attempt -> {
+                long delay = initialDelay.toMillis() << Math.min(attempt, 20);
+                return Math.min(delay, maxDelay.toMillis());
+            };
+        }
     }
 }
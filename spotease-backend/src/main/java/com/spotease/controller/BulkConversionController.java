@@ -0,0 +1,116 @@
+package com.spotease.controller;
+
+import com.spotease.dto.BulkConversionRequest;
+import com.spotease.dto.BulkConversionResponse;
+import com.spotease.dto.BulkProgressMessage;
+import com.spotease.dto.ConversionResponse;
+import com.spotease.dto.WebSocketMessage;
+import com.spotease.model.BulkConversion;
+import com.spotease.model.ConversionJob;
+import com.spotease.repository.BulkConversionRepository;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.service.ConversionService;
+import jakarta.servlet.http.HttpSession;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/conversions/bulk")
+@RequiredArgsConstructor
+@Slf4j
+public class BulkConversionController {
+
+    private final ConversionService conversionService;
+    private final BulkConversionRepository bulkRepository;
+    private final ConversionJobRepository jobRepository;
+
+    /**
+     * Convert several playlists as one bulk conversion. Each playlist gets a child job, listed in
+     * the response; tracks shared between the playlists are matched once for the whole batch.
+     * Aggregate progress is published to /topic/users/{userId}/conversions/bulk/{id}.
+     */
+    @PostMapping
+    public ResponseEntity<BulkConversionResponse> createBulkConversion(
+            @Valid @RequestBody BulkConversionRequest request,
+            HttpSession session) {
+
+        Long userId = getUserIdFromSession(session);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            BulkConversion bulk = conversionService.createBulkJob(userId, request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(mapToResponse(bulk));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected bulk conversion by user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (IllegalStateException e) {
+            log.warn("Rejected bulk conversion by user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+        }
+    }
+
+    /**
+     * Get a bulk conversion with its child jobs and their summed progress
+     */
+    @GetMapping("/{bulkId}")
+    public ResponseEntity<BulkConversionResponse> getBulkConversion(
+            @PathVariable Long bulkId,
+            HttpSession session) {
+
+        Long userId = getUserIdFromSession(session);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        BulkConversion bulk = bulkRepository.findById(bulkId)
+                .orElse(null);
+
+        if (bulk == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        // Check ownership
+        if (!bulk.getUser().getId().equals(userId)) {
+            log.warn("User {} attempted to access bulk conversion {} owned by user {}",
+                    userId, bulkId, bulk.getUser().getId());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(mapToResponse(bulk));
+    }
+
+    /**
+     * Helper method to get userId from HttpSession
+     */
+    private Long getUserIdFromSession(HttpSession session) {
+        if (session == null) {
+            return null;
+        }
+        Object userIdObj = session.getAttribute("userId");
+        if (userIdObj instanceof Long) {
+            return (Long) userIdObj;
+        }
+        return null;
+    }
+
+    private BulkConversionResponse mapToResponse(BulkConversion bulk) {
+        List<ConversionJob> children = jobRepository.findByBulkConversion_IdOrderById(bulk.getId());
+        List<WebSocketMessage> progress = children.stream().map(WebSocketMessage::from).toList();
+        return BulkConversionResponse.builder()
+                .id(bulk.getId())
+                .status(bulk.getStatus())
+                .progress(BulkProgressMessage.from(bulk.getId(), bulk.getStatus(), bulk.getTotalJobs(), progress))
+                .jobs(children.stream().map(ConversionResponse::from).toList())
+                .createdAt(bulk.getCreatedAt())
+                .completedAt(bulk.getCompletedAt())
+                .build();
+    }
+}
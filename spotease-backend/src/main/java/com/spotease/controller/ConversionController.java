@@ -3,17 +3,29 @@ package com.spotease.controller;
 import com.spotease.dto.ConversionRequest;
 import com.spotease.dto.ConversionResponse;
 import com.spotease.model.ConversionJob;
+import com.spotease.model.JobStatus;
 import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.ConversionJobSummary;
 import com.spotease.service.ConversionService;
+import com.spotease.service.JobControlService;
+import com.spotease.service.JobDispatcher;
+import com.spotease.service.MatchArchiveService;
+import com.spotease.service.ProgressSseService;
+import com.spotease.util.KeysetCursor;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @RestController
@@ -22,15 +34,29 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ConversionController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ConversionService conversionService;
     private final ConversionJobRepository jobRepository;
+    private final MatchArchiveService matchArchiveService;
+    private final ProgressSseService progressSseService;
+    private final JobDispatcher jobDispatcher;
+    private final JobControlService jobControlService;
 
     /**
-     * Create a new conversion job
+     * Create a new conversion job. The job is queued without contacting either platform;
+     * playlist validation happens in the worker and is reported through the job status.
+     * Retries with the same Idempotency-Key, and requests for a conversion that is already
+     * queued or in progress, return the existing job with 200 instead of creating another.
      */
     @PostMapping
     public ResponseEntity<ConversionResponse> createConversionJob(
             @Valid @RequestBody ConversionRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             HttpSession session) {
 
         Long userId = getUserIdFromSession(session);
@@ -38,32 +64,72 @@ public class ConversionController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        log.info("Creating conversion job for user {}", userId);
+        if (idempotencyKey != null
+                && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
 
-        ConversionJob job = conversionService.createJob(userId, request);
-        ConversionResponse response = mapToResponse(job);
+        log.info("Creating conversion job for user {}", userId);
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        try {
+            ConversionService.Submission submission = conversionService.createJob(userId, request, idempotencyKey);
+            HttpStatus status = submission.created() ? HttpStatus.CREATED : HttpStatus.OK;
+            return ResponseEntity.status(status).body(mapToResponse(submission.job()));
+        } catch (IllegalStateException e) {
+            log.warn("Rejected submission by user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+        }
     }
 
     /**
-     * Get all conversion jobs for the authenticated user
+     * Get a page of conversion jobs for the authenticated user, newest first.
+     * When more jobs exist, the cursor for the next page is returned in the X-Next-Cursor header.
      */
     @GetMapping
-    public ResponseEntity<List<ConversionResponse>> getAllConversionJobs(HttpSession session) {
+    public ResponseEntity<List<ConversionResponse>> getAllConversionJobs(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            HttpSession session) {
         Long userId = getUserIdFromSession(session);
         if (userId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        log.info("Fetching all conversion jobs for user {}", userId);
+        log.info("Fetching conversion jobs for user {}", userId);
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        Pageable pageable = PageRequest.ofSize(pageSize + 1);
+
+        List<ConversionJobSummary> jobs;
+        try {
+            if (cursor == null || cursor.isBlank()) {
+                jobs = jobRepository.findSummariesByUserId(userId, pageable);
+            } else {
+                KeysetCursor.Position position = KeysetCursor.decode(cursor);
+                if (position.createdAt() == null) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                jobs = jobRepository.findSummariesByUserIdBefore(
+                        userId, position.createdAt(), position.id(), pageable);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid cursor for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (jobs.size() > pageSize) {
+            jobs = jobs.subList(0, pageSize);
+            ConversionJobSummary last = jobs.get(jobs.size() - 1);
+            response.header(NEXT_CURSOR_HEADER, KeysetCursor.encode(last.createdAt(), last.id()));
+        }
 
-        List<ConversionJob> jobs = jobRepository.findByUser_Id(userId);
         List<ConversionResponse> responses = jobs.stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(responses);
+        return response.body(responses);
     }
 
     /**
@@ -96,11 +162,80 @@ public class ConversionController {
         }
 
         ConversionResponse response = mapToResponse(job);
+        response.setQueuePosition(jobDispatcher.queuePosition(job));
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Delete a conversion job by ID
+     * Stream progress of a conversion job as Server-Sent Events, carrying the same messages as
+     * the WebSocket topics. Reconnecting clients resume after the Last-Event-ID header (or the
+     * lastEventId parameter, for clients that cannot set headers).
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamConversionJobEvents(
+            @PathVariable Long jobId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam,
+            HttpSession session) {
+
+        Long userId = getUserIdFromSession(session);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        ConversionJob job = jobRepository.findById(jobId)
+                .orElse(null);
+
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        // Check ownership
+        if (!job.getUser().getId().equals(userId)) {
+            log.warn("User {} attempted to watch job {} owned by user {}",
+                    userId, jobId, job.getUser().getId());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Long lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        log.debug("User {} watching job {} from event {}", userId, jobId, lastEventId);
+        return ResponseEntity.ok(progressSseService.subscribe(job, lastEventId));
+    }
+
+    /**
+     * Cancel a queued, running or paused job. Returns 200 if the job stopped at once, or 202 while
+     * its worker finishes the current track; the final status arrives over WebSocket.
+     */
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<ConversionResponse> cancelConversionJob(
+            @PathVariable Long jobId,
+            HttpSession session) {
+        return controlJob(jobId, session, "cancel", () -> stopResponse(jobControlService.cancel(jobId)));
+    }
+
+    /**
+     * Pause a queued or running job, keeping what it matched so far. Responds like cancel.
+     */
+    @PostMapping("/{jobId}/pause")
+    public ResponseEntity<ConversionResponse> pauseConversionJob(
+            @PathVariable Long jobId,
+            HttpSession session) {
+        return controlJob(jobId, session, "pause", () -> stopResponse(jobControlService.pause(jobId)));
+    }
+
+    /**
+     * Queue a paused job again. It continues after the tracks it had already matched.
+     */
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<ConversionResponse> resumeConversionJob(
+            @PathVariable Long jobId,
+            HttpSession session) {
+        return controlJob(jobId, session, "resume",
+                () -> ResponseEntity.ok(mapToResponse(jobControlService.resume(jobId))));
+    }
+
+    /**
+     * Delete a conversion job by ID. A running job has to be cancelled first.
      */
     @DeleteMapping("/{jobId}")
     public ResponseEntity<Void> deleteConversionJob(
@@ -128,12 +263,60 @@ public class ConversionController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        jobRepository.delete(job);
+        // Its worker would carry on calling the platforms for a job that no longer exists
+        boolean running = job.getStatus() == JobStatus.PROCESSING
+                || (job.getStatus() == JobStatus.QUEUED && job.getClaimedBy() != null);
+        if (running) {
+            log.warn("Refused to delete running job {}", jobId);
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        // Batched match deletes instead of a row-by-row cascade
+        matchArchiveService.deleteJob(jobId);
         log.info("Deleted conversion job {}", jobId);
 
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
+    /**
+     * Helper method for the cancel, pause and resume endpoints: checks the session and ownership,
+     * then applies the action. A job in the wrong state for it gets 409.
+     */
+    private ResponseEntity<ConversionResponse> controlJob(Long jobId, HttpSession session, String action,
+                                                          Supplier<ResponseEntity<ConversionResponse>> control) {
+        Long userId = getUserIdFromSession(session);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        ConversionJob job = jobRepository.findById(jobId)
+                .orElse(null);
+
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        // Check ownership
+        if (!job.getUser().getId().equals(userId)) {
+            log.warn("User {} attempted to {} job {} owned by user {}",
+                    userId, action, jobId, job.getUser().getId());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        log.info("User {} requested {} of job {}", userId, action, jobId);
+        try {
+            return control.get();
+        } catch (IllegalStateException e) {
+            log.warn("Cannot {} job {}: {}", action, jobId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    private ResponseEntity<ConversionResponse> stopResponse(JobControlService.StopResult result) {
+        HttpStatus status = result.stopped() ? HttpStatus.OK : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(mapToResponse(result.job()));
+    }
+
     /**
      * Helper method to get userId from HttpSession
      */
@@ -152,24 +335,32 @@ public class ConversionController {
      * Helper method to map ConversionJob to ConversionResponse
      */
     private ConversionResponse mapToResponse(ConversionJob job) {
+        return ConversionResponse.from(job);
+    }
+
+    /**
+     * Helper method to map a ConversionJobSummary projection to ConversionResponse
+     */
+    private ConversionResponse mapToResponse(ConversionJobSummary job) {
         return ConversionResponse.builder()
-                .id(job.getId())
-                .status(job.getStatus())
-                .sourcePlatform(job.getSourcePlatform().name())
-                .sourcePlaylistId(job.getSourcePlaylistId())
-                .sourcePlaylistName(job.getSourcePlaylistName())
-                .destinationPlatform(job.getDestinationPlatform().name())
-                .destinationPlaylistId(job.getDestinationPlaylistId())
-                .destinationPlaylistName(job.getDestinationPlaylistName())
-                .mode(job.getMode().name())
-                .totalTracks(job.getTotalTracks())
-                .processedTracks(job.getProcessedTracks())
-                .highConfidenceMatches(job.getHighConfidenceMatches())
-                .lowConfidenceMatches(job.getLowConfidenceMatches())
-                .failedTracks(job.getFailedTracks())
-                .createdAt(job.getCreatedAt())
-                .updatedAt(job.getUpdatedAt())
-                .completedAt(job.getCompletedAt())
+                .id(job.id())
+                .status(job.status())
+                .sourcePlatform(job.sourcePlatform().name())
+                .sourcePlaylistId(job.sourcePlaylistId())
+                .sourcePlaylistName(job.sourcePlaylistName())
+                .destinationPlatform(job.destinationPlatform().name())
+                .destinationPlaylistId(job.destinationPlaylistId())
+                .destinationPlaylistName(job.destinationPlaylistName())
+                .mode(job.mode().name())
+                .totalTracks(job.totalTracks())
+                .processedTracks(job.processedTracks())
+                .highConfidenceMatches(job.highConfidenceMatches())
+                .lowConfidenceMatches(job.lowConfidenceMatches())
+                .failedTracks(job.failedTracks())
+                .searchesSaved(job.searchesSaved())
+                .createdAt(job.createdAt())
+                .updatedAt(job.updatedAt())
+                .completedAt(job.completedAt())
                 .build();
     }
 }
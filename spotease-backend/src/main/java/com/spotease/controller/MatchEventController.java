@@ -0,0 +1,67 @@
+package com.spotease.controller;
+
+import com.spotease.dto.MatchEventSnapshot;
+import com.spotease.model.ConversionJob;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.service.MatchEventStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Controller;
+
+import java.util.Map;
+
+/**
+ * STOMP snapshot endpoint for a job's match event stream.
+ * <p>
+ * Clients first subscribe to {@code /topic/users/{userId}/conversions/{jobId}/matches} for live
+ * events, then to {@code /app/conversions/{jobId}/matches}, which replies once with the events
+ * so far. Live events whose sequence is not above the snapshot's {@code lastSequence} are
+ * duplicates and can be dropped. While the job runs, only the replica running it has its
+ * uncommitted matches; elsewhere the snapshot is what has been committed (see {@link MatchEventStream}).
+ */
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class MatchEventController {
+
+    private final ConversionJobRepository jobRepository;
+    private final MatchEventStream matchEventStream;
+
+    @SubscribeMapping("/conversions/{jobId}/matches")
+    public MatchEventSnapshot subscribeMatches(@DestinationVariable Long jobId,
+                                               SimpMessageHeaderAccessor headers) {
+        Long userId = getUserIdFromSession(headers);
+        if (userId == null) {
+            throw new AccessDeniedException("Not authenticated");
+        }
+
+        ConversionJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new AccessDeniedException("Job not found: " + jobId));
+
+        // Check ownership
+        if (!job.getUser().getId().equals(userId)) {
+            log.warn("User {} attempted to subscribe to matches of job {} owned by user {}",
+                    userId, jobId, job.getUser().getId());
+            throw new AccessDeniedException("Job not found: " + jobId);
+        }
+
+        log.info("Sending match snapshot of job {} to user {}", jobId, userId);
+        return matchEventStream.snapshot(job);
+    }
+
+    private Long getUserIdFromSession(SimpMessageHeaderAccessor headers) {
+        Map<String, Object> attributes = headers.getSessionAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object userIdObj = attributes.get("userId");
+        if (userIdObj instanceof Long) {
+            return (Long) userIdObj;
+        }
+        return null;
+    }
+}
@@ -4,9 +4,11 @@ import com.spotease.dto.netease.NeteasePlaylist;
 import com.spotease.dto.spotify.SpotifyPlaylist;
 import com.spotease.model.User;
 import com.spotease.repository.UserRepository;
+import com.spotease.service.CredentialProvider;
 import com.spotease.service.NeteaseService;
+import com.spotease.service.PlaylistCache;
 import com.spotease.service.SpotifyService;
-import com.spotease.util.TokenEncryption;
+import com.spotease.service.SpotifyTokenService;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,7 +20,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Playlist lookups. Endpoints return a {@link CompletableFuture} completed by the platform client,
+ * so no servlet thread waits on Spotify or NetEase. Listings are served through {@link PlaylistCache}.
+ * Spotify calls go through {@link SpotifyTokenService}, which refreshes a rejected token and retries.
+ */
 @RestController
 @RequestMapping("/api/playlists")
 @RequiredArgsConstructor
@@ -26,112 +35,145 @@ import java.util.List;
 public class PlaylistController {
 
     private final SpotifyService spotifyService;
+    private final SpotifyTokenService spotifyTokenService;
     private final NeteaseService neteaseService;
     private final UserRepository userRepository;
-    private final TokenEncryption tokenEncryption;
+    private final CredentialProvider credentialProvider;
+    private final PlaylistCache playlistCache;
 
     @GetMapping("/spotify")
-    public ResponseEntity<List<SpotifyPlaylist>> getSpotifyPlaylists(HttpSession session) {
+    public CompletableFuture<ResponseEntity<List<SpotifyPlaylist>>> getSpotifyPlaylists(HttpSession session) {
         Long userId = getUserIdFromSession(session);
         if (userId == null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            return status(HttpStatus.UNAUTHORIZED);
         }
 
         log.info("Fetching Spotify playlists for user {}", userId);
 
         User user = userRepository.findById(userId).orElse(null);
         if (user == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            return status(HttpStatus.NOT_FOUND);
         }
 
         if (user.getSpotifyAccessToken() == null) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            return status(HttpStatus.BAD_REQUEST);
         }
 
         try {
-            String accessToken = tokenEncryption.decrypt(user.getSpotifyAccessToken());
-            List<SpotifyPlaylist> playlists = spotifyService.getPlaylists(accessToken);
-            return ResponseEntity.ok(playlists);
+            return playlistCache.getSpotifyPlaylists(userId,
+                            () -> spotifyTokenService.callAsync(user, spotifyService::getPlaylistsAsync))
+                    .thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> {
+                        Throwable cause = unwrap(e);
+                        log.error("Failed to fetch Spotify playlists for user {}: {}", userId, cause.getMessage(), cause);
+                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                    });
         } catch (Exception e) {
             log.error("Failed to fetch Spotify playlists for user {}: {}", userId, e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return status(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @GetMapping("/netease")
-    public ResponseEntity<List<NeteasePlaylist>> getNeteasePlaylists(HttpSession session) {
+    public CompletableFuture<ResponseEntity<List<NeteasePlaylist>>> getNeteasePlaylists(HttpSession session) {
         Long userId = getUserIdFromSession(session);
         if (userId == null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            return status(HttpStatus.UNAUTHORIZED);
         }
 
         log.info("Fetching NetEase playlists for user {}", userId);
 
         User user = userRepository.findById(userId).orElse(null);
         if (user == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            return status(HttpStatus.NOT_FOUND);
         }
 
         if (user.getNeteaseCookie() == null) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            return status(HttpStatus.BAD_REQUEST);
         }
 
         try {
-            String cookie = tokenEncryption.decrypt(user.getNeteaseCookie());
-            List<NeteasePlaylist> playlists = neteaseService.getPlaylists(cookie);
-            return ResponseEntity.ok(playlists);
+            String encryptedCookie = user.getNeteaseCookie();
+            return playlistCache.getNeteasePlaylists(userId,
+                            () -> neteaseService.getPlaylistsAsync(credentialProvider.decrypt(encryptedCookie)).toFuture())
+                    .thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> {
+                        Throwable cause = unwrap(e);
+                        log.error("Failed to fetch NetEase playlists for user {}: {}", userId, cause.getMessage(), cause);
+                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                    });
         } catch (Exception e) {
             log.error("Failed to fetch NetEase playlists for user {}: {}", userId, e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return status(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @GetMapping("/{platform}/{playlistId}")
-    public ResponseEntity<?> getPlaylistById(
+    public CompletableFuture<ResponseEntity<Object>> getPlaylistById(
             @PathVariable String platform,
             @PathVariable String playlistId,
             HttpSession session) {
 
         Long userId = getUserIdFromSession(session);
         if (userId == null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            return status(HttpStatus.UNAUTHORIZED);
         }
 
         // Validate platform
         if (!platform.equalsIgnoreCase("spotify") && !platform.equalsIgnoreCase("netease")) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            return status(HttpStatus.BAD_REQUEST);
         }
 
         log.info("Fetching {} playlist {} for user {}", platform, playlistId, userId);
 
         User user = userRepository.findById(userId).orElse(null);
         if (user == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            return status(HttpStatus.NOT_FOUND);
         }
 
         try {
+            CompletableFuture<?> playlist;
             if (platform.equalsIgnoreCase("spotify")) {
                 if (user.getSpotifyAccessToken() == null) {
-                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+                    return status(HttpStatus.BAD_REQUEST);
                 }
-                String accessToken = tokenEncryption.decrypt(user.getSpotifyAccessToken());
-                SpotifyPlaylist playlist = spotifyService.getPlaylistById(accessToken, playlistId);
-                return ResponseEntity.ok(playlist);
+                playlist = spotifyTokenService.callAsync(user,
+                        accessToken -> spotifyService.getPlaylistByIdAsync(accessToken, playlistId));
 
             } else { // netease
                 if (user.getNeteaseCookie() == null) {
-                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+                    return status(HttpStatus.BAD_REQUEST);
                 }
-                String cookie = tokenEncryption.decrypt(user.getNeteaseCookie());
-                NeteasePlaylist playlist = neteaseService.getPlaylistById(cookie, playlistId);
-                return ResponseEntity.ok(playlist);
+                String cookie = credentialProvider.decrypt(user.getNeteaseCookie());
+                playlist = neteaseService.getPlaylistByIdAsync(cookie, playlistId).toFuture();
             }
+            return playlist
+                    .<ResponseEntity<Object>>thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> {
+                        Throwable cause = unwrap(e);
+                        log.error("Failed to fetch {} playlist {}: {}", platform, playlistId, cause.getMessage(), cause);
+                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                    });
         } catch (Exception e) {
             log.error("Failed to fetch {} playlist {}: {}", platform, playlistId, e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return status(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Helper method for responses decided before any platform call is made
+     */
+    private static <T> CompletableFuture<ResponseEntity<T>> status(HttpStatus status) {
+        return CompletableFuture.completedFuture(ResponseEntity.status(status).build());
+    }
+
+    /**
+     * Helper method to get the original failure of an asynchronous call
+     */
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
     private Long getUserIdFromSession(HttpSession session) {
         if (session == null) {
             return null;
@@ -7,12 +7,18 @@ import com.spotease.model.*;
 import com.spotease.repository.ConversionJobRepository;
 import com.spotease.repository.TrackMatchRepository;
 import com.spotease.repository.UserRepository;
+import com.spotease.service.CredentialProvider;
+import com.spotease.service.MatchArchiveService;
 import com.spotease.service.NeteaseService;
+import com.spotease.service.PlaylistCache;
+import com.spotease.service.PlaylistSyncService;
 import com.spotease.service.SpotifyService;
-import com.spotease.util.TokenEncryption;
+import com.spotease.service.SpotifyTokenService;
+import com.spotease.util.KeysetCursor;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,7 +26,8 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/conversions/{jobId}/matches")
@@ -28,67 +35,56 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ReviewController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final List<MatchStatus> REVIEWABLE_STATUSES =
+            List.of(MatchStatus.PENDING_REVIEW, MatchStatus.FAILED);
+    private static final List<MatchStatus> ALL_STATUSES = List.of(MatchStatus.values());
+    // A running job commits its matches only when it stops, so they cannot be reviewed before then
+    private static final List<JobStatus> RUNNING_STATUSES = List.of(JobStatus.QUEUED, JobStatus.PROCESSING);
+
     private final ConversionJobRepository jobRepository;
     private final TrackMatchRepository matchRepository;
+    private final MatchArchiveService matchArchiveService;
     private final UserRepository userRepository;
     private final SpotifyService spotifyService;
+    private final SpotifyTokenService spotifyTokenService;
     private final NeteaseService neteaseService;
-    private final TokenEncryption tokenEncryption;
+    private final CredentialProvider credentialProvider;
+    private final PlaylistCache playlistCache;
+    private final PlaylistSyncService playlistSyncService;
+
+    /**
+     * Get a page of all matches for a conversion job, in match order. Reads from the archive
+     * once the job's matches have been archived.
+     * When more matches exist, the cursor for the next page is returned in the X-Next-Cursor header.
+     */
+    @GetMapping
+    public ResponseEntity<List<TrackMatchDto>> getMatches(
+            @PathVariable Long jobId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            HttpSession session) {
+        return getMatchPage(jobId, ALL_STATUSES, cursor, limit, session);
+    }
 
     /**
-     * Get all pending or failed matches for a conversion job
+     * Get a page of pending or failed matches for a conversion job, in match order.
+     * When more matches exist, the cursor for the next page is returned in the X-Next-Cursor header.
      */
     @GetMapping("/pending")
     public ResponseEntity<List<TrackMatchDto>> getPendingMatches(
             @PathVariable Long jobId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
             HttpSession session) {
-
-        Long userId = getUserIdFromSession(session);
-        if (userId == null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
-
-        log.info("Fetching pending matches for job {} by user {}", jobId, userId);
-
-        try {
-            // Fetch job
-            ConversionJob job = jobRepository.findById(jobId).orElse(null);
-            if (job == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-            }
-
-            // Verify ownership
-            if (!job.getUser().getId().equals(userId)) {
-                log.warn("User {} attempted to access job {} owned by user {}",
-                        userId, jobId, job.getUser().getId());
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
-
-            // Get pending and failed matches in a single query
-            List<TrackMatch> allMatches = matchRepository.findByConversionJob_IdAndStatusIn(
-                    jobId,
-                    List.of(MatchStatus.PENDING_REVIEW, MatchStatus.FAILED)
-            );
-
-            // Map to DTOs
-            List<TrackMatchDto> matchDtos = allMatches.stream()
-                    .map(this::mapToDto)
-                    .collect(Collectors.toList());
-
-            log.info("Found {} pending/failed matches for job {}", matchDtos.size(), jobId);
-            return ResponseEntity.ok(matchDtos);
-
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid request for getting pending matches for job {}: {}", jobId, e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-        } catch (Exception e) {
-            log.error("Failed to get pending matches for job {}: {}", jobId, e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        return getMatchPage(jobId, REVIEWABLE_STATUSES, cursor, limit, session);
     }
 
     /**
-     * Approve a match and add the track to the destination playlist
+     * Approve a match and add the track to the destination playlist. Rejected with 409 while the
+     * job is still queued or running.
      */
     @PostMapping("/{matchId}/approve")
     @Transactional
@@ -118,6 +114,10 @@ public class ReviewController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
+        if (RUNNING_STATUSES.contains(job.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
         // Fetch match
         TrackMatch match = matchRepository.findById(matchId).orElse(null);
         if (match == null) {
@@ -159,6 +159,7 @@ public class ReviewController {
             match.setReviewedAt(LocalDateTime.now());
             match.setAppliedAt(LocalDateTime.now());
             matchRepository.save(match);
+            playlistSyncService.recordApproval(job, match);
 
             // Check if all matches are now reviewed
             checkAndUpdateJobStatus(job);
@@ -186,7 +187,7 @@ public class ReviewController {
     }
 
     /**
-     * Skip a match (mark as user-skipped)
+     * Skip a match (mark as user-skipped). Rejected with 409 while the job is still queued or running.
      */
     @PostMapping("/{matchId}/skip")
     public ResponseEntity<Void> skipMatch(
@@ -215,6 +216,10 @@ public class ReviewController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
+            if (RUNNING_STATUSES.contains(job.getStatus())) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+
             // Fetch match
             TrackMatch match = matchRepository.findById(matchId).orElse(null);
             if (match == null) {
@@ -248,21 +253,22 @@ public class ReviewController {
     }
 
     /**
-     * Manual search for alternative tracks on destination platform
+     * Manual search for alternative tracks on destination platform. The search completes
+     * asynchronously, without holding a servlet thread during the platform call.
      */
     @GetMapping("/search")
-    public ResponseEntity<?> manualSearch(
+    public CompletableFuture<ResponseEntity<?>> manualSearch(
             @PathVariable Long jobId,
             @RequestParam(required = false) String query,
             HttpSession session) {
 
         Long userId = getUserIdFromSession(session);
         if (userId == null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            return status(HttpStatus.UNAUTHORIZED);
         }
 
         if (query == null || query.trim().isEmpty()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            return status(HttpStatus.BAD_REQUEST);
         }
 
         log.info("Manual search for job {} with query: {}", jobId, query);
@@ -271,14 +277,14 @@ public class ReviewController {
             // Fetch job
             ConversionJob job = jobRepository.findById(jobId).orElse(null);
             if (job == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+                return status(HttpStatus.NOT_FOUND);
             }
 
             // Verify ownership
             if (!job.getUser().getId().equals(userId)) {
                 log.warn("User {} attempted to search in job {} owned by user {}",
                         userId, jobId, job.getUser().getId());
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+                return status(HttpStatus.FORBIDDEN);
             }
 
             // Get user
@@ -287,42 +293,61 @@ public class ReviewController {
             // Search on destination platform
             Platform destPlatform = job.getDestinationPlatform();
 
+            CompletableFuture<? extends List<?>> results;
             if (destPlatform == Platform.SPOTIFY) {
-                String accessToken = tokenEncryption.decrypt(user.getSpotifyAccessToken());
-                List<?> results = spotifyService.searchTrack(accessToken, query);
-                return ResponseEntity.ok(results);
+                results = spotifyTokenService.callAsync(user,
+                        accessToken -> spotifyService.searchTrackAsync(accessToken, query));
 
             } else if (destPlatform == Platform.NETEASE) {
-                String cookie = tokenEncryption.decrypt(user.getNeteaseCookie());
-                List<?> results = neteaseService.searchTrack(cookie, query);
-                return ResponseEntity.ok(results);
+                String cookie = credentialProvider.decrypt(user.getNeteaseCookie());
+                results = neteaseService.searchTrackAsync(cookie, query).toFuture();
 
             } else {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+                return status(HttpStatus.BAD_REQUEST);
             }
 
-        } catch (NeteaseSessionExpiredException e) {
-            log.warn("NetEase session expired for user {} while searching in job {}", userId, jobId);
-            // Clear the user's NetEase cookie from database
-            ConversionJob job = jobRepository.findById(jobId).orElse(null);
-            if (job != null) {
-                User user = job.getUser();
-                user.setNeteaseCookie(null);
-                user.setNeteaseUserId(null);
-                userRepository.save(user);
-            }
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .header("X-Session-Expired", "netease")
-                    .build();
+            return results
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        if (cause instanceof NeteaseSessionExpiredException) {
+                            // NetEase results are delivered off the event loop, so the write may block
+                            return neteaseSessionExpired(user, jobId);
+                        }
+                        log.error("Failed to perform manual search for job {}: {}", jobId, cause.getMessage(), cause);
+                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                    });
+
         } catch (IllegalArgumentException e) {
             log.error("Invalid request for manual search in job {}: {}", jobId, e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            return status(HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             log.error("Failed to perform manual search for job {}: {}", jobId, e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return status(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Helper method to clear an expired NetEase cookie and tell the client to reconnect NetEase
+     */
+    private ResponseEntity<?> neteaseSessionExpired(User user, Long jobId) {
+        log.warn("NetEase session expired for user {} while searching in job {}", user.getId(), jobId);
+        // Clear the user's NetEase cookie from database
+        user.setNeteaseCookie(null);
+        user.setNeteaseUserId(null);
+        userRepository.save(user);
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .header("X-Session-Expired", "netease")
+                .build();
+    }
+
+    /**
+     * Helper method for responses decided before any platform call is made
+     */
+    private static CompletableFuture<ResponseEntity<?>> status(HttpStatus status) {
+        return CompletableFuture.completedFuture(ResponseEntity.status(status).build());
+    }
+
     /**
      * Helper method to get userId from HttpSession
      */
@@ -338,24 +363,59 @@ public class ReviewController {
     }
 
     /**
-     * Helper method to map TrackMatch to TrackMatchDto
+     * Helper method to load one keyset page of a job's matches in the given statuses,
+     * from track_matches or, for archived jobs, from the job's archive
      */
-    private TrackMatchDto mapToDto(TrackMatch match) {
-        return TrackMatchDto.builder()
-                .matchId(match.getId())
-                .sourceTrackId(match.getSourceTrackId())
-                .sourceTrackName(match.getSourceTrackName())
-                .sourceArtist(match.getSourceArtist())
-                .sourceAlbum(match.getSourceAlbum())
-                .sourceDuration(match.getSourceDuration())
-                .destinationTrackId(match.getDestinationTrackId())
-                .destinationTrackName(match.getDestinationTrackName())
-                .destinationArtist(match.getDestinationArtist())
-                .destinationDuration(match.getDestinationDuration())
-                .matchConfidence(match.getMatchConfidence())
-                .status(match.getStatus())
-                .errorMessage(match.getErrorMessage())
-                .build();
+    private ResponseEntity<List<TrackMatchDto>> getMatchPage(
+            Long jobId, List<MatchStatus> statuses, String cursor, int limit, HttpSession session) {
+
+        Long userId = getUserIdFromSession(session);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        log.info("Fetching {} matches for job {} by user {}", statuses, jobId, userId);
+
+        try {
+            // Fetch job
+            ConversionJob job = jobRepository.findById(jobId).orElse(null);
+            if (job == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+
+            // Verify ownership
+            if (!job.getUser().getId().equals(userId)) {
+                log.warn("User {} attempted to access job {} owned by user {}",
+                        userId, jobId, job.getUser().getId());
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            long afterId = cursor == null || cursor.isBlank() ? 0L : KeysetCursor.decode(cursor).id();
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+            // Project matches straight into DTOs, one extra row to detect a next page
+            List<TrackMatchDto> matchDtos = job.getArchivedAt() != null
+                    ? matchArchiveService.findArchivedMatches(jobId, statuses, afterId, pageSize + 1)
+                    : matchRepository.findDtosByJobIdAndStatusIn(
+                            jobId, statuses, afterId, PageRequest.ofSize(pageSize + 1));
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (matchDtos.size() > pageSize) {
+                matchDtos = matchDtos.subList(0, pageSize);
+                response.header(NEXT_CURSOR_HEADER,
+                        KeysetCursor.encode(matchDtos.get(matchDtos.size() - 1).getMatchId()));
+            }
+
+            log.info("Found {} matches for job {}", matchDtos.size(), jobId);
+            return response.body(matchDtos);
+
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid request for getting matches for job {}: {}", jobId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            log.error("Failed to get matches for job {}: {}", jobId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
     }
 
     /**
@@ -365,7 +425,7 @@ public class ReviewController {
         // Count remaining pending/failed matches
         long remainingCount = matchRepository.countByConversionJob_IdAndStatusIn(
                 job.getId(),
-                List.of(MatchStatus.PENDING_REVIEW, MatchStatus.FAILED)
+                REVIEWABLE_STATUSES
         );
 
         if (remainingCount == 0 && job.getStatus() == JobStatus.REVIEW_PENDING) {
@@ -385,19 +445,19 @@ public class ReviewController {
         String trackId = match.getDestinationTrackId();
 
         if (destPlatform == Platform.SPOTIFY) {
-            // Decrypt Spotify access token
-            String accessToken = tokenEncryption.decrypt(user.getSpotifyAccessToken());
-
             // Format as Spotify URI
             String trackUri = "spotify:track:" + trackId;
 
-            // Add to playlist
-            spotifyService.addTracksToPlaylist(accessToken, playlistId, List.of(trackUri));
+            // Add to playlist, refreshing the access token if Spotify rejects it
+            spotifyTokenService.call(user, accessToken -> {
+                spotifyService.addTracksToPlaylist(accessToken, playlistId, List.of(trackUri));
+                return null;
+            });
             log.info("Added Spotify track {} to playlist {}", trackId, playlistId);
 
         } else if (destPlatform == Platform.NETEASE) {
             // Decrypt NetEase cookie
-            String cookie = tokenEncryption.decrypt(user.getNeteaseCookie());
+            String cookie = credentialProvider.decrypt(user.getNeteaseCookie());
 
             // Add to playlist
             neteaseService.addTracksToPlaylist(cookie, playlistId, List.of(trackId));
@@ -406,5 +466,6 @@ public class ReviewController {
         } else {
             throw new IllegalArgumentException("Unsupported platform: " + destPlatform);
         }
+        playlistCache.invalidate(user.getId(), destPlatform);
     }
 }
@@ -0,0 +1,114 @@
+package com.spotease.controller;
+
+import com.spotease.dto.SyncScheduleRequest;
+import com.spotease.dto.SyncScheduleResponse;
+import com.spotease.model.SyncSchedule;
+import com.spotease.repository.SyncScheduleRepository;
+import com.spotease.service.SyncScheduleService;
+import jakarta.servlet.http.HttpSession;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sync-schedules")
+@RequiredArgsConstructor
+@Slf4j
+public class SyncScheduleController {
+
+    private final SyncScheduleService syncScheduleService;
+    private final SyncScheduleRepository scheduleRepository;
+
+    /**
+     * Get the recurring syncs of the authenticated user, newest first
+     */
+    @GetMapping
+    public ResponseEntity<List<SyncScheduleResponse>> getSyncSchedules(HttpSession session) {
+        Long userId = getUserIdFromSession(session);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        List<SyncScheduleResponse> schedules = scheduleRepository.findByUser_IdOrderByCreatedAtDesc(userId).stream()
+                .map(SyncScheduleResponse::from)
+                .toList();
+        return ResponseEntity.ok(schedules);
+    }
+
+    /**
+     * Schedule a recurring sync of a playlist pair, or change the interval or enabled flag of an
+     * existing one
+     */
+    @PutMapping
+    public ResponseEntity<SyncScheduleResponse> saveSyncSchedule(
+            @Valid @RequestBody SyncScheduleRequest request,
+            HttpSession session) {
+
+        Long userId = getUserIdFromSession(session);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        log.info("Saving sync schedule of playlist {} for user {}", request.getSourcePlaylistId(), userId);
+
+        try {
+            SyncSchedule schedule = syncScheduleService.saveSchedule(userId, request);
+            return ResponseEntity.ok(SyncScheduleResponse.from(schedule));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected sync schedule for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * Stop a recurring sync. Jobs it already started are kept.
+     */
+    @DeleteMapping("/{scheduleId}")
+    public ResponseEntity<Void> deleteSyncSchedule(
+            @PathVariable Long scheduleId,
+            HttpSession session) {
+
+        Long userId = getUserIdFromSession(session);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        SyncSchedule schedule = scheduleRepository.findById(scheduleId)
+                .orElse(null);
+
+        if (schedule == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        // Check ownership
+        if (!schedule.getUser().getId().equals(userId)) {
+            log.warn("User {} attempted to delete sync schedule {} owned by user {}",
+                    userId, scheduleId, schedule.getUser().getId());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        scheduleRepository.delete(schedule);
+        log.info("Deleted sync schedule {}", scheduleId);
+
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
+    /**
+     * Helper method to get userId from HttpSession
+     */
+    private Long getUserIdFromSession(HttpSession session) {
+        if (session == null) {
+            return null;
+        }
+        Object userIdObj = session.getAttribute("userId");
+        if (userIdObj instanceof Long) {
+            return (Long) userIdObj;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.spotease.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkConversionRequest {
+
+    // One conversion per source playlist, each run as a child job of the batch
+    @NotEmpty(message = "At least one conversion is required")
+    @Size(max = 100, message = "At most 100 conversions can be submitted together")
+    private List<@Valid ConversionRequest> conversions;
+}
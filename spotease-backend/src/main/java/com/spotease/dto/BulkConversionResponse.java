@@ -0,0 +1,23 @@
+package com.spotease.dto;
+
+import com.spotease.model.JobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkConversionResponse {
+    private Long id;
+    private JobStatus status;
+    private BulkProgressMessage progress;
+    private List<ConversionResponse> jobs;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,55 @@
+package com.spotease.dto;
+
+import com.spotease.model.JobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Aggregate progress of a bulk conversion, summed over the child jobs that have reported so far.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkProgressMessage {
+
+    private static final Set<JobStatus> FINISHED =
+            EnumSet.of(JobStatus.COMPLETED, JobStatus.REVIEW_PENDING, JobStatus.FAILED);
+
+    private Long bulkConversionId;
+    private JobStatus status;
+    private Integer totalJobs;
+    private Integer finishedJobs;
+    private Integer totalTracks;
+    private Integer processedTracks;
+    private Integer highConfidenceMatches;
+    private Integer lowConfidenceMatches;
+    private Integer failedTracks;
+
+    public static BulkProgressMessage from(Long bulkConversionId, JobStatus status, int totalJobs,
+                                           Collection<WebSocketMessage> children) {
+        return BulkProgressMessage.builder()
+                .bulkConversionId(bulkConversionId)
+                .status(status)
+                .totalJobs(totalJobs)
+                .finishedJobs((int) children.stream().filter(child -> FINISHED.contains(child.getStatus())).count())
+                .totalTracks(sum(children, WebSocketMessage::getTotalTracks))
+                .processedTracks(sum(children, WebSocketMessage::getProcessedTracks))
+                .highConfidenceMatches(sum(children, WebSocketMessage::getHighConfidenceMatches))
+                .lowConfidenceMatches(sum(children, WebSocketMessage::getLowConfidenceMatches))
+                .failedTracks(sum(children, WebSocketMessage::getFailedTracks))
+                .build();
+    }
+
+    private static int sum(Collection<WebSocketMessage> children, Function<WebSocketMessage, Integer> counter) {
+        return children.stream().map(counter).filter(Objects::nonNull).mapToInt(Integer::intValue).sum();
+    }
+}
@@ -1,5 +1,6 @@
 package com.spotease.dto;
 
+import com.spotease.model.ConversionJob;
 import com.spotease.model.JobStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -27,7 +28,34 @@ public class ConversionResponse {
     private Integer highConfidenceMatches;
     private Integer lowConfidenceMatches;
     private Integer failedTracks;
+    private Integer searchesSaved;
+    private String failureReason;
+    private Integer queuePosition;  // Only on GET /api/conversions/{id} while the job waits for a worker
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private LocalDateTime completedAt;
+
+    public static ConversionResponse from(ConversionJob job) {
+        return ConversionResponse.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .sourcePlatform(job.getSourcePlatform().name())
+                .sourcePlaylistId(job.getSourcePlaylistId())
+                .sourcePlaylistName(job.getSourcePlaylistName())
+                .destinationPlatform(job.getDestinationPlatform().name())
+                .destinationPlaylistId(job.getDestinationPlaylistId())
+                .destinationPlaylistName(job.getDestinationPlaylistName())
+                .mode(job.getMode().name())
+                .totalTracks(job.getTotalTracks())
+                .processedTracks(job.getProcessedTracks())
+                .highConfidenceMatches(job.getHighConfidenceMatches())
+                .lowConfidenceMatches(job.getLowConfidenceMatches())
+                .failedTracks(job.getFailedTracks())
+                .searchesSaved(job.getSearchesSaved())
+                .failureReason(job.getFailureReason())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
 }
@@ -0,0 +1,28 @@
+package com.spotease.dto;
+
+import com.spotease.model.MatchStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compact per-track event published as each match of a running job is persisted.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchEvent {
+    // Position in the job's event stream; null for events loaded from the database
+    private Long sequence;
+    private Long matchId;
+    private String sourceTrackId;
+    private MatchStatus status;
+    private Double confidence;
+
+    // Used by the JPQL constructor projection in TrackMatchRepository
+    public MatchEvent(Long matchId, String sourceTrackId, MatchStatus status, Double confidence) {
+        this(null, matchId, sourceTrackId, status, confidence);
+    }
+}
@@ -0,0 +1,24 @@
+package com.spotease.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Match events of a job so far, sent to a client when it subscribes to the job's match stream.
+ * For a running job, live events with a sequence greater than {@code lastSequence} follow on the
+ * job's matches topic.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchEventSnapshot {
+    private Long jobId;
+    private boolean live;
+    private Long lastSequence;
+    private List<MatchEvent> events;
+}
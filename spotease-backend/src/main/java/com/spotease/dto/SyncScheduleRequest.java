@@ -0,0 +1,30 @@
+package com.spotease.dto;
+
+import com.spotease.model.Platform;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncScheduleRequest {
+
+    @NotNull(message = "Source platform is required")
+    private Platform sourcePlatform;
+
+    @NotNull(message = "Source playlist ID is required")
+    private String sourcePlaylistId;
+
+    @NotNull(message = "Destination playlist ID is required")
+    private String destinationPlaylistId;
+
+    // Hours between syncs; defaults to daily
+    private Integer intervalHours;
+
+    // Defaults to true
+    private Boolean enabled;
+}
@@ -0,0 +1,41 @@
+package com.spotease.dto;
+
+import com.spotease.model.SyncSchedule;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncScheduleResponse {
+    private Long id;
+    private String sourcePlatform;
+    private String sourcePlaylistId;
+    private String destinationPlatform;
+    private String destinationPlaylistId;
+    private Integer intervalHours;
+    private Boolean enabled;
+    private LocalDateTime nextRunAt;
+    private LocalDateTime lastRunAt;
+    private Long lastJobId;
+
+    public static SyncScheduleResponse from(SyncSchedule schedule) {
+        return SyncScheduleResponse.builder()
+                .id(schedule.getId())
+                .sourcePlatform(schedule.getSourcePlatform().name())
+                .sourcePlaylistId(schedule.getSourcePlaylistId())
+                .destinationPlatform(schedule.getDestinationPlatform().name())
+                .destinationPlaylistId(schedule.getDestinationPlaylistId())
+                .intervalHours(schedule.getIntervalMinutes() / 60)
+                .enabled(schedule.isEnabled())
+                .nextRunAt(schedule.getNextRunAt())
+                .lastRunAt(schedule.getLastRunAt())
+                .lastJobId(schedule.getLastJobId())
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.spotease.dto;
 
+import com.spotease.model.ConversionJob;
 import com.spotease.model.JobStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,10 +14,31 @@ import lombok.NoArgsConstructor;
 public class WebSocketMessage {
     private Long jobId;
     private JobStatus status;
+    private String sourcePlaylistName;
+    private String destinationPlaylistName;
     private Integer totalTracks;
     private Integer processedTracks;
     private Integer highConfidenceMatches;
     private Integer lowConfidenceMatches;
     private Integer failedTracks;
+    private Integer searchesSaved;
     private String errorMessage;
+
+    /**
+     * Current progress of a job, as sent to WebSocket and SSE subscribers.
+     */
+    public static WebSocketMessage from(ConversionJob job) {
+        return WebSocketMessage.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .sourcePlaylistName(job.getSourcePlaylistName())
+                .destinationPlaylistName(job.getDestinationPlaylistName())
+                .totalTracks(job.getTotalTracks())
+                .processedTracks(job.getProcessedTracks())
+                .highConfidenceMatches(job.getHighConfidenceMatches())
+                .lowConfidenceMatches(job.getLowConfidenceMatches())
+                .failedTracks(job.getFailedTracks())
+                .searchesSaved(job.getSearchesSaved())
+                .build();
+    }
 }
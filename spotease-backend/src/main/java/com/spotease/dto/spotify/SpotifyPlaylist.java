@@ -11,6 +11,8 @@ public class SpotifyPlaylist {
     private String name;
     private String description;
     private Integer totalTracks;
+    // Changes whenever the playlist's tracks change
+    private String snapshotId;
 
     @JsonProperty("imageUrl")
     private String coverImageUrl;
@@ -1,6 +1,6 @@
 package com.spotease.event;
 
-import com.spotease.worker.ConversionWorker;
+import com.spotease.service.JobDispatcher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -8,24 +8,28 @@ import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
 
 /**
- * Listens for conversion job events and triggers async processing.
- * Uses @TransactionalEventListener to ensure job is committed before processing starts.
+ * Listens for conversion job events and wakes up the dispatcher.
+ * Uses @TransactionalEventListener to ensure job is committed before it can be claimed.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ConversionJobEventListener {
 
-    private final ConversionWorker conversionWorker;
+    private final JobDispatcher jobDispatcher;
 
     /**
-     * Triggered after the transaction that created the job commits.
-     * This prevents race conditions where the async worker tries to load
-     * a job that hasn't been committed yet.
+     * Triggered after the transaction that created the job commits. The job only starts right
+     * away if it is next in line and a worker is free; otherwise a later dispatch picks it up.
      */
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void onConversionJobCreated(ConversionJobCreatedEvent event) {
-        log.debug("Triggering async processing for conversion job {}", event.getJobId());
-        conversionWorker.processConversionJob(event.getJobId());
+        log.debug("Dispatching after conversion job {} was queued", event.getJobId());
+        try {
+            jobDispatcher.dispatch();
+        } catch (Exception e) {
+            // The job stays queued; the periodic dispatch retries
+            log.warn("Dispatch after queuing job {} failed: {}", event.getJobId(), e.getMessage());
+        }
     }
 }
@@ -0,0 +1,48 @@
+package com.spotease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * A batch of playlists submitted together. Each playlist is converted by a child
+ * {@link ConversionJob}; the children share track matches, and the batch finishes with its last child.
+ */
+@Entity
+@Table(name = "bulk_conversions", indexes = {
+        @Index(name = "idx_bulk_conversions_user_created", columnList = "user_id, created_at")
+})
+@Data
+@EntityListeners(AuditingEntityListener.class)
+public class BulkConversion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // QUEUED until a child starts; set from the children's outcomes once the last one finishes
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status;
+
+    @Column(nullable = false)
+    private Integer totalJobs;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,107 @@
+package com.spotease.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * A track match found by one child job of a bulk conversion, for the other children to reuse.
+ */
+@Entity
+@Table(name = "bulk_track_matches")
+@IdClass(BulkTrackMatch.Key.class)
+@Data
+public class BulkTrackMatch {
+
+    @Id
+    private Long bulkConversionId;
+
+    // Source platform and track id
+    @Id
+    private String sourceKey;
+
+    @Column(nullable = false)
+    private String sourceTrackId;
+
+    @Column(nullable = false)
+    private String sourceTrackName;
+
+    @Column(nullable = false)
+    private String sourceArtist;
+
+    private String sourceAlbum;
+    private Integer sourceDuration;
+    private String sourceIsrc;
+    private String sourceImageUrl;
+
+    private String destinationTrackId;
+    private String destinationTrackName;
+    private String destinationArtist;
+    private Integer destinationDuration;
+    private String destinationImageUrl;
+
+    private Double matchConfidence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MatchStatus status;
+
+    @Column(length = 1024)
+    private String errorMessage;
+
+    public static BulkTrackMatch of(Long bulkConversionId, String sourceKey, TrackMatch match) {
+        BulkTrackMatch shared = new BulkTrackMatch();
+        shared.setBulkConversionId(bulkConversionId);
+        shared.setSourceKey(sourceKey);
+        shared.setSourceTrackId(match.getSourceTrackId());
+        shared.setSourceTrackName(match.getSourceTrackName());
+        shared.setSourceArtist(match.getSourceArtist());
+        shared.setSourceAlbum(match.getSourceAlbum());
+        shared.setSourceDuration(match.getSourceDuration());
+        shared.setSourceIsrc(match.getSourceISRC());
+        shared.setSourceImageUrl(match.getSourceImageUrl());
+        shared.setDestinationTrackId(match.getDestinationTrackId());
+        shared.setDestinationTrackName(match.getDestinationTrackName());
+        shared.setDestinationArtist(match.getDestinationArtist());
+        shared.setDestinationDuration(match.getDestinationDuration());
+        shared.setDestinationImageUrl(match.getDestinationImageUrl());
+        shared.setMatchConfidence(match.getMatchConfidence());
+        shared.setStatus(match.getStatus());
+        shared.setErrorMessage(match.getErrorMessage());
+        return shared;
+    }
+
+    /**
+     * A new, unsaved match with this outcome, for {@code job}.
+     */
+    public TrackMatch toMatchFor(ConversionJob job) {
+        TrackMatch match = new TrackMatch();
+        match.setSourceTrackId(sourceTrackId);
+        match.setSourceTrackName(sourceTrackName);
+        match.setSourceArtist(sourceArtist);
+        match.setSourceAlbum(sourceAlbum);
+        match.setSourceDuration(sourceDuration);
+        match.setSourceISRC(sourceIsrc);
+        match.setSourceImageUrl(sourceImageUrl);
+        match.setDestinationTrackId(destinationTrackId);
+        match.setDestinationTrackName(destinationTrackName);
+        match.setDestinationArtist(destinationArtist);
+        match.setDestinationDuration(destinationDuration);
+        match.setDestinationImageUrl(destinationImageUrl);
+        match.setMatchConfidence(matchConfidence);
+        match.setStatus(status);
+        match.setErrorMessage(errorMessage);
+        return match.copyFor(job);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long bulkConversionId;
+        private String sourceKey;
+    }
+}
@@ -9,7 +9,12 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "conversion_jobs")
+@Table(name = "conversion_jobs", indexes = {
+        @Index(name = "idx_conversion_jobs_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_conversion_jobs_user_status", columnList = "user_id, status"),
+        @Index(name = "idx_conversion_jobs_bulk", columnList = "bulk_conversion_id"),
+        @Index(name = "idx_conversion_jobs_status_claimed", columnList = "status, claimed_by")
+})
 @Data
 @EntityListeners(AuditingEntityListener.class)
 public class ConversionJob {
@@ -22,6 +27,11 @@ public class ConversionJob {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Set for the child jobs of a bulk conversion
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "bulk_conversion_id")
+    private BulkConversion bulkConversion;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Platform sourcePlatform;
@@ -29,8 +39,7 @@ public class ConversionJob {
     @Column(nullable = false)
     private String sourcePlaylistId;
 
-    @Column(nullable = false)
-    private String sourcePlaylistName;
+    private String sourcePlaylistName;  // Filled in by the worker once the playlist is validated
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -38,8 +47,7 @@ public class ConversionJob {
 
     private String destinationPlaylistId;  // Nullable for CREATE mode
 
-    @Column(nullable = false)
-    private String destinationPlaylistName;
+    private String destinationPlaylistName;  // Looked up by the worker for UPDATE mode if not supplied
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -49,6 +57,14 @@ public class ConversionJob {
     @Column(nullable = false)
     private JobStatus status;
 
+    // Idempotency-Key of the request that created the job, unique per user
+    @Column(updatable = false)
+    private String idempotencyKey;
+
+    // What the job converts (source, destination, mode); unique per user among QUEUED, PROCESSING and PAUSED jobs
+    @Column(nullable = false, updatable = false, length = 600)
+    private String dedupKey;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -59,10 +75,31 @@ public class ConversionJob {
 
     private LocalDateTime completedAt;
 
+    // Source playlist size known at submission, if any; the dispatcher runs small jobs first
+    private Integer estimatedTracks;
+
+    // Replica that took the job off the queue; null while it waits for a worker
+    private String claimedBy;
+
+    private LocalDateTime claimedAt;
+
+    // Times the reaper put the job back on the queue after its replica or worker died
+    @Column(nullable = false)
+    private Integer recoveryAttempts = 0;
+
+    // Why a FAILED job failed
+    @Column(length = 500)
+    private String failureReason;
+
+    // Set once the job's matches have been moved to track_match_archives
+    private LocalDateTime archivedAt;
+
     // Progress tracking
     private Integer totalTracks = 0;
     private Integer processedTracks = 0;
     private Integer highConfidenceMatches = 0;
     private Integer lowConfidenceMatches = 0;
     private Integer failedTracks = 0;
+    // Repeated source tracks matched from an earlier occurrence instead of a new search
+    private Integer searchesSaved = 0;
 }
@@ -2,5 +2,7 @@ package com.spotease.model;
 
 public enum ConversionMode {
     CREATE,
-    UPDATE
+    UPDATE,
+    // Like UPDATE, but only tracks added to or removed from the source since the last sync are processed
+    SYNC
 }
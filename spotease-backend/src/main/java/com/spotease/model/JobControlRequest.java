@@ -0,0 +1,26 @@
+package com.spotease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user's request to cancel or pause a running job, picked up by whichever replica runs it.
+ */
+@Entity
+@Table(name = "job_control_requests")
+@Data
+public class JobControlRequest {
+
+    @Id
+    private Long jobId;
+
+    // CANCELLED or PAUSED
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus requestedStatus;
+
+    @Column(nullable = false)
+    private LocalDateTime requestedAt;
+}
@@ -0,0 +1,24 @@
+package com.spotease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last sign of life of a running job, written by the replica running it.
+ */
+@Entity
+@Table(name = "job_heartbeats")
+@Data
+public class JobHeartbeat {
+
+    @Id
+    private Long jobId;
+
+    @Column(nullable = false)
+    private String instanceId;
+
+    @Column(nullable = false)
+    private LocalDateTime beatAt;
+}
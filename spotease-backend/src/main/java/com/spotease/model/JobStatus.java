@@ -3,7 +3,9 @@ package com.spotease.model;
 public enum JobStatus {
     QUEUED,
     PROCESSING,
+    PAUSED,  // Stopped by the user between tracks; resuming continues after the last saved match
     REVIEW_PENDING,
     COMPLETED,
-    FAILED
+    FAILED,
+    CANCELLED
 }
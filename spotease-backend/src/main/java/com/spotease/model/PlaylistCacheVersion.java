@@ -0,0 +1,36 @@
+package com.spotease.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Version of a user's playlist listing on one platform, bumped whenever a replica invalidates it.
+ */
+@Entity
+@Table(name = "playlist_cache_versions")
+@IdClass(PlaylistCacheVersion.Key.class)
+@Data
+public class PlaylistCacheVersion {
+
+    @Id
+    private Long userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private Platform platform;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private Platform platform;
+    }
+}
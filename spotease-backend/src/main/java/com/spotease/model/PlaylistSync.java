@@ -0,0 +1,60 @@
+package com.spotease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sync state of one source → destination playlist pair: the source snapshot the destination was
+ * last brought up to date with. Its {@link PlaylistSyncTrack}s record how each source track was matched.
+ */
+@Entity
+@Table(name = "playlist_syncs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_playlist_syncs_pair",
+                columnNames = {"user_id", "source_platform", "source_playlist_id", "destination_playlist_id"})
+})
+@Data
+@EntityListeners(AuditingEntityListener.class)
+public class PlaylistSync {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Platform sourcePlatform;
+
+    @Column(nullable = false)
+    private String sourcePlaylistId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Platform destinationPlatform;
+
+    @Column(nullable = false)
+    private String destinationPlaylistId;
+
+    // Spotify snapshot_id, or a hash of the NetEase track ids; null until the first sync completes
+    private String sourceSnapshot;
+
+    private Long lastJobId;
+
+    private LocalDateTime lastSyncedAt;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
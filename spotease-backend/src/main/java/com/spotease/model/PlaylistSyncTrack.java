@@ -0,0 +1,29 @@
+package com.spotease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * A source track already handled by a playlist sync, and the destination track it was added as.
+ */
+@Entity
+@Table(name = "playlist_sync_tracks", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_playlist_sync_tracks_source", columnNames = {"playlist_sync_id", "source_track_id"})
+})
+@Data
+public class PlaylistSyncTrack {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "playlist_sync_id", nullable = false)
+    private PlaylistSync playlistSync;
+
+    @Column(nullable = false)
+    private String sourceTrackId;
+
+    // Null while the match is unresolved (pending review or failed)
+    private String destinationTrackId;
+}
@@ -0,0 +1,66 @@
+package com.spotease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * A playlist pair the sync scheduler keeps up to date by enqueuing a SYNC job every interval.
+ */
+@Entity
+@Table(name = "sync_schedules", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sync_schedules_pair",
+                columnNames = {"user_id", "source_platform", "source_playlist_id", "destination_playlist_id"})
+})
+@Data
+@EntityListeners(AuditingEntityListener.class)
+public class SyncSchedule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Platform sourcePlatform;
+
+    @Column(nullable = false)
+    private String sourcePlaylistId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Platform destinationPlatform;
+
+    @Column(nullable = false)
+    private String destinationPlaylistId;
+
+    @Column(nullable = false)
+    private Integer intervalMinutes;
+
+    @Column(nullable = false)
+    private boolean enabled = true;
+
+    // Includes jitter, so schedules created together do not all run together
+    @Column(nullable = false)
+    private LocalDateTime nextRunAt;
+
+    private LocalDateTime lastRunAt;
+
+    private Long lastJobId;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
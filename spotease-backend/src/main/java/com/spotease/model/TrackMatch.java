@@ -6,7 +6,9 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "track_matches")
+@Table(name = "track_matches", indexes = {
+        @Index(name = "idx_track_matches_job_status_id", columnList = "conversion_job_id, status, id")
+})
 @Data
 public class TrackMatch {
 
@@ -55,4 +57,31 @@ public class TrackMatch {
 
     private LocalDateTime reviewedAt;
     private LocalDateTime appliedAt;
+
+    /**
+     * A new, unsaved match with the same source and destination tracks and outcome, for {@code job}.
+     */
+    public TrackMatch copyFor(ConversionJob job) {
+        TrackMatch copy = new TrackMatch();
+        copy.setConversionJob(job);
+        copy.setSourceTrackId(sourceTrackId);
+        copy.setSourceTrackName(sourceTrackName);
+        copy.setSourceArtist(sourceArtist);
+        copy.setSourceAlbum(sourceAlbum);
+        copy.setSourceDuration(sourceDuration);
+        copy.setSourceISRC(sourceISRC);
+        copy.setSourceImageUrl(sourceImageUrl);
+        copy.setDestinationTrackId(destinationTrackId);
+        copy.setDestinationTrackName(destinationTrackName);
+        copy.setDestinationArtist(destinationArtist);
+        copy.setDestinationDuration(destinationDuration);
+        copy.setDestinationImageUrl(destinationImageUrl);
+        copy.setMatchConfidence(matchConfidence);
+        copy.setStatus(status);
+        copy.setErrorMessage(errorMessage);
+        if (status == MatchStatus.AUTO_MATCHED) {
+            copy.setAppliedAt(LocalDateTime.now());
+        }
+        return copy;
+    }
 }
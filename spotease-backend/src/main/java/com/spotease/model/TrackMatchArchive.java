@@ -0,0 +1,29 @@
+package com.spotease.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cold copy of all matches of an archived conversion job, stored as one gzip-compressed JSON
+ * array of {@link com.spotease.dto.TrackMatchDto} instead of one track_matches row per track.
+ */
+@Entity
+@Table(name = "track_match_archives")
+@Data
+public class TrackMatchArchive {
+
+    @Id
+    @Column(name = "conversion_job_id")
+    private Long conversionJobId;
+
+    @Column(nullable = false)
+    private Integer matchCount;
+
+    @Column(nullable = false)
+    private byte[] payload;  // gzip(JSON)
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
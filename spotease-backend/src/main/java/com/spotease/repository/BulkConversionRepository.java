@@ -0,0 +1,31 @@
+package com.spotease.repository;
+
+import com.spotease.model.BulkConversion;
+import com.spotease.model.JobStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BulkConversionRepository extends JpaRepository<BulkConversion, Long> {
+
+    /**
+     * Locks the batch row, so children finishing at the same time decide its outcome one at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from BulkConversion b where b.id = :id")
+    Optional<BulkConversion> findByIdForUpdate(@Param("id") Long id);
+
+    @Modifying
+    @Query("""
+            update BulkConversion b set b.status = :status, b.updatedAt = current_timestamp
+            where b.id = :id and b.status = :expected
+            """)
+    int updateStatus(@Param("id") Long id, @Param("expected") JobStatus expected, @Param("status") JobStatus status);
+}
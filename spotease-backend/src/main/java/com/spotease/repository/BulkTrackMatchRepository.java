@@ -0,0 +1,16 @@
+package com.spotease.repository;
+
+import com.spotease.model.BulkTrackMatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BulkTrackMatchRepository extends JpaRepository<BulkTrackMatch, BulkTrackMatch.Key> {
+
+    @Modifying
+    @Query("delete from BulkTrackMatch m where m.bulkConversionId = :bulkConversionId")
+    int deleteByBulkConversionId(@Param("bulkConversionId") Long bulkConversionId);
+}
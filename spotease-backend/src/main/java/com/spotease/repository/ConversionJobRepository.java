@@ -2,14 +2,224 @@ package com.spotease.repository;
 
 import com.spotease.model.ConversionJob;
 import com.spotease.model.JobStatus;
+import com.spotease.model.Platform;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ConversionJobRepository extends JpaRepository<ConversionJob, Long> {
     List<ConversionJob> findByUser_Id(Long userId);
 
     List<ConversionJob> findByUser_IdAndStatus(Long userId, JobStatus status);
+
+    long countByUser_IdAndStatusIn(Long userId, Collection<JobStatus> statuses);
+
+    long countByDestinationPlatformAndStatusIn(Platform destinationPlatform, Collection<JobStatus> statuses);
+
+    List<ConversionJob> findByBulkConversion_IdOrderById(Long bulkConversionId);
+
+    Optional<ConversionJob> findByUser_IdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    /**
+     * A user's in-flight job for the same conversion. Backed by uq_conversion_jobs_user_active_dedup.
+     */
+    Optional<ConversionJob> findFirstByUser_IdAndDedupKeyAndStatusIn(
+            Long userId, String dedupKey, Collection<JobStatus> statuses);
+
+    long countByClaimedByAndStatusIn(String claimedBy, Collection<JobStatus> statuses);
+
+    /**
+     * Jobs waiting for a worker, oldest first. Served by idx_conversion_jobs_status_claimed.
+     */
+    @Query("""
+            select new com.spotease.repository.QueuedJob(
+                j.id, j.user.id, j.destinationPlatform, j.estimatedTracks, j.createdAt)
+            from ConversionJob j
+            where j.status = :status and j.claimedBy is null
+            order by j.createdAt, j.id
+            """)
+    List<QueuedJob> findUnclaimed(@Param("status") JobStatus status, Pageable pageable);
+
+    /**
+     * Claimed jobs on every replica, with the tracks they have left (their estimate until the
+     * worker has read the source playlist).
+     */
+    @Query("""
+            select new com.spotease.repository.QueuedJob(
+                j.id, j.user.id, j.destinationPlatform,
+                case when j.totalTracks > 0 then j.totalTracks - j.processedTracks else j.estimatedTracks end,
+                j.createdAt)
+            from ConversionJob j
+            where j.claimedBy is not null and j.status in :statuses
+            """)
+    List<QueuedJob> findClaimed(@Param("statuses") Collection<JobStatus> statuses);
+
+    /**
+     * Takes a queued job for a replica. Returns 0 if another replica claimed it first.
+     */
+    @Modifying
+    @Query("""
+            update ConversionJob j set j.claimedBy = :claimedBy, j.claimedAt = :claimedAt
+            where j.id = :id and j.status = :status and j.claimedBy is null
+            """)
+    int claim(@Param("id") Long id,
+              @Param("status") JobStatus status,
+              @Param("claimedBy") String claimedBy,
+              @Param("claimedAt") LocalDateTime claimedAt);
+
+    /**
+     * Moves a job no worker holds (queued and unclaimed, or paused) to another status. Returns 0 if
+     * the job is not in one of the {@code from} statuses or a worker claimed it meanwhile.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update ConversionJob j
+            set j.status = :to, j.claimedBy = null, j.claimedAt = null, j.updatedAt = :now
+            where j.id = :id and j.status in :from and j.claimedBy is null
+            """)
+    int transitionUnclaimed(@Param("id") Long id,
+                            @Param("from") Collection<JobStatus> from,
+                            @Param("to") JobStatus to,
+                            @Param("now") LocalDateTime now);
+
+    /**
+     * Writes the status, playlist fields and counters of a running job. The worker's transaction
+     * commits only when the job ends, so its progress is written with this in a transaction of its own.
+     */
+    @Modifying
+    @Query("""
+            update ConversionJob j
+            set j.status = :#{#job.status},
+                j.sourcePlaylistName = :#{#job.sourcePlaylistName},
+                j.destinationPlaylistId = :#{#job.destinationPlaylistId},
+                j.destinationPlaylistName = :#{#job.destinationPlaylistName},
+                j.totalTracks = :#{#job.totalTracks},
+                j.processedTracks = :#{#job.processedTracks},
+                j.highConfidenceMatches = :#{#job.highConfidenceMatches},
+                j.lowConfidenceMatches = :#{#job.lowConfidenceMatches},
+                j.failedTracks = :#{#job.failedTracks},
+                j.searchesSaved = :#{#job.searchesSaved},
+                j.updatedAt = :now
+            where j.id = :#{#job.id}
+            """)
+    int updateProgress(@Param("job") ConversionJob job, @Param("now") LocalDateTime now);
+
+    /**
+     * Puts a claimed job back on the queue.
+     */
+    @Modifying
+    @Query("update ConversionJob j set j.claimedBy = null, j.claimedAt = null where j.id = :id and j.claimedBy = :claimedBy")
+    int release(@Param("id") Long id, @Param("claimedBy") String claimedBy);
+
+    /**
+     * Claimed jobs that were claimed before {@code cutoff} and have had no heartbeat since: their
+     * replica died, their worker died, or their worker is stuck.
+     */
+    @Query("""
+            select j.id from ConversionJob j
+            where j.claimedBy is not null
+              and j.status in :statuses
+              and j.claimedAt < :cutoff
+              and not exists (select h.jobId from JobHeartbeat h where h.jobId = j.id and h.beatAt >= :cutoff)
+            order by j.id
+            """)
+    List<Long> findStaleClaims(@Param("statuses") Collection<JobStatus> statuses,
+                               @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Locks a job's row until the current transaction ends, without blocking updates that leave its
+     * key alone. Taken by the job's worker; PostgreSQL only.
+     */
+    @Query(value = "SELECT id FROM conversion_jobs WHERE id = :id FOR KEY SHARE", nativeQuery = true)
+    Optional<Long> lockKeyShare(@Param("id") Long id);
+
+    /**
+     * Locks those of the given jobs whose row no other transaction holds, and returns their ids. A
+     * worker locks its job's row when it starts and holds the lock until its transaction ends (see
+     * JobControlService#lockJob), so the jobs left out still have a live worker.
+     */
+    @Query(value = "SELECT id FROM conversion_jobs WHERE id IN (:ids) FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockUnheld(@Param("ids") Collection<Long> ids);
+
+    /**
+     * First page of a user's jobs, newest first. Served by idx_conversion_jobs_user_created.
+     */
+    @Query("""
+            select new com.spotease.repository.ConversionJobSummary(
+                j.id, j.status, j.sourcePlatform, j.sourcePlaylistId, j.sourcePlaylistName,
+                j.destinationPlatform, j.destinationPlaylistId, j.destinationPlaylistName, j.mode,
+                j.totalTracks, j.processedTracks, j.highConfidenceMatches, j.lowConfidenceMatches,
+                j.failedTracks, j.searchesSaved, j.createdAt, j.updatedAt, j.completedAt)
+            from ConversionJob j
+            where j.user.id = :userId
+            order by j.createdAt desc, j.id desc
+            """)
+    List<ConversionJobSummary> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Page of a user's jobs strictly older than the given keyset position, newest first.
+     */
+    @Query("""
+            select new com.spotease.repository.ConversionJobSummary(
+                j.id, j.status, j.sourcePlatform, j.sourcePlaylistId, j.sourcePlaylistName,
+                j.destinationPlatform, j.destinationPlaylistId, j.destinationPlaylistName, j.mode,
+                j.totalTracks, j.processedTracks, j.highConfidenceMatches, j.lowConfidenceMatches,
+                j.failedTracks, j.searchesSaved, j.createdAt, j.updatedAt, j.completedAt)
+            from ConversionJob j
+            where j.user.id = :userId
+              and (j.createdAt < :createdAt or (j.createdAt = :createdAt and j.id < :id))
+            order by j.createdAt desc, j.id desc
+            """)
+    List<ConversionJobSummary> findSummariesByUserIdBefore(
+            @Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * Ids of finished jobs last touched before {@code cutoff} whose matches are still in the hot table.
+     */
+    @Query("""
+            select j.id from ConversionJob j
+            where j.archivedAt is null
+              and j.status in :statuses
+              and j.updatedAt < :cutoff
+            order by j.id
+            """)
+    List<Long> findArchivableJobIds(
+            @Param("statuses") Collection<JobStatus> statuses,
+            @Param("cutoff") LocalDateTime cutoff,
+            Pageable pageable);
+
+    /**
+     * Ids of archived jobs that still have rows in the hot table, left behind by an archival run
+     * that stopped between archiving a job and deleting its hot rows.
+     */
+    @Query("""
+            select j.id from ConversionJob j
+            where j.archivedAt is not null
+              and exists (select m.id from TrackMatch m where m.conversionJob.id = j.id)
+            order by j.id
+            """)
+    List<Long> findArchivedJobIdsWithHotMatches(Pageable pageable);
+
+    @Modifying
+    @Query("update ConversionJob j set j.archivedAt = :archivedAt where j.id = :id")
+    int markArchived(@Param("id") Long id, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Deletes the job row without loading it. Its archive row goes with it via ON DELETE CASCADE.
+     */
+    @Modifying
+    @Query("delete from ConversionJob j where j.id = :id")
+    int deleteJobById(@Param("id") Long id);
 }
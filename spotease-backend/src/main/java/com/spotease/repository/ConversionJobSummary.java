@@ -0,0 +1,34 @@
+package com.spotease.repository;
+
+import com.spotease.model.ConversionMode;
+import com.spotease.model.JobStatus;
+import com.spotease.model.Platform;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a {@link com.spotease.model.ConversionJob} carrying only the columns
+ * the job listing renders. Selected with a JPQL constructor expression so no entity (and no
+ * lazy {@code user} association) is materialized.
+ */
+public record ConversionJobSummary(
+        Long id,
+        JobStatus status,
+        Platform sourcePlatform,
+        String sourcePlaylistId,
+        String sourcePlaylistName,
+        Platform destinationPlatform,
+        String destinationPlaylistId,
+        String destinationPlaylistName,
+        ConversionMode mode,
+        Integer totalTracks,
+        Integer processedTracks,
+        Integer highConfidenceMatches,
+        Integer lowConfidenceMatches,
+        Integer failedTracks,
+        Integer searchesSaved,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        LocalDateTime completedAt
+) {
+}
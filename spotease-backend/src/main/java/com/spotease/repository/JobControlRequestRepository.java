@@ -0,0 +1,16 @@
+package com.spotease.repository;
+
+import com.spotease.model.JobControlRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobControlRequestRepository extends JpaRepository<JobControlRequest, Long> {
+
+    @Modifying
+    @Query("delete from JobControlRequest r where r.jobId = :jobId")
+    int deleteByJobId(@Param("jobId") Long jobId);
+}
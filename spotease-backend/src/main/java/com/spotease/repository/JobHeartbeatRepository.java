@@ -0,0 +1,40 @@
+package com.spotease.repository;
+
+import com.spotease.model.JobHeartbeat;
+import com.spotease.model.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface JobHeartbeatRepository extends JpaRepository<JobHeartbeat, Long> {
+
+    /**
+     * Refreshes the heartbeats of jobs that already have one. Returns how many were updated.
+     */
+    @Modifying
+    @Query("update JobHeartbeat h set h.instanceId = :instanceId, h.beatAt = :beatAt where h.jobId in :jobIds")
+    int beat(@Param("jobIds") Collection<Long> jobIds,
+             @Param("instanceId") String instanceId,
+             @Param("beatAt") LocalDateTime beatAt);
+
+    @Modifying
+    @Query("delete from JobHeartbeat h where h.jobId = :jobId")
+    int deleteByJobId(@Param("jobId") Long jobId);
+
+    /**
+     * Deletes stale heartbeats of jobs that are no longer in flight.
+     */
+    @Modifying
+    @Query("""
+            delete from JobHeartbeat h
+            where h.beatAt < :cutoff
+              and not exists (select j.id from ConversionJob j where j.id = h.jobId and j.status in :statuses)
+            """)
+    int deleteOrphans(@Param("statuses") Collection<JobStatus> statuses, @Param("cutoff") LocalDateTime cutoff);
+}
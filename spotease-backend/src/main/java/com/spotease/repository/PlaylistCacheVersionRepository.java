@@ -0,0 +1,28 @@
+package com.spotease.repository;
+
+import com.spotease.model.Platform;
+import com.spotease.model.PlaylistCacheVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PlaylistCacheVersionRepository extends JpaRepository<PlaylistCacheVersion, PlaylistCacheVersion.Key> {
+
+    @Query("select v.version from PlaylistCacheVersion v where v.userId = :userId and v.platform = :platform")
+    Optional<Long> findVersion(@Param("userId") Long userId, @Param("platform") Platform platform);
+
+    /**
+     * Bumps the version of a listing that was invalidated before. Returns 0 if it never was.
+     */
+    @Modifying
+    @Query("""
+            update PlaylistCacheVersion v set v.version = v.version + 1
+            where v.userId = :userId and v.platform = :platform
+            """)
+    int bump(@Param("userId") Long userId, @Param("platform") Platform platform);
+}
@@ -0,0 +1,15 @@
+package com.spotease.repository;
+
+import com.spotease.model.Platform;
+import com.spotease.model.PlaylistSync;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PlaylistSyncRepository extends JpaRepository<PlaylistSync, Long> {
+
+    Optional<PlaylistSync> findByUser_IdAndSourcePlatformAndSourcePlaylistIdAndDestinationPlaylistId(
+            Long userId, Platform sourcePlatform, String sourcePlaylistId, String destinationPlaylistId);
+}
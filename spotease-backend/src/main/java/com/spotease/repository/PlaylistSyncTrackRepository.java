@@ -0,0 +1,16 @@
+package com.spotease.repository;
+
+import com.spotease.model.PlaylistSyncTrack;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PlaylistSyncTrackRepository extends JpaRepository<PlaylistSyncTrack, Long> {
+
+    List<PlaylistSyncTrack> findByPlaylistSync_Id(Long playlistSyncId);
+
+    Optional<PlaylistSyncTrack> findByPlaylistSync_IdAndSourceTrackId(Long playlistSyncId, String sourceTrackId);
+}
@@ -0,0 +1,16 @@
+package com.spotease.repository;
+
+import com.spotease.model.Platform;
+
+import java.time.LocalDateTime;
+
+/**
+ * What the dispatcher needs to know about a queued or running job to decide what runs next.
+ */
+public record QueuedJob(
+        Long id,
+        Long userId,
+        Platform destinationPlatform,
+        Integer estimatedTracks,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,32 @@
+package com.spotease.repository;
+
+import com.spotease.model.Platform;
+import com.spotease.model.SyncSchedule;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SyncScheduleRepository extends JpaRepository<SyncSchedule, Long> {
+
+    List<SyncSchedule> findByUser_IdOrderByCreatedAtDesc(Long userId);
+
+    Optional<SyncSchedule> findByUser_IdAndSourcePlatformAndSourcePlaylistIdAndDestinationPlaylistId(
+            Long userId, Platform sourcePlatform, String sourcePlaylistId, String destinationPlaylistId);
+
+    /**
+     * Enabled schedules whose next run is due, longest overdue first. Served by idx_sync_schedules_due.
+     */
+    @Query("""
+            select s from SyncSchedule s join fetch s.user
+            where s.enabled = true and s.nextRunAt <= :now
+            order by s.nextRunAt
+            """)
+    List<SyncSchedule> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+}
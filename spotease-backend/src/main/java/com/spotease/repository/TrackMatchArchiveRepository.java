@@ -0,0 +1,9 @@
+package com.spotease.repository;
+
+import com.spotease.model.TrackMatchArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TrackMatchArchiveRepository extends JpaRepository<TrackMatchArchive, Long> {
+}
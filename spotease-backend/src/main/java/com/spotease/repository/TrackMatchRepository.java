@@ -1,8 +1,14 @@
 package com.spotease.repository;
 
+import com.spotease.dto.MatchEvent;
+import com.spotease.dto.TrackMatchDto;
 import com.spotease.model.MatchStatus;
 import com.spotease.model.TrackMatch;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,4 +22,65 @@ public interface TrackMatchRepository extends JpaRepository<TrackMatch, Long> {
     List<TrackMatch> findByConversionJob_IdAndStatusIn(Long conversionJobId, List<MatchStatus> statuses);
 
     long countByConversionJob_IdAndStatusIn(Long conversionJobId, List<MatchStatus> statuses);
+
+    /**
+     * Page of matches for a job in the given statuses with id greater than {@code afterId},
+     * projected straight into the review DTO. Served by idx_track_matches_job_status_id.
+     */
+    @Query("""
+            select new com.spotease.dto.TrackMatchDto(
+                m.id, m.sourceTrackId, m.sourceTrackName, m.sourceArtist, m.sourceAlbum,
+                m.sourceDuration, m.sourceImageUrl, m.destinationTrackId, m.destinationTrackName,
+                m.destinationArtist, m.destinationDuration, m.destinationImageUrl,
+                m.matchConfidence, m.status, m.errorMessage)
+            from TrackMatch m
+            where m.conversionJob.id = :jobId
+              and m.status in :statuses
+              and m.id > :afterId
+            order by m.id
+            """)
+    List<TrackMatchDto> findDtosByJobIdAndStatusIn(
+            @Param("jobId") Long jobId,
+            @Param("statuses") List<MatchStatus> statuses,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * All matches of a job projected into the review DTO, in match order. Used to build archives.
+     */
+    @Query("""
+            select new com.spotease.dto.TrackMatchDto(
+                m.id, m.sourceTrackId, m.sourceTrackName, m.sourceArtist, m.sourceAlbum,
+                m.sourceDuration, m.sourceImageUrl, m.destinationTrackId, m.destinationTrackName,
+                m.destinationArtist, m.destinationDuration, m.destinationImageUrl,
+                m.matchConfidence, m.status, m.errorMessage)
+            from TrackMatch m
+            where m.conversionJob.id = :jobId
+            order by m.id
+            """)
+    List<TrackMatchDto> findDtosByJobId(@Param("jobId") Long jobId);
+
+    /**
+     * All matches of a job as compact match events, in match order.
+     */
+    @Query("""
+            select new com.spotease.dto.MatchEvent(m.id, m.sourceTrackId, m.status, m.matchConfidence)
+            from TrackMatch m
+            where m.conversionJob.id = :jobId
+            order by m.id
+            """)
+    List<MatchEvent> findEventsByJobId(@Param("jobId") Long jobId);
+
+    /**
+     * Deletes at most {@code batchSize} matches of a job, so each call holds its row locks briefly.
+     *
+     * @return number of rows deleted; 0 once the job has no matches left
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM track_matches
+            WHERE conversion_job_id = :jobId
+              AND id IN (SELECT id FROM track_matches WHERE conversion_job_id = :jobId LIMIT :batchSize)
+            """, nativeQuery = true)
+    int deleteBatchByJobId(@Param("jobId") Long jobId, @Param("batchSize") int batchSize);
 }
@@ -1,9 +1,15 @@
 package com.spotease.repository;
 
+import com.spotease.model.JobStatus;
 import com.spotease.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +17,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findBySpotifyUserId(String spotifyUserId);
 
     Optional<User> findByEmail(String email);
+
+    /**
+     * Users with jobs in the given statuses whose Spotify access token expires before {@code threshold}.
+     */
+    @Query("""
+            select distinct u.id from ConversionJob j join j.user u
+            where j.status in :statuses
+              and u.spotifyRefreshToken is not null
+              and u.spotifyTokenExpiry < :threshold
+            """)
+    List<Long> findUserIdsNeedingSpotifyRefresh(
+            @Param("statuses") Collection<JobStatus> statuses,
+            @Param("threshold") LocalDateTime threshold);
 }
@@ -3,6 +3,7 @@ package com.spotease.service;
 import com.spotease.dto.AuthStatusResponse;
 import com.spotease.dto.netease.NeteaseQRKey;
 import com.spotease.dto.netease.NeteaseQRStatus;
+import com.spotease.model.Platform;
 import com.spotease.model.User;
 import com.spotease.repository.UserRepository;
 import com.spotease.util.TokenEncryption;
@@ -27,6 +28,8 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final TokenEncryption tokenEncryption;
+    private final CredentialProvider credentialProvider;
+    private final PlaylistCache playlistCache;
     private final SpotifyApi spotifyApi;
     private final WebClient.Builder webClientBuilder;
 
@@ -37,9 +40,12 @@ public class AuthService {
     private WebClient neteaseWebClient;
 
     public AuthService(UserRepository userRepository, TokenEncryption tokenEncryption,
+                       CredentialProvider credentialProvider, PlaylistCache playlistCache,
                        SpotifyApi spotifyApi, WebClient.Builder webClientBuilder) {
         this.userRepository = userRepository;
         this.tokenEncryption = tokenEncryption;
+        this.credentialProvider = credentialProvider;
+        this.playlistCache = playlistCache;
         this.spotifyApi = spotifyApi;
         this.webClientBuilder = webClientBuilder;
     }
@@ -79,6 +85,10 @@ public class AuthService {
             User user = userRepository.findBySpotifyUserId(profile.getId())
                     .orElse(new User());
 
+            // Drop cached plaintext of the tokens being replaced
+            credentialProvider.invalidate(user.getSpotifyAccessToken());
+            credentialProvider.invalidate(user.getSpotifyRefreshToken());
+
             user.setSpotifyUserId(profile.getId());
             user.setEmail(profile.getEmail());
             user.setSpotifyAccessToken(tokenEncryption.encrypt(credentials.getAccessToken()));
@@ -174,7 +184,10 @@ public class AuthService {
             User user = userRepository.findById(userId)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            // Store the encrypted cookie
+            // Store the encrypted cookie, dropping the cached plaintext of the old one
+            credentialProvider.invalidate(user.getNeteaseCookie());
+            // The new cookie may belong to a different NetEase account
+            playlistCache.invalidate(userId, Platform.NETEASE);
             String encryptedCookie = tokenEncryption.encrypt(cookie);
             user.setNeteaseCookie(encryptedCookie);
 
@@ -0,0 +1,80 @@
+package com.spotease.service;
+
+import com.spotease.model.BulkConversion;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.JobStatus;
+import com.spotease.repository.BulkConversionRepository;
+import com.spotease.repository.ConversionJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tracks the state of bulk conversions as their child jobs run. All methods run in the caller's
+ * transaction, which for the worker is the child job's own.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkConversionService {
+
+    // A paused child keeps its batch open until it is resumed or cancelled
+    private static final Set<JobStatus> IN_FLIGHT = EnumSet.of(JobStatus.QUEUED, JobStatus.PROCESSING, JobStatus.PAUSED);
+
+    private final BulkConversionRepository bulkRepository;
+    private final ConversionJobRepository jobRepository;
+    private final BulkMatchCache bulkMatchCache;
+    private final ProgressPublisher progressPublisher;
+
+    /**
+     * Moves the child's batch to PROCESSING when its first child starts.
+     */
+    public void jobStarted(ConversionJob job) {
+        if (job.getBulkConversion() != null) {
+            bulkRepository.updateStatus(job.getBulkConversion().getId(), JobStatus.QUEUED, JobStatus.PROCESSING);
+        }
+    }
+
+    /**
+     * Finishes the child's batch if this was its last child still running: the batch fails only if
+     * every child failed, is cancelled only if every child was, and needs review if any child does.
+     */
+    public void jobFinished(ConversionJob job) {
+        if (job.getBulkConversion() == null) {
+            return;
+        }
+
+        // Children finishing together take turns, so exactly one of them sees no sibling in flight
+        BulkConversion bulk = bulkRepository.findByIdForUpdate(job.getBulkConversion().getId())
+                .orElse(null);
+        if (bulk == null || !IN_FLIGHT.contains(bulk.getStatus())) {
+            return;
+        }
+
+        List<ConversionJob> children = jobRepository.findByBulkConversion_IdOrderById(bulk.getId());
+        if (children.stream().anyMatch(child -> IN_FLIGHT.contains(child.getStatus()))) {
+            return;
+        }
+
+        if (children.stream().allMatch(child -> child.getStatus() == JobStatus.FAILED)) {
+            bulk.setStatus(JobStatus.FAILED);
+        } else if (children.stream().allMatch(child -> child.getStatus() == JobStatus.CANCELLED)) {
+            bulk.setStatus(JobStatus.CANCELLED);
+        } else if (children.stream().anyMatch(child -> child.getStatus() == JobStatus.REVIEW_PENDING)) {
+            bulk.setStatus(JobStatus.REVIEW_PENDING);
+        } else {
+            bulk.setStatus(JobStatus.COMPLETED);
+        }
+        bulk.setCompletedAt(LocalDateTime.now());
+        bulkRepository.save(bulk);
+
+        bulkMatchCache.evict(bulk.getId());
+        progressPublisher.bulkFinished(bulk, children);
+        log.info("Bulk conversion {} finished as {} after {} jobs", bulk.getId(), bulk.getStatus(), children.size());
+    }
+}
@@ -0,0 +1,153 @@
+package com.spotease.service;
+
+import com.spotease.model.BulkTrackMatch;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.TrackMatch;
+import com.spotease.repository.BulkTrackMatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares track matches between the child jobs of a bulk conversion.
+ * <p>
+ * The first child to reach a source track runs the search; children reaching the same track
+ * meanwhile wait for that search instead of starting their own, and later ones reuse its result.
+ * Each child still gets its own copy of the match to save, review and add to its destination.
+ * <p>
+ * Children of one batch may run on different replicas. Searches are shared in memory only between
+ * children on the same replica, but every result is also stored in {@code bulk_track_matches},
+ * where a child on another replica finds it before searching itself. A batch's matches are
+ * dropped, in memory and in the database, when the batch finishes.
+ */
+@Service
+@Slf4j
+public class BulkMatchCache {
+
+    private final Map<Long, Map<String, CompletableFuture<TrackMatch>>> batches = new ConcurrentHashMap<>();
+    private final BulkTrackMatchRepository matchRepository;
+    private final TransactionTemplate requiresNew;
+
+    private final Counter hits;
+    private final Counter storedHits;
+    private final Counter misses;
+
+    public BulkMatchCache(BulkTrackMatchRepository matchRepository, PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.matchRepository = matchRepository;
+        // Stored matches are read and written outside the job's transaction, so other replicas see them at once
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.hits = requests(meterRegistry, "hit");
+        this.storedHits = requests(meterRegistry, "stored");
+        this.misses = requests(meterRegistry, "miss");
+        Gauge.builder("spotease.bulk-match-cache.batches", batches, Map::size)
+                .description("Bulk conversions with shared matches in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The match for a source track of the job. Jobs outside a bulk conversion always search.
+     *
+     * @param search finds the best match for the track, attributed to {@code job}
+     */
+    public TrackMatch match(ConversionJob job, String sourceTrackId, Supplier<TrackMatch> search) {
+        if (job.getBulkConversion() == null) {
+            return search.get();
+        }
+
+        Map<String, CompletableFuture<TrackMatch>> matches =
+                batches.computeIfAbsent(job.getBulkConversion().getId(), id -> new ConcurrentHashMap<>());
+        // Children of a batch may convert from either platform
+        String key = job.getSourcePlatform() + ":" + sourceTrackId;
+
+        CompletableFuture<TrackMatch> pending = new CompletableFuture<>();
+        CompletableFuture<TrackMatch> shared = matches.putIfAbsent(key, pending);
+        if (shared == null) {
+            Long bulkId = job.getBulkConversion().getId();
+            Optional<TrackMatch> stored = findStored(bulkId, key, job);
+            if (stored.isPresent()) {
+                storedHits.increment();
+                pending.complete(stored.get());
+                return stored.get();
+            }
+            misses.increment();
+            try {
+                TrackMatch match = search.get();
+                pending.complete(match);
+                store(bulkId, key, match);
+                return match;
+            } catch (RuntimeException e) {
+                // Let the next child to reach the track search again
+                matches.remove(key, pending);
+                pending.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            TrackMatch match = shared.join();
+            hits.increment();
+            return match.copyFor(job);
+        } catch (CompletionException e) {
+            log.debug("Shared search for track {} failed, searching for job {}", sourceTrackId, job.getId());
+            return search.get();
+        }
+    }
+
+    /**
+     * Drops the shared matches of a finished bulk conversion.
+     */
+    public void evict(Long bulkConversionId) {
+        batches.remove(bulkConversionId);
+        try {
+            requiresNew.executeWithoutResult(status -> matchRepository.deleteByBulkConversionId(bulkConversionId));
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete stored matches of bulk conversion {}: {}", bulkConversionId, e.getMessage());
+        }
+    }
+
+    /**
+     * A match another child stored for the track, possibly on another replica, copied for {@code job}.
+     */
+    private Optional<TrackMatch> findStored(Long bulkId, String key, ConversionJob job) {
+        try {
+            return requiresNew.execute(status -> matchRepository.findById(new BulkTrackMatch.Key(bulkId, key))
+                    .map(stored -> stored.toMatchFor(job)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to read stored match for track {} of bulk conversion {}: {}", key, bulkId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void store(Long bulkId, String key, TrackMatch match) {
+        try {
+            requiresNew.executeWithoutResult(status -> matchRepository.saveAndFlush(BulkTrackMatch.of(bulkId, key, match)));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Match for track {} of bulk conversion {} was stored by another job first", key, bulkId);
+        } catch (RuntimeException e) {
+            // Other children search the track themselves
+            log.warn("Failed to store match for track {} of bulk conversion {}: {}", key, bulkId, e.getMessage());
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("spotease.bulk-match-cache.requests")
+                .description("Track matches requested by child jobs of bulk conversions")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
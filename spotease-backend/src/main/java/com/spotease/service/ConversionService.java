@@ -1,103 +1,219 @@
 package com.spotease.service;
 
+import com.spotease.dto.BulkConversionRequest;
 import com.spotease.dto.ConversionRequest;
-import com.spotease.dto.netease.NeteasePlaylist;
-import com.spotease.dto.spotify.SpotifyPlaylist;
 import com.spotease.event.ConversionJobCreatedEvent;
 import com.spotease.model.*;
+import com.spotease.repository.BulkConversionRepository;
 import com.spotease.repository.ConversionJobRepository;
 import com.spotease.repository.UserRepository;
-import com.spotease.util.TokenEncryption;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ConversionService {
 
+    // A paused job still owns its conversion until it is resumed or cancelled
+    private static final Set<JobStatus> IN_FLIGHT = EnumSet.of(JobStatus.QUEUED, JobStatus.PROCESSING, JobStatus.PAUSED);
+
     private final ConversionJobRepository jobRepository;
+    private final BulkConversionRepository bulkRepository;
     private final UserRepository userRepository;
-    private final SpotifyService spotifyService;
-    private final NeteaseService neteaseService;
-    private final TokenEncryption tokenEncryption;
+    private final PlaylistCache playlistCache;
     private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
-    public ConversionJob createJob(Long userId, ConversionRequest request) {
+    /**
+     * Queues a job with the identifiers the client supplied and returns straight away.
+     * The playlists are not looked up here: the worker validates them and fills in their
+     * names and size, and a missing or inaccessible playlist fails the job like any other error.
+     * <p>
+     * A request carrying an {@code Idempotency-Key} the user already sent gets the job created
+     * for it back, and so does a request for a conversion the user already has queued or in
+     * progress. Both are enforced by unique indexes, so concurrent duplicates on different
+     * replicas also collapse onto one job.
+     *
+     * @param idempotencyKey client-supplied key identifying this submission, or null
+     * @throws IllegalStateException if the key was already used for a different conversion
+     */
+    public Submission createJob(Long userId, ConversionRequest request, String idempotencyKey) {
         log.info("Creating conversion job for user {}", userId);
 
         // Validate request
         validateRequest(request);
 
+        Platform destinationPlatform = destinationPlatform(request);
+        String dedupKey = dedupKey(request, destinationPlatform);
+
+        try {
+            return transactionTemplate.execute(status ->
+                    findOrCreate(userId, request, destinationPlatform, idempotencyKey, dedupKey));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request inserted the same job first; return that one
+            Submission existing = findExisting(userId, idempotencyKey, dedupKey)
+                    .map(job -> new Submission(job, false))
+                    .orElseThrow(() -> e);
+            log.info("Collapsed concurrent duplicate submission onto job {}", existing.job().getId());
+            return existing;
+        }
+    }
+
+    private Submission findOrCreate(Long userId, ConversionRequest request, Platform destinationPlatform,
+                                    String idempotencyKey, String dedupKey) {
+        Optional<ConversionJob> existing = findExisting(userId, idempotencyKey, dedupKey);
+        if (existing.isPresent()) {
+            log.info("Returning existing job {} for duplicate submission by user {}", existing.get().getId(), userId);
+            return new Submission(existing.get(), false);
+        }
+
         // Load user
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found: " + userId));
 
-        // Determine destination platform (opposite of source)
-        Platform destinationPlatform = request.getSourcePlatform() == Platform.SPOTIFY
-                ? Platform.NETEASE
-                : Platform.SPOTIFY;
+        ConversionJob job = newJob(user, request, destinationPlatform, dedupKey);
+        job.setIdempotencyKey(idempotencyKey);
+        return new Submission(queue(job), true);
+    }
 
-        // Get source playlist info
-        String sourcePlaylistName;
-        int totalTracks;
+    /**
+     * Queues one child job per conversion under a new bulk conversion. The children share their
+     * track matches, so a track that appears in several of the playlists is searched only once.
+     * <p>
+     * Repeated conversions in the batch are queued once, and conversions the user already has
+     * queued or in progress are left to the existing job rather than added to the batch.
+     *
+     * @throws IllegalStateException if every conversion in the batch is already in flight
+     */
+    public BulkConversion createBulkJob(Long userId, BulkConversionRequest request) {
+        log.info("Creating bulk conversion of {} playlists for user {}", request.getConversions().size(), userId);
 
-        if (request.getSourcePlatform() == Platform.SPOTIFY) {
-            String accessToken = tokenEncryption.decrypt(user.getSpotifyAccessToken());
-            SpotifyPlaylist playlist = spotifyService.getPlaylistById(accessToken, request.getSourcePlaylistId());
-            sourcePlaylistName = playlist.getName();
-            totalTracks = playlist.getTotalTracks();
-        } else {
-            String cookie = tokenEncryption.decrypt(user.getNeteaseCookie());
-            NeteasePlaylist playlist = neteaseService.getPlaylistById(cookie, request.getSourcePlaylistId());
-            sourcePlaylistName = playlist.getName();
-            totalTracks = playlist.getTotalTracks();
+        // Validate every conversion before queuing any of them
+        Map<String, ConversionRequest> conversions = new LinkedHashMap<>();
+        for (ConversionRequest conversion : request.getConversions()) {
+            validateRequest(conversion);
+            conversions.putIfAbsent(dedupKey(conversion, destinationPlatform(conversion)), conversion);
+        }
+
+        try {
+            return transactionTemplate.execute(status -> createBatch(userId, conversions));
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("A conversion in the batch was submitted concurrently", e);
         }
+    }
 
-        // Create job
+    private BulkConversion createBatch(Long userId, Map<String, ConversionRequest> conversions) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+
+        List<Map.Entry<String, ConversionRequest>> pending = conversions.entrySet().stream()
+                .filter(entry -> findExisting(userId, null, entry.getKey()).isEmpty())
+                .toList();
+        if (pending.isEmpty()) {
+            throw new IllegalStateException("Every conversion in the batch is already queued or in progress");
+        }
+
+        BulkConversion bulk = new BulkConversion();
+        bulk.setUser(user);
+        bulk.setStatus(JobStatus.QUEUED);
+        bulk.setTotalJobs(pending.size());
+        BulkConversion savedBulk = bulkRepository.save(bulk);
+
+        for (Map.Entry<String, ConversionRequest> entry : pending) {
+            ConversionRequest request = entry.getValue();
+            ConversionJob job = newJob(user, request, destinationPlatform(request), entry.getKey());
+            job.setBulkConversion(savedBulk);
+            queue(job);
+        }
+
+        log.info("Queued bulk conversion {} with {} jobs", savedBulk.getId(), pending.size());
+        return savedBulk;
+    }
+
+    private ConversionJob newJob(User user, ConversionRequest request, Platform destinationPlatform, String dedupKey) {
         ConversionJob job = new ConversionJob();
         job.setUser(user);
         job.setSourcePlatform(request.getSourcePlatform());
         job.setSourcePlaylistId(request.getSourcePlaylistId());
-        job.setSourcePlaylistName(sourcePlaylistName);
         job.setDestinationPlatform(destinationPlatform);
         job.setMode(request.getMode());
         job.setStatus(JobStatus.QUEUED);
-        job.setTotalTracks(totalTracks);
+        job.setDedupKey(dedupKey);
+        job.setTotalTracks(0);
         job.setProcessedTracks(0);
         job.setHighConfidenceMatches(0);
         job.setLowConfidenceMatches(0);
         job.setFailedTracks(0);
-
-        if (request.getMode() == ConversionMode.CREATE) {
-            job.setDestinationPlaylistName(request.getDestinationPlaylistName());
-        } else {
+        job.setSearchesSaved(0);
+        // Known only if the user's playlist listing is cached, which it usually is after browsing
+        job.setEstimatedTracks(playlistCache.cachedTrackCount(
+                user.getId(), request.getSourcePlatform(), request.getSourcePlaylistId()).orElse(null));
+        // For UPDATE mode this is only a display hint until the worker looks the playlist up
+        job.setDestinationPlaylistName(request.getDestinationPlaylistName());
+        if (request.getMode() != ConversionMode.CREATE) {
             job.setDestinationPlaylistId(request.getDestinationPlaylistId());
-            // Get destination playlist name for display
-            if (destinationPlatform == Platform.SPOTIFY) {
-                String accessToken = tokenEncryption.decrypt(user.getSpotifyAccessToken());
-                SpotifyPlaylist playlist = spotifyService.getPlaylistById(accessToken, request.getDestinationPlaylistId());
-                job.setDestinationPlaylistName(playlist.getName());
-            } else {
-                String cookie = tokenEncryption.decrypt(user.getNeteaseCookie());
-                NeteasePlaylist playlist = neteaseService.getPlaylistById(cookie, request.getDestinationPlaylistId());
-                job.setDestinationPlaylistName(playlist.getName());
-            }
         }
+        return job;
+    }
 
-        ConversionJob savedJob = jobRepository.save(job);
-        log.info("Created conversion job {}: {} → {}", savedJob.getId(), sourcePlaylistName, job.getDestinationPlaylistName());
+    private ConversionJob queue(ConversionJob job) {
+        // Flushed so a unique index conflict surfaces here rather than at commit
+        ConversionJob savedJob = jobRepository.saveAndFlush(job);
+        log.info("Queued conversion job {} for source playlist {}", savedJob.getId(), job.getSourcePlaylistId());
 
-        // Publish event - worker will be triggered after transaction commits
+        // Publish event - the dispatcher is woken up after the transaction commits
         eventPublisher.publishEvent(new ConversionJobCreatedEvent(this, savedJob.getId()));
-
         return savedJob;
     }
 
+    /**
+     * The job an earlier request with the same idempotency key created, otherwise the user's
+     * in-flight job for the same conversion.
+     */
+    private Optional<ConversionJob> findExisting(Long userId, String idempotencyKey, String dedupKey) {
+        if (idempotencyKey != null) {
+            Optional<ConversionJob> replayed = jobRepository.findByUser_IdAndIdempotencyKey(userId, idempotencyKey);
+            if (replayed.isPresent()) {
+                if (!replayed.get().getDedupKey().equals(dedupKey)) {
+                    throw new IllegalStateException("Idempotency key was already used for a different conversion");
+                }
+                return replayed;
+            }
+        }
+        return jobRepository.findFirstByUser_IdAndDedupKeyAndStatusIn(userId, dedupKey, IN_FLIGHT);
+    }
+
+    /**
+     * Identifies what a request converts. CREATE jobs are told apart by the new playlist's name,
+     * UPDATE jobs by the destination playlist. Kept in sync with the backfill in V6.
+     */
+    static String dedupKey(ConversionRequest request, Platform destinationPlatform) {
+        String destination = request.getMode() == ConversionMode.CREATE
+                ? request.getDestinationPlaylistName()
+                : request.getDestinationPlaylistId();
+        return request.getSourcePlatform() + ":" + request.getSourcePlaylistId()
+                + ">" + destinationPlatform + ":" + request.getMode() + ":" + destination;
+    }
+
+    // Destination is always the other platform
+    private static Platform destinationPlatform(ConversionRequest request) {
+        return request.getSourcePlatform() == Platform.SPOTIFY
+                ? Platform.NETEASE
+                : Platform.SPOTIFY;
+    }
+
     private void validateRequest(ConversionRequest request) {
         if (request.getMode() == ConversionMode.CREATE) {
             if (request.getDestinationPlaylistName() == null || request.getDestinationPlaylistName().isBlank()) {
@@ -105,8 +221,14 @@ public class ConversionService {
             }
         } else {
             if (request.getDestinationPlaylistId() == null || request.getDestinationPlaylistId().isBlank()) {
-                throw new IllegalArgumentException("For UPDATE mode, destination playlist ID is required");
+                throw new IllegalArgumentException("For " + request.getMode() + " mode, destination playlist ID is required");
             }
         }
     }
+
+    /**
+     * The job a submission resolved to, and whether it was newly queued or an existing one.
+     */
+    public record Submission(ConversionJob job, boolean created) {
+    }
 }
@@ -0,0 +1,85 @@
+package com.spotease.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spotease.util.TokenEncryption;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Decrypts stored credentials (Spotify tokens, NetEase cookies) through a short-lived in-memory
+ * cache, so the same ciphertext is not AES-GCM decrypted on every request and job step.
+ * <p>
+ * Entries are keyed by the SHA-256 of the ciphertext rather than the ciphertext itself. Since every
+ * encryption uses a fresh IV, a re-encrypted token never hits a stale entry; {@link #invalidate}
+ * just drops the old plaintext from memory early.
+ */
+@Service
+@Slf4j
+public class CredentialProvider {
+
+    private final TokenEncryption tokenEncryption;
+    private final Cache<String, String> cache;
+    private final Timer decryptTimer;
+    private final Counter invalidations;
+
+    public CredentialProvider(TokenEncryption tokenEncryption, MeterRegistry meterRegistry,
+                              @Value("${spotease.credentials.cache-ttl:PT5M}") Duration ttl,
+                              @Value("${spotease.credentials.cache-size:10000}") long maxSize) {
+        this.tokenEncryption = tokenEncryption;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.decryptTimer = Timer.builder("spotease.credentials.decrypt")
+                .description("AES-GCM decryptions of stored credentials (cache misses)")
+                .register(meterRegistry);
+        this.invalidations = Counter.builder("spotease.credentials.invalidations")
+                .description("Cached credentials dropped after a token update")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "credentials");
+    }
+
+    /**
+     * Returns the plaintext of an encrypted credential, decrypting it only on a cache miss.
+     */
+    public String decrypt(String ciphertext) {
+        if (ciphertext == null || ciphertext.isEmpty()) {
+            throw new IllegalArgumentException("Ciphertext must not be null or empty");
+        }
+        return cache.get(hash(ciphertext),
+                key -> decryptTimer.record(() -> tokenEncryption.decrypt(ciphertext)));
+    }
+
+    /**
+     * Drops the cached plaintext of a credential that has been replaced or revoked.
+     */
+    public void invalidate(String ciphertext) {
+        if (ciphertext == null || ciphertext.isEmpty()) {
+            return;
+        }
+        cache.invalidate(hash(ciphertext));
+        invalidations.increment();
+    }
+
+    private static String hash(String ciphertext) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(ciphertext.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.spotease.service;
+
+import com.spotease.model.JobStatus;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+
+/**
+ * Stop signal for one running job. The worker checks it between tracks; a cancel also aborts the
+ * platform calls the job is blocked in by interrupting their threads, while a pause lets the
+ * current track finish so the job stops at a clean checkpoint.
+ */
+public class JobCancellation {
+
+    private volatile JobStatus requestedStatus;
+    // Last time the worker showed progress: a track boundary, or a platform call starting or ending
+    private volatile Instant lastActivity = Instant.now();
+    // Threads inside an abortable call: the worker, and in virtual-thread mode its track searches;
+    // guarded by this
+    private final Set<Thread> callingThreads = new HashSet<>();
+
+    /**
+     * CANCELLED or PAUSED once a stop was requested, QUEUED when the replica is shutting down and
+     * the job should go back to the queue, null while the job should keep running.
+     */
+    public JobStatus requestedStatus() {
+        return requestedStatus;
+    }
+
+    /**
+     * Last time the worker showed progress; now while it is inside a platform call, which the call's
+     * own timeout bounds.
+     */
+    public synchronized Instant lastActivity() {
+        return callingThreads.isEmpty() ? lastActivity : Instant.now();
+    }
+
+    /**
+     * Called by the worker whenever it makes progress; a job that stops calling it stops getting
+     * heartbeats.
+     */
+    public void touch() {
+        lastActivity = Instant.now();
+    }
+
+    public boolean isCancelled() {
+        return requestedStatus == JobStatus.CANCELLED;
+    }
+
+    /**
+     * Records a cancel or pause. A cancel is never downgraded to a pause.
+     */
+    public synchronized void request(JobStatus status) {
+        if (requestedStatus == JobStatus.CANCELLED) {
+            return;
+        }
+        requestedStatus = status;
+        if (status == JobStatus.CANCELLED) {
+            callingThreads.forEach(Thread::interrupt);
+        }
+    }
+
+    /**
+     * Asks the job to stop at its next track boundary and go back to the queue, like a pause that
+     * any replica resumes on its own. A stop the user requested takes precedence.
+     */
+    public synchronized void requeue() {
+        if (requestedStatus == null) {
+            requestedStatus = JobStatus.QUEUED;
+        }
+    }
+
+    /**
+     * Runs a platform call that a cancel aborts. Blocking WebClient calls give up as soon as the
+     * thread is interrupted; calls that ignore interrupts run to their own timeout.
+     *
+     * @throws CancellationException if the job was already cancelled
+     */
+    public <T> T abortable(Supplier<T> call) {
+        synchronized (this) {
+            if (isCancelled()) {
+                throw new CancellationException("Job was cancelled");
+            }
+            callingThreads.add(Thread.currentThread());
+        }
+        touch();
+        try {
+            return call.get();
+        } finally {
+            touch();
+            synchronized (this) {
+                callingThreads.remove(Thread.currentThread());
+                // An interrupt meant for the call must not reach the database work that follows
+                Thread.interrupted();
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.spotease.service;
+
+import com.spotease.event.ConversionJobCreatedEvent;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.JobControlRequest;
+import com.spotease.model.JobStatus;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.JobControlRequestRepository;
+import com.spotease.repository.JobHeartbeatRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cancels, pauses and resumes conversion jobs.
+ * <p>
+ * A job no worker holds changes status right away. A running job is asked to stop through a
+ * {@link JobControlRequest} row, since its worker keeps the job row locked until it finishes (see
+ * {@link #lockJob}); the
+ * replica running it picks the request up within {@code poll-interval}, or at once when the
+ * request arrives on that replica. The worker stops at the next track boundary, and a cancel also
+ * aborts the platform call in progress. Everything matched up to that point is kept, which is the
+ * checkpoint a resumed job continues from.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobControlService {
+
+    private static final Set<JobStatus> RUNNING = EnumSet.of(JobStatus.QUEUED, JobStatus.PROCESSING);
+
+    private final ConversionJobRepository jobRepository;
+    private final JobControlRequestRepository controlRepository;
+    private final JobHeartbeatRepository heartbeatRepository;
+    private final ProgressPublisher progressPublisher;
+    private final BulkConversionService bulkConversionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    private Boolean postgres;
+
+    // Jobs running on this replica
+    private final Map<Long, JobCancellation> running = new ConcurrentHashMap<>();
+
+    /**
+     * Outcome of a cancel or pause: the job as it is now, and whether it has already stopped or
+     * its worker was asked to stop.
+     */
+    public record StopResult(ConversionJob job, boolean stopped) {
+    }
+
+    /**
+     * Cancels a queued, running or paused job.
+     *
+     * @throws IllegalStateException if the job has already finished
+     */
+    @Transactional
+    public StopResult cancel(Long jobId) {
+        return stop(jobId, JobStatus.CANCELLED, EnumSet.of(JobStatus.QUEUED, JobStatus.PAUSED));
+    }
+
+    /**
+     * Pauses a queued or running job.
+     *
+     * @throws IllegalStateException if the job is not queued or running
+     */
+    @Transactional
+    public StopResult pause(Long jobId) {
+        return stop(jobId, JobStatus.PAUSED, EnumSet.of(JobStatus.QUEUED));
+    }
+
+    /**
+     * Puts a paused job back on the queue. Its worker skips the source tracks it already matched.
+     *
+     * @throws IllegalStateException if the job is not paused
+     */
+    @Transactional
+    public ConversionJob resume(Long jobId) {
+        // A stop requested just as the job paused would otherwise stop the resumed run at once
+        controlRepository.deleteByJobId(jobId);
+        if (jobRepository.transitionUnclaimed(jobId, EnumSet.of(JobStatus.PAUSED), JobStatus.QUEUED,
+                LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Only a paused job can be resumed");
+        }
+
+        ConversionJob job = findJob(jobId);
+        progressPublisher.jobStatusChanged(job);
+        // Wakes up the dispatcher once this transaction commits
+        eventPublisher.publishEvent(new ConversionJobCreatedEvent(this, jobId));
+        log.info("Resumed job {} at track {} of {}", jobId, job.getProcessedTracks(), job.getTotalTracks());
+        return job;
+    }
+
+    /**
+     * Called by the worker when it starts a job. Picks up a stop requested before the job started.
+     */
+    @Transactional(readOnly = true)
+    public JobCancellation register(Long jobId) {
+        JobCancellation cancellation = new JobCancellation();
+        running.put(jobId, cancellation);
+        controlRepository.findById(jobId)
+                .ifPresent(request -> cancellation.request(request.getRequestedStatus()));
+        return cancellation;
+    }
+
+    /**
+     * Called by the worker, in the job's transaction, right after it loads the job. Locks the job
+     * row until that transaction ends, so the reaper skips the job from its first track on, not
+     * only once a match has been saved (see {@link ConversionJobRepository#lockUnheld}).
+     * <p>
+     * The lock is FOR KEY SHARE, which the job's progress updates, written in transactions of
+     * their own while this one is open, do not wait for. H2 has no lock weaker than FOR UPDATE,
+     * which would block those updates until they time out, so no lock is taken there: H2 setups
+     * are single-instance, and the reaper never recovers jobs running on its own replica.
+     */
+    public void lockJob(Long jobId) {
+        if (!isPostgres()) {
+            return;
+        }
+        if (jobRepository.lockKeyShare(jobId).isEmpty()) {
+            throw new IllegalStateException("Job not found: " + jobId);
+        }
+    }
+
+    /**
+     * The stop signal of a job running on this replica; a signal that never fires for any other job.
+     */
+    public JobCancellation cancellation(Long jobId) {
+        JobCancellation cancellation = running.get(jobId);
+        return cancellation != null ? cancellation : new JobCancellation();
+    }
+
+    /**
+     * Jobs running on this replica, by id.
+     */
+    public Map<Long, JobCancellation> runningJobs() {
+        return Collections.unmodifiableMap(running);
+    }
+
+    /**
+     * Called by the worker, in the job's transaction, once the job has stopped for whatever reason.
+     * The job counts as running here until that transaction has ended, so that shutdown does not
+     * stop waiting for it before its final state is committed.
+     */
+    public void finished(Long jobId) {
+        controlRepository.deleteByJobId(jobId);
+        heartbeatRepository.deleteByJobId(jobId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    running.remove(jobId);
+                }
+            });
+        } else {
+            running.remove(jobId);
+        }
+    }
+
+    /**
+     * Asks every job running on this replica to stop at its next track boundary and go back to
+     * the queue; used when the replica shuts down.
+     *
+     * @return number of jobs asked
+     */
+    public int requeueRunningJobs() {
+        running.values().forEach(JobCancellation::requeue);
+        return running.size();
+    }
+
+    /**
+     * Signals the jobs running on this replica that were asked to stop on another one.
+     */
+    @Transactional(readOnly = true)
+    public void pollRequests() {
+        if (running.isEmpty()) {
+            return;
+        }
+        for (JobControlRequest request : controlRepository.findAllById(running.keySet())) {
+            JobCancellation cancellation = running.get(request.getJobId());
+            if (cancellation != null && cancellation.requestedStatus() != request.getRequestedStatus()) {
+                log.info("Job {} was asked to stop as {}", request.getJobId(), request.getRequestedStatus());
+                cancellation.request(request.getRequestedStatus());
+            }
+        }
+    }
+
+    private StopResult stop(Long jobId, JobStatus target, Set<JobStatus> stoppableAtOnce) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jobRepository.transitionUnclaimed(jobId, stoppableAtOnce, target, now) == 1) {
+            ConversionJob job = findJob(jobId);
+            progressPublisher.jobStatusChanged(job);
+            bulkConversionService.jobFinished(job);
+            log.info("Job {} {} before a worker picked it up", jobId, target);
+            return new StopResult(job, true);
+        }
+
+        ConversionJob job = findJob(jobId);
+        if (!RUNNING.contains(job.getStatus())) {
+            throw new IllegalStateException("Job " + jobId + " is " + job.getStatus());
+        }
+
+        JobControlRequest request = controlRepository.findById(jobId).orElseGet(() -> {
+            JobControlRequest created = new JobControlRequest();
+            created.setJobId(jobId);
+            return created;
+        });
+        if (request.getRequestedStatus() != JobStatus.CANCELLED) {
+            request.setRequestedStatus(target);
+        }
+        request.setRequestedAt(now);
+        controlRepository.save(request);
+
+        JobCancellation cancellation = running.get(jobId);
+        if (cancellation != null) {
+            cancellation.request(request.getRequestedStatus());
+        }
+        log.info("Asked the worker of job {} to stop as {}", jobId, request.getRequestedStatus());
+        return new StopResult(job, false);
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+
+    private ConversionJob findJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Job not found: " + jobId));
+    }
+}
@@ -0,0 +1,320 @@
+package com.spotease.service;
+
+import com.spotease.model.ConversionJob;
+import com.spotease.model.JobStatus;
+import com.spotease.model.Platform;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.QueuedJob;
+import com.spotease.worker.ConversionWorker;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which queued conversion job runs next and hands it to a worker on this replica.
+ * <p>
+ * The queue is the conversion_jobs table itself: a replica with a free worker claims QUEUED jobs
+ * by writing its instance id on them, so queued jobs survive restarts and any replica can run
+ * them. Replicas dispatch one at a time under a transaction-scoped PostgreSQL advisory lock, which
+ * keeps the concurrency caps exact; the claim is a conditional update, so a job is never started
+ * twice either way.
+ * <p>
+ * Jobs are ordered by weighted fair queuing across users, with a job's size in tracks as its cost.
+ * A queued job's finish tag is the work its user already has running, plus the user's queued jobs
+ * ahead of it (smallest first), plus its own size. Lowest tag runs first, so one user's tenth large
+ * job waits behind everybody else's first, and small jobs overtake large ones. Per-user and
+ * per-destination-platform caps on running jobs apply on top of that order.
+ */
+@Service
+@Slf4j
+public class JobDispatcher {
+
+    // Shared by all replicas; distinct from the sync scheduler's key
+    private static final long DISPATCH_LOCK_KEY = 0x5350_4f54_4449_5350L;
+    private static final Set<JobStatus> IN_FLIGHT = EnumSet.of(JobStatus.QUEUED, JobStatus.PROCESSING);
+
+    private final ConversionJobRepository jobRepository;
+    private final ConversionWorker conversionWorker;
+    private final JdbcTemplate jdbcTemplate;
+    // Dispatch runs after the submitting transaction has committed, so it needs one of its own
+    private final TransactionTemplate dispatchTransaction;
+    private final String instanceId;
+
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    // Set once the replica is shutting down
+    private volatile boolean stopped;
+
+    @Value("${spotease.scheduler.worker-threads:5}")
+    private int workerThreads = 5;
+
+    // Jobs are not pooled on virtual threads; every running job still holds a database connection
+    @Value("${spotease.scheduler.virtual-threads.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${spotease.scheduler.virtual-threads.max-jobs:15}")
+    private int maxVirtualJobs = 15;
+
+    @Value("${spotease.scheduler.max-jobs-per-user:2}")
+    private int maxJobsPerUser = 2;
+
+    @Value("${spotease.scheduler.max-jobs-per-platform:10}")
+    private int maxJobsPerPlatform = 10;
+
+    // Cost of a job whose playlist size was not known at submission
+    @Value("${spotease.scheduler.default-job-tracks:200}")
+    private int defaultJobTracks = 200;
+
+    @Value("${spotease.scheduler.batch-size:500}")
+    private int batchSize = 500;
+
+    private Boolean postgres;
+
+    public JobDispatcher(ConversionJobRepository jobRepository,
+                         ConversionWorker conversionWorker,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${spotease.scheduler.instance-id:}") String instanceId) {
+        this.jobRepository = jobRepository;
+        this.conversionWorker = conversionWorker;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dispatchTransaction = new TransactionTemplate(transactionManager);
+        this.dispatchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.instanceId = instanceId.isBlank() ? defaultInstanceId() : instanceId;
+    }
+
+    /**
+     * Refuses to start when the connection pool has fewer than two connections per job this replica
+     * may run. Each running job holds a connection until it finishes and needs more for its progress
+     * writes, token refreshes and heartbeats, next to the schedulers and HTTP requests.
+     */
+    @PostConstruct
+    void checkConnectionHeadroom() {
+        int maxJobs = virtualThreads ? maxVirtualJobs : workerThreads;
+        int poolSize = maximumPoolSize(jdbcTemplate.getDataSource());
+        if (poolSize > 0 && maxJobs * 2 > poolSize) {
+            throw new IllegalStateException("Database pool of " + poolSize + " connections is too small for "
+                    + maxJobs + " concurrent jobs; raise DB_POOL_SIZE to at least " + maxJobs * 2
+                    + " or lower spotease.scheduler." + (virtualThreads ? "virtual-threads.max-jobs" : "worker-threads"));
+        }
+    }
+
+    /**
+     * Claims as many queued jobs as this replica has free workers and starts them. A call made
+     * while another thread is dispatching makes that thread go again instead of waiting.
+     *
+     * @return number of jobs started by this call
+     */
+    public int dispatch() {
+        if (stopped) {
+            return 0;
+        }
+        pending.set(true);
+        int started = 0;
+        while (pending.get() && dispatching.compareAndSet(false, true)) {
+            try {
+                pending.set(false);
+                List<Long> claimed = dispatchTransaction.execute(status -> claimJobs());
+                for (Long jobId : claimed) {
+                    start(jobId);
+                }
+                started += claimed.size();
+            } finally {
+                dispatching.set(false);
+            }
+        }
+        return started;
+    }
+
+    /**
+     * Stops this replica from claiming any more jobs. Jobs already claimed keep running.
+     */
+    public void stopClaiming() {
+        stopped = true;
+    }
+
+    /**
+     * Id this replica claims jobs and writes heartbeats under.
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * 1-based position of a job among those waiting for a worker, or null once it has been claimed.
+     */
+    public Integer queuePosition(ConversionJob job) {
+        if (job.getStatus() != JobStatus.QUEUED || job.getClaimedBy() != null) {
+            return null;
+        }
+        List<QueuedJob> queue = fairOrder(
+                jobRepository.findUnclaimed(JobStatus.QUEUED, PageRequest.of(0, batchSize)),
+                jobRepository.findClaimed(IN_FLIGHT));
+        for (int i = 0; i < queue.size(); i++) {
+            if (queue.get(i).id().equals(job.getId())) {
+                return i + 1;
+            }
+        }
+        // Further back than the dispatcher looks
+        return queue.size() + 1;
+    }
+
+    private List<Long> claimJobs() {
+        if (!tryLockDispatcher()) {
+            log.debug("Dispatcher lock is held by another replica");
+            return List.of();
+        }
+
+        long freeWorkers = (virtualThreads ? maxVirtualJobs : workerThreads) - jobRepository.countByClaimedByAndStatusIn(instanceId, IN_FLIGHT);
+        if (freeWorkers <= 0) {
+            return List.of();
+        }
+
+        List<QueuedJob> running = jobRepository.findClaimed(IN_FLIGHT);
+        List<QueuedJob> queue = fairOrder(
+                jobRepository.findUnclaimed(JobStatus.QUEUED, PageRequest.of(0, batchSize)), running);
+
+        Map<Long, Long> jobsPerUser = running.stream()
+                .collect(Collectors.groupingBy(QueuedJob::userId, Collectors.counting()));
+        Map<Platform, Long> jobsPerPlatform = running.stream()
+                .collect(Collectors.groupingBy(QueuedJob::destinationPlatform,
+                        () -> new EnumMap<>(Platform.class), Collectors.counting()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> claimed = new ArrayList<>();
+        for (QueuedJob job : queue) {
+            if (claimed.size() >= freeWorkers) {
+                break;
+            }
+            if (jobsPerUser.getOrDefault(job.userId(), 0L) >= maxJobsPerUser
+                    || jobsPerPlatform.getOrDefault(job.destinationPlatform(), 0L) >= maxJobsPerPlatform) {
+                continue;
+            }
+            if (jobRepository.claim(job.id(), JobStatus.QUEUED, instanceId, now) == 1) {
+                claimed.add(job.id());
+                jobsPerUser.merge(job.userId(), 1L, Long::sum);
+                jobsPerPlatform.merge(job.destinationPlatform(), 1L, Long::sum);
+            }
+        }
+
+        if (!claimed.isEmpty()) {
+            log.info("Dispatcher {} claimed jobs {} ({} queued, {} running)",
+                    instanceId, claimed, queue.size(), running.size());
+        }
+        return claimed;
+    }
+
+    private void start(Long jobId) {
+        try {
+            conversionWorker.processConversionJob(jobId);
+        } catch (TaskRejectedException e) {
+            // Back on the queue for the next dispatch here or on another replica
+            log.warn("Worker pool rejected job {}, releasing it: {}", jobId, e.getMessage());
+            dispatchTransaction.executeWithoutResult(status -> jobRepository.release(jobId, instanceId));
+        }
+    }
+
+    /**
+     * Queued jobs in the order they should run, lowest finish tag first.
+     */
+    List<QueuedJob> fairOrder(List<QueuedJob> queued, List<QueuedJob> running) {
+        Map<Long, Long> userWork = running.stream()
+                .collect(Collectors.groupingBy(QueuedJob::userId, Collectors.summingLong(this::cost)));
+
+        Comparator<QueuedJob> smallestFirst = Comparator.comparingLong(this::cost)
+                .thenComparing(QueuedJob::createdAt)
+                .thenComparing(QueuedJob::id);
+
+        Map<Long, Long> finishTags = new HashMap<>();
+        queued.stream()
+                .collect(Collectors.groupingBy(QueuedJob::userId))
+                .forEach((userId, jobs) -> {
+                    long tag = userWork.getOrDefault(userId, 0L);
+                    for (QueuedJob job : jobs.stream().sorted(smallestFirst).toList()) {
+                        tag += cost(job);
+                        finishTags.put(job.id(), tag);
+                    }
+                });
+
+        return queued.stream()
+                .sorted(Comparator.<QueuedJob>comparingLong(job -> finishTags.get(job.id()))
+                        .thenComparing(QueuedJob::createdAt)
+                        .thenComparing(QueuedJob::id))
+                .toList();
+    }
+
+    private long cost(QueuedJob job) {
+        return job.estimatedTracks() != null ? Math.max(job.estimatedTracks(), 1) : defaultJobTracks;
+    }
+
+    /**
+     * Takes the dispatcher's advisory lock until the current transaction ends. H2 setups are
+     * single-instance, so there is nothing to coordinate with.
+     */
+    private boolean tryLockDispatcher() {
+        if (!isPostgres()) {
+            return true;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, DISPATCH_LOCK_KEY));
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+
+    /**
+     * Maximum size of a Hikari pool, or 0 for any other data source.
+     */
+    private static int maximumPoolSize(DataSource dataSource) {
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.debug("Could not read the connection pool size: {}", e.getMessage());
+        }
+        return 0;
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,256 @@
+package com.spotease.service;
+
+import com.spotease.event.ConversionJobCreatedEvent;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.ConversionMode;
+import com.spotease.model.JobControlRequest;
+import com.spotease.model.JobHeartbeat;
+import com.spotease.model.JobStatus;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.JobControlRequestRepository;
+import com.spotease.repository.JobHeartbeatRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps heartbeats for running jobs and recovers jobs whose worker is gone.
+ * <p>
+ * Each replica writes a heartbeat every {@code interval} for the jobs it runs, as long as their
+ * worker shows progress or is inside a platform call. The reaper looks for claimed jobs without a
+ * heartbeat in {@code stale-after}. A worker locks its job's row from the moment it starts until
+ * its transaction ends (see {@link JobControlService#lockJob}), so a job whose row no transaction
+ * holds has no worker left: its replica was killed, or its worker thread died and rolled back.
+ * Such a job is recovered:
+ * <ul>
+ *   <li>a cancel or pause requested for it is applied;</li>
+ *   <li>otherwise it is queued again if rerunning it cannot duplicate tracks on the destination,
+ *       that is if it is an UPDATE job (which matches against the destination's tracks) or never
+ *       got a heartbeat, at most {@code max-requeues} times. Its matches were rolled back with its
+ *       transaction, so it continues from its last pause, or from the start;</li>
+ *   <li>otherwise it is marked FAILED with the reason.</li>
+ * </ul>
+ * A stale job whose row is still locked has a live but stuck worker; it is only counted.
+ * <p>
+ * Only one replica reaps at a time, under a transaction-scoped PostgreSQL advisory lock, and the
+ * jobs it recovers stay row-locked until it commits.
+ */
+@Service
+@Slf4j
+public class JobHeartbeatService {
+
+    // Shared by all replicas; distinct from the dispatcher's and sync scheduler's keys
+    private static final long REAPER_LOCK_KEY = 0x5350_4f54_5245_4150L;
+    private static final Set<JobStatus> IN_FLIGHT = EnumSet.of(JobStatus.QUEUED, JobStatus.PROCESSING);
+
+    private final ConversionJobRepository jobRepository;
+    private final JobHeartbeatRepository heartbeatRepository;
+    private final JobControlRequestRepository controlRepository;
+    private final JobControlService jobControlService;
+    private final ProgressPublisher progressPublisher;
+    private final BulkConversionService bulkConversionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final String instanceId;
+
+    // Seen by this replica's last reaper run; 0 on replicas that did not get to reap
+    private final AtomicInteger deadJobs = new AtomicInteger();
+    private final AtomicInteger stalledJobs = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spotease.job-heartbeat.stale-after:PT2M}")
+    private Duration staleAfter = Duration.ofMinutes(2);
+
+    @Value("${spotease.job-heartbeat.max-requeues:2}")
+    private int maxRequeues = 2;
+
+    private Boolean postgres;
+
+    public JobHeartbeatService(ConversionJobRepository jobRepository,
+                               JobHeartbeatRepository heartbeatRepository,
+                               JobControlRequestRepository controlRepository,
+                               JobControlService jobControlService,
+                               ProgressPublisher progressPublisher,
+                               BulkConversionService bulkConversionService,
+                               ApplicationEventPublisher eventPublisher,
+                               JdbcTemplate jdbcTemplate,
+                               JobDispatcher jobDispatcher,
+                               MeterRegistry meterRegistry) {
+        this.jobRepository = jobRepository;
+        this.heartbeatRepository = heartbeatRepository;
+        this.controlRepository = controlRepository;
+        this.jobControlService = jobControlService;
+        this.progressPublisher = progressPublisher;
+        this.bulkConversionService = bulkConversionService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.instanceId = jobDispatcher.getInstanceId();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("spotease.jobs.stuck", deadJobs, AtomicInteger::get)
+                .description("Claimed jobs without a heartbeat, per reaper run")
+                .tag("state", "dead")
+                .register(meterRegistry);
+        Gauge.builder("spotease.jobs.stuck", stalledJobs, AtomicInteger::get)
+                .description("Claimed jobs without a heartbeat, per reaper run")
+                .tag("state", "stalled")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Writes a heartbeat for each job running on this replica whose worker made progress within
+     * {@code stale-after} or is inside a platform call.
+     *
+     * @return number of heartbeats written
+     */
+    @Transactional
+    public int beat() {
+        Instant silentSince = Instant.now().minus(staleAfter);
+        List<Long> alive = new ArrayList<>();
+        for (Map.Entry<Long, JobCancellation> job : jobControlService.runningJobs().entrySet()) {
+            if (job.getValue().lastActivity().isAfter(silentSince)) {
+                alive.add(job.getKey());
+            } else {
+                log.warn("Job {} has made no progress since {}", job.getKey(), job.getValue().lastActivity());
+            }
+        }
+        if (alive.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (heartbeatRepository.beat(alive, instanceId, now) < alive.size()) {
+            // First heartbeats; only this replica writes heartbeats for the jobs it runs
+            Set<Long> missing = new HashSet<>(alive);
+            heartbeatRepository.findAllById(alive).forEach(heartbeat -> missing.remove(heartbeat.getJobId()));
+            for (Long jobId : missing) {
+                JobHeartbeat heartbeat = new JobHeartbeat();
+                heartbeat.setJobId(jobId);
+                heartbeat.setInstanceId(instanceId);
+                heartbeat.setBeatAt(now);
+                heartbeatRepository.save(heartbeat);
+            }
+        }
+        return alive.size();
+    }
+
+    /**
+     * Recovers claimed jobs whose worker is gone; see the class comment.
+     *
+     * @return number of jobs recovered, 0 if another replica is reaping
+     */
+    @Transactional
+    public int reapStuckJobs() {
+        if (!tryLockReaper()) {
+            log.debug("Reaper lock is held by another replica");
+            deadJobs.set(0);
+            stalledJobs.set(0);
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(staleAfter);
+        heartbeatRepository.deleteOrphans(IN_FLIGHT, cutoff);
+
+        List<Long> stale = jobRepository.findStaleClaims(IN_FLIGHT, cutoff);
+        // Jobs running here still have their worker, however slow
+        List<Long> elsewhere = stale.stream()
+                .filter(jobId -> !jobControlService.runningJobs().containsKey(jobId))
+                .toList();
+        List<Long> dead = elsewhere.isEmpty() ? List.of() : jobRepository.lockUnheld(elsewhere);
+        deadJobs.set(dead.size());
+        stalledJobs.set(stale.size() - dead.size());
+        if (stale.size() > dead.size()) {
+            log.warn("{} jobs have no heartbeat since {} but their worker still holds them", stale.size() - dead.size(), cutoff);
+        }
+
+        for (Long jobId : dead) {
+            jobRepository.findById(jobId).ifPresent(this::recover);
+        }
+        return dead.size();
+    }
+
+    private void recover(ConversionJob job) {
+        Optional<JobHeartbeat> heartbeat = heartbeatRepository.findById(job.getId());
+        String lastSeen = heartbeat
+                .map(beat -> "last heartbeat from " + beat.getInstanceId() + " at " + beat.getBeatAt())
+                .orElse("claimed by " + job.getClaimedBy() + " at " + job.getClaimedAt() + ", no heartbeat");
+        JobStatus requested = controlRepository.findById(job.getId())
+                .map(JobControlRequest::getRequestedStatus)
+                .orElse(null);
+
+        job.setClaimedBy(null);
+        job.setClaimedAt(null);
+        heartbeatRepository.deleteByJobId(job.getId());
+        controlRepository.deleteByJobId(job.getId());
+
+        String outcome;
+        if (requested != null) {
+            // The user asked for this while the worker was gone
+            job.setStatus(requested);
+            progressPublisher.jobStatusChanged(job);
+            bulkConversionService.jobFinished(job);
+            outcome = requested.name().toLowerCase();
+        } else if (job.getRecoveryAttempts() < maxRequeues
+                && (job.getMode() == ConversionMode.UPDATE || heartbeat.isEmpty())) {
+            job.setStatus(JobStatus.QUEUED);
+            job.setRecoveryAttempts(job.getRecoveryAttempts() + 1);
+            progressPublisher.jobStatusChanged(job);
+            // Wakes up the dispatcher once this transaction commits
+            eventPublisher.publishEvent(new ConversionJobCreatedEvent(this, job.getId()));
+            outcome = "requeued";
+        } else {
+            job.setStatus(JobStatus.FAILED);
+            job.setFailureReason("Worker stopped responding (" + lastSeen + ")");
+            progressPublisher.jobFailed(job, job.getFailureReason());
+            bulkConversionService.jobFinished(job);
+            outcome = "failed";
+        }
+
+        Counter.builder("spotease.jobs.reaped")
+                .description("Jobs recovered by the reaper after their worker stopped responding")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+        log.warn("Reaped job {} ({}): {}", job.getId(), lastSeen, outcome);
+    }
+
+    /**
+     * Takes the reaper's advisory lock until the current transaction ends. H2 setups are
+     * single-instance, so there is nothing to coordinate with.
+     */
+    private boolean tryLockReaper() {
+        if (!isPostgres()) {
+            return true;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, REAPER_LOCK_KEY));
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,216 @@
+package com.spotease.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotease.dto.TrackMatchDto;
+import com.spotease.model.JobStatus;
+import com.spotease.model.MatchStatus;
+import com.spotease.model.TrackMatchArchive;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.TrackMatchArchiveRepository;
+import com.spotease.repository.TrackMatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves the matches of old, finished jobs out of the hot track_matches table.
+ * <p>
+ * Archiving a job writes all its matches as one gzip-compressed JSON blob and flags the job as
+ * archived in a single transaction, so readers switch from the hot rows to the blob atomically.
+ * The hot rows are then deleted in small batches, each in its own transaction, to keep lock
+ * times bounded. On Postgres, partitions whose whole job id block is archived are dropped outright
+ * (see {@link TrackMatchPartitionService#dropArchivedPartitions()}).
+ * Hot rows of archived jobs that a previous run did not get to delete are swept up on the next run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MatchArchiveService {
+
+    // Keep in line with the predicate of the partial index idx_conversion_jobs_archival
+    private static final List<JobStatus> ARCHIVABLE_STATUSES = List.of(JobStatus.COMPLETED, JobStatus.FAILED, JobStatus.CANCELLED);
+    private static final TypeReference<List<TrackMatchDto>> DTO_LIST = new TypeReference<>() {
+    };
+
+    private final ConversionJobRepository jobRepository;
+    private final TrackMatchRepository matchRepository;
+    private final TrackMatchArchiveRepository archiveRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TrackMatchPartitionService partitionService;
+
+    @Value("${spotease.archival.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${spotease.archival.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${spotease.archival.jobs-per-run:200}")
+    private int jobsPerRun;
+
+    /**
+     * Archives up to jobs-per-run finished jobs older than the retention period.
+     *
+     * @return number of jobs archived
+     */
+    public int archiveExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        List<Long> jobIds = jobRepository.findArchivableJobIds(
+                ARCHIVABLE_STATUSES, cutoff, PageRequest.ofSize(jobsPerRun));
+
+        if (jobIds.isEmpty()) {
+            log.debug("No jobs to archive before {}", cutoff);
+            return 0;
+        }
+
+        List<Long> archived = new ArrayList<>();
+        for (Long jobId : jobIds) {
+            try {
+                archiveJob(jobId);
+                archived.add(jobId);
+            } catch (Exception e) {
+                log.error("Failed to archive job {}: {}", jobId, e.getMessage(), e);
+            }
+        }
+
+        // Whole blocks first, then whatever rows are left in partitions that are still live
+        int droppedPartitions = partitionService.dropArchivedPartitions();
+        long deletedRows = 0;
+        for (Long jobId : archived) {
+            deletedRows += deleteHotMatches(jobId);
+        }
+
+        log.info("Archived {} jobs: dropped {} partitions, deleted {} hot matches",
+                archived.size(), droppedPartitions, deletedRows);
+        return archived.size();
+    }
+
+    /**
+     * Deletes the hot rows of jobs that were archived but whose rows were not deleted, because the
+     * process stopped in between. Archived jobs are never picked for archival again, so nothing
+     * else would delete them.
+     *
+     * @return number of rows deleted
+     */
+    public long deleteLeftoverHotMatches() {
+        long deletedRows = 0;
+        int jobs = 0;
+        List<Long> jobIds;
+        while (!(jobIds = jobRepository.findArchivedJobIdsWithHotMatches(PageRequest.ofSize(jobsPerRun))).isEmpty()) {
+            long deleted = 0;
+            for (Long jobId : jobIds) {
+                deleted += deleteHotMatches(jobId);
+            }
+            if (deleted == 0) {
+                break;
+            }
+            deletedRows += deleted;
+            jobs += jobIds.size();
+        }
+
+        if (deletedRows > 0) {
+            log.info("Deleted {} leftover hot matches of {} archived jobs", deletedRows, jobs);
+        }
+        return deletedRows;
+    }
+
+    /**
+     * Writes the job's matches to its archive blob and flags the job as archived.
+     * The hot rows are left in place; see {@link #deleteHotMatches(Long)}.
+     */
+    public void archiveJob(Long jobId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<TrackMatchDto> matches = matchRepository.findDtosByJobId(jobId);
+            LocalDateTime now = LocalDateTime.now();
+
+            TrackMatchArchive archive = new TrackMatchArchive();
+            archive.setConversionJobId(jobId);
+            archive.setMatchCount(matches.size());
+            archive.setPayload(compress(matches));
+            archive.setArchivedAt(now);
+            archiveRepository.save(archive);
+
+            jobRepository.markArchived(jobId, now);
+            log.debug("Archived {} matches of job {} into {} bytes",
+                    matches.size(), jobId, archive.getPayload().length);
+        });
+    }
+
+    /**
+     * Deletes a job's rows from track_matches in batches of batch-size, one transaction per batch.
+     *
+     * @return number of rows deleted
+     */
+    public long deleteHotMatches(Long jobId) {
+        long total = 0;
+        int deleted;
+        do {
+            Integer batch = transactionTemplate.execute(status ->
+                    matchRepository.deleteBatchByJobId(jobId, batchSize));
+            deleted = batch != null ? batch : 0;
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+
+    /**
+     * Deletes a job together with its matches and archive, batching the match deletes.
+     */
+    public void deleteJob(Long jobId) {
+        long deleted = deleteHotMatches(jobId);
+        transactionTemplate.executeWithoutResult(status -> jobRepository.deleteJobById(jobId));
+        log.debug("Deleted job {} and {} hot matches", jobId, deleted);
+    }
+
+    /**
+     * Reads a page of an archived job's matches in the given statuses with id greater than
+     * {@code afterId}, in match order - the same contract as the hot-table keyset queries.
+     */
+    public List<TrackMatchDto> findArchivedMatches(Long jobId, Collection<MatchStatus> statuses,
+                                                   long afterId, int limit) {
+        TrackMatchArchive archive = archiveRepository.findById(jobId).orElse(null);
+        if (archive == null) {
+            return List.of();
+        }
+
+        return decompress(archive.getPayload()).stream()
+                .filter(match -> statuses.contains(match.getStatus()))
+                .filter(match -> match.getMatchId() > afterId)
+                .limit(limit)
+                .toList();
+    }
+
+    private byte[] compress(List<TrackMatchDto> matches) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, matches);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compress track matches", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<TrackMatchDto> decompress(byte[] payload) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(in, DTO_LIST);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read track match archive", e);
+        }
+    }
+}
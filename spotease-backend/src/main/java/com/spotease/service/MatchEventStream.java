@@ -0,0 +1,123 @@
+package com.spotease.service;
+
+import com.spotease.dto.MatchEvent;
+import com.spotease.dto.MatchEventSnapshot;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.MatchStatus;
+import com.spotease.model.TrackMatch;
+import com.spotease.repository.TrackMatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-job stream of {@link MatchEvent}s, so the review UI can show matches while a job runs.
+ * <p>
+ * The worker persists matches inside the job's transaction, so they are not visible to other
+ * readers until the job ends. Events of running jobs are therefore also kept in memory and served
+ * as the snapshot for late subscribers; after the job's transaction completes, snapshots are read
+ * from the database (or the archive) instead.
+ * <p>
+ * Two consequences for clients. The match ids in events of a running job cannot be reviewed yet:
+ * approving or skipping them is rejected with 409 until the job stops, and the review UI waits for
+ * that. And the in-memory buffer exists only on the replica running the job; a subscriber whose
+ * STOMP session is on another replica gets the live events through the broker relay, but its
+ * snapshot holds only the matches committed so far.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MatchEventStream {
+
+    private static final List<MatchStatus> ALL_STATUSES = Arrays.asList(MatchStatus.values());
+
+    private final TrackMatchRepository trackMatchRepository;
+    private final MatchArchiveService matchArchiveService;
+    private final WebSocketService webSocketService;
+
+    private final Map<Long, List<MatchEvent>> liveEvents = new ConcurrentHashMap<>();
+
+    /**
+     * Starts buffering events for a job that is about to process tracks.
+     */
+    public void open(Long jobId) {
+        liveEvents.put(jobId, new ArrayList<>());
+    }
+
+    /**
+     * Publishes the event for a just-persisted match.
+     */
+    public void publish(ConversionJob job, TrackMatch match) {
+        List<MatchEvent> events = liveEvents.computeIfAbsent(job.getId(), id -> new ArrayList<>());
+        synchronized (events) {
+            MatchEvent event = MatchEvent.builder()
+                    .sequence((long) events.size() + 1)
+                    .matchId(match.getId())
+                    .sourceTrackId(match.getSourceTrackId())
+                    .status(match.getStatus())
+                    .confidence(match.getMatchConfidence())
+                    .build();
+            events.add(event);
+            // Sent under the lock so a concurrent snapshot either contains the event or precedes it
+            webSocketService.sendMatchEvent(job, event);
+        }
+    }
+
+    /**
+     * Stops buffering events for a job once its transaction has completed.
+     */
+    public void close(Long jobId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Keep serving the buffer until the job's matches are committed and visible
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    liveEvents.remove(jobId);
+                }
+            });
+        } else {
+            liveEvents.remove(jobId);
+        }
+    }
+
+    /**
+     * Returns all match events of a job so far.
+     */
+    public MatchEventSnapshot snapshot(ConversionJob job) {
+        List<MatchEvent> events = liveEvents.get(job.getId());
+        if (events != null) {
+            synchronized (events) {
+                return MatchEventSnapshot.builder()
+                        .jobId(job.getId())
+                        .live(true)
+                        .lastSequence((long) events.size())
+                        .events(List.copyOf(events))
+                        .build();
+            }
+        }
+
+        List<MatchEvent> stored;
+        if (job.getArchivedAt() != null) {
+            stored = matchArchiveService.findArchivedMatches(job.getId(), ALL_STATUSES, 0L, Integer.MAX_VALUE)
+                    .stream()
+                    .map(dto -> new MatchEvent(dto.getMatchId(), dto.getSourceTrackId(),
+                            dto.getStatus(), dto.getMatchConfidence()))
+                    .toList();
+        } else {
+            stored = trackMatchRepository.findEventsByJobId(job.getId());
+        }
+        return MatchEventSnapshot.builder()
+                .jobId(job.getId())
+                .live(false)
+                .events(stored)
+                .build();
+    }
+}
@@ -97,14 +97,27 @@ public class MatchingService {
             String accessToken,
             ConversionJob job
     ) {
-        String trackName = getTrackName(sourceTrack);
-        String artistName = getFirstArtist(sourceTrack);
-        String sourceTrackId = getTrackId(sourceTrack);
+        log.debug("Finding best match for track: {} by {}", getTrackName(sourceTrack), getFirstArtist(sourceTrack));
+        return scoreCandidates(sourceTrack, searchCandidates(sourceTrack, destinationPlatform, accessToken), job);
+    }
 
-        log.debug("Finding best match for track: {} by {}", trackName, artistName);
+    /**
+     * The I/O half of {@link #findBestMatch}: searches the destination platform for candidates.
+     *
+     * @return up to five candidates, empty if no search tier found any
+     */
+    public List<?> searchCandidates(Object sourceTrack, Platform destinationPlatform, String accessToken) {
+        return searchWithFallback(accessToken, sourceTrack, destinationPlatform);
+    }
 
-        // Search for the track on the destination platform with fallback
-        List<?> searchResults = searchWithFallback(accessToken, sourceTrack, destinationPlatform);
+    /**
+     * The CPU half of {@link #findBestMatch}: scores the candidates a search found and picks the best.
+     *
+     * @return the best match, or a FAILED match if there are no candidates
+     */
+    public TrackMatch scoreCandidates(Object sourceTrack, List<?> searchResults, ConversionJob job) {
+        String trackName = getTrackName(sourceTrack);
+        String sourceTrackId = getTrackId(sourceTrack);
 
         // If no results found, return failed match
         if (searchResults.isEmpty()) {
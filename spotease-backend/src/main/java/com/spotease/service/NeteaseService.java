@@ -1,5 +1,7 @@
 package com.spotease.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.spotease.dto.netease.*;
 import com.spotease.exception.NeteaseSessionExpiredException;
 import jakarta.annotation.PostConstruct;
@@ -9,9 +11,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.HexFormat;
 import java.util.List;
 
 @Service
@@ -19,13 +27,25 @@ import java.util.List;
 @Slf4j
 public class NeteaseService {
 
+    private static final Duration ACCOUNT_ID_TTL = Duration.ofHours(1);
+
     private final WebClient.Builder webClientBuilder;
 
     @Value("${spotease.netease.api-url}")
     private String neteaseApiUrl;
 
+    // Deadline for one platform call, including its retries
+    @Value("${spotease.http.request-timeout:PT20S}")
+    private Duration requestTimeout;
+
     private WebClient webClient;
 
+    // NetEase user id by cookie hash
+    private final Cache<String, Long> accountIds = Caffeine.newBuilder()
+            .expireAfterWrite(ACCOUNT_ID_TTL)
+            .maximumSize(10_000)
+            .build();
+
     @PostConstruct
     public void init() {
         this.webClient = webClientBuilder
@@ -34,98 +54,131 @@ public class NeteaseService {
     }
 
     public List<NeteasePlaylist> getPlaylists(String cookie) {
-        try {
-            // Get user account to get userId
-            NeteaseResponse<Void> accountResponse = webClient
-                    .get()
-                    .uri("/user/account")
-                    .header("Cookie", cookie)
-                    .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<NeteaseResponse<Void>>() {
-                    })
-                    .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
-                    .block();
-
-            // Validate account response
-            if (accountResponse == null) {
-                throw new RuntimeException("Account response is null");
-            }
-            if (accountResponse.getCode() != 200) {
-                throw new RuntimeException("NetEase API returned error code: " + accountResponse.getCode());
-            }
-            if (accountResponse.getProfile() == null) {
-                throw new RuntimeException("Account profile is null");
-            }
+        return getPlaylistsAsync(cookie).block();
+    }
 
-            Long userId = accountResponse.getProfile().getUserId();
+    /**
+     * Non-blocking variant of {@link #getPlaylists}. Like the other async variants, the whole call
+     * including retries is bounded by {@code spotease.http.request-timeout}, and the result is
+     * delivered off the Netty event loop so callers may continue with blocking work.
+     */
+    public Mono<List<NeteasePlaylist>> getPlaylistsAsync(String cookie) {
+        String accountKey = accountKey(cookie);
+        return getAccountId(cookie, accountKey)
+                .flatMap(userId -> webClient
+                        .get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("/user/playlist")
+                                .queryParam("uid", userId)
+                                .queryParam("limit", 100)
+                                .build())
+                        .header("Cookie", cookie)
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<NeteaseResponse<Void>>() {
+                        })
+                        .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
+                        .switchIfEmpty(Mono.error(() -> new RuntimeException("Playlist response is null"))))
+                .map(playlistResponse -> {
+                    // Validate playlist response
+                    if (playlistResponse.getCode() != 200) {
+                        throw new RuntimeException("NetEase API returned error code: " + playlistResponse.getCode());
+                    }
+                    return playlistResponse.getPlaylist() != null ? playlistResponse.getPlaylist() : List.<NeteasePlaylist>of();
+                })
+                .timeout(requestTimeout)
+                // The cookie may have been revoked; look the account up again next time
+                .doOnError(e -> accountIds.invalidate(accountKey))
+                .onErrorMap(e -> new RuntimeException("Failed to get NetEase playlists", e))
+                .publishOn(Schedulers.boundedElastic());
+    }
 
-            // Get user playlists
-            NeteaseResponse<Void> playlistResponse = webClient
-                    .get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/user/playlist")
-                            .queryParam("uid", userId)
-                            .queryParam("limit", 100)
-                            .build())
-                    .header("Cookie", cookie)
-                    .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<NeteaseResponse<Void>>() {
-                    })
-                    .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
-                    .block();
+    /**
+     * Resolves the NetEase user id a cookie belongs to. A cookie always belongs to the same account,
+     * so the lookup is cached and warm playlist listings skip the account call.
+     */
+    private Mono<Long> getAccountId(String cookie, String accountKey) {
+        Long cached = accountIds.getIfPresent(accountKey);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.defer(() -> webClient
+                        .get()
+                        .uri("/user/account")
+                        .header("Cookie", cookie)
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<NeteaseResponse<Void>>() {
+                        })
+                        .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Account response is null")))
+                .map(accountResponse -> {
+                    // Validate account response
+                    if (accountResponse.getCode() != 200) {
+                        throw new RuntimeException("NetEase API returned error code: " + accountResponse.getCode());
+                    }
+                    if (accountResponse.getProfile() == null) {
+                        throw new RuntimeException("Account profile is null");
+                    }
 
-            // Validate playlist response
-            if (playlistResponse == null) {
-                throw new RuntimeException("Playlist response is null");
-            }
-            if (playlistResponse.getCode() != 200) {
-                throw new RuntimeException("NetEase API returned error code: " + playlistResponse.getCode());
-            }
+                    Long userId = accountResponse.getProfile().getUserId();
+                    accountIds.put(accountKey, userId);
+                    return userId;
+                });
+    }
 
-            return playlistResponse.getPlaylist();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to get NetEase playlists", e);
+    /**
+     * Cache key for a cookie, so cookies are not kept as map keys
+     */
+    private static String accountKey(String cookie) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(cookie.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
         }
     }
 
     public NeteasePlaylist getPlaylistById(String cookie, String playlistId) {
-        try {
-            NeteasePlaylistDetailResponse response = webClient
-                    .get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/playlist/detail")
-                            .queryParam("id", playlistId)
-                            .build())
-                    .header("Cookie", cookie)
-                    .retrieve()
-                    .bodyToMono(NeteasePlaylistDetailResponse.class)
-                    .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
-                    .block();
+        return getPlaylistByIdAsync(cookie, playlistId).block();
+    }
 
-            // Validate response
-            if (response == null) {
-                throw new RuntimeException("Playlist response is null");
-            }
-            if (response.getCode() != 200) {
-                throw new RuntimeException("NetEase API returned error code: " + response.getCode());
-            }
-            if (response.getPlaylist() == null) {
-                throw new RuntimeException("Playlist data is null");
-            }
+    /**
+     * Non-blocking variant of {@link #getPlaylistById}.
+     */
+    public Mono<NeteasePlaylist> getPlaylistByIdAsync(String cookie, String playlistId) {
+        return Mono.defer(() -> webClient
+                        .get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("/playlist/detail")
+                                .queryParam("id", playlistId)
+                                .build())
+                        .header("Cookie", cookie)
+                        .retrieve()
+                        .bodyToMono(NeteasePlaylistDetailResponse.class)
+                        .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Playlist response is null")))
+                .map(response -> {
+                    // Validate response
+                    if (response.getCode() != 200) {
+                        throw new RuntimeException("NetEase API returned error code: " + response.getCode());
+                    }
+                    if (response.getPlaylist() == null) {
+                        throw new RuntimeException("Playlist data is null");
+                    }
 
-            // Map to NeteasePlaylist DTO
-            NeteasePlaylistDetailResponse.NeteasePlaylistDetail playlistDetail = response.getPlaylist();
-            NeteasePlaylist dto = new NeteasePlaylist();
-            dto.setId(playlistDetail.getId());
-            dto.setName(playlistDetail.getName());
-            dto.setDescription(playlistDetail.getDescription());
-            dto.setTotalTracks(playlistDetail.getTracks() != null ? playlistDetail.getTracks().size() : 0);
-            dto.setCoverImgUrl(playlistDetail.getCoverImgUrl());
-            dto.setUserId(playlistDetail.getUserId());
-            return dto;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to get NetEase playlist", e);
-        }
+                    // Map to NeteasePlaylist DTO
+                    NeteasePlaylistDetailResponse.NeteasePlaylistDetail playlistDetail = response.getPlaylist();
+                    NeteasePlaylist dto = new NeteasePlaylist();
+                    dto.setId(playlistDetail.getId());
+                    dto.setName(playlistDetail.getName());
+                    dto.setDescription(playlistDetail.getDescription());
+                    dto.setTotalTracks(playlistDetail.getTracks() != null ? playlistDetail.getTracks().size() : 0);
+                    dto.setCoverImgUrl(playlistDetail.getCoverImgUrl());
+                    dto.setUserId(playlistDetail.getUserId());
+                    return dto;
+                })
+                .timeout(requestTimeout)
+                .onErrorMap(e -> new RuntimeException("Failed to get NetEase playlist", e))
+                .publishOn(Schedulers.boundedElastic());
     }
 
     public List<NeteaseTrack> getPlaylistTracks(String cookie, String playlistId) {
@@ -160,44 +213,94 @@ public class NeteaseService {
     }
 
     public List<NeteaseTrack> searchTrack(String cookie, String query) {
+        return searchTrackAsync(cookie, query).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #searchTrack}. Fails with {@link NeteaseSessionExpiredException}
+     * when the cookie is no longer valid.
+     */
+    public Mono<List<NeteaseTrack>> searchTrackAsync(String cookie, String query) {
+        return Mono.defer(() -> webClient
+                        .get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("/cloudsearch")
+                                .queryParam("keywords", query)
+                                .queryParam("type", 1)  // 1 = single track
+                                .queryParam("limit", 5)
+                                .build())
+                        .header("Cookie", cookie)
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<NeteaseResponse<Void>>() {
+                        })
+                        .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Search response is null")))
+                .map(response -> {
+                    // Check for session expired (code 301)
+                    if (response.getCode() == 301) {
+                        log.warn("NetEase session expired while searching tracks");
+                        throw new NeteaseSessionExpiredException();
+                    }
+                    if (response.getCode() != 200) {
+                        throw new RuntimeException("NetEase API returned error code: " + response.getCode());
+                    }
+
+                    return response.getResult() != null && response.getResult().getSongs() != null
+                            ? response.getResult().getSongs()
+                            : List.<NeteaseTrack>of();
+                })
+                .timeout(requestTimeout)
+                // Session expiry is passed through so callers can clear the stored cookie
+                .onErrorMap(e -> !(e instanceof NeteaseSessionExpiredException),
+                        e -> new RuntimeException("Failed to search tracks", e))
+                .publishOn(Schedulers.boundedElastic());
+    }
+
+    public void addTracksToPlaylist(String cookie, String playlistId, List<String> trackIds) {
         try {
-            NeteaseResponse<Void> response = webClient
+            String trackIdsParam = String.join(",", trackIds);
+
+            NeteasePlaylistTracksResponse response = webClient
                     .get()
                     .uri(uriBuilder -> uriBuilder
-                            .path("/cloudsearch")
-                            .queryParam("keywords", query)
-                            .queryParam("type", 1)  // 1 = single track
-                            .queryParam("limit", 5)
+                            .path("/playlist/tracks")
+                            .queryParam("op", "add")
+                            .queryParam("pid", playlistId)
+                            .queryParam("tracks", trackIdsParam)
                             .build())
                     .header("Cookie", cookie)
                     .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<NeteaseResponse<Void>>() {
-                    })
+                    .bodyToMono(NeteasePlaylistTracksResponse.class)
                     .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
                     .block();
 
             // Validate response
             if (response == null) {
-                throw new RuntimeException("Search response is null");
+                throw new RuntimeException("Add tracks response is null");
             }
-            // Check for session expired (code 301)
-            if (response.getCode() == 301) {
-                log.warn("NetEase session expired while searching tracks");
+            // Check for session expired (code 301 at top level)
+            if (response.isSessionExpired()) {
+                log.warn("NetEase session expired while adding tracks to playlist");
                 throw new NeteaseSessionExpiredException();
             }
-            if (response.getCode() != 200) {
-                throw new RuntimeException("NetEase API returned error code: " + response.getCode());
+            // Treat duplicate tracks as success (track is already in playlist)
+            if (response.isDuplicate()) {
+                return; // Track already exists, goal achieved
+            }
+            if (!response.isSuccess()) {
+                Integer status = response.getStatus();
+                Integer code = response.getBody() != null ? response.getBody().getCode() : null;
+                String message = response.getBody() != null ? response.getBody().getMessage() : null;
+                throw new RuntimeException("NetEase API returned error: status=" + status + ", code=" + code + ", message=" + message);
             }
-
-            return response.getResult() != null ? response.getResult().getSongs() : List.of();
         } catch (NeteaseSessionExpiredException e) {
             throw e; // Re-throw session expired exception
         } catch (Exception e) {
-            throw new RuntimeException("Failed to search tracks", e);
+            throw new RuntimeException("Failed to add tracks to playlist", e);
         }
     }
 
-    public void addTracksToPlaylist(String cookie, String playlistId, List<String> trackIds) {
+    public void removeTracksFromPlaylist(String cookie, String playlistId, List<String> trackIds) {
         try {
             String trackIdsParam = String.join(",", trackIds);
 
@@ -205,7 +308,7 @@ public class NeteaseService {
                     .get()
                     .uri(uriBuilder -> uriBuilder
                             .path("/playlist/tracks")
-                            .queryParam("op", "add")
+                            .queryParam("op", "del")
                             .queryParam("pid", playlistId)
                             .queryParam("tracks", trackIdsParam)
                             .build())
@@ -217,17 +320,12 @@ public class NeteaseService {
 
             // Validate response
             if (response == null) {
-                throw new RuntimeException("Add tracks response is null");
+                throw new RuntimeException("Remove tracks response is null");
             }
-            // Check for session expired (code 301 at top level)
             if (response.isSessionExpired()) {
-                log.warn("NetEase session expired while adding tracks to playlist");
+                log.warn("NetEase session expired while removing tracks from playlist");
                 throw new NeteaseSessionExpiredException();
             }
-            // Treat duplicate tracks as success (track is already in playlist)
-            if (response.isDuplicate()) {
-                return; // Track already exists, goal achieved
-            }
             if (!response.isSuccess()) {
                 Integer status = response.getStatus();
                 Integer code = response.getBody() != null ? response.getBody().getCode() : null;
@@ -235,9 +333,9 @@ public class NeteaseService {
                 throw new RuntimeException("NetEase API returned error: status=" + status + ", code=" + code + ", message=" + message);
             }
         } catch (NeteaseSessionExpiredException e) {
-            throw e; // Re-throw session expired exception
+            throw e;
         } catch (Exception e) {
-            throw new RuntimeException("Failed to add tracks to playlist", e);
+            throw new RuntimeException("Failed to remove tracks from playlist", e);
         }
     }
 
@@ -0,0 +1,59 @@
+package com.spotease.service;
+
+import com.spotease.model.Platform;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Caps the platform calls conversion workers make at once, per platform.
+ * <p>
+ * With a fixed worker pool the pool size bounds the calls in flight. In virtual-thread mode jobs
+ * and track searches are not pooled, so these permits are what keeps a replica within what each
+ * platform tolerates. Waiting for a permit is fair, in arrival order.
+ */
+@Service
+public class PlatformCallLimiter {
+
+    private final Map<Platform, Semaphore> permits = new EnumMap<>(Platform.class);
+
+    public PlatformCallLimiter(@Value("${spotease.platform-limits.spotify.max-concurrent-calls:10}") int spotifyCalls,
+                               @Value("${spotease.platform-limits.netease.max-concurrent-calls:10}") int neteaseCalls,
+                               MeterRegistry meterRegistry) {
+        permits.put(Platform.SPOTIFY, new Semaphore(spotifyCalls, true));
+        permits.put(Platform.NETEASE, new Semaphore(neteaseCalls, true));
+        permits.forEach((platform, semaphore) ->
+                Gauge.builder("spotease.platform-calls.waiting", semaphore, Semaphore::getQueueLength)
+                        .description("Worker calls waiting for a free platform call slot")
+                        .tag("platform", platform.name())
+                        .register(meterRegistry));
+    }
+
+    /**
+     * Runs a platform call once one of the platform's permits is free.
+     *
+     * @throws CancellationException if the thread is interrupted while waiting, which only a
+     *                               cancelled job does
+     */
+    public <T> T call(Platform platform, Supplier<T> call) {
+        Semaphore semaphore = permits.get(platform);
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for a " + platform + " call slot");
+        }
+        try {
+            return call.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.spotease.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spotease.dto.netease.NeteasePlaylist;
+import com.spotease.dto.spotify.SpotifyPlaylist;
+import com.spotease.model.Platform;
+import com.spotease.model.PlaylistCacheVersion;
+import com.spotease.repository.PlaylistCacheVersionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Per-user cache of playlist listings, so opening the dashboard or the conversion dialog does not
+ * call Spotify or NetEase every time.
+ * <p>
+ * A listing is served as-is for {@code ttl}. After that it is still served, but the first request
+ * also reloads it in the background (stale-while-revalidate); only once it is older than
+ * {@code ttl + stale-while-revalidate} does a request wait for the platform again. Concurrent
+ * misses share a single load, and failed loads are not cached. Jobs and reviews that create or
+ * change a playlist {@link #invalidate} the user's listing for that platform. Callers get a copy
+ * of the shared future, so completing or cancelling it does not affect other requests.
+ * <p>
+ * Each replica caches listings in memory, so invalidations are shared through a version stamp in
+ * {@code playlist_cache_versions}: invalidating bumps the listing's version, and every request
+ * reads it and reloads a listing that was cached under an older version. If the version cannot
+ * be read, cached listings are served as if it had not changed.
+ */
+@Service
+@Slf4j
+public class PlaylistCache {
+
+    private static final long UNKNOWN_VERSION = -1;
+
+    private final Cache<Long, Entry<SpotifyPlaylist>> spotify;
+    private final Cache<Long, Entry<NeteasePlaylist>> netease;
+    private final PlaylistCacheVersionRepository versionRepository;
+    private final TransactionTemplate requiresNew;
+    private final Duration ttl;
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    public PlaylistCache(PlaylistCacheVersionRepository versionRepository,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${spotease.playlist-cache.ttl:PT2M}") Duration ttl,
+                         @Value("${spotease.playlist-cache.stale-while-revalidate:PT10M}") Duration staleWhileRevalidate,
+                         @Value("${spotease.playlist-cache.max-size:10000}") long maxSize) {
+        this.versionRepository = versionRepository;
+        // Invalidations happen inside job transactions but must be visible to other replicas at once
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = ttl;
+        this.spotify = Caffeine.newBuilder()
+                .expireAfterWrite(ttl.plus(staleWhileRevalidate))
+                .maximumSize(maxSize)
+                .build();
+        this.netease = Caffeine.newBuilder()
+                .expireAfterWrite(ttl.plus(staleWhileRevalidate))
+                .maximumSize(maxSize)
+                .build();
+        this.hits = requests(meterRegistry, "hit");
+        this.staleHits = requests(meterRegistry, "stale");
+        this.misses = requests(meterRegistry, "miss");
+        this.invalidations = Counter.builder("spotease.playlist-cache.invalidations")
+                .description("Playlist listings dropped after a playlist was created or changed")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, spotify, "playlists.spotify");
+        CaffeineCacheMetrics.monitor(meterRegistry, netease, "playlists.netease");
+    }
+
+    /**
+     * Returns the user's Spotify playlists, calling {@code loader} only on a miss or to revalidate.
+     */
+    public CompletableFuture<List<SpotifyPlaylist>> getSpotifyPlaylists(
+            Long userId, Supplier<CompletableFuture<List<SpotifyPlaylist>>> loader) {
+        return get(spotify, userId, Platform.SPOTIFY, loader).copy();
+    }
+
+    /**
+     * Returns the user's NetEase playlists, calling {@code loader} only on a miss or to revalidate.
+     */
+    public CompletableFuture<List<NeteasePlaylist>> getNeteasePlaylists(
+            Long userId, Supplier<CompletableFuture<List<NeteasePlaylist>>> loader) {
+        return get(netease, userId, Platform.NETEASE, loader).copy();
+    }
+
+    /**
+     * Drops the user's cached listing for a platform after one of their playlists there changed, on
+     * this replica and, through the listing's version, on the others.
+     */
+    public void invalidate(Long userId, Platform platform) {
+        try {
+            bumpVersion(userId, platform);
+        } catch (RuntimeException e) {
+            log.warn("Failed to share invalidation of {} playlists of user {}: {}", platform, userId, e.getMessage());
+        }
+        if (platform == Platform.SPOTIFY) {
+            spotify.invalidate(userId);
+        } else {
+            netease.invalidate(userId);
+        }
+        invalidations.increment();
+        log.debug("Invalidated {} playlists of user {}", platform, userId);
+    }
+
+    /**
+     * Size of one of the user's playlists according to the cached listing, without loading it.
+     * Empty if the listing is not cached or does not include the playlist.
+     */
+    public Optional<Integer> cachedTrackCount(Long userId, Platform platform, String playlistId) {
+        if (platform == Platform.SPOTIFY) {
+            return cachedTrackCount(spotify, userId, playlistId, SpotifyPlaylist::getId, SpotifyPlaylist::getTotalTracks);
+        }
+        return cachedTrackCount(netease, userId, playlistId, NeteasePlaylist::getId, NeteasePlaylist::getTotalTracks);
+    }
+
+    private static <T> Optional<Integer> cachedTrackCount(Cache<Long, Entry<T>> cache, Long userId, String playlistId,
+                                                          Function<T, String> id, Function<T, Integer> totalTracks) {
+        Entry<T> entry = cache.getIfPresent(userId);
+        if (entry == null || !entry.playlists.isDone() || entry.playlists.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return entry.playlists.join().stream()
+                .filter(playlist -> playlistId.equals(id.apply(playlist)))
+                .findFirst()
+                .map(totalTracks);
+    }
+
+    private void bumpVersion(Long userId, Platform platform) {
+        Integer bumped = requiresNew.execute(status -> versionRepository.bump(userId, platform));
+        if (bumped != null && bumped > 0) {
+            return;
+        }
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                PlaylistCacheVersion version = new PlaylistCacheVersion();
+                version.setUserId(userId);
+                version.setPlatform(platform);
+                version.setVersion(1);
+                versionRepository.saveAndFlush(version);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another replica stamped the listing first
+            requiresNew.execute(status -> versionRepository.bump(userId, platform));
+        }
+    }
+
+    /**
+     * Current version of the user's listing, 0 if it was never invalidated, or
+     * {@link #UNKNOWN_VERSION} if it cannot be read.
+     */
+    private long currentVersion(Long userId, Platform platform) {
+        try {
+            return versionRepository.findVersion(userId, platform).orElse(0L);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read version of {} playlists of user {}: {}", platform, userId, e.getMessage());
+            return UNKNOWN_VERSION;
+        }
+    }
+
+    private <T> CompletableFuture<List<T>> get(Cache<Long, Entry<T>> cache, Long userId, Platform platform,
+                                               Supplier<CompletableFuture<List<T>>> loader) {
+        // Read before loading, so a change made during the load leaves the entry outdated
+        long version = currentVersion(userId, platform);
+        long now = System.nanoTime();
+        boolean[] loaded = {false};
+        Entry<T> entry = cache.asMap().compute(userId, (id, current) -> {
+            if (current == null || current.playlists.isCompletedExceptionally()
+                    || (version != UNKNOWN_VERSION && current.version != version)) {
+                loaded[0] = true;
+                return new Entry<>(loader.get(), now, version);
+            }
+            return current;
+        });
+
+        if (loaded[0]) {
+            misses.increment();
+            // Failed loads are dropped so the next request retries
+            entry.playlists.whenComplete((playlists, error) -> {
+                if (error != null) {
+                    cache.asMap().remove(userId, entry);
+                }
+            });
+            return entry.playlists;
+        }
+        if (now - entry.loadedAt < ttl.toNanos() || !entry.playlists.isDone()) {
+            hits.increment();
+            return entry.playlists;
+        }
+
+        staleHits.increment();
+        if (entry.refreshing.compareAndSet(false, true)) {
+            revalidate(cache, userId, entry, version, loader);
+        }
+        return entry.playlists;
+    }
+
+    private <T> void revalidate(Cache<Long, Entry<T>> cache, Long userId, Entry<T> stale, long version,
+                                Supplier<CompletableFuture<List<T>>> loader) {
+        CompletableFuture<List<T>> reload;
+        try {
+            reload = loader.get();
+        } catch (RuntimeException e) {
+            stale.refreshing.set(false);
+            log.warn("Failed to revalidate playlists of user {}: {}", userId, e.getMessage());
+            return;
+        }
+        reload.whenComplete((playlists, error) -> {
+            if (error != null) {
+                // Keep serving the stale listing until it expires
+                stale.refreshing.set(false);
+                log.warn("Failed to revalidate playlists of user {}: {}", userId, error.getMessage());
+                return;
+            }
+            // No-op if the entry was invalidated or replaced meanwhile
+            cache.asMap().replace(userId, stale,
+                    new Entry<>(CompletableFuture.completedFuture(playlists), System.nanoTime(), version));
+        });
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("spotease.playlist-cache.requests")
+                .description("Playlist listing requests by cache result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class Entry<T> {
+        private final CompletableFuture<List<T>> playlists;
+        private final long loadedAt;
+        // Version of the listing when the load started
+        private final long version;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(CompletableFuture<List<T>> playlists, long loadedAt, long version) {
+            this.playlists = playlists;
+            this.loadedAt = loadedAt;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.spotease.service;
+
+import com.spotease.model.ConversionJob;
+import com.spotease.model.ConversionMode;
+import com.spotease.model.PlaylistSync;
+import com.spotease.model.PlaylistSyncTrack;
+import com.spotease.model.TrackMatch;
+import com.spotease.repository.PlaylistSyncRepository;
+import com.spotease.repository.PlaylistSyncTrackRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the per playlist pair state that lets SYNC jobs process only what changed in the source.
+ * All methods run in the caller's transaction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PlaylistSyncService {
+
+    private final PlaylistSyncRepository syncRepository;
+    private final PlaylistSyncTrackRepository syncTrackRepository;
+
+    /**
+     * The sync state of the job's playlist pair, created on the pair's first SYNC job.
+     */
+    public PlaylistSync getOrCreate(ConversionJob job) {
+        return syncRepository.findByUser_IdAndSourcePlatformAndSourcePlaylistIdAndDestinationPlaylistId(
+                        job.getUser().getId(), job.getSourcePlatform(), job.getSourcePlaylistId(),
+                        job.getDestinationPlaylistId())
+                .orElseGet(() -> {
+                    PlaylistSync sync = new PlaylistSync();
+                    sync.setUser(job.getUser());
+                    sync.setSourcePlatform(job.getSourcePlatform());
+                    sync.setSourcePlaylistId(job.getSourcePlaylistId());
+                    sync.setDestinationPlatform(job.getDestinationPlatform());
+                    sync.setDestinationPlaylistId(job.getDestinationPlaylistId());
+                    return syncRepository.save(sync);
+                });
+    }
+
+    /**
+     * Source tracks handled by earlier syncs of the pair, by source track id.
+     */
+    public Map<String, PlaylistSyncTrack> getSyncedTracks(PlaylistSync sync) {
+        return syncTrackRepository.findByPlaylistSync_Id(sync.getId()).stream()
+                .collect(Collectors.toMap(PlaylistSyncTrack::getSourceTrackId, Function.identity()));
+    }
+
+    /**
+     * Records a completed sync: the tracks it matched and dropped, and the source snapshot the
+     * destination is now up to date with.
+     */
+    public void recordSync(PlaylistSync sync, ConversionJob job, String sourceSnapshot,
+                           Collection<TrackMatch> matched, Collection<PlaylistSyncTrack> removed) {
+        syncTrackRepository.deleteAll(removed);
+
+        List<PlaylistSyncTrack> added = matched.stream()
+                .map(match -> {
+                    PlaylistSyncTrack track = new PlaylistSyncTrack();
+                    track.setPlaylistSync(sync);
+                    track.setSourceTrackId(match.getSourceTrackId());
+                    track.setDestinationTrackId(isResolved(match) ? match.getDestinationTrackId() : null);
+                    return track;
+                })
+                .toList();
+        syncTrackRepository.saveAll(added);
+
+        sync.setSourceSnapshot(sourceSnapshot);
+        sync.setLastJobId(job.getId());
+        sync.setLastSyncedAt(LocalDateTime.now());
+        syncRepository.save(sync);
+
+        log.info("Recorded sync {} at snapshot {}: {} tracks added, {} removed",
+                sync.getId(), sourceSnapshot, added.size(), removed.size());
+    }
+
+    /**
+     * Records the destination track of a match the user approved during review, so a later sync
+     * removes it from the destination if the source track goes away.
+     */
+    public void recordApproval(ConversionJob job, TrackMatch match) {
+        if (job.getMode() != ConversionMode.SYNC) {
+            return;
+        }
+        syncRepository.findByUser_IdAndSourcePlatformAndSourcePlaylistIdAndDestinationPlaylistId(
+                        job.getUser().getId(), job.getSourcePlatform(), job.getSourcePlaylistId(),
+                        job.getDestinationPlaylistId())
+                .flatMap(sync -> syncTrackRepository.findByPlaylistSync_IdAndSourceTrackId(
+                        sync.getId(), match.getSourceTrackId()))
+                .ifPresent(track -> {
+                    track.setDestinationTrackId(match.getDestinationTrackId());
+                    syncTrackRepository.save(track);
+                });
+    }
+
+    /**
+     * Snapshot of a playlist that has no snapshot id of its own: a hash of its track ids in order.
+     */
+    public static String contentHash(List<String> trackIds) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String trackId : trackIds) {
+                digest.update(trackId.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private static boolean isResolved(TrackMatch match) {
+        return switch (match.getStatus()) {
+            case AUTO_MATCHED, USER_APPROVED -> true;
+            default -> false;
+        };
+    }
+}
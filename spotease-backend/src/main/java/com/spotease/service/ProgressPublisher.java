@@ -0,0 +1,201 @@
+package com.spotease.service;
+
+import com.spotease.dto.BulkProgressMessage;
+import com.spotease.dto.WebSocketMessage;
+import com.spotease.model.BulkConversion;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.JobStatus;
+import com.spotease.repository.ConversionJobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes conversion job progress at a bounded rate.
+ * <p>
+ * Progress counters live on the in-memory {@link ConversionJob} while a job runs. Per-track
+ * updates are coalesced so that at most one WebSocket message per {@code publish-interval} is sent
+ * for a job, and the counters are written to the database on the slower {@code persist-interval}.
+ * The worker's transaction commits only when the job ends, so the start of a job and its counters
+ * are written in a transaction of their own, where other requests see them while the job runs.
+ * The final transitions (completion, failure, pause) are saved with the worker's transaction,
+ * together with the job's matches. All transitions are published immediately.
+ * <p>
+ * Every message about a child job of a bulk conversion is followed by the batch's aggregate
+ * progress, summed over the children this replica has seen report.
+ */
+@Service
+@Slf4j
+public class ProgressPublisher {
+
+    private final ConversionJobRepository jobRepository;
+    private final WebSocketService webSocketService;
+    private final TransactionTemplate requiresNew;
+    private final Duration publishInterval;
+    private final Duration persistInterval;
+
+    private final Map<Long, JobProgress> progress = new ConcurrentHashMap<>();
+    // Latest message of each reporting child, by bulk conversion id
+    private final Map<Long, Map<Long, WebSocketMessage>> bulkProgress = new ConcurrentHashMap<>();
+
+    private final Counter published;
+    private final Counter coalesced;
+    private final Counter persisted;
+    private final Counter transitions;
+
+    public ProgressPublisher(ConversionJobRepository jobRepository, WebSocketService webSocketService,
+                             MeterRegistry meterRegistry, PlatformTransactionManager transactionManager,
+                             @Value("${spotease.progress.publish-interval:PT0.5S}") Duration publishInterval,
+                             @Value("${spotease.progress.persist-interval:PT5S}") Duration persistInterval) {
+        this.jobRepository = jobRepository;
+        this.webSocketService = webSocketService;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.publishInterval = publishInterval;
+        this.persistInterval = persistInterval;
+        this.published = Counter.builder("spotease.progress.published")
+                .description("Progress updates sent to WebSocket subscribers")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("spotease.progress.coalesced")
+                .description("Progress updates merged into a later message instead of being sent")
+                .register(meterRegistry);
+        this.persisted = Counter.builder("spotease.progress.persisted")
+                .description("Progress writes to the conversion_jobs table")
+                .register(meterRegistry);
+        this.transitions = Counter.builder("spotease.progress.transitions")
+                .description("Job state transitions flushed immediately")
+                .register(meterRegistry);
+        Gauge.builder("spotease.progress.active-jobs", progress, Map::size)
+                .description("Jobs with progress being tracked")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Persists and publishes the job's move to PROCESSING.
+     */
+    public void jobStarted(ConversionJob job) {
+        long now = System.nanoTime();
+        progress.put(job.getId(), new JobProgress(now, now));
+        persistProgress(job);
+        webSocketService.sendJobUpdate(job);
+        publishBulkProgress(job);
+        transitions.increment();
+    }
+
+    /**
+     * Records that the job's counters changed. Publishes and persists only when the respective
+     * interval has elapsed since the last time; otherwise the update is merged into the next one.
+     */
+    public void trackProcessed(ConversionJob job) {
+        JobProgress state = progress.computeIfAbsent(job.getId(), id -> new JobProgress(0, 0));
+        long now = System.nanoTime();
+
+        if (now - state.lastPersisted >= persistInterval.toNanos()) {
+            state.lastPersisted = now;
+            persistProgress(job);
+        }
+
+        if (now - state.lastPublished >= publishInterval.toNanos()) {
+            state.lastPublished = now;
+            webSocketService.sendJobUpdate(job);
+            publishBulkProgress(job);
+            published.increment();
+        } else {
+            coalesced.increment();
+        }
+    }
+
+    /**
+     * Writes the job's status, playlist fields and counters now, in a transaction of its own and
+     * without publishing. A failed write is logged and left to the next one.
+     */
+    public void persistProgress(ConversionJob job) {
+        try {
+            Integer updated = requiresNew.execute(status -> jobRepository.updateProgress(job, LocalDateTime.now()));
+            if (updated != null && updated > 0) {
+                persisted.increment();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to persist progress of job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Persists and publishes the job's final state, flushing any coalesced progress.
+     */
+    public void jobFinished(ConversionJob job) {
+        progress.remove(job.getId());
+        jobRepository.save(job);
+        webSocketService.sendJobComplete(job);
+        publishBulkProgress(job);
+        transitions.increment();
+    }
+
+    /**
+     * Persists and publishes a failed job.
+     */
+    public void jobFailed(ConversionJob job, String errorMessage) {
+        progress.remove(job.getId());
+        jobRepository.save(job);
+        webSocketService.sendJobError(job, errorMessage);
+        publishBulkProgress(job);
+        transitions.increment();
+    }
+
+    /**
+     * Persists and publishes a job that was paused, cancelled or resumed.
+     */
+    public void jobStatusChanged(ConversionJob job) {
+        progress.remove(job.getId());
+        jobRepository.save(job);
+        webSocketService.sendJobUpdate(job);
+        publishBulkProgress(job);
+        transitions.increment();
+    }
+
+    /**
+     * Publishes the final progress of a bulk conversion whose last child has finished.
+     */
+    public void bulkFinished(BulkConversion bulk, List<ConversionJob> children) {
+        bulkProgress.remove(bulk.getId());
+        List<WebSocketMessage> messages = children.stream().map(WebSocketMessage::from).toList();
+        webSocketService.sendBulkProgress(bulk.getUser().getId(),
+                BulkProgressMessage.from(bulk.getId(), bulk.getStatus(), bulk.getTotalJobs(), messages));
+        transitions.increment();
+    }
+
+    private void publishBulkProgress(ConversionJob job) {
+        BulkConversion bulk = job.getBulkConversion();
+        if (bulk == null) {
+            return;
+        }
+        Map<Long, WebSocketMessage> children =
+                bulkProgress.computeIfAbsent(bulk.getId(), id -> new ConcurrentHashMap<>());
+        children.put(job.getId(), WebSocketMessage.from(job));
+        webSocketService.sendBulkProgress(job.getUser().getId(),
+                BulkProgressMessage.from(bulk.getId(), JobStatus.PROCESSING, bulk.getTotalJobs(), children.values()));
+    }
+
+    private static final class JobProgress {
+        // Only touched by the thread processing the job
+        private long lastPublished;
+        private long lastPersisted;
+
+        private JobProgress(long lastPublished, long lastPersisted) {
+            this.lastPublished = lastPublished;
+            this.lastPersisted = lastPersisted;
+        }
+    }
+}
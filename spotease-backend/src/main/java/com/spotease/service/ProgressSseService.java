@@ -0,0 +1,312 @@
+package com.spotease.service;
+
+import com.spotease.dto.WebSocketMessage;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.JobStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Sent Events progress streams for single jobs.
+ * <p>
+ * Every message published through {@link WebSocketService} is also appended to a small per-job
+ * ring buffer and pushed to the job's SSE watchers, with a per-job increasing event id. A client
+ * that reconnects with {@code Last-Event-ID} is replayed the events it missed; if they have fallen
+ * out of the buffer it gets the latest state instead, which is enough because each message carries
+ * the job's full counters. Emitters are asynchronous, so idle watchers do not hold a thread.
+ * <p>
+ * Streams of finished jobs are kept for {@code spotease.sse.retention}, so a watcher that
+ * reconnects right after the final event still receives it.
+ * <p>
+ * Messages are published from conversion workers, which must not wait on slow clients. Each
+ * watcher has a bounded queue of events that a small pool of send threads writes out; a watcher
+ * whose queue fills up has fallen behind and is completed, and can reconnect with
+ * {@code Last-Event-ID}.
+ */
+@Service
+@Slf4j
+public class ProgressSseService {
+
+    static final String EVENT_NAME = "progress";
+
+    private final Map<Long, JobStream> streams = new ConcurrentHashMap<>();
+    private final Executor sendExecutor;
+
+    @Value("${spotease.sse.buffer-size:32}")
+    private int bufferSize;
+
+    // Events waiting to be written to one watcher before it is considered too slow
+    @Value("${spotease.sse.watcher-queue-size:16}")
+    private int watcherQueueSize;
+
+    @Value("${spotease.sse.timeout:PT30M}")
+    private Duration timeout;
+
+    @Value("${spotease.sse.retention:PT5M}")
+    private Duration retention;
+
+    @Autowired
+    public ProgressSseService(@Value("${spotease.sse.send-threads:4}") int sendThreads) {
+        this(new ThreadPoolExecutor(sendThreads, sendThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("sse-send-")));
+    }
+
+    ProgressSseService(Executor sendExecutor) {
+        this.sendExecutor = sendExecutor;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sendExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Opens an SSE stream for the job, replaying events after {@code lastEventId} if given.
+     */
+    public SseEmitter subscribe(ConversionJob job, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+
+        JobStream stream = streams.get(job.getId());
+        if (stream == null) {
+            if (isFinished(job.getStatus())) {
+                // Nothing more will be published; send the final state and close
+                send(emitter, 0, WebSocketMessage.from(job));
+                emitter.complete();
+                return emitter;
+            }
+            stream = streams.computeIfAbsent(job.getId(), id -> new JobStream());
+        }
+
+        synchronized (stream) {
+            // The emitter is not attached to the response yet, so these sends are only buffered
+            if (lastEventId != null && stream.canResumeAfter(lastEventId)) {
+                for (Event event : stream.buffer) {
+                    if (event.id() > lastEventId) {
+                        send(emitter, event.id(), event.message());
+                    }
+                }
+            } else if (!stream.buffer.isEmpty()) {
+                Event latest = stream.buffer.getLast();
+                send(emitter, latest.id(), latest.message());
+            } else {
+                send(emitter, stream.lastId, WebSocketMessage.from(job));
+            }
+
+            if (stream.finished) {
+                emitter.complete();
+                return emitter;
+            }
+            stream.watchers.add(new Watcher(job.getId(), emitter));
+        }
+
+        emitter.onCompletion(() -> remove(job.getId(), emitter));
+        emitter.onTimeout(() -> remove(job.getId(), emitter));
+        emitter.onError(e -> remove(job.getId(), emitter));
+        return emitter;
+    }
+
+    /**
+     * Appends a message to the job's buffer and queues it for the job's watchers. A final status
+     * (anything but QUEUED or PROCESSING) completes the watchers once it has been sent.
+     */
+    public void publish(Long jobId, WebSocketMessage message) {
+        boolean finished = isFinished(message.getStatus());
+        JobStream stream = streams.computeIfAbsent(jobId, id -> new JobStream());
+
+        synchronized (stream) {
+            stream.finished = finished;
+            stream.lastActivity = System.nanoTime();
+            Event event = new Event(++stream.lastId, message);
+            stream.buffer.addLast(event);
+            while (stream.buffer.size() > bufferSize) {
+                stream.buffer.removeFirst();
+            }
+
+            for (Watcher watcher : List.copyOf(stream.watchers)) {
+                if (!watcher.offer(event(event.id(), message), finished)) {
+                    stream.watchers.remove(watcher);
+                }
+            }
+            if (finished) {
+                stream.watchers.clear();
+            }
+        }
+    }
+
+    /**
+     * Sends a comment to every open stream, so proxies do not close idle connections, and drops
+     * unwatched streams of finished jobs after the retention period (or of idle jobs after the
+     * emitter timeout).
+     */
+    public void sendHeartbeats() {
+        long now = System.nanoTime();
+        streams.entrySet().removeIf(entry -> {
+            JobStream stream = entry.getValue();
+            synchronized (stream) {
+                stream.watchers.removeIf(watcher -> !watcher.offer(SseEmitter.event().comment("keepalive"), false));
+                Duration keep = stream.finished ? retention : timeout;
+                return stream.watchers.isEmpty() && now - stream.lastActivity > keep.toNanos();
+            }
+        });
+    }
+
+    int watcherCount(Long jobId) {
+        JobStream stream = streams.get(jobId);
+        if (stream == null) {
+            return 0;
+        }
+        synchronized (stream) {
+            return stream.watchers.size();
+        }
+    }
+
+    private void remove(Long jobId, SseEmitter emitter) {
+        JobStream stream = streams.get(jobId);
+        if (stream != null) {
+            synchronized (stream) {
+                stream.watchers.removeIf(watcher -> watcher.emitter == emitter);
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, long id, WebSocketMessage message) {
+        try {
+            emitter.send(event(id, message));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the container completes the emitter
+            log.debug("Dropping SSE watcher of job {}: {}", message.getJobId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder event(long id, WebSocketMessage message) {
+        return SseEmitter.event()
+                .id(Long.toString(id))
+                .name(EVENT_NAME)
+                .data(message, MediaType.APPLICATION_JSON);
+    }
+
+    private static boolean isFinished(JobStatus status) {
+        return status != JobStatus.QUEUED && status != JobStatus.PROCESSING;
+    }
+
+    private record Event(long id, WebSocketMessage message) {
+    }
+
+    /**
+     * One open stream and the events queued for it. At most one send task runs per watcher, so its
+     * events go out in order.
+     */
+    private final class Watcher {
+        private final Long jobId;
+        private final SseEmitter emitter;
+        private final Deque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        private boolean sending;
+        private boolean completeWhenSent;
+        private boolean closed;
+
+        private Watcher(Long jobId, SseEmitter emitter) {
+            this.jobId = jobId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues an event, and completes the watcher after it if {@code last}. Returns false if the
+         * watcher is gone or too far behind, in which case it is closed.
+         */
+        private boolean offer(SseEmitter.SseEventBuilder event, boolean last) {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                if (pending.size() >= watcherQueueSize) {
+                    // A send task is still writing to it; that task completes it
+                    log.info("SSE watcher of job {} fell behind, closing its stream", jobId);
+                    closed = true;
+                    pending.clear();
+                    return false;
+                }
+                pending.addLast(event);
+                completeWhenSent |= last;
+                if (sending) {
+                    return true;
+                }
+                sending = true;
+            }
+            sendExecutor.execute(this::sendPending);
+            return true;
+        }
+
+        private void sendPending() {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+                synchronized (this) {
+                    event = closed ? null : pending.pollFirst();
+                    if (event == null) {
+                        sending = false;
+                        if (!closed && !completeWhenSent) {
+                            return;
+                        }
+                        closed = true;
+                    }
+                }
+                if (event == null) {
+                    emitter.complete();
+                    return;
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; the container completes the emitter
+                    log.debug("Dropping SSE watcher of job {}: {}", jobId, e.getMessage());
+                    synchronized (this) {
+                        closed = true;
+                        sending = false;
+                        pending.clear();
+                    }
+                    remove(jobId, emitter);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class JobStream {
+        private final Deque<Event> buffer = new ArrayDeque<>();
+        private final List<Watcher> watchers = new ArrayList<>();
+        private long lastId;
+        private boolean finished;
+        private long lastActivity = System.nanoTime();
+
+        /**
+         * Whether every event after {@code lastEventId} is still buffered.
+         */
+        private boolean canResumeAfter(long lastEventId) {
+            long oldest = buffer.isEmpty() ? lastId + 1 : buffer.getFirst().id();
+            return lastEventId >= oldest - 1 && lastEventId <= lastId;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.spotease.service;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import com.spotease.dto.spotify.SpotifyPlaylist;
 import com.spotease.dto.spotify.SpotifyTrack;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import se.michaelthelin.spotify.SpotifyApi;
 import se.michaelthelin.spotify.model_objects.specification.*;
@@ -10,8 +13,13 @@ import se.michaelthelin.spotify.requests.data.playlists.*;
 import se.michaelthelin.spotify.requests.data.search.simplified.SearchTracksRequest;
 import se.michaelthelin.spotify.requests.data.users_profile.GetCurrentUsersProfileRequest;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,6 +28,10 @@ public class SpotifyService {
 
     private final SpotifyApi spotifyApi;
 
+    // Deadline for one platform call
+    @Value("${spotease.http.request-timeout:PT20S}")
+    private Duration requestTimeout;
+
     /**
      * Creates a new SpotifyApi instance with the provided access token.
      * This ensures thread-safety by avoiding mutation of the singleton bean.
@@ -105,19 +117,40 @@ public class SpotifyService {
                     .getPlaylist(playlistId)
                     .build();
 
-            se.michaelthelin.spotify.model_objects.specification.Playlist playlist = getPlaylistRequest.execute();
-
-            SpotifyPlaylist dto = new SpotifyPlaylist();
-            dto.setId(playlist.getId());
-            dto.setName(playlist.getName());
-            dto.setDescription(playlist.getDescription());
-            dto.setTotalTracks(playlist.getTracks().getTotal());
-            return dto;
+            return mapToSpotifyPlaylist(getPlaylistRequest.execute());
         } catch (Exception e) {
             throw new RuntimeException("Failed to get Spotify playlist", e);
         }
     }
 
+    /**
+     * Asynchronous variant of {@link #getPlaylists}. The request runs on the Spotify client's own
+     * executor and fails after {@code spotease.http.request-timeout}.
+     */
+    public CompletableFuture<List<SpotifyPlaylist>> getPlaylistsAsync(String accessToken) {
+        return withDeadline(() -> createAuthenticatedApi(accessToken)
+                        .getListOfCurrentUsersPlaylists()
+                        .limit(50)
+                        .build()
+                        .executeAsync()
+                        .thenApply(playlistPaging -> Arrays.stream(playlistPaging.getItems())
+                                .map(this::mapToSpotifyPlaylist)
+                                .collect(Collectors.toList())),
+                "Failed to get Spotify playlists");
+    }
+
+    /**
+     * Asynchronous variant of {@link #getPlaylistById}.
+     */
+    public CompletableFuture<SpotifyPlaylist> getPlaylistByIdAsync(String accessToken, String playlistId) {
+        return withDeadline(() -> createAuthenticatedApi(accessToken)
+                        .getPlaylist(playlistId)
+                        .build()
+                        .executeAsync()
+                        .thenApply(this::mapToSpotifyPlaylist),
+                "Failed to get Spotify playlist");
+    }
+
     public List<SpotifyTrack> getPlaylistTracks(String accessToken, String playlistId) {
         try {
             SpotifyApi authenticatedApi = createAuthenticatedApi(accessToken);
@@ -158,6 +191,21 @@ public class SpotifyService {
         }
     }
 
+    /**
+     * Asynchronous variant of {@link #searchTrack}.
+     */
+    public CompletableFuture<List<SpotifyTrack>> searchTrackAsync(String accessToken, String query) {
+        return withDeadline(() -> createAuthenticatedApi(accessToken)
+                        .searchTracks(query)
+                        .limit(5)
+                        .build()
+                        .executeAsync()
+                        .thenApply(trackPaging -> Arrays.stream(trackPaging.getItems())
+                                .map(this::mapToSpotifyTrack)
+                                .collect(Collectors.toList())),
+                "Failed to search tracks");
+    }
+
     public void addTracksToPlaylist(String accessToken, String playlistId, List<String> trackUris) {
         try {
             SpotifyApi authenticatedApi = createAuthenticatedApi(accessToken);
@@ -172,6 +220,30 @@ public class SpotifyService {
         }
     }
 
+    /**
+     * Removes every occurrence of the given tracks (spotify:track:id URIs) from a playlist.
+     */
+    public void removeTracksFromPlaylist(String accessToken, String playlistId, List<String> trackUris) {
+        try {
+            SpotifyApi authenticatedApi = createAuthenticatedApi(accessToken);
+
+            JsonArray tracks = new JsonArray();
+            for (String uri : trackUris) {
+                JsonObject track = new JsonObject();
+                track.addProperty("uri", uri);
+                tracks.add(track);
+            }
+
+            RemoveItemsFromPlaylistRequest removeItemsRequest = authenticatedApi
+                    .removeItemsFromPlaylist(playlistId, tracks)
+                    .build();
+
+            removeItemsRequest.execute();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to remove tracks from playlist", e);
+        }
+    }
+
     public String createPlaylist(String accessToken, String playlistName) {
         try {
             SpotifyApi authenticatedApi = createAuthenticatedApi(accessToken);
@@ -194,6 +266,40 @@ public class SpotifyService {
         }
     }
 
+    /**
+     * Bounds an asynchronous request by the request timeout and wraps its failure like the
+     * blocking methods do, keeping the original exception as the cause.
+     */
+    private <T> CompletableFuture<T> withDeadline(Supplier<CompletableFuture<T>> request, String failureMessage) {
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(new RuntimeException(failureMessage, e));
+        }
+        return future
+                .orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((result, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause()
+                                : error;
+                        throw new CompletionException(new RuntimeException(failureMessage, cause));
+                    }
+                    return result;
+                });
+    }
+
+    private SpotifyPlaylist mapToSpotifyPlaylist(Playlist playlist) {
+        SpotifyPlaylist dto = new SpotifyPlaylist();
+        dto.setId(playlist.getId());
+        dto.setName(playlist.getName());
+        dto.setDescription(playlist.getDescription());
+        dto.setTotalTracks(playlist.getTracks().getTotal());
+        dto.setSnapshotId(playlist.getSnapshotId());
+        return dto;
+    }
+
     private SpotifyPlaylist mapToSpotifyPlaylist(PlaylistSimplified playlist) {
         SpotifyPlaylist dto = new SpotifyPlaylist();
         dto.setId(playlist.getId());
@@ -201,6 +307,7 @@ public class SpotifyService {
         dto.setDescription(playlist.getDescription());
         dto.setCoverImageUrl(selectMediumImage(playlist.getImages()));
         dto.setTotalTracks(playlist.getTracks().getTotal());
+        dto.setSnapshotId(playlist.getSnapshotId());
         return dto;
     }
 
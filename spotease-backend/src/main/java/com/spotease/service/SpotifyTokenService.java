@@ -0,0 +1,290 @@
+package com.spotease.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.spotease.model.JobStatus;
+import com.spotease.model.User;
+import com.spotease.repository.UserRepository;
+import com.spotease.util.TokenEncryption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.michaelthelin.spotify.SpotifyApi;
+import se.michaelthelin.spotify.exceptions.detailed.UnauthorizedException;
+import se.michaelthelin.spotify.model_objects.credentials.AuthorizationCodeCredentials;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps users' Spotify access tokens fresh.
+ * <p>
+ * Tokens are refreshed shortly before they expire, either proactively for users with queued or
+ * running jobs or on demand when Spotify rejects a token with 401. Refreshes are single-flight per
+ * user: concurrent callers wait for the refresh already in progress instead of starting another.
+ * Refreshed tokens are also kept in memory until they expire, so a long-running job whose
+ * {@link User} entity was loaded before the refresh still picks up the new token.
+ * <p>
+ * Spotify calls go through {@link #call} or {@link #callAsync}, which retry once with a refreshed
+ * token when the current one is rejected.
+ */
+@Service
+@Slf4j
+public class SpotifyTokenService {
+
+    private static final List<JobStatus> ACTIVE_STATUSES = List.of(JobStatus.QUEUED, JobStatus.PROCESSING);
+
+    private final UserRepository userRepository;
+    private final TokenEncryption tokenEncryption;
+    private final CredentialProvider credentialProvider;
+    private final SpotifyApi spotifyApi;
+    private final TransactionTemplate requiresNew;
+
+    // Refreshed plaintext tokens by user id, dropped when they expire
+    private final Cache<Long, AccessToken> latestTokens;
+    private final Map<Long, CompletableFuture<AccessToken>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${spotease.spotify.token-refresh.margin:PT5M}")
+    private Duration refreshMargin;
+
+    public SpotifyTokenService(UserRepository userRepository, TokenEncryption tokenEncryption,
+                               CredentialProvider credentialProvider, SpotifyApi spotifyApi,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${spotease.spotify.token-refresh.cache-size:10000}") long cacheSize) {
+        this.userRepository = userRepository;
+        this.tokenEncryption = tokenEncryption;
+        this.credentialProvider = credentialProvider;
+        this.spotifyApi = spotifyApi;
+        this.latestTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+        // Token writes must commit on their own, not with a long-running job transaction
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Returns a usable access token for the user, refreshing it first if it expires soon.
+     */
+    public String getAccessToken(User user) {
+        AccessToken token = latestTokens.getIfPresent(user.getId());
+        if (token == null || isOlderThanStored(token, user)) {
+            token = new AccessToken(credentialProvider.decrypt(user.getSpotifyAccessToken()),
+                    user.getSpotifyTokenExpiry());
+        }
+
+        if (token.expiresWithin(refreshMargin) && user.getSpotifyRefreshToken() != null) {
+            try {
+                token = refresh(user.getId());
+            } catch (Exception e) {
+                // Keep using the current token; a 401 will trigger another attempt
+                log.warn("Failed to refresh expiring Spotify token for user {}: {}", user.getId(), e.getMessage());
+            }
+        }
+        return token.value();
+    }
+
+    /**
+     * Returns a new access token after Spotify rejected {@code rejectedToken}. If another caller
+     * already refreshed past the rejected token, that token is returned without a new refresh.
+     */
+    public String refreshAfterUnauthorized(Long userId, String rejectedToken) {
+        AccessToken latest = latestTokens.getIfPresent(userId);
+        if (latest != null && !latest.value().equals(rejectedToken) && !latest.expiresWithin(refreshMargin)) {
+            return latest.value();
+        }
+        log.info("Spotify rejected access token for user {}, refreshing", userId);
+        return refresh(userId).value();
+    }
+
+    /**
+     * Runs a Spotify call with the user's access token. If Spotify rejects the token, it is
+     * refreshed once and the call retried.
+     */
+    public <T> T call(User user, Function<String, T> call) {
+        String token = getAccessToken(user);
+        try {
+            return call.apply(token);
+        } catch (RuntimeException e) {
+            if (!isUnauthorized(e)) {
+                throw e;
+            }
+            return call.apply(refreshAfterUnauthorized(user.getId(), token));
+        }
+    }
+
+    /**
+     * Asynchronous {@link #call}: the retry is chained onto the rejected call. The refresh runs on
+     * the thread that completed it, which for the Spotify client is one of its own request threads.
+     */
+    public <T> CompletableFuture<T> callAsync(User user, Function<String, CompletableFuture<T>> call) {
+        String token = getAccessToken(user);
+        return call.apply(token).exceptionallyCompose(e -> isUnauthorized(e)
+                ? call.apply(refreshAfterUnauthorized(user.getId(), token))
+                : CompletableFuture.failedFuture(e));
+    }
+
+    /**
+     * Proactively refreshes tokens about to expire for users with queued or running jobs.
+     *
+     * @return number of tokens refreshed
+     */
+    public int refreshExpiringTokens() {
+        LocalDateTime threshold = LocalDateTime.now().plus(refreshMargin);
+        List<Long> userIds = userRepository.findUserIdsNeedingSpotifyRefresh(ACTIVE_STATUSES, threshold);
+
+        int refreshed = 0;
+        for (Long userId : userIds) {
+            try {
+                refresh(userId);
+                refreshed++;
+            } catch (Exception e) {
+                log.warn("Failed to refresh Spotify token for user {}: {}", userId, e.getMessage());
+            }
+        }
+        return refreshed;
+    }
+
+    /**
+     * Refreshes the user's access token, joining a refresh already in progress for the same user.
+     */
+    public AccessToken refresh(Long userId) {
+        CompletableFuture<AccessToken> mine = new CompletableFuture<>();
+        CompletableFuture<AccessToken> existing = inFlight.putIfAbsent(userId, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            AccessToken token = doRefresh(userId);
+            latestTokens.put(userId, token);
+            mine.complete(token);
+            return token;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(userId, mine);
+        }
+    }
+
+    /**
+     * Whether a failure was caused by Spotify rejecting the access token (HTTP 401).
+     */
+    public static boolean isUnauthorized(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UnauthorizedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Exchanges a refresh token for new credentials. Visible for testing.
+     */
+    protected AuthorizationCodeCredentials requestRefresh(String refreshToken) {
+        try {
+            return new SpotifyApi.Builder()
+                    .setClientId(spotifyApi.getClientId())
+                    .setClientSecret(spotifyApi.getClientSecret())
+                    .setRefreshToken(refreshToken)
+                    .build()
+                    .authorizationCodeRefresh()
+                    .build()
+                    .execute();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to refresh Spotify access token", e);
+        }
+    }
+
+    private AccessToken doRefresh(Long userId) {
+        // Read and write in separate short transactions; no connection is held during the HTTP call
+        String encryptedRefreshToken = requiresNew.execute(status -> userRepository.findById(userId)
+                .map(User::getSpotifyRefreshToken)
+                .orElseThrow(() -> new RuntimeException("User not found: " + userId)));
+        if (encryptedRefreshToken == null) {
+            throw new IllegalStateException("No Spotify refresh token for user " + userId);
+        }
+
+        AuthorizationCodeCredentials credentials = requestRefresh(credentialProvider.decrypt(encryptedRefreshToken));
+        LocalDateTime expiry = LocalDateTime.now().plusSeconds(credentials.getExpiresIn());
+
+        requiresNew.executeWithoutResult(status -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+
+            credentialProvider.invalidate(user.getSpotifyAccessToken());
+            user.setSpotifyAccessToken(tokenEncryption.encrypt(credentials.getAccessToken()));
+            // Spotify may or may not rotate the refresh token
+            if (credentials.getRefreshToken() != null) {
+                credentialProvider.invalidate(user.getSpotifyRefreshToken());
+                user.setSpotifyRefreshToken(tokenEncryption.encrypt(credentials.getRefreshToken()));
+            }
+            user.setSpotifyTokenExpiry(expiry);
+            userRepository.save(user);
+        });
+
+        log.info("Refreshed Spotify access token for user {}, valid until {}", userId, expiry);
+        return new AccessToken(credentials.getAccessToken(), expiry);
+    }
+
+    private static boolean isOlderThanStored(AccessToken token, User user) {
+        return token.expiry() != null && user.getSpotifyTokenExpiry() != null
+                && token.expiry().isBefore(user.getSpotifyTokenExpiry());
+    }
+
+    /**
+     * Expires a cached token when the token itself expires; a rewrite restarts the clock.
+     */
+    private static final class UntilTokenExpiry implements Expiry<Long, AccessToken> {
+
+        @Override
+        public long expireAfterCreate(Long userId, AccessToken token, long currentTime) {
+            return token.timeToLive().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, AccessToken token, long currentTime, long currentDuration) {
+            return token.timeToLive().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, AccessToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * A plaintext access token and its expiry; {@code expiry} is null when unknown.
+     */
+    public record AccessToken(String value, LocalDateTime expiry) {
+
+        boolean expiresWithin(Duration margin) {
+            return expiry != null && expiry.isBefore(LocalDateTime.now().plus(margin));
+        }
+
+        Duration timeToLive() {
+            if (expiry == null) {
+                return Duration.ZERO;
+            }
+            Duration left = Duration.between(LocalDateTime.now(), expiry);
+            return left.isNegative() ? Duration.ZERO : left;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.spotease.service;
+
+import com.spotease.dto.ConversionRequest;
+import com.spotease.dto.SyncScheduleRequest;
+import com.spotease.model.*;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.SyncScheduleRepository;
+import com.spotease.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Manages recurring playlist syncs and enqueues the SYNC jobs that are due.
+ * <p>
+ * Only one replica schedules at a time: each run takes a transaction-scoped PostgreSQL advisory
+ * lock and gives up if another replica holds it. Runs are spread out by starting each schedule at
+ * a random point of its first interval and adding jitter to every later run. The jobs go through
+ * {@link ConversionService#createJob} like user submissions, so an already queued sync is reused,
+ * and the worker skips sources that have not changed since their last sync.
+ */
+@Service
+@Slf4j
+public class SyncScheduleService {
+
+    // Arbitrary, but fixed: every replica must use the same advisory lock key
+    private static final long SCHEDULER_LOCK_KEY = 0x5350_4f54_5359_4e43L;
+    private static final Set<JobStatus> IN_FLIGHT = EnumSet.of(JobStatus.QUEUED, JobStatus.PROCESSING);
+    private static final int MAX_INTERVAL_HOURS = 24 * 7;
+
+    private final SyncScheduleRepository scheduleRepository;
+    private final ConversionJobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final ConversionService conversionService;
+    private final JdbcTemplate jdbcTemplate;
+    // Each enqueued job commits on its own, so its worker starts without waiting for the whole run
+    private final TransactionTemplate jobTransaction;
+
+    @Value("${spotease.sync-scheduler.default-interval-hours:24}")
+    private int defaultIntervalHours = 24;
+
+    @Value("${spotease.sync-scheduler.jitter:PT15M}")
+    private Duration jitter = Duration.ofMinutes(15);
+
+    @Value("${spotease.sync-scheduler.retry-delay:PT5M}")
+    private Duration retryDelay = Duration.ofMinutes(5);
+
+    @Value("${spotease.sync-scheduler.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${spotease.sync-scheduler.max-jobs-per-user:1}")
+    private int maxJobsPerUser = 1;
+
+    @Value("${spotease.sync-scheduler.max-jobs-per-platform:20}")
+    private int maxJobsPerPlatform = 20;
+
+    private Boolean postgres;
+
+    public SyncScheduleService(SyncScheduleRepository scheduleRepository,
+                               ConversionJobRepository jobRepository,
+                               UserRepository userRepository,
+                               ConversionService conversionService,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager) {
+        this.scheduleRepository = scheduleRepository;
+        this.jobRepository = jobRepository;
+        this.userRepository = userRepository;
+        this.conversionService = conversionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobTransaction = new TransactionTemplate(transactionManager);
+        this.jobTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Creates the schedule for a playlist pair, or updates its interval and enabled flag if it exists.
+     * A new schedule first runs at a random point within its interval.
+     */
+    @Transactional
+    public SyncSchedule saveSchedule(Long userId, SyncScheduleRequest request) {
+        int intervalHours = request.getIntervalHours() != null ? request.getIntervalHours() : defaultIntervalHours;
+        if (intervalHours < 1 || intervalHours > MAX_INTERVAL_HOURS) {
+            throw new IllegalArgumentException("Sync interval must be between 1 and " + MAX_INTERVAL_HOURS + " hours");
+        }
+
+        SyncSchedule schedule = scheduleRepository
+                .findByUser_IdAndSourcePlatformAndSourcePlaylistIdAndDestinationPlaylistId(
+                        userId, request.getSourcePlatform(), request.getSourcePlaylistId(),
+                        request.getDestinationPlaylistId())
+                .orElseGet(() -> {
+                    User user = userRepository.findById(userId)
+                            .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+                    SyncSchedule created = new SyncSchedule();
+                    created.setUser(user);
+                    created.setSourcePlatform(request.getSourcePlatform());
+                    created.setSourcePlaylistId(request.getSourcePlaylistId());
+                    created.setDestinationPlatform(request.getSourcePlatform() == Platform.SPOTIFY
+                            ? Platform.NETEASE
+                            : Platform.SPOTIFY);
+                    created.setDestinationPlaylistId(request.getDestinationPlaylistId());
+                    created.setNextRunAt(LocalDateTime.now().plus(randomUpTo(Duration.ofHours(intervalHours))));
+                    return created;
+                });
+
+        schedule.setIntervalMinutes(intervalHours * 60);
+        schedule.setEnabled(request.getEnabled() == null || request.getEnabled());
+
+        SyncSchedule saved = scheduleRepository.save(schedule);
+        log.info("Saved sync schedule {} for user {}: every {}h, next run at {}",
+                saved.getId(), userId, intervalHours, saved.getNextRunAt());
+        return saved;
+    }
+
+    /**
+     * Enqueues a SYNC job for every due schedule, within the per-user and per-platform caps on
+     * in-flight jobs. Schedules over a cap are retried after {@code retry-delay}.
+     *
+     * @return number of jobs enqueued, 0 if another replica is scheduling
+     */
+    @Transactional
+    public int enqueueDueSyncs() {
+        if (!tryLockScheduler()) {
+            log.debug("Sync scheduler lock is held by another replica");
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<SyncSchedule> due = scheduleRepository.findDue(now, PageRequest.of(0, batchSize));
+
+        Map<Long, Long> jobsPerUser = new HashMap<>();
+        Map<Platform, Long> jobsPerPlatform = new EnumMap<>(Platform.class);
+        int enqueued = 0;
+
+        for (SyncSchedule schedule : due) {
+            Long userId = schedule.getUser().getId();
+            Platform destination = schedule.getDestinationPlatform();
+            long userJobs = jobsPerUser.computeIfAbsent(userId,
+                    id -> jobRepository.countByUser_IdAndStatusIn(id, IN_FLIGHT));
+            long platformJobs = jobsPerPlatform.computeIfAbsent(destination,
+                    platform -> jobRepository.countByDestinationPlatformAndStatusIn(platform, IN_FLIGHT));
+
+            if (userJobs >= maxJobsPerUser || platformJobs >= maxJobsPerPlatform) {
+                // Retry soon instead of skipping a whole interval
+                schedule.setNextRunAt(now.plus(retryDelay).plus(randomUpTo(jitter)));
+                continue;
+            }
+
+            try {
+                ConversionService.Submission submission = jobTransaction.execute(status ->
+                        conversionService.createJob(userId, toConversionRequest(schedule), null));
+                schedule.setLastJobId(submission.job().getId());
+                if (submission.created()) {
+                    jobsPerUser.merge(userId, 1L, Long::sum);
+                    jobsPerPlatform.merge(destination, 1L, Long::sum);
+                    enqueued++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to enqueue sync schedule {}: {}", schedule.getId(), e.getMessage());
+            }
+
+            schedule.setLastRunAt(now);
+            schedule.setNextRunAt(nextRunAt(schedule, now));
+        }
+
+        if (!due.isEmpty()) {
+            log.info("Sync scheduler enqueued {} of {} due schedules", enqueued, due.size());
+        }
+        return enqueued;
+    }
+
+    /**
+     * Keeps a schedule on its slot (previous run + interval) unless it fell behind, plus jitter.
+     */
+    LocalDateTime nextRunAt(SyncSchedule schedule, LocalDateTime now) {
+        Duration interval = Duration.ofMinutes(schedule.getIntervalMinutes());
+        LocalDateTime next = schedule.getNextRunAt().plus(interval);
+        if (!next.isAfter(now)) {
+            next = now.plus(interval);
+        }
+        return next.plus(randomUpTo(jitter));
+    }
+
+    private ConversionRequest toConversionRequest(SyncSchedule schedule) {
+        return ConversionRequest.builder()
+                .sourcePlatform(schedule.getSourcePlatform())
+                .sourcePlaylistId(schedule.getSourcePlaylistId())
+                .mode(ConversionMode.SYNC)
+                .destinationPlaylistId(schedule.getDestinationPlaylistId())
+                .build();
+    }
+
+    /**
+     * Takes the scheduler's advisory lock until the current transaction ends. Other databases
+     * (H2 in development and tests) only ever run a single instance.
+     */
+    private boolean tryLockScheduler() {
+        if (!isPostgres()) {
+            return true;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, SCHEDULER_LOCK_KEY));
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+
+    private static Duration randomUpTo(Duration max) {
+        long millis = max.toMillis();
+        return millis > 0 ? Duration.ofMillis(ThreadLocalRandom.current().nextLong(millis)) : Duration.ZERO;
+    }
+}
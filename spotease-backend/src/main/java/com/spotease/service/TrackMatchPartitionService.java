@@ -0,0 +1,221 @@
+package com.spotease.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates track_matches partitions before the jobs that need them exist, and drops them once
+ * their jobs are archived.
+ * <p>
+ * On Postgres track_matches is range-partitioned by conversion_job_id in blocks of
+ * {@link #BLOCK_SIZE} job ids and has no DEFAULT partition (see the V3 and V16 migrations), so a
+ * job whose block has no partition cannot save matches. Each run makes sure the newest job's block
+ * and the {@code blocks-ahead} blocks after it have a partition. A partition is created as a
+ * standalone table and attached in one short transaction under {@code lock-timeout}; ATTACH
+ * PARTITION only takes SHARE UPDATE EXCLUSIVE on track_matches, so it does not wait for running
+ * workers, and a block whose locks cannot be had in time is retried on the next run.
+ * <p>
+ * The number of job ids that can still be created before one lands in a block without a
+ * partition is exported as {@code spotease.track-matches.partition-headroom}; alert on it
+ * running low. Only one replica creates partitions at a time, under a transaction-scoped
+ * PostgreSQL advisory lock.
+ * <p>
+ * Partitions whose whole block is archived are detached with DETACH PARTITION ... CONCURRENTLY,
+ * one at a time outside a transaction block, and then dropped, each statement under
+ * {@code lock-timeout}. A partition that cannot be detached or dropped in time is left for the
+ * next archival run, which also finalizes detaches that were interrupted.
+ * <p>
+ * A no-op on other databases.
+ */
+@Service
+@Slf4j
+public class TrackMatchPartitionService {
+
+    public static final long BLOCK_SIZE = 1000;
+
+    // Shared by all replicas; distinct from the dispatcher's, reaper's and sync scheduler's keys
+    private static final long PARTITION_LOCK_KEY = 0x5350_4f54_5041_5254L;
+    private static final Pattern PARTITION_NAME = Pattern.compile("track_matches_p(\\d+)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLong headroom = new AtomicLong();
+
+    @Value("${spotease.match-partitions.blocks-ahead:5}")
+    private int blocksAhead = 5;
+
+    @Value("${spotease.match-partitions.lock-timeout:PT2S}")
+    private Duration lockTimeout = Duration.ofSeconds(2);
+
+    private Boolean postgres;
+
+    public TrackMatchPartitionService(JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate,
+                                      MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        Gauge.builder("spotease.track-matches.partition-headroom", headroom, AtomicLong::get)
+                .description("Job ids left before a new job lands in a block without a track_matches partition")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Attaches a partition to every block from the newest job's up to blocks-ahead blocks after it
+     * that does not have one yet.
+     *
+     * @return number of partitions attached
+     */
+    public int createUpcomingPartitions() {
+        if (!isPostgres()) {
+            return 0;
+        }
+
+        Long newestJobId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM conversion_jobs", Long.class);
+        long maxJobId = newestJobId != null ? newestJobId : 0;
+        long newestBlock = maxJobId / BLOCK_SIZE;
+        Set<Long> attached = attachedBlocks();
+
+        int created = 0;
+        for (long block = newestBlock; block <= newestBlock + blocksAhead; block++) {
+            if (!attached.contains(block) && attachPartition(block)) {
+                attached.add(block);
+                created++;
+            }
+        }
+
+        long firstMissing = newestBlock;
+        while (attached.contains(firstMissing)) {
+            firstMissing++;
+        }
+        long left = firstMissing * BLOCK_SIZE - 1 - maxJobId;
+        headroom.set(left);
+        if (left < BLOCK_SIZE) {
+            log.warn("Only {} job ids left before track_matches has no partition for new jobs", left);
+        }
+        if (created > 0) {
+            log.info("Attached {} track_matches partitions", created);
+        }
+        return created;
+    }
+
+    /**
+     * Detaches and drops the partitions listed by track_matches_archived_partitions(), skipping
+     * those whose locks are not granted within lock-timeout. Must not be called inside a
+     * transaction: DETACH PARTITION ... CONCURRENTLY cannot run in a transaction block.
+     *
+     * @return number of partitions dropped
+     */
+    public int dropArchivedPartitions() {
+        if (!isPostgres()) {
+            return 0;
+        }
+
+        int dropped = 0;
+        for (Map<String, Object> partition : jdbcTemplate.queryForList(
+                "SELECT partition_name, attached, detach_pending FROM track_matches_archived_partitions()")) {
+            if (dropPartition((String) partition.get("partition_name"),
+                    Boolean.TRUE.equals(partition.get("attached")),
+                    Boolean.TRUE.equals(partition.get("detach_pending")))) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Runs each statement on its own in autocommit mode, so only the statement at hand holds locks.
+     */
+    private boolean dropPartition(String name, boolean attached, boolean detachPending) {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET lock_timeout = " + lockTimeout.toMillis());
+                    try {
+                        if (detachPending) {
+                            statement.execute("ALTER TABLE track_matches DETACH PARTITION " + name + " FINALIZE");
+                        } else if (attached) {
+                            statement.execute("ALTER TABLE track_matches DETACH PARTITION " + name + " CONCURRENTLY");
+                        }
+                        statement.execute("DROP TABLE " + name);
+                    } finally {
+                        statement.execute("RESET lock_timeout");
+                    }
+                }
+                return null;
+            });
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Could not drop archived track_matches partition {}, retrying on the next run: {}",
+                    name, e.getMessage());
+            return false;
+        }
+    }
+
+    private Set<Long> attachedBlocks() {
+        Set<Long> blocks = new HashSet<>();
+        for (String name : jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'track_matches'::regclass
+                """, String.class)) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                blocks.add(Long.parseLong(matcher.group(1)));
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Creates the block's partition as a standalone table and attaches it, or leaves nothing
+     * behind if another replica holds the advisory lock or the locks are not granted within
+     * lock-timeout.
+     */
+    private boolean attachPartition(long block) {
+        String name = "track_matches_p" + block;
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, PARTITION_LOCK_KEY))) {
+                    return false;
+                }
+                jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeout.toMillis());
+                jdbcTemplate.execute("CREATE TABLE " + name
+                        + " (LIKE track_matches INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+                jdbcTemplate.execute("ALTER TABLE track_matches ATTACH PARTITION " + name
+                        + " FOR VALUES FROM (" + block * BLOCK_SIZE + ") TO (" + (block + 1) * BLOCK_SIZE + ")");
+                return true;
+            }));
+        } catch (DataAccessException e) {
+            log.warn("Could not attach track_matches partition {}, retrying on the next run: {}",
+                    name, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+}
@@ -1,5 +1,7 @@
 package com.spotease.service;
 
+import com.spotease.dto.BulkProgressMessage;
+import com.spotease.dto.MatchEvent;
 import com.spotease.dto.WebSocketMessage;
 import com.spotease.model.ConversionJob;
 import com.spotease.model.JobStatus;
@@ -14,16 +16,17 @@ import org.springframework.stereotype.Service;
 public class WebSocketService {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final ProgressSseService progressSseService;
 
     public void sendJobUpdate(ConversionJob job) {
         WebSocketMessage message = buildMessage(job);
-        sendToTopics(job.getId(), message);
+        sendToTopics(job, message);
         log.debug("Sending WebSocket update for job {}: {}", job.getId(), message);
     }
 
     public void sendJobComplete(ConversionJob job) {
         WebSocketMessage message = buildMessage(job);
-        sendToTopics(job.getId(), message);
+        sendToTopics(job, message);
         log.info("Sending job completion for job {}", job.getId());
     }
 
@@ -31,26 +34,43 @@ public class WebSocketService {
         WebSocketMessage message = buildMessage(job);
         message.setStatus(JobStatus.FAILED);
         message.setErrorMessage(errorMessage);
-        sendToTopics(job.getId(), message);
+        sendToTopics(job, message);
         log.error("Sending job error for job {}: {}", job.getId(), errorMessage);
     }
 
-    private void sendToTopics(Long jobId, WebSocketMessage message) {
-        // Send to general topic for Dashboard (all jobs)
-        messagingTemplate.convertAndSend("/topic/conversions", message);
+    public void sendMatchEvent(ConversionJob job, MatchEvent event) {
+        messagingTemplate.convertAndSend(userTopic(job) + "/" + job.getId() + "/matches", event);
+        log.debug("Sending match event for job {}: {}", job.getId(), event);
+    }
+
+    /**
+     * Sends a bulk conversion's aggregate progress; its child jobs also report on their own topics.
+     */
+    public void sendBulkProgress(Long userId, BulkProgressMessage message) {
+        messagingTemplate.convertAndSend(userTopic(userId) + "/bulk/" + message.getBulkConversionId(), message);
+        log.debug("Sending bulk progress for bulk conversion {}: {}", message.getBulkConversionId(), message);
+    }
+
+    private void sendToTopics(ConversionJob job, WebSocketMessage message) {
+        String userTopic = userTopic(job);
+        // Send to the user's topic for Dashboard (all of their jobs)
+        messagingTemplate.convertAndSend(userTopic, message);
         // Send to job-specific topic for detail views
-        messagingTemplate.convertAndSend("/topic/conversions/" + jobId, message);
+        messagingTemplate.convertAndSend(userTopic + "/" + job.getId(), message);
+        // SSE watchers of the job receive the same messages
+        progressSseService.publish(job.getId(), message);
+    }
+
+    private String userTopic(ConversionJob job) {
+        return userTopic(job.getUser().getId());
+    }
+
+    private String userTopic(Long userId) {
+        // Only the job owner's subscriptions receive the update
+        return "/topic/users/" + userId + "/conversions";
     }
 
     private WebSocketMessage buildMessage(ConversionJob job) {
-        return WebSocketMessage.builder()
-                .jobId(job.getId())
-                .status(job.getStatus())
-                .totalTracks(job.getTotalTracks())
-                .processedTracks(job.getProcessedTracks())
-                .highConfidenceMatches(job.getHighConfidenceMatches())
-                .lowConfidenceMatches(job.getLowConfidenceMatches())
-                .failedTracks(job.getFailedTracks())
-                .build();
+        return WebSocketMessage.from(job);
     }
 }
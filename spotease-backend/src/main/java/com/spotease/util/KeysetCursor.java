@@ -0,0 +1,85 @@
+package com.spotease.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque cursor used for keyset (seek) pagination.
+ *
+ * <p>A cursor records the sort key of the last row a client has seen, so the next page can be
+ * fetched with a {@code WHERE (created_at, id) < (?, ?)} style predicate instead of an
+ * {@code OFFSET}. The cost of fetching a page is therefore independent of how deep the client
+ * has scrolled.
+ *
+ * <p>Cursors are URL-safe base64 strings and should be treated as opaque by clients.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private KeysetCursor() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Decoded cursor position.
+     *
+     * @param createdAt creation timestamp of the last row seen (null for id-only cursors)
+     * @param id        id of the last row seen
+     */
+    public record Position(LocalDateTime createdAt, long id) {
+    }
+
+    /**
+     * Encode a cursor for listings ordered by {@code (createdAt, id)}.
+     *
+     * @param createdAt creation timestamp of the last row on the page
+     * @param id        id of the last row on the page
+     * @return opaque cursor string
+     */
+    public static String encode(LocalDateTime createdAt, long id) {
+        return encodeRaw(createdAt + SEPARATOR + id);
+    }
+
+    /**
+     * Encode a cursor for listings ordered by {@code id} only.
+     *
+     * @param id id of the last row on the page
+     * @return opaque cursor string
+     */
+    public static String encode(long id) {
+        return encodeRaw(Long.toString(id));
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encode(LocalDateTime, long)} or {@link #encode(long)}.
+     *
+     * @param cursor opaque cursor string
+     * @return decoded position
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            throw new IllegalArgumentException("Cursor must not be null or empty");
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new Position(null, Long.parseLong(raw));
+            }
+            LocalDateTime createdAt = LocalDateTime.parse(raw.substring(0, separator));
+            long id = Long.parseLong(raw.substring(separator + 1));
+            return new Position(createdAt, id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
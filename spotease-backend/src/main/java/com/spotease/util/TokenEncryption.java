@@ -18,6 +18,16 @@ public class TokenEncryption {
     private static final int GCM_TAG_LENGTH = 128;
     private static final int GCM_IV_LENGTH = 12;
 
+    // Cipher.getInstance does a provider lookup on every call; instances are not thread-safe
+    // but can be re-initialized, so keep one per thread
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(ALGORITHM);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cipher unavailable: " + ALGORITHM, e);
+        }
+    });
+
     private final SecretKey secretKey;
     private final SecureRandom secureRandom;
 
@@ -38,7 +48,7 @@ public class TokenEncryption {
             byte[] iv = new byte[GCM_IV_LENGTH];
             secureRandom.nextBytes(iv);
 
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            Cipher cipher = CIPHER.get();
             GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
             cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
 
@@ -73,7 +83,7 @@ public class TokenEncryption {
             System.arraycopy(combined, 0, iv, 0, iv.length);
             System.arraycopy(combined, iv.length, encryptedData, 0, encryptedData.length);
 
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            Cipher cipher = CIPHER.get();
             GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
             cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
 
@@ -1,24 +1,48 @@
 package com.spotease.worker;
 
+import com.spotease.dto.netease.NeteasePlaylist;
+import com.spotease.dto.netease.NeteaseTrack;
+import com.spotease.dto.spotify.SpotifyPlaylist;
+import com.spotease.dto.spotify.SpotifyTrack;
 import com.spotease.model.*;
 import com.spotease.repository.ConversionJobRepository;
 import com.spotease.repository.TrackMatchRepository;
+import com.spotease.service.BulkConversionService;
+import com.spotease.service.BulkMatchCache;
+import com.spotease.service.CredentialProvider;
+import com.spotease.service.JobCancellation;
+import com.spotease.service.JobControlService;
+import com.spotease.service.MatchEventStream;
 import com.spotease.service.MatchingService;
 import com.spotease.service.NeteaseService;
+import com.spotease.service.PlatformCallLimiter;
+import com.spotease.service.PlaylistCache;
+import com.spotease.service.PlaylistSyncService;
+import com.spotease.service.ProgressPublisher;
 import com.spotease.service.SpotifyService;
-import com.spotease.service.WebSocketService;
-import com.spotease.util.TokenEncryption;
+import com.spotease.service.SpotifyTokenService;
+import com.spotease.util.StringSimilarity;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
@@ -30,8 +54,18 @@ public class ConversionWorker {
     private final SpotifyService spotifyService;
     private final NeteaseService neteaseService;
     private final MatchingService matchingService;
-    private final WebSocketService webSocketService;
-    private final TokenEncryption tokenEncryption;
+    private final ProgressPublisher progressPublisher;
+    private final MatchEventStream matchEventStream;
+    private final CredentialProvider credentialProvider;
+    private final SpotifyTokenService spotifyTokenService;
+    private final PlaylistCache playlistCache;
+    private final PlaylistSyncService playlistSyncService;
+    private final BulkMatchCache bulkMatchCache;
+    private final BulkConversionService bulkConversionService;
+    private final JobControlService jobControlService;
+    private final PlatformCallLimiter callLimiter;
+    private final TrackPipeline trackPipeline;
+    private final EntityManager entityManager;
 
     @Async("taskExecutor")
     @Transactional
@@ -40,155 +74,297 @@ public class ConversionWorker {
 
         ConversionJob job = jobRepository.findById(jobId)
                 .orElseThrow(() -> new RuntimeException("Job not found: " + jobId));
+        // Tells the reaper this job has a live worker for as long as this transaction is open
+        jobControlService.lockJob(jobId);
+        // Progress is written in transactions of its own (see ProgressPublisher). Were this
+        // transaction to write the job row before the job ends, those writes would wait on it.
+        Hibernate.initialize(job.getUser());
+        Hibernate.initialize(job.getBulkConversion());
+        entityManager.detach(job);
+        JobCancellation cancellation = jobControlService.register(jobId);
 
         try {
             // Update status to PROCESSING
             job.setStatus(JobStatus.PROCESSING);
-            jobRepository.save(job);
-            webSocketService.sendJobUpdate(job);
-
-            // Decrypt tokens
-            String sourceToken = getSourceToken(job);
-            String destToken = getDestinationToken(job);
-
-            // Create destination playlist if CREATE mode
-            if (job.getMode() == ConversionMode.CREATE) {
-                String playlistId = createDestinationPlaylist(job, destToken);
-                job.setDestinationPlaylistId(playlistId);
-                jobRepository.save(job);
-            }
-
-            // Get source tracks
-            List<?> sourceTracks = getSourceTracks(job, sourceToken);
-            log.info("Found {} tracks in source playlist", sourceTracks.size());
-
-            // For UPDATE mode, get existing tracks from destination
-            List<?> existingTracks = null;
-            Set<String> alreadyMatchedTrackIds = new HashSet<>();
-            if (job.getMode() == ConversionMode.UPDATE) {
-                existingTracks = getDestinationTracks(job, destToken);
-                if (existingTracks != null) {
-                    log.info("Found {} existing tracks in destination playlist", existingTracks.size());
-                }
-            }
-
-            // Process each track
-            List<String> autoMatchedTrackIds = new ArrayList<>();
-
-            for (int i = 0; i < sourceTracks.size(); i++) {
-                Object sourceTrack = sourceTracks.get(i);
-                TrackMatch match;
-
-                // First check if track already exists in destination (UPDATE mode only)
-                if (job.getMode() == ConversionMode.UPDATE && existingTracks != null) {
-                    match = matchingService.findMatchInExistingTracks(
-                            sourceTrack, existingTracks, alreadyMatchedTrackIds, job);
-
-                    if (match != null) {
-                        log.debug("Track already exists in destination playlist (score: {}), skipping API search",
-                                match.getMatchConfidence());
-                        // Save match and continue - don't add to autoMatchedTrackIds since it already exists
-                        trackMatchRepository.save(match);
-
-                        // Track this destination track as matched to prevent duplicate matches
-                        alreadyMatchedTrackIds.add(match.getDestinationTrackId());
-
-                        // Update counters based on match status
-                        job.setProcessedTracks(i + 1);
-                        if (match.getStatus() == MatchStatus.AUTO_MATCHED) {
-                            job.setHighConfidenceMatches(job.getHighConfidenceMatches() + 1);
-                        } else if (match.getStatus() == MatchStatus.PENDING_REVIEW) {
-                            job.setLowConfidenceMatches(job.getLowConfidenceMatches() + 1);
-                        } else {
-                            job.setFailedTracks(job.getFailedTracks() + 1);
-                        }
-
-                        // Save progress and send update every 5 tracks or on last track
-                        if (i % 5 == 0 || i == sourceTracks.size() - 1) {
-                            jobRepository.save(job);
-                            webSocketService.sendJobUpdate(job);
-                        }
-                        continue; // Skip to next track
-                    }
-                }
-
-                // No existing match found, search for best match via API
-                match = matchingService.findBestMatch(
-                        sourceTrack,
-                        job.getDestinationPlatform(),
-                        destToken,
-                        job
-                );
-
-                // Save match
-                trackMatchRepository.save(match);
-
-                // Update counters
-                job.setProcessedTracks(i + 1);
-
-                if (match.getStatus() == MatchStatus.AUTO_MATCHED) {
-                    job.setHighConfidenceMatches(job.getHighConfidenceMatches() + 1);
-                    autoMatchedTrackIds.add(match.getDestinationTrackId());
-                } else if (match.getStatus() == MatchStatus.PENDING_REVIEW) {
-                    job.setLowConfidenceMatches(job.getLowConfidenceMatches() + 1);
-                } else {
-                    job.setFailedTracks(job.getFailedTracks() + 1);
-                }
-
-                // Save progress and send update every 5 tracks or on last track
-                if (i % 5 == 0 || i == sourceTracks.size() - 1) {
-                    jobRepository.save(job);
-                    webSocketService.sendJobUpdate(job);
-                }
-            }
-
-            // Add auto-matched tracks to destination playlist
-            if (!autoMatchedTrackIds.isEmpty()) {
-                addTracksToDestination(job, destToken, autoMatchedTrackIds);
+            // Jobs are queued unvalidated; a missing or inaccessible playlist fails the job here
+            PlaylistDetails source = enrichJob(job);
+            progressPublisher.jobStarted(job);
+            bulkConversionService.jobStarted(job);
+            matchEventStream.open(jobId);
+
+            if (job.getMode() == ConversionMode.SYNC) {
+                processSync(job, source);
+            } else {
+                processAllTracks(job);
             }
 
             // Determine final status
-            if (job.getLowConfidenceMatches() > 0 || job.getFailedTracks() > 0) {
+            if (job.getStatus() == JobStatus.CANCELLED || job.getStatus() == JobStatus.PAUSED
+                    || job.getStatus() == JobStatus.QUEUED) {
+                stopped(job);
+                return;
+            } else if (job.getLowConfidenceMatches() > 0 || job.getFailedTracks() > 0) {
                 job.setStatus(JobStatus.REVIEW_PENDING);
             } else {
                 job.setStatus(JobStatus.COMPLETED);
                 job.setCompletedAt(LocalDateTime.now());
             }
 
-            jobRepository.save(job);
-            webSocketService.sendJobComplete(job);
+            progressPublisher.jobFinished(job);
+            matchEventStream.close(jobId);
+            bulkConversionService.jobFinished(job);
 
-            log.info("Completed job {}: {} auto-matched, {} pending review, {} failed",
-                    jobId, job.getHighConfidenceMatches(), job.getLowConfidenceMatches(), job.getFailedTracks());
+            log.info("Completed job {}: {} auto-matched, {} pending review, {} failed, {} searches saved",
+                    jobId, job.getHighConfidenceMatches(), job.getLowConfidenceMatches(), job.getFailedTracks(),
+                    job.getSearchesSaved());
 
         } catch (Exception e) {
-            log.error("Error processing job {}: {}", jobId, e.getMessage(), e);
-
             // Reload job to ensure we have latest state
             ConversionJob failedJob = jobRepository.findById(jobId)
                     .orElse(job);
 
+            if (cancellation.isCancelled()) {
+                // The cancel aborted a platform call; that is not a failure
+                failedJob.setStatus(JobStatus.CANCELLED);
+                stopped(failedJob);
+                return;
+            }
+            log.error("Error processing job {}: {}", jobId, e.getMessage(), e);
+
             failedJob.setStatus(JobStatus.FAILED);
-            jobRepository.save(failedJob);
-            webSocketService.sendJobError(failedJob, e.getMessage());
+            failedJob.setFailureReason(failureReason(e));
+            progressPublisher.jobFailed(failedJob, e.getMessage());
+            matchEventStream.close(jobId);
+            bulkConversionService.jobFinished(failedJob);
 
             // Don't rethrow - we've handled the error
+        } finally {
+            jobControlService.finished(jobId);
         }
     }
 
-    private String getSourceToken(ConversionJob job) {
-        if (job.getSourcePlatform() == Platform.SPOTIFY) {
-            return tokenEncryption.decrypt(job.getUser().getSpotifyAccessToken());
-        } else {
-            return tokenEncryption.decrypt(job.getUser().getNeteaseCookie());
+    private static String failureReason(Exception e) {
+        String reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        return reason.length() > 500 ? reason.substring(0, 500) : reason;
+    }
+
+    /**
+     * Records a job that stopped on request. Its matches so far are kept; a paused job goes back
+     * to waiting (unclaimed) so that resuming it queues it again, and a job handed back at
+     * shutdown goes straight back on the queue for any replica to resume.
+     */
+    private void stopped(ConversionJob job) {
+        if (job.getStatus() == JobStatus.PAUSED || job.getStatus() == JobStatus.QUEUED) {
+            job.setClaimedBy(null);
+            job.setClaimedAt(null);
         }
+        progressPublisher.jobStatusChanged(job);
+        matchEventStream.close(job.getId());
+        bulkConversionService.jobFinished(job);
+        log.info("Job {} {} after {} of {} tracks", job.getId(), job.getStatus(),
+                job.getProcessedTracks(), job.getTotalTracks());
     }
 
-    private String getDestinationToken(ConversionJob job) {
-        if (job.getDestinationPlatform() == Platform.SPOTIFY) {
-            return tokenEncryption.decrypt(job.getUser().getSpotifyAccessToken());
+    /**
+     * CREATE and UPDATE: matches every source track against the destination.
+     */
+    private void processAllTracks(ConversionJob job) {
+        // Tokens are resolved per call (see withToken) so a refreshed Spotify token is picked up mid-job
+        Platform destPlatform = job.getDestinationPlatform();
+
+        // Create destination playlist if CREATE mode (a resumed job already has it)
+        if (job.getMode() == ConversionMode.CREATE && job.getDestinationPlaylistId() == null) {
+            String playlistId = withToken(job, destPlatform, token -> createDestinationPlaylist(job, token));
+            job.setDestinationPlaylistId(playlistId);
+            // A job resumed after a crash must not create a second playlist
+            progressPublisher.persistProgress(job);
+            playlistCache.invalidate(job.getUser().getId(), destPlatform);
+        }
+
+        // Get source tracks
+        List<?> sourceTracks = withToken(job, job.getSourcePlatform(), token -> getSourceTracks(job, token));
+        log.info("Found {} tracks in source playlist", sourceTracks.size());
+
+        // For UPDATE mode, get existing tracks from destination
+        List<?> existingTracks = null;
+        if (job.getMode() == ConversionMode.UPDATE) {
+            existingTracks = withToken(job, destPlatform, token -> getDestinationTracks(job, token));
+            if (existingTracks != null) {
+                log.info("Found {} existing tracks in destination playlist", existingTracks.size());
+            }
+        }
+
+        // Process each track
+        trackPipeline.run(sourceTracks, new JobTrackSteps(job, existingTracks, resumeMatches(job), Set.of()));
+    }
+
+    /**
+     * SYNC: processes only the source tracks added or removed since the pair was last synced,
+     * and nothing at all if the source snapshot is unchanged. The first sync of a pair matches
+     * against the destination's existing tracks, like UPDATE, so it does not add duplicates.
+     */
+    private void processSync(ConversionJob job, PlaylistDetails source) {
+        Platform destPlatform = job.getDestinationPlatform();
+        PlaylistSync sync = playlistSyncService.getOrCreate(job);
+
+        // Spotify has a snapshot id; for NetEase the track list is read and hashed instead
+        List<?> sourceTracks = null;
+        String snapshot = source.snapshotId();
+        if (snapshot == null) {
+            sourceTracks = withToken(job, job.getSourcePlatform(), token -> getSourceTracks(job, token));
+            snapshot = PlaylistSyncService.contentHash(sourceTracks.stream().map(this::getTrackId).toList());
+        }
+
+        if (snapshot.equals(sync.getSourceSnapshot())) {
+            log.info("Source playlist of job {} is unchanged since sync {}, skipping", job.getId(), sync.getId());
+            job.setTotalTracks(0);
+            return;
+        }
+
+        if (sourceTracks == null) {
+            sourceTracks = withToken(job, job.getSourcePlatform(), token -> getSourceTracks(job, token));
+        }
+
+        // Diff the source against the tracks earlier syncs already handled
+        Map<String, PlaylistSyncTrack> synced = playlistSyncService.getSyncedTracks(sync);
+        Map<String, Object> added = new LinkedHashMap<>();
+        for (Object track : sourceTracks) {
+            String trackId = getTrackId(track);
+            if (!synced.containsKey(trackId)) {
+                added.putIfAbsent(trackId, track);
+            }
+        }
+        Set<String> currentIds = sourceTracks.stream().map(this::getTrackId).collect(Collectors.toSet());
+        List<PlaylistSyncTrack> removed = synced.values().stream()
+                .filter(track -> !currentIds.contains(track.getSourceTrackId()))
+                .toList();
+        log.info("Sync {} for job {}: {} tracks added, {} removed since last sync",
+                sync.getId(), job.getId(), added.size(), removed.size());
+
+        job.setTotalTracks(added.size());
+
+        JobMatches jobMatches = resumeMatches(job);
+        // A resumed job removed these before it was paused
+        List<String> removedTrackIds = jobMatches.isResumed() ? List.<String>of() : removed.stream()
+                .map(PlaylistSyncTrack::getDestinationTrackId)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!removedTrackIds.isEmpty()) {
+            withToken(job, destPlatform, token -> {
+                removeTracksFromDestination(job, token, removedTrackIds);
+                return null;
+            });
+            playlistCache.invalidate(job.getUser().getId(), destPlatform);
+        }
+
+        // Destination tracks earlier syncs put there must not be added again
+        Set<String> syncedDestinationIds = synced.values().stream()
+                .map(PlaylistSyncTrack::getDestinationTrackId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        List<?> existingTracks = sync.getSourceSnapshot() == null
+                ? withToken(job, destPlatform, token -> getDestinationTracks(job, token))
+                : null;
+
+        JobTrackSteps steps = new JobTrackSteps(job, existingTracks, jobMatches, syncedDestinationIds);
+        if (trackPipeline.run(new ArrayList<>(added.values()), steps)) {
+            playlistSyncService.recordSync(sync, job, snapshot, steps.recorded, removed);
+        }
+    }
+
+    private void addAutoMatchedTracks(ConversionJob job, List<String> autoMatchedTrackIds) {
+        // Add auto-matched tracks to destination playlist
+        if (!autoMatchedTrackIds.isEmpty()) {
+            Platform destPlatform = job.getDestinationPlatform();
+            withToken(job, destPlatform, token -> {
+                addTracksToDestination(job, token, autoMatchedTrackIds);
+                return null;
+            });
+            // Track counts in the user's playlist listing changed
+            playlistCache.invalidate(job.getUser().getId(), destPlatform);
+        }
+    }
+
+    /**
+     * The matches of a job that was paused and resumed, which its tracks are matched from instead of
+     * searching again. A new job has none, and is not looked up.
+     * <p>
+     * Progress is committed while the job runs but its matches only when it stops, so a job whose
+     * worker died has counters ahead of its saved matches. They are counted again from the matches.
+     */
+    private JobMatches resumeMatches(ConversionJob job) {
+        JobMatches jobMatches = new JobMatches();
+        if (job.getProcessedTracks() != null && job.getProcessedTracks() > 0) {
+            List<TrackMatch> saved = trackMatchRepository.findByConversionJob_Id(job.getId());
+            saved.forEach(jobMatches::addResumed);
+            if (saved.size() < job.getProcessedTracks()) {
+                log.info("Job {} counted {} tracks but saved {} matches, recounting", job.getId(),
+                        job.getProcessedTracks(), saved.size());
+                recount(job, saved);
+            }
+            log.info("Resuming job {} with {} saved matches", job.getId(), saved.size());
+        }
+        return jobMatches;
+    }
+
+    private static void recount(ConversionJob job, List<TrackMatch> saved) {
+        job.setProcessedTracks(saved.size());
+        job.setHighConfidenceMatches((int) saved.stream()
+                .filter(match -> match.getStatus() == MatchStatus.AUTO_MATCHED).count());
+        job.setFailedTracks((int) saved.stream()
+                .filter(match -> match.getStatus() == MatchStatus.FAILED).count());
+        job.setLowConfidenceMatches(saved.size() - job.getHighConfidenceMatches() - job.getFailedTracks());
+        if (saved.isEmpty()) {
+            job.setSearchesSaved(0);
+        }
+    }
+
+    /**
+     * Runs a platform call with the user's current credential for that platform.
+     * If Spotify rejects the access token, it is refreshed once and the call retried.
+     * Waits for a free call slot for the platform first. Cancelling the job aborts the call.
+     */
+    private <T> T withToken(ConversionJob job, Platform platform, Function<String, T> call) {
+        return jobControlService.cancellation(job.getId()).abortable(
+                () -> callLimiter.call(platform, () -> callWithToken(job, platform, call)));
+    }
+
+    private <T> T callWithToken(ConversionJob job, Platform platform, Function<String, T> call) {
+        User user = job.getUser();
+        if (platform != Platform.SPOTIFY) {
+            return call.apply(credentialProvider.decrypt(user.getNeteaseCookie()));
+        }
+        return spotifyTokenService.call(user, call);
+    }
+
+    /**
+     * Looks up the playlists the job was queued with and records their names and the source size.
+     * In UPDATE and SYNC mode the destination playlist is looked up too, which also checks it still exists.
+     */
+    private PlaylistDetails enrichJob(ConversionJob job) {
+        PlaylistDetails source = withToken(job, job.getSourcePlatform(),
+                token -> getPlaylistDetails(job.getSourcePlatform(), token, job.getSourcePlaylistId()));
+        job.setSourcePlaylistName(source.name());
+        job.setTotalTracks(source.totalTracks() != null ? source.totalTracks() : 0);
+
+        if (job.getMode() != ConversionMode.CREATE) {
+            Platform destPlatform = job.getDestinationPlatform();
+            PlaylistDetails destination = withToken(job, destPlatform,
+                    token -> getPlaylistDetails(destPlatform, token, job.getDestinationPlaylistId()));
+            job.setDestinationPlaylistName(destination.name());
+        }
+
+        log.info("Validated job {}: {} → {}", job.getId(), job.getSourcePlaylistName(), job.getDestinationPlaylistName());
+        return source;
+    }
+
+    private PlaylistDetails getPlaylistDetails(Platform platform, String token, String playlistId) {
+        if (platform == Platform.SPOTIFY) {
+            SpotifyPlaylist playlist = spotifyService.getPlaylistById(token, playlistId);
+            return new PlaylistDetails(playlist.getName(), playlist.getTotalTracks(), playlist.getSnapshotId());
         } else {
-            return tokenEncryption.decrypt(job.getUser().getNeteaseCookie());
+            NeteasePlaylist playlist = neteaseService.getPlaylistById(token, playlistId);
+            return new PlaylistDetails(playlist.getName(), playlist.getTotalTracks(), null);
         }
     }
 
@@ -224,6 +400,64 @@ public class ConversionWorker {
         }
     }
 
+    private void removeTracksFromDestination(ConversionJob job, String token, List<String> trackIds) {
+        log.info("Removing {} tracks from destination playlist", trackIds.size());
+
+        if (job.getDestinationPlatform() == Platform.SPOTIFY) {
+            List<String> uris = trackIds.stream()
+                    .map(id -> "spotify:track:" + id)
+                    .toList();
+            spotifyService.removeTracksFromPlaylist(token, job.getDestinationPlaylistId(), uris);
+        } else {
+            neteaseService.removeTracksFromPlaylist(token, job.getDestinationPlaylistId(), trackIds);
+        }
+    }
+
+    /**
+     * Identifies a recording independently of its track id, which differs between re-uploads and
+     * regional copies of the same song: the ISRC if known, otherwise the normalized title, first
+     * artist and duration in seconds. Null if the track has no title.
+     */
+    private String fingerprint(Object track) {
+        String name;
+        String artist;
+        Integer durationMs;
+        if (track instanceof SpotifyTrack spotifyTrack) {
+            if (spotifyTrack.getIsrc() != null && !spotifyTrack.getIsrc().isBlank()) {
+                return "isrc:" + spotifyTrack.getIsrc().toUpperCase();
+            }
+            name = spotifyTrack.getName();
+            artist = spotifyTrack.getArtists() == null || spotifyTrack.getArtists().isEmpty()
+                    ? null
+                    : spotifyTrack.getArtists().get(0);
+            durationMs = spotifyTrack.getDurationMs();
+        } else if (track instanceof NeteaseTrack neteaseTrack) {
+            name = neteaseTrack.getName();
+            artist = neteaseTrack.getArtists() == null || neteaseTrack.getArtists().isEmpty()
+                    ? null
+                    : neteaseTrack.getArtists().get(0).getName();
+            durationMs = neteaseTrack.getDuration();
+        } else {
+            throw new IllegalArgumentException("Unsupported track type: " + track.getClass().getName());
+        }
+
+        String normalizedName = StringSimilarity.normalize(name);
+        if (normalizedName.isEmpty()) {
+            return null;
+        }
+        return normalizedName + "|" + StringSimilarity.normalize(artist) + "|"
+                + (durationMs != null ? durationMs / 1000 : "");
+    }
+
+    private String getTrackId(Object track) {
+        if (track instanceof SpotifyTrack spotifyTrack) {
+            return spotifyTrack.getId();
+        } else if (track instanceof NeteaseTrack neteaseTrack) {
+            return neteaseTrack.getId();
+        }
+        throw new IllegalArgumentException("Unsupported track type: " + track.getClass().getName());
+    }
+
     /**
      * Fetches all tracks from the destination playlist.
      * Used in UPDATE mode to avoid adding duplicate tracks.
@@ -240,4 +474,246 @@ public class ConversionWorker {
         }
     }
 
+    private record PlaylistDetails(String name, Integer totalTracks, String snapshotId) {
+    }
+
+    /**
+     * The per-track steps of one job, for the configured {@link TrackPipeline}.
+     * <p>
+     * A pipeline may resolve tracks ahead of the one it records, so the resolve side keeps its own
+     * view of which tracks have a match of their own and which destination tracks are taken. Both
+     * views change in playlist order only, which gives every pipeline the results of matching the
+     * tracks one by one.
+     */
+    private final class JobTrackSteps implements TrackSteps {
+        private final ConversionJob job;
+        private final List<?> existingTracks;
+        private final JobMatches jobMatches;
+
+        // Resolve side
+        private final Set<String> resolvedTrackIds = new HashSet<>();
+        private final Set<String> resolvedFingerprints = new HashSet<>();
+        private final Set<String> resolvedDestinationIds;
+
+        // Record side: destination tracks already in the playlist, and those still to be added
+        private final Set<String> alreadyMatchedTrackIds;
+        private final List<String> autoMatchedTrackIds = new ArrayList<>();
+        private final List<TrackMatch> recorded = new ArrayList<>();
+
+        private JobTrackSteps(ConversionJob job, List<?> existingTracks, JobMatches jobMatches,
+                              Set<String> matchedDestinationIds) {
+            this.job = job;
+            this.existingTracks = existingTracks;
+            this.jobMatches = jobMatches;
+            this.resolvedDestinationIds = new HashSet<>(matchedDestinationIds);
+            this.alreadyMatchedTrackIds = new HashSet<>(matchedDestinationIds);
+        }
+
+        @Override
+        public TrackStep resolve(int index, Object sourceTrack) {
+            String sourceTrackId = getTrackId(sourceTrack);
+            String fingerprint = fingerprint(sourceTrack);
+
+            // Matched before the job was paused: keep the saved match, its counters are already in
+            TrackMatch resumed = jobMatches.takeResumed(sourceTrackId);
+            if (resumed != null) {
+                resolvedOwnMatch(sourceTrackId, fingerprint);
+                if (resumed.getStatus() == MatchStatus.AUTO_MATCHED && resumed.getDestinationTrackId() != null) {
+                    resolvedDestinationIds.add(resumed.getDestinationTrackId());
+                }
+                return new TrackStep(index, sourceTrack, sourceTrackId, fingerprint, TrackStep.Kind.RESUMED, resumed);
+            }
+
+            // Repeated in the playlist: every occurrence gets a row, but the track is matched once
+            if (resolvedTrackIds.contains(sourceTrackId)
+                    || (fingerprint != null && resolvedFingerprints.contains(fingerprint))) {
+                return new TrackStep(index, sourceTrack, sourceTrackId, fingerprint, TrackStep.Kind.REPEAT);
+            }
+            resolvedOwnMatch(sourceTrackId, fingerprint);
+
+            // Then check if track already exists in destination (UPDATE mode and first sync only)
+            if (existingTracks != null) {
+                TrackMatch match = matchingService.findMatchInExistingTracks(
+                        sourceTrack, existingTracks, resolvedDestinationIds, job);
+                if (match != null) {
+                    log.debug("Track already exists in destination playlist (score: {}), skipping API search",
+                            match.getMatchConfidence());
+                    resolvedDestinationIds.add(match.getDestinationTrackId());
+                    return new TrackStep(index, sourceTrack, sourceTrackId, fingerprint, TrackStep.Kind.EXISTING, match);
+                }
+            }
+            return new TrackStep(index, sourceTrack, sourceTrackId, fingerprint, TrackStep.Kind.SEARCH);
+        }
+
+        private void resolvedOwnMatch(String sourceTrackId, String fingerprint) {
+            resolvedTrackIds.add(sourceTrackId);
+            if (fingerprint != null) {
+                resolvedFingerprints.add(fingerprint);
+            }
+        }
+
+        @Override
+        public void match(TrackStep step) {
+            // No existing match found, search for best match via API (once per bulk conversion)
+            Platform destPlatform = job.getDestinationPlatform();
+            step.setMatch(bulkMatchCache.match(job, step.getSourceTrackId(), () -> withToken(job, destPlatform,
+                    token -> matchingService.findBestMatch(
+                            step.getSourceTrack(),
+                            destPlatform,
+                            token,
+                            job
+                    ))));
+        }
+
+        @Override
+        public void search(TrackStep step) {
+            if (job.getBulkConversion() != null) {
+                match(step);
+                return;
+            }
+            Platform destPlatform = job.getDestinationPlatform();
+            step.setCandidates(withToken(job, destPlatform,
+                    token -> matchingService.searchCandidates(step.getSourceTrack(), destPlatform, token)));
+        }
+
+        @Override
+        public void score(TrackStep step) {
+            step.setMatch(matchingService.scoreCandidates(step.getSourceTrack(), step.getCandidates(), job));
+            step.setCandidates(null);
+        }
+
+        @Override
+        public void record(TrackStep step) {
+            String sourceTrackId = step.getSourceTrackId();
+            TrackMatch match = step.getMatch();
+
+            if (step.getKind() == TrackStep.Kind.RESUMED) {
+                jobMatches.add(sourceTrackId, step.getFingerprint(), match);
+                if (match.getStatus() == MatchStatus.AUTO_MATCHED && match.getDestinationTrackId() != null) {
+                    // Added to the destination when the job paused
+                    alreadyMatchedTrackIds.add(match.getDestinationTrackId());
+                }
+                recorded.add(match);
+                return;
+            }
+
+            if (step.getKind() == TrackStep.Kind.REPEAT) {
+                match = jobMatches.find(sourceTrackId, step.getFingerprint()).copyFor(job);
+                match.setSourceTrackId(sourceTrackId);
+                step.setMatch(match);
+                job.setSearchesSaved(job.getSearchesSaved() + 1);
+                log.debug("Track {} repeats an earlier track of job {}, reusing its match", sourceTrackId, job.getId());
+            } else {
+                jobMatches.add(sourceTrackId, step.getFingerprint(), match);
+            }
+
+            boolean existing = step.getKind() == TrackStep.Kind.EXISTING;
+            if (existing) {
+                // Track this destination track as matched to prevent duplicate matches
+                alreadyMatchedTrackIds.add(match.getDestinationTrackId());
+            }
+
+            // Update counters
+            job.setProcessedTracks(step.getIndex() + 1);
+
+            if (match.getStatus() == MatchStatus.AUTO_MATCHED) {
+                job.setHighConfidenceMatches(job.getHighConfidenceMatches() + 1);
+                // Existing tracks are already in the destination and are not added again
+                if (!existing && !alreadyMatchedTrackIds.contains(match.getDestinationTrackId())) {
+                    autoMatchedTrackIds.add(match.getDestinationTrackId());
+                }
+            } else if (match.getStatus() == MatchStatus.PENDING_REVIEW) {
+                job.setLowConfidenceMatches(job.getLowConfidenceMatches() + 1);
+            } else {
+                job.setFailedTracks(job.getFailedTracks() + 1);
+            }
+            recorded.add(match);
+
+            // Coalesced: persisted and published at most once per configured interval
+            progressPublisher.trackProcessed(job);
+        }
+
+        @Override
+        public void persist(List<TrackStep> steps) {
+            for (TrackStep step : steps) {
+                // Saved by the run that was paused
+                if (step.getKind() != TrackStep.Kind.RESUMED) {
+                    trackMatchRepository.save(step.getMatch());
+                    matchEventStream.publish(job, step.getMatch());
+                }
+            }
+        }
+
+        @Override
+        public int pendingAdds() {
+            return autoMatchedTrackIds.size();
+        }
+
+        @Override
+        public void apply() {
+            addAutoMatchedTracks(job, List.copyOf(autoMatchedTrackIds));
+            autoMatchedTrackIds.clear();
+        }
+
+        /**
+         * Marks the job with the requested stop status; a job being paused first adds the tracks it
+         * auto-matched so far, so the destination matches its saved checkpoint.
+         */
+        @Override
+        public boolean stopRequested() {
+            JobCancellation cancellation = jobControlService.cancellation(job.getId());
+            // Every track boundary counts as progress for the job's heartbeat
+            cancellation.touch();
+            JobStatus requested = cancellation.requestedStatus();
+            if (requested == null) {
+                return false;
+            }
+            if (requested == JobStatus.PAUSED || requested == JobStatus.QUEUED) {
+                // The resumed run treats saved auto-matches as already in the destination
+                apply();
+            }
+            job.setStatus(requested);
+            return true;
+        }
+    }
+
+    /**
+     * The matches a job has made so far, by source track id and by fingerprint, and for a resumed
+     * job the saved matches of the run that was paused, consumed one per occurrence of a track.
+     */
+    private static final class JobMatches {
+        private final Map<String, TrackMatch> byTrackId = new HashMap<>();
+        private final Map<String, TrackMatch> byFingerprint = new HashMap<>();
+        private final Map<String, Deque<TrackMatch>> resumed = new HashMap<>();
+        private boolean resumedJob;
+
+        private void addResumed(TrackMatch match) {
+            resumed.computeIfAbsent(match.getSourceTrackId(), id -> new ArrayDeque<>()).add(match);
+            resumedJob = true;
+        }
+
+        private boolean isResumed() {
+            return resumedJob;
+        }
+
+        private TrackMatch takeResumed(String trackId) {
+            Deque<TrackMatch> matches = resumed.get(trackId);
+            return matches != null ? matches.poll() : null;
+        }
+
+        private TrackMatch find(String trackId, String fingerprint) {
+            TrackMatch match = byTrackId.get(trackId);
+            if (match == null && fingerprint != null) {
+                match = byFingerprint.get(fingerprint);
+            }
+            return match;
+        }
+
+        private void add(String trackId, String fingerprint, TrackMatch match) {
+            byTrackId.putIfAbsent(trackId, match);
+            if (fingerprint != null) {
+                byFingerprint.putIfAbsent(fingerprint, match);
+            }
+        }
+    }
 }
@@ -0,0 +1,29 @@
+package com.spotease.worker;
+
+import com.spotease.service.JobControlService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers cancel and pause requests made on other replicas to the jobs running on this one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "spotease.job-control.enabled", havingValue = "true", matchIfMissing = true)
+public class JobControlWorker {
+
+    private final JobControlService jobControlService;
+
+    @Scheduled(fixedDelayString = "${spotease.job-control.poll-interval:PT2S}")
+    public void pollRequests() {
+        try {
+            jobControlService.pollRequests();
+        } catch (Exception e) {
+            log.error("Job control poll failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.spotease.worker;
+
+import com.spotease.service.JobDispatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically starts queued jobs as workers free up, including jobs queued on other replicas.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "spotease.scheduler.enabled", havingValue = "true", matchIfMissing = true)
+public class JobDispatchWorker {
+
+    private final JobDispatcher jobDispatcher;
+
+    @Scheduled(fixedDelayString = "${spotease.scheduler.poll-interval:PT2S}")
+    public void dispatch() {
+        try {
+            jobDispatcher.dispatch();
+        } catch (Exception e) {
+            log.error("Job dispatch failed: {}", e.getMessage(), e);
+        }
+    }
+}
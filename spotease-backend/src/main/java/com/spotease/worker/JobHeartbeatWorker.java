@@ -0,0 +1,39 @@
+package com.spotease.worker;
+
+import com.spotease.service.JobHeartbeatService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes heartbeats for the jobs running on this replica and reaps jobs whose worker is gone.
+ * Safe to run on every replica.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "spotease.job-heartbeat.enabled", havingValue = "true", matchIfMissing = true)
+public class JobHeartbeatWorker {
+
+    private final JobHeartbeatService heartbeatService;
+
+    @Scheduled(fixedDelayString = "${spotease.job-heartbeat.interval:PT10S}")
+    public void beat() {
+        try {
+            heartbeatService.beat();
+        } catch (Exception e) {
+            log.error("Job heartbeat failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${spotease.job-heartbeat.reap-interval:PT1M}")
+    public void reapStuckJobs() {
+        try {
+            heartbeatService.reapStuckJobs();
+        } catch (Exception e) {
+            log.error("Stuck job reaper run failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.spotease.worker;
+
+import com.spotease.service.MatchArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically moves matches of old, finished jobs into compressed archives.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "spotease.archival.enabled", havingValue = "true", matchIfMissing = true)
+public class MatchArchivalWorker {
+
+    private final MatchArchiveService archiveService;
+
+    @Scheduled(cron = "${spotease.archival.cron:0 30 3 * * *}")
+    public void archiveExpiredJobs() {
+        log.info("Starting match archival run");
+        try {
+            archiveService.deleteLeftoverHotMatches();
+            int archived;
+            do {
+                archived = archiveService.archiveExpiredJobs();
+            } while (archived > 0 && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            log.error("Match archival run failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.spotease.worker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-stage timers of a {@link TrackPipeline}, {@code spotease.pipeline.stage} tagged with the
+ * engine and the stage. A timer's count is the stage's throughput.
+ */
+class PipelineMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final String engine;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    PipelineMetrics(MeterRegistry meterRegistry, String engine) {
+        this.meterRegistry = meterRegistry;
+        this.engine = engine;
+    }
+
+    <T> T time(String stage, Supplier<T> work) {
+        return timer(stage).record(work);
+    }
+
+    void time(String stage, Runnable work) {
+        timer(stage).record(work);
+    }
+
+    Timer timer(String stage) {
+        return timers.computeIfAbsent(stage, name -> Timer.builder("spotease.pipeline.stage")
+                .description("Time conversion jobs spend per track in each pipeline stage")
+                .tag("engine", engine)
+                .tag("stage", name)
+                .register(meterRegistry));
+    }
+}
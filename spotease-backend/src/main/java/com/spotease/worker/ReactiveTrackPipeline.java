@@ -0,0 +1,101 @@
+package com.spotease.worker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Matches the tracks of a job as one backpressured Reactor pipeline:
+ * <ol>
+ *   <li>resolve, in playlist order: resumed, repeated and existing tracks need no search</li>
+ *   <li>search on {@code boundedElastic}, then score on {@code parallel}, up to
+ *       {@code search-concurrency} tracks at once; {@code flatMapSequential} keeps playlist order</li>
+ *   <li>{@code bufferTimeout} batches of up to {@code batch-size} tracks, handed to the job's
+ *       thread, which records, saves and publishes them in its transaction</li>
+ *   <li>auto-matched tracks are added to the destination whenever {@code playlist-batch-size} are
+ *       pending, and once more at the end</li>
+ * </ol>
+ * Demand flows back from the job's thread, so a slow database or destination holds back searching
+ * rather than buffering the whole playlist.
+ */
+@Component
+@ConditionalOnProperty(name = "spotease.worker.engine", havingValue = "reactive")
+class ReactiveTrackPipeline implements TrackPipeline {
+
+    private final PipelineMetrics metrics;
+
+    @Value("${spotease.worker.reactive.search-concurrency:8}")
+    private int searchConcurrency = 8;
+
+    @Value("${spotease.worker.reactive.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${spotease.worker.reactive.batch-timeout:PT1S}")
+    private Duration batchTimeout = Duration.ofSeconds(1);
+
+    // Spotify adds at most 100 tracks per request
+    @Value("${spotease.worker.reactive.playlist-batch-size:100}")
+    private int playlistBatchSize = 100;
+
+    ReactiveTrackPipeline(MeterRegistry meterRegistry) {
+        this.metrics = new PipelineMetrics(meterRegistry, "reactive");
+    }
+
+    @Override
+    public boolean run(List<?> sourceTracks, TrackSteps steps) {
+        Flux<List<TrackStep>> batches = Flux.range(0, sourceTracks.size())
+                .map(index -> metrics.time("resolve", () -> steps.resolve(index, sourceTracks.get(index))))
+                .flatMapSequential(step -> step.needsSearch() ? searchAndScore(step, steps) : Mono.just(step),
+                        searchConcurrency)
+                // Fair backpressure: a timed-out batch waits for the job's thread to ask for it
+                .bufferTimeout(batchSize, batchTimeout, true);
+
+        // Closing the stream cancels the pipeline when the job stops or fails
+        try (Stream<List<TrackStep>> stream = batches.toStream(1)) {
+            Iterator<List<TrackStep>> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                List<TrackStep> recorded = new ArrayList<>();
+                for (TrackStep step : iterator.next()) {
+                    if (steps.stopRequested()) {
+                        metrics.time("persist", () -> steps.persist(recorded));
+                        return false;
+                    }
+                    metrics.time("record", () -> steps.record(step));
+                    recorded.add(step);
+                }
+                metrics.time("persist", () -> steps.persist(recorded));
+                if (steps.pendingAdds() >= playlistBatchSize) {
+                    metrics.time("apply", steps::apply);
+                }
+            }
+        }
+
+        metrics.time("apply", steps::apply);
+        return true;
+    }
+
+    private Mono<TrackStep> searchAndScore(TrackStep step, TrackSteps steps) {
+        return Mono.fromCallable(() -> {
+                    metrics.time("search", () -> steps.search(step));
+                    return step;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .publishOn(Schedulers.parallel())
+                .map(searched -> {
+                    if (searched.needsScore()) {
+                        metrics.time("score", () -> steps.score(searched));
+                    }
+                    return searched;
+                });
+    }
+}
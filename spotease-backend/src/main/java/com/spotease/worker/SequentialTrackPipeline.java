@@ -0,0 +1,100 @@
+package com.spotease.worker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Matches the tracks of a job one after another on the job's thread.
+ * <p>
+ * In virtual-thread mode the next {@code track-parallelism} tracks are resolved ahead and those
+ * that need a search are searched on virtual threads meanwhile, so a job's searches overlap; the
+ * platform call limiter bounds how many really run at once. Tracks are still recorded and saved
+ * in order.
+ */
+@Component
+@ConditionalOnProperty(name = "spotease.worker.engine", havingValue = "sequential", matchIfMissing = true)
+class SequentialTrackPipeline implements TrackPipeline {
+
+    private final PipelineMetrics metrics;
+
+    @Value("${spotease.scheduler.virtual-threads.enabled:false}")
+    private boolean virtualThreads;
+
+    // Track searches a job keeps in flight in virtual-thread mode
+    @Value("${spotease.scheduler.virtual-threads.track-parallelism:8}")
+    private int trackParallelism = 8;
+
+    private AsyncTaskExecutor searchExecutor;
+
+    SequentialTrackPipeline(MeterRegistry meterRegistry) {
+        this.metrics = new PipelineMetrics(meterRegistry, "sequential");
+    }
+
+    @PostConstruct
+    void initSearchExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("track-search-");
+            // Fails at startup on a JDK without virtual threads
+            executor.setVirtualThreads(true);
+            searchExecutor = executor;
+        }
+    }
+
+    @Override
+    public boolean run(List<?> sourceTracks, TrackSteps steps) {
+        int lookahead = searchExecutor != null ? trackParallelism : 1;
+        Deque<TrackStep> resolved = new ArrayDeque<>();
+        Deque<CompletableFuture<Void>> searches = new ArrayDeque<>();
+        int next = 0;
+
+        for (int i = 0; i < sourceTracks.size(); i++) {
+            if (steps.stopRequested()) {
+                return false;
+            }
+            for (; next < Math.min(sourceTracks.size(), i + lookahead); next++) {
+                TrackStep step = resolve(steps, next, sourceTracks.get(next));
+                resolved.add(step);
+                searches.add(searchExecutor != null && step.needsSearch()
+                        ? CompletableFuture.runAsync(() -> metrics.time("match", () -> steps.match(step)), searchExecutor)
+                        : CompletableFuture.completedFuture(null));
+            }
+
+            TrackStep step = resolved.poll();
+            join(searches.poll());
+            if (step.needsSearch()) {
+                metrics.time("match", () -> steps.match(step));
+            }
+            metrics.time("record", () -> steps.record(step));
+            metrics.time("persist", () -> steps.persist(List.of(step)));
+        }
+
+        metrics.time("apply", steps::apply);
+        return true;
+    }
+
+    private TrackStep resolve(TrackSteps steps, int index, Object sourceTrack) {
+        return metrics.time("resolve", () -> steps.resolve(index, sourceTrack));
+    }
+
+    private static void join(CompletableFuture<Void> search) {
+        try {
+            search.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
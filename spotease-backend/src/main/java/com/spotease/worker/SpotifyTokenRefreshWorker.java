@@ -0,0 +1,33 @@
+package com.spotease.worker;
+
+import com.spotease.service.SpotifyTokenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refreshes Spotify access tokens of users with queued or running jobs before they expire,
+ * so long conversions don't fail halfway through on an expired token.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "spotease.spotify.token-refresh.enabled", havingValue = "true", matchIfMissing = true)
+public class SpotifyTokenRefreshWorker {
+
+    private final SpotifyTokenService tokenService;
+
+    @Scheduled(fixedDelayString = "${spotease.spotify.token-refresh.interval:PT1M}")
+    public void refreshExpiringTokens() {
+        try {
+            int refreshed = tokenService.refreshExpiringTokens();
+            if (refreshed > 0) {
+                log.info("Proactively refreshed {} Spotify tokens", refreshed);
+            }
+        } catch (Exception e) {
+            log.error("Spotify token refresh run failed: {}", e.getMessage(), e);
+        }
+    }
+}
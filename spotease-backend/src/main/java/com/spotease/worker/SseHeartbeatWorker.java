@@ -0,0 +1,29 @@
+package com.spotease.worker;
+
+import com.spotease.service.ProgressSseService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps idle SSE progress streams open through proxies and drops streams nobody watches anymore.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "spotease.sse.heartbeat.enabled", havingValue = "true", matchIfMissing = true)
+public class SseHeartbeatWorker {
+
+    private final ProgressSseService progressSseService;
+
+    @Scheduled(fixedDelayString = "${spotease.sse.heartbeat.interval:PT15S}")
+    public void sendHeartbeats() {
+        try {
+            progressSseService.sendHeartbeats();
+        } catch (Exception e) {
+            log.error("SSE heartbeat run failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.spotease.worker;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Matches the tracks of a job in explicit stages, each on the executor for its kind of work, so
+ * CPU-bound scoring and I/O-bound searching no longer compete for the same worker threads:
+ * <ol>
+ *   <li>resolve (candidate generation): tells, in playlist order, which tracks need a search; for
+ *       UPDATE jobs and first syncs this scores the destination's existing tracks; CPU executor</li>
+ *   <li>search: searches the destination platform; elastic I/O executor</li>
+ *   <li>score: scores the search results; CPU executor</li>
+ *   <li>persistence: records and saves finished tracks in order, in batches; job's thread</li>
+ *   <li>playlist apply: adds auto-matched tracks every {@code playlist-batch-size}; job's thread</li>
+ * </ol>
+ * Fetching the playlists happens before, on the job's thread. The executors are shared by all
+ * jobs: the CPU one has a thread per core, the I/O one grows up to {@code io-threads} and retires
+ * idle threads.
+ * <p>
+ * Queues are bounded by admission: a job lets at most {@code window} of its tracks into the stages
+ * and admits none while any stage has {@code queue-capacity} tasks waiting. Only job threads
+ * wait, never stage threads, so stages cannot deadlock each other. Per-stage queue depth is
+ * published as {@code spotease.pipeline.queue.depth}; stage timers count throughput.
+ */
+@Component
+@ConditionalOnProperty(name = "spotease.worker.engine", havingValue = "staged")
+class StagedTrackPipeline implements TrackPipeline {
+
+    private final PipelineMetrics metrics;
+    private final ThreadPoolExecutor cpuExecutor;
+    private final ThreadPoolExecutor ioExecutor;
+    private final Stage resolve;
+    private final Stage search;
+    private final Stage score;
+
+    // Tracks of one job between admission and persistence
+    @Value("${spotease.worker.staged.window:32}")
+    private int window = 32;
+
+    @Value("${spotease.worker.staged.batch-size:50}")
+    private int batchSize = 50;
+
+    // Spotify adds at most 100 tracks per request
+    @Value("${spotease.worker.staged.playlist-batch-size:100}")
+    private int playlistBatchSize = 100;
+
+    StagedTrackPipeline(MeterRegistry meterRegistry,
+                        @Value("${spotease.worker.staged.cpu-threads:0}") int cpuThreads,
+                        @Value("${spotease.worker.staged.io-threads:64}") int ioThreads,
+                        @Value("${spotease.worker.staged.queue-capacity:256}") int queueCapacity) {
+        this.metrics = new PipelineMetrics(meterRegistry, "staged");
+        this.cpuExecutor = executor("pipeline-cpu-",
+                cpuThreads > 0 ? cpuThreads : Runtime.getRuntime().availableProcessors());
+        this.ioExecutor = executor("pipeline-io-", ioThreads);
+        this.resolve = new Stage("resolve", cpuExecutor, queueCapacity, meterRegistry);
+        this.search = new Stage("search", ioExecutor, queueCapacity, meterRegistry);
+        this.score = new Stage("score", cpuExecutor, queueCapacity, meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        cpuExecutor.shutdownNow();
+        ioExecutor.shutdownNow();
+    }
+
+    @Override
+    public boolean run(List<?> sourceTracks, TrackSteps steps) {
+        Deque<CompletableFuture<TrackStep>> inFlight = new ArrayDeque<>();
+        CompletableFuture<TrackStep> previous = CompletableFuture.completedFuture(null);
+        // Lets queued stage work of a stopped or failed job finish without doing anything
+        AtomicBoolean abandoned = new AtomicBoolean();
+        int next = 0;
+
+        try {
+            while (next < sourceTracks.size() || !inFlight.isEmpty()) {
+                while (next < sourceTracks.size() && inFlight.size() < window) {
+                    awaitCapacity();
+                    int index = next++;
+                    Object sourceTrack = sourceTracks.get(index);
+                    // Chained on the previous track, so tracks are resolved one at a time in order;
+                    // left unresolved (null) once the job is abandoned, when nothing reads them
+                    CompletableFuture<TrackStep> resolved = previous.thenApplyAsync(
+                            ignored -> abandoned.get()
+                                    ? null
+                                    : metrics.time("resolve", () -> steps.resolve(index, sourceTrack)),
+                            resolve);
+                    previous = resolved;
+                    inFlight.add(resolved.thenCompose(step -> step != null && step.needsSearch() && !abandoned.get()
+                            ? searchAndScore(step, steps, abandoned)
+                            : CompletableFuture.completedFuture(step)));
+                }
+
+                // Persist the finished head of the window, at least one track
+                List<TrackStep> recorded = new ArrayList<>();
+                do {
+                    if (steps.stopRequested()) {
+                        abandoned.set(true);
+                        metrics.time("persist", () -> steps.persist(recorded));
+                        return false;
+                    }
+                    TrackStep step = join(inFlight.poll());
+                    metrics.time("record", () -> steps.record(step));
+                    recorded.add(step);
+                } while (!inFlight.isEmpty() && inFlight.peek().isDone() && recorded.size() < batchSize);
+                metrics.time("persist", () -> steps.persist(recorded));
+
+                if (steps.pendingAdds() >= playlistBatchSize) {
+                    metrics.time("apply", steps::apply);
+                }
+            }
+        } catch (RuntimeException e) {
+            abandoned.set(true);
+            throw e;
+        }
+
+        metrics.time("apply", steps::apply);
+        return true;
+    }
+
+    private CompletableFuture<TrackStep> searchAndScore(TrackStep step, TrackSteps steps, AtomicBoolean abandoned) {
+        return CompletableFuture
+                .supplyAsync(() -> {
+                    if (!abandoned.get()) {
+                        metrics.time("search", () -> steps.search(step));
+                    }
+                    return step;
+                }, search)
+                .thenApplyAsync(searched -> {
+                    if (searched.needsScore() && !abandoned.get()) {
+                        metrics.time("score", () -> steps.score(searched));
+                    }
+                    return searched;
+                }, score);
+    }
+
+    /**
+     * Waits, on the job's thread, until every stage has room for another track.
+     */
+    private void awaitCapacity() {
+        try {
+            resolve.awaitCapacity();
+            search.awaitCapacity();
+            score.awaitCapacity();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for pipeline capacity", e);
+        }
+    }
+
+    private static TrackStep join(CompletableFuture<TrackStep> step) {
+        try {
+            return step.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static ThreadPoolExecutor executor(String threadNamePrefix, int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory(threadNamePrefix));
+        // Grows to the limit under load, shrinks back when idle
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * One stage's share of an executor, counting the tasks it has waiting.
+     */
+    private static final class Stage implements Executor {
+        private final Executor executor;
+        private final int capacity;
+        private final AtomicInteger queued = new AtomicInteger();
+
+        private Stage(String name, Executor executor, int capacity, MeterRegistry meterRegistry) {
+            this.executor = executor;
+            this.capacity = capacity;
+            Gauge.builder("spotease.pipeline.queue.depth", queued, AtomicInteger::get)
+                    .description("Track tasks waiting for a thread, per pipeline stage")
+                    .tag("engine", "staged")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            queued.incrementAndGet();
+            executor.execute(() -> {
+                started();
+                task.run();
+            });
+        }
+
+        private void started() {
+            if (queued.decrementAndGet() < capacity) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+
+        private synchronized void awaitCapacity() throws InterruptedException {
+            while (queued.get() >= capacity) {
+                wait();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.spotease.worker;
+
+import com.spotease.service.SyncScheduleService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically enqueues SYNC jobs for recurring syncs that are due. Safe to run on every replica.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "spotease.sync-scheduler.enabled", havingValue = "true", matchIfMissing = true)
+public class SyncSchedulerWorker {
+
+    private final SyncScheduleService syncScheduleService;
+
+    @Scheduled(fixedDelayString = "${spotease.sync-scheduler.interval:PT1M}")
+    public void enqueueDueSyncs() {
+        try {
+            syncScheduleService.enqueueDueSyncs();
+        } catch (Exception e) {
+            log.error("Sync scheduler run failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.spotease.worker;
+
+import com.spotease.service.TrackMatchPartitionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically creates track_matches partitions for upcoming job ids. Safe to run on every replica.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "spotease.match-partitions.enabled", havingValue = "true", matchIfMissing = true)
+public class TrackMatchPartitionWorker {
+
+    private final TrackMatchPartitionService partitionService;
+
+    @Scheduled(fixedDelayString = "${spotease.match-partitions.interval:PT1M}")
+    public void createUpcomingPartitions() {
+        try {
+            partitionService.createUpcomingPartitions();
+        } catch (Exception e) {
+            log.error("Track match partition run failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.spotease.worker;
+
+import java.util.List;
+
+/**
+ * Schedules the per-track steps of a conversion job over its source tracks. Which implementation
+ * runs is chosen with {@code spotease.worker.engine}; they differ in how the steps overlap, not
+ * in the matches a job ends up with.
+ */
+interface TrackPipeline {
+
+    /**
+     * Matches, records, saves and applies every source track, on the calling thread's transaction.
+     *
+     * @return false if the job was asked to stop before all tracks were recorded
+     */
+    boolean run(List<?> sourceTracks, TrackSteps steps);
+}
@@ -0,0 +1,54 @@
+package com.spotease.worker;
+
+import com.spotease.model.TrackMatch;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One source track on its way through a {@link TrackPipeline}: how it is matched, and the match
+ * once there is one.
+ */
+@Getter
+@RequiredArgsConstructor
+final class TrackStep {
+
+    enum Kind {
+        // Matched before the job was paused; its saved match is kept
+        RESUMED,
+        // Repeats an earlier track of the job and reuses its match
+        REPEAT,
+        // Matched one of the destination playlist's existing tracks
+        EXISTING,
+        // Searched for on the destination platform
+        SEARCH
+    }
+
+    private final int index;
+    private final Object sourceTrack;
+    private final String sourceTrackId;
+    private final String fingerprint;
+    private final Kind kind;
+
+    // Found by the search, until scored
+    @Setter
+    private List<?> candidates;
+
+    @Setter
+    private TrackMatch match;
+
+    TrackStep(int index, Object sourceTrack, String sourceTrackId, String fingerprint, Kind kind, TrackMatch match) {
+        this(index, sourceTrack, sourceTrackId, fingerprint, kind);
+        this.match = match;
+    }
+
+    boolean needsSearch() {
+        return kind == Kind.SEARCH && match == null && candidates == null;
+    }
+
+    boolean needsScore() {
+        return kind == Kind.SEARCH && match == null && candidates != null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.spotease.worker;
+
+import java.util.List;
+
+/**
+ * The per-track work of one conversion job, which a {@link TrackPipeline} schedules.
+ * <p>
+ * Steps marked <em>in order</em> must see the tracks one at a time in playlist order. Steps marked
+ * <em>job thread</em> must run on the thread that called {@link TrackPipeline#run}, which holds the
+ * job's transaction. The others may run on any thread, concurrently for different tracks.
+ */
+interface TrackSteps {
+
+    /**
+     * In order, any thread. Decides how a track is matched without searching: from the run that was
+     * paused, as a repeat of an earlier track, or among the destination's existing tracks.
+     */
+    TrackStep resolve(int index, Object sourceTrack);
+
+    /**
+     * Searches for a track and scores the candidates in one call.
+     */
+    void match(TrackStep step);
+
+    /**
+     * Searches the destination platform for candidates; blocks on I/O. A child of a bulk conversion
+     * gets the whole match here, since matches are shared between children.
+     */
+    void search(TrackStep step);
+
+    /**
+     * Scores the candidates of a search; CPU only.
+     */
+    void score(TrackStep step);
+
+    /**
+     * In order, job thread. Takes the track's match into the job's counters and progress.
+     */
+    void record(TrackStep step);
+
+    /**
+     * Job thread. Saves and publishes the matches of recorded tracks.
+     */
+    void persist(List<TrackStep> steps);
+
+    /**
+     * Job thread. Destination tracks auto-matched so far that are not in the playlist yet.
+     */
+    int pendingAdds();
+
+    /**
+     * Job thread. Adds the pending auto-matched tracks to the destination playlist.
+     */
+    void apply();
+
+    /**
+     * Job thread, between tracks. Whether the job was asked to stop; a job being paused first
+     * applies what it auto-matched so far.
+     */
+    boolean stopRequested();
+}
@@ -0,0 +1,84 @@
+package com.spotease.worker;
+
+import com.spotease.service.JobControlService;
+import com.spotease.service.JobDispatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Drains this replica's conversion jobs when the application shuts down, before the worker pool
+ * and the database connections go away.
+ * <p>
+ * The replica stops claiming jobs, and every running job is asked to stop at its next track
+ * boundary: it adds the tracks it auto-matched so far to the destination, commits its matches and
+ * progress, and goes back on the queue unclaimed, where another replica resumes it from there.
+ * Shutdown waits up to {@code drain-timeout} for that. A job still running after it rolls back
+ * with the process and is recovered by the stuck-job reaper.
+ */
+@Component
+@Slf4j
+public class WorkerShutdown implements SmartLifecycle {
+
+    private final JobDispatcher jobDispatcher;
+    private final JobControlService jobControlService;
+
+    // Keep below the time the platform gives the process between SIGTERM and SIGKILL
+    @Value("${spotease.shutdown.drain-timeout:PT25S}")
+    private Duration drainTimeout = Duration.ofSeconds(25);
+
+    private volatile boolean running;
+
+    public WorkerShutdown(JobDispatcher jobDispatcher, JobControlService jobControlService) {
+        this.jobDispatcher = jobDispatcher;
+        this.jobControlService = jobControlService;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        jobDispatcher.stopClaiming();
+        int jobs = jobControlService.requeueRunningJobs();
+        if (jobs == 0) {
+            return;
+        }
+        log.info("Shutting down: waiting up to {} for {} running jobs to checkpoint", drainTimeout, jobs);
+
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        try {
+            while (!jobControlService.runningJobs().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (jobControlService.runningJobs().isEmpty()) {
+            log.info("All running jobs checkpointed and went back to the queue");
+        } else {
+            log.warn("Jobs {} did not reach a checkpoint within {}; they roll back and the reaper recovers them",
+                    jobControlService.runningJobs().keySet(), drainTimeout);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops among the first, while the worker pool, web server and database are still up.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE;
+    }
+}
@@ -0,0 +1,4 @@
+-- Tracks a job matched by reusing the match of an earlier occurrence of the same track in its
+-- source playlist, instead of searching again.
+
+ALTER TABLE conversion_jobs ADD COLUMN searches_saved INTEGER DEFAULT 0;
@@ -0,0 +1,8 @@
+-- Cancel and pause requests for running jobs. They live outside conversion_jobs because the
+-- worker keeps the job row locked for as long as the job runs.
+
+CREATE TABLE job_control_requests (
+    job_id           BIGINT       PRIMARY KEY REFERENCES conversion_jobs (id) ON DELETE CASCADE,
+    requested_status VARCHAR(255) NOT NULL,
+    requested_at     TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,12 @@
+-- Liveness of running jobs. Each replica refreshes the heartbeats of the jobs it runs; the reaper
+-- recovers claimed jobs whose heartbeat went stale. Like job_control_requests, heartbeats live
+-- outside conversion_jobs because the worker keeps the job row locked for as long as the job runs.
+
+CREATE TABLE job_heartbeats (
+    job_id      BIGINT       PRIMARY KEY REFERENCES conversion_jobs (id) ON DELETE CASCADE,
+    instance_id VARCHAR(255) NOT NULL,
+    beat_at     TIMESTAMP(6) NOT NULL
+);
+
+ALTER TABLE conversion_jobs ADD COLUMN recovery_attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE conversion_jobs ADD COLUMN failure_reason VARCHAR(500);
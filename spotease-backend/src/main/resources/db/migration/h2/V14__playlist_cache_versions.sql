@@ -0,0 +1,10 @@
+-- Version stamps of cached playlist listings. Every replica keeps its own cache of a user's
+-- listing; invalidating it bumps the version here so the other replicas reload it on their next
+-- request instead of serving it until it expires.
+
+CREATE TABLE playlist_cache_versions (
+    user_id  BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    platform VARCHAR(255) NOT NULL,
+    version  BIGINT       NOT NULL,
+    PRIMARY KEY (user_id, platform)
+);
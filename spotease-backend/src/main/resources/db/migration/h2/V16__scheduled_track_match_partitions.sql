@@ -0,0 +1,2 @@
+-- track_matches is range-partitioned by conversion_job_id on Postgres only.
+-- H2 keeps a single table; this migration exists to keep version numbers aligned.
@@ -0,0 +1,2 @@
+-- The archival candidate index is only partial on Postgres.
+-- H2 keeps a plain index; this migration exists to keep version numbers aligned.
@@ -0,0 +1,5 @@
+CREATE INDEX IF NOT EXISTS idx_conversion_jobs_user_created ON conversion_jobs (user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_conversion_jobs_user_status ON conversion_jobs (user_id, status);
+CREATE INDEX IF NOT EXISTS idx_track_matches_job_status_id ON track_matches (conversion_job_id, status, id);
+
+-- track_matches is range-partitioned by job id on Postgres (V3); H2 keeps a single table.
@@ -0,0 +1,10 @@
+ALTER TABLE conversion_jobs ADD COLUMN archived_at TIMESTAMP(6);
+
+CREATE TABLE track_match_archives (
+    conversion_job_id BIGINT       PRIMARY KEY REFERENCES conversion_jobs (id) ON DELETE CASCADE,
+    match_count       INTEGER      NOT NULL,
+    payload           VARBINARY    NOT NULL,
+    archived_at       TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_conversion_jobs_archival ON conversion_jobs (updated_at);
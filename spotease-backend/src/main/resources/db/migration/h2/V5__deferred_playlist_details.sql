@@ -0,0 +1,5 @@
+-- Jobs are queued with only the identifiers the client sent; the worker fills in the
+-- playlist names (and total tracks) when it validates the playlists.
+
+ALTER TABLE conversion_jobs ALTER COLUMN source_playlist_name DROP NOT NULL;
+ALTER TABLE conversion_jobs ALTER COLUMN destination_playlist_name DROP NOT NULL;
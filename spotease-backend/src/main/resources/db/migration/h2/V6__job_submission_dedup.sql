@@ -0,0 +1,16 @@
+-- Duplicate submissions of the same conversion collapse onto one job.
+
+ALTER TABLE conversion_jobs ADD COLUMN idempotency_key VARCHAR(255);
+ALTER TABLE conversion_jobs ADD COLUMN dedup_key VARCHAR(600);
+
+UPDATE conversion_jobs
+SET dedup_key = source_platform || ':' || source_playlist_id || '>' || destination_platform || ':' || mode || ':'
+        || COALESCE(CASE WHEN mode = 'CREATE' THEN destination_playlist_name ELSE destination_playlist_id END, '');
+
+ALTER TABLE conversion_jobs ALTER COLUMN dedup_key SET NOT NULL;
+
+-- NULL keys never conflict, so no partial index is needed here
+CREATE UNIQUE INDEX uq_conversion_jobs_user_idempotency_key ON conversion_jobs (user_id, idempotency_key);
+
+-- H2 has no partial indexes: in-flight duplicates are only collapsed by the application-level check
+CREATE INDEX idx_conversion_jobs_user_dedup ON conversion_jobs (user_id, dedup_key);
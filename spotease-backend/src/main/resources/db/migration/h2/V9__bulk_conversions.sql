@@ -0,0 +1,19 @@
+-- Bulk conversions: one parent per batch of playlists, each converted by a child job.
+-- Children of a batch share matches, so a track found in several playlists is searched once.
+
+CREATE TABLE bulk_conversions (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      BIGINT       NOT NULL REFERENCES users (id),
+    status       VARCHAR(255) NOT NULL,
+    total_jobs   INTEGER      NOT NULL,
+    created_at   TIMESTAMP(6) NOT NULL,
+    updated_at   TIMESTAMP(6) NOT NULL,
+    completed_at TIMESTAMP(6)
+);
+
+CREATE INDEX idx_bulk_conversions_user_created ON bulk_conversions (user_id, created_at);
+
+ALTER TABLE conversion_jobs
+    ADD COLUMN bulk_conversion_id BIGINT REFERENCES bulk_conversions (id) ON DELETE SET NULL;
+
+CREATE INDEX idx_conversion_jobs_bulk ON conversion_jobs (bulk_conversion_id);
@@ -0,0 +1,9 @@
+-- Jobs are claimed from the table by whichever replica has a free worker, so the queue survives
+-- restarts and is shared across replicas. estimated_tracks is the playlist size known at
+-- submission, used to run small jobs first.
+
+ALTER TABLE conversion_jobs ADD COLUMN estimated_tracks INTEGER;
+ALTER TABLE conversion_jobs ADD COLUMN claimed_by VARCHAR(255);
+ALTER TABLE conversion_jobs ADD COLUMN claimed_at TIMESTAMP;
+
+CREATE INDEX idx_conversion_jobs_status_claimed ON conversion_jobs (status, claimed_by);
@@ -0,0 +1,13 @@
+-- Cancel and pause requests for running jobs. They live outside conversion_jobs because the
+-- worker keeps the job row locked for as long as the job runs.
+
+CREATE TABLE job_control_requests (
+    job_id           BIGINT       PRIMARY KEY REFERENCES conversion_jobs (id) ON DELETE CASCADE,
+    requested_status VARCHAR(255) NOT NULL,
+    requested_at     TIMESTAMP(6) NOT NULL
+);
+
+-- A paused job still owns its conversion: resubmitting it returns the paused job
+DROP INDEX uq_conversion_jobs_user_active_dedup;
+CREATE UNIQUE INDEX uq_conversion_jobs_user_active_dedup ON conversion_jobs (user_id, dedup_key)
+    WHERE status IN ('QUEUED', 'PROCESSING', 'PAUSED');
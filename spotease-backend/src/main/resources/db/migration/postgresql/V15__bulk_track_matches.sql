@@ -0,0 +1,24 @@
+-- Matches shared between the child jobs of a bulk conversion. Children of one batch may run on
+-- different replicas, so a search's result is stored here for the children that reach the same
+-- track later, wherever they run. A batch's rows are deleted when it finishes.
+
+CREATE TABLE bulk_track_matches (
+    bulk_conversion_id     BIGINT        NOT NULL REFERENCES bulk_conversions (id) ON DELETE CASCADE,
+    source_key             VARCHAR(600)  NOT NULL,
+    source_track_id        VARCHAR(255)  NOT NULL,
+    source_track_name      VARCHAR(255)  NOT NULL,
+    source_artist          VARCHAR(255)  NOT NULL,
+    source_album           VARCHAR(255),
+    source_duration        INTEGER,
+    source_isrc            VARCHAR(255),
+    source_image_url       VARCHAR(255),
+    destination_track_id   VARCHAR(255),
+    destination_track_name VARCHAR(255),
+    destination_artist     VARCHAR(255),
+    destination_duration   INTEGER,
+    destination_image_url  VARCHAR(255),
+    match_confidence       DOUBLE PRECISION,
+    status                 VARCHAR(255)  NOT NULL,
+    error_message          VARCHAR(1024),
+    PRIMARY KEY (bulk_conversion_id, source_key)
+);
@@ -0,0 +1,42 @@
+-- Stop creating track_matches partitions from job submission.
+--
+-- The V3 trigger ran CREATE TABLE ... PARTITION OF track_matches inside the POST /api/conversions
+-- transaction. That takes ACCESS EXCLUSIVE on track_matches, which running workers hold locks on
+-- for whole jobs, and it had to scan the DEFAULT partition as well. Partitions are now created
+-- ahead of time by TrackMatchPartitionService, which attaches them under a short lock_timeout.
+--
+-- The DEFAULT partition is dropped: attaching a partition had to scan it, and rows in it for a
+-- block would keep that block's partition from ever being attached. Its rows are moved to their
+-- own partitions here.
+
+DROP TRIGGER IF EXISTS conversion_jobs_ensure_match_partition ON conversion_jobs;
+DROP FUNCTION IF EXISTS conversion_jobs_ensure_match_partition();
+
+ALTER TABLE track_matches DETACH PARTITION track_matches_default;
+
+-- Partitions for rows that ended up in the DEFAULT partition, for every existing job, and for the
+-- next blocks of job ids until the scheduled task takes over
+DO $$
+DECLARE
+    job_block  BIGINT;
+    last_block BIGINT;
+BEGIN
+    FOR job_block IN
+        SELECT DISTINCT conversion_job_id / 1000 FROM track_matches_default
+        UNION
+        SELECT DISTINCT id / 1000 FROM conversion_jobs
+    LOOP
+        PERFORM track_matches_ensure_partition(job_block * 1000);
+    END LOOP;
+
+    SELECT COALESCE(MAX(id), 0) / 1000 INTO last_block FROM conversion_jobs;
+    FOR job_block IN last_block .. last_block + 5 LOOP
+        PERFORM track_matches_ensure_partition(job_block * 1000);
+    END LOOP;
+END;
+$$;
+
+INSERT INTO track_matches SELECT * FROM track_matches_default;
+DROP TABLE track_matches_default;
+
+DROP FUNCTION track_matches_ensure_partition(BIGINT);
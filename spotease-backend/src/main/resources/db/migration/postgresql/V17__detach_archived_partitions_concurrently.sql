@@ -0,0 +1,30 @@
+-- track_matches_drop_archived_partitions() detached and dropped every archived partition in one
+-- transaction, taking ACCESS EXCLUSIVE on track_matches for each of them. Partitions are now
+-- detached with DETACH PARTITION ... CONCURRENTLY, one per call and outside a transaction block,
+-- by TrackMatchPartitionService; this function only lists them.
+
+DROP FUNCTION track_matches_drop_archived_partitions();
+
+-- Partitions whose whole job id block has been archived (or deleted), including partitions left
+-- detach-pending by an interrupted DETACH ... CONCURRENTLY and detached ones not dropped yet.
+-- Blocks that may still receive new jobs are never listed.
+CREATE FUNCTION track_matches_archived_partitions()
+RETURNS TABLE (partition_name TEXT, attached BOOLEAN, detach_pending BOOLEAN)
+LANGUAGE sql
+STABLE
+AS $$
+    SELECT c.relname::TEXT, i.inhrelid IS NOT NULL, COALESCE(i.inhdetachpending, false)
+    FROM pg_class c
+    CROSS JOIN LATERAL (
+        SELECT substring(c.relname FROM '^track_matches_p([0-9]+)$')::BIGINT AS block) b
+    LEFT JOIN pg_inherits i ON i.inhrelid = c.oid AND i.inhparent = 'track_matches'::regclass
+    WHERE c.relkind = 'r'
+      AND c.relnamespace = (SELECT relnamespace FROM pg_class WHERE oid = 'track_matches'::regclass)
+      AND b.block IS NOT NULL
+      AND (b.block + 1) * 1000 <= (SELECT COALESCE(MAX(id), 0) FROM conversion_jobs)
+      AND NOT EXISTS (
+          SELECT 1 FROM conversion_jobs j
+          WHERE j.id >= b.block * 1000 AND j.id < (b.block + 1) * 1000
+            AND j.archived_at IS NULL)
+    ORDER BY b.block
+$$;
@@ -0,0 +1,6 @@
+-- Cancelled jobs are archived too, but the archival candidate index only covered completed and
+-- failed ones, so findArchivableJobIds could not use it.
+DROP INDEX idx_conversion_jobs_archival;
+
+CREATE INDEX idx_conversion_jobs_archival ON conversion_jobs (updated_at)
+    WHERE archived_at IS NULL AND status IN ('COMPLETED', 'FAILED', 'CANCELLED');
@@ -0,0 +1,62 @@
+-- Baseline schema, equivalent to what Hibernate generated under ddl-auto: update.
+-- Databases created before migrations were introduced are baselined at version 1
+-- (spring.flyway.baseline-on-migrate), so this script only runs against empty databases.
+
+CREATE TABLE users (
+    id                    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email                 VARCHAR(255),
+    created_at            TIMESTAMP(6)  NOT NULL,
+    updated_at            TIMESTAMP(6)  NOT NULL,
+    spotify_user_id       VARCHAR(255),
+    spotify_access_token  VARCHAR(1024),
+    spotify_refresh_token VARCHAR(1024),
+    spotify_token_expiry  TIMESTAMP(6),
+    netease_user_id       VARCHAR(255),
+    netease_cookie        VARCHAR(2048),
+    netease_cookie_expiry TIMESTAMP(6),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_spotify_user_id UNIQUE (spotify_user_id)
+);
+
+CREATE TABLE conversion_jobs (
+    id                        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                   BIGINT       NOT NULL REFERENCES users (id),
+    source_platform           VARCHAR(255) NOT NULL,
+    source_playlist_id        VARCHAR(255) NOT NULL,
+    source_playlist_name      VARCHAR(255) NOT NULL,
+    destination_platform      VARCHAR(255) NOT NULL,
+    destination_playlist_id   VARCHAR(255),
+    destination_playlist_name VARCHAR(255) NOT NULL,
+    mode                      VARCHAR(255) NOT NULL,
+    status                    VARCHAR(255) NOT NULL,
+    created_at                TIMESTAMP(6) NOT NULL,
+    updated_at                TIMESTAMP(6) NOT NULL,
+    completed_at              TIMESTAMP(6),
+    total_tracks              INTEGER,
+    processed_tracks          INTEGER,
+    high_confidence_matches   INTEGER,
+    low_confidence_matches    INTEGER,
+    failed_tracks             INTEGER
+);
+
+CREATE TABLE track_matches (
+    id                       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    conversion_job_id        BIGINT       NOT NULL REFERENCES conversion_jobs (id),
+    source_track_id          VARCHAR(255) NOT NULL,
+    source_track_name        VARCHAR(255) NOT NULL,
+    source_artist            VARCHAR(255) NOT NULL,
+    source_album             VARCHAR(255),
+    source_duration          INTEGER,
+    sourceisrc               VARCHAR(255),
+    source_image_url         VARCHAR(255),
+    destination_track_id     VARCHAR(255),
+    destination_track_name   VARCHAR(255),
+    destination_artist       VARCHAR(255),
+    destination_duration     INTEGER,
+    destination_image_url    VARCHAR(255),
+    match_confidence         DOUBLE PRECISION,
+    status                   VARCHAR(255) NOT NULL,
+    error_message            VARCHAR(1024),
+    reviewed_at              TIMESTAMP(6),
+    applied_at               TIMESTAMP(6)
+);
@@ -0,0 +1,19 @@
+-- Hibernate 6 emits CHECK constraints listing the enum values known at the time the table
+-- was generated. They would reject any enum value added later, so drop them on databases
+-- that were created under ddl-auto: update. Enum values are validated by the application.
+ALTER TABLE conversion_jobs DROP CONSTRAINT IF EXISTS conversion_jobs_source_platform_check;
+ALTER TABLE conversion_jobs DROP CONSTRAINT IF EXISTS conversion_jobs_destination_platform_check;
+ALTER TABLE conversion_jobs DROP CONSTRAINT IF EXISTS conversion_jobs_mode_check;
+ALTER TABLE conversion_jobs DROP CONSTRAINT IF EXISTS conversion_jobs_status_check;
+ALTER TABLE track_matches DROP CONSTRAINT IF EXISTS track_matches_status_check;
+
+-- Job listing (keyset on created_at) and findByUser_Id
+CREATE INDEX IF NOT EXISTS idx_conversion_jobs_user_created ON conversion_jobs (user_id, created_at);
+
+-- findByUser_IdAndStatus
+CREATE INDEX IF NOT EXISTS idx_conversion_jobs_user_status ON conversion_jobs (user_id, status);
+
+-- Pending-match listing (keyset on id), findByConversionJob_IdAndStatusIn and its count
+CREATE INDEX IF NOT EXISTS idx_track_matches_job_status_id ON track_matches (conversion_job_id, status, id);
+
+-- findBySpotifyUserId is served by the unique constraint on users.spotify_user_id
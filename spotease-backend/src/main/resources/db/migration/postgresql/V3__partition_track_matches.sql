@@ -0,0 +1,109 @@
+-- Range-partition track_matches by conversion_job_id.
+--
+-- Each partition holds the matches of a block of 1000 consecutive job ids, so once every job
+-- in a block has been deleted or archived the whole partition can be detached and dropped
+-- instead of deleting its rows one by one. (One partition per job would make the planner and
+-- catalog pay for tens of thousands of partitions; hash partitioning would spread every job's
+-- rows over all partitions and could never be dropped.)
+--
+-- Partitions are created on demand by a trigger on conversion_jobs, so a job's partition
+-- always exists before its first match is inserted. The DEFAULT partition is only a safety net.
+
+ALTER TABLE track_matches RENAME TO track_matches_legacy;
+ALTER TABLE track_matches_legacy RENAME CONSTRAINT track_matches_pkey TO track_matches_legacy_pkey;
+ALTER INDEX IF EXISTS idx_track_matches_job_status_id RENAME TO idx_track_matches_legacy_job_status_id;
+
+CREATE TABLE track_matches (
+    id                       BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    conversion_job_id        BIGINT       NOT NULL REFERENCES conversion_jobs (id) ON DELETE CASCADE,
+    source_track_id          VARCHAR(255) NOT NULL,
+    source_track_name        VARCHAR(255) NOT NULL,
+    source_artist            VARCHAR(255) NOT NULL,
+    source_album             VARCHAR(255),
+    source_duration          INTEGER,
+    sourceisrc               VARCHAR(255),
+    source_image_url         VARCHAR(255),
+    destination_track_id     VARCHAR(255),
+    destination_track_name   VARCHAR(255),
+    destination_artist       VARCHAR(255),
+    destination_duration     INTEGER,
+    destination_image_url    VARCHAR(255),
+    match_confidence         DOUBLE PRECISION,
+    status                   VARCHAR(255) NOT NULL,
+    error_message            VARCHAR(1024),
+    reviewed_at              TIMESTAMP(6),
+    applied_at               TIMESTAMP(6),
+    PRIMARY KEY (id, conversion_job_id)
+) PARTITION BY RANGE (conversion_job_id);
+
+CREATE TABLE track_matches_default PARTITION OF track_matches DEFAULT;
+
+CREATE INDEX idx_track_matches_job_status_id ON track_matches (conversion_job_id, status, id);
+
+-- Creates the partition covering the given job id if it does not exist yet.
+CREATE OR REPLACE FUNCTION track_matches_ensure_partition(job_id BIGINT)
+RETURNS VOID
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    block_size     CONSTANT BIGINT := 1000;
+    block          BIGINT := job_id / block_size;
+    partition_name TEXT   := format('track_matches_p%s', block);
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    -- Serialize concurrent creators of the same partition
+    PERFORM pg_advisory_xact_lock(hashtext('track_matches_partition'), block::INTEGER);
+
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF track_matches FOR VALUES FROM (%s) TO (%s)',
+                       partition_name, block * block_size, (block + 1) * block_size);
+    END IF;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION conversion_jobs_ensure_match_partition()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    PERFORM track_matches_ensure_partition(NEW.id);
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER conversion_jobs_ensure_match_partition
+    AFTER INSERT ON conversion_jobs
+    FOR EACH ROW
+    EXECUTE FUNCTION conversion_jobs_ensure_match_partition();
+
+-- Move existing matches into their partitions
+DO $$
+DECLARE
+    job_block BIGINT;
+BEGIN
+    FOR job_block IN SELECT DISTINCT id / 1000 FROM conversion_jobs LOOP
+        PERFORM track_matches_ensure_partition(job_block * 1000);
+    END LOOP;
+END;
+$$;
+
+INSERT INTO track_matches (
+    id, conversion_job_id, source_track_id, source_track_name, source_artist, source_album,
+    source_duration, sourceisrc, source_image_url, destination_track_id, destination_track_name,
+    destination_artist, destination_duration, destination_image_url, match_confidence, status,
+    error_message, reviewed_at, applied_at)
+SELECT
+    id, conversion_job_id, source_track_id, source_track_name, source_artist, source_album,
+    source_duration, sourceisrc, source_image_url, destination_track_id, destination_track_name,
+    destination_artist, destination_duration, destination_image_url, match_confidence, status,
+    error_message, reviewed_at, applied_at
+FROM track_matches_legacy;
+
+SELECT setval(pg_get_serial_sequence('track_matches', 'id'),
+              COALESCE((SELECT MAX(id) FROM track_matches), 0) + 1,
+              false);
+
+DROP TABLE track_matches_legacy;
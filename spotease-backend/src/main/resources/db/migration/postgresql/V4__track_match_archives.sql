@@ -0,0 +1,54 @@
+-- Cold storage for matches of old jobs: one compressed JSON blob per job.
+
+ALTER TABLE conversion_jobs ADD COLUMN archived_at TIMESTAMP(6);
+
+CREATE TABLE track_match_archives (
+    conversion_job_id BIGINT       PRIMARY KEY REFERENCES conversion_jobs (id) ON DELETE CASCADE,
+    match_count       INTEGER      NOT NULL,
+    payload           BYTEA        NOT NULL,
+    archived_at       TIMESTAMP(6) NOT NULL
+);
+
+-- Candidates for archival: finished jobs whose matches are still in the hot table
+CREATE INDEX idx_conversion_jobs_archival ON conversion_jobs (updated_at)
+    WHERE archived_at IS NULL AND status IN ('COMPLETED', 'FAILED');
+
+-- Detaches and drops every track_matches partition whose whole job id block has been
+-- archived (or deleted). Blocks that may still receive new jobs are never dropped.
+-- Returns the number of partitions dropped.
+CREATE OR REPLACE FUNCTION track_matches_drop_archived_partitions()
+RETURNS INTEGER
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    block_size CONSTANT BIGINT := 1000;
+    max_job_id BIGINT;
+    part       RECORD;
+    block      BIGINT;
+    dropped    INTEGER := 0;
+BEGIN
+    SELECT COALESCE(MAX(id), 0) INTO max_job_id FROM conversion_jobs;
+
+    FOR part IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'track_matches'::regclass
+          AND c.relname ~ '^track_matches_p[0-9]+$'
+    LOOP
+        block := substring(part.relname FROM 'track_matches_p([0-9]+)')::BIGINT;
+
+        CONTINUE WHEN (block + 1) * block_size > max_job_id;
+        CONTINUE WHEN EXISTS (
+            SELECT 1 FROM conversion_jobs
+            WHERE id >= block * block_size AND id < (block + 1) * block_size
+              AND archived_at IS NULL);
+
+        EXECUTE format('ALTER TABLE track_matches DETACH PARTITION %I', part.relname);
+        EXECUTE format('DROP TABLE %I', part.relname);
+        dropped := dropped + 1;
+    END LOOP;
+
+    RETURN dropped;
+END;
+$$;
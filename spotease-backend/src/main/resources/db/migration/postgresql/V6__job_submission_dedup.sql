@@ -0,0 +1,19 @@
+-- Duplicate submissions of the same conversion collapse onto one job.
+
+ALTER TABLE conversion_jobs ADD COLUMN idempotency_key VARCHAR(255);
+ALTER TABLE conversion_jobs ADD COLUMN dedup_key VARCHAR(600);
+
+-- Existing jobs get the key the application would have computed for them
+UPDATE conversion_jobs
+SET dedup_key = source_platform || ':' || source_playlist_id || '>' || destination_platform || ':' || mode || ':'
+        || COALESCE(CASE WHEN mode = 'CREATE' THEN destination_playlist_name ELSE destination_playlist_id END, '');
+
+ALTER TABLE conversion_jobs ALTER COLUMN dedup_key SET NOT NULL;
+
+-- A retried request with the same Idempotency-Key returns the job it created
+CREATE UNIQUE INDEX uq_conversion_jobs_user_idempotency_key ON conversion_jobs (user_id, idempotency_key)
+    WHERE idempotency_key IS NOT NULL;
+
+-- At most one in-flight job per user for the same conversion, across all replicas
+CREATE UNIQUE INDEX uq_conversion_jobs_user_active_dedup ON conversion_jobs (user_id, dedup_key)
+    WHERE status IN ('QUEUED', 'PROCESSING');
@@ -0,0 +1,25 @@
+-- State for SYNC mode: per playlist pair, the last-synced source snapshot and how each
+-- source track was matched, so a re-sync only processes tracks added or removed since.
+
+CREATE TABLE playlist_syncs (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                 BIGINT       NOT NULL REFERENCES users (id),
+    source_platform         VARCHAR(255) NOT NULL,
+    source_playlist_id      VARCHAR(255) NOT NULL,
+    destination_platform    VARCHAR(255) NOT NULL,
+    destination_playlist_id VARCHAR(255) NOT NULL,
+    source_snapshot         VARCHAR(255),
+    last_job_id             BIGINT,
+    last_synced_at          TIMESTAMP(6),
+    created_at              TIMESTAMP(6) NOT NULL,
+    updated_at              TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_playlist_syncs_pair UNIQUE (user_id, source_platform, source_playlist_id, destination_playlist_id)
+);
+
+CREATE TABLE playlist_sync_tracks (
+    id                   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    playlist_sync_id     BIGINT       NOT NULL REFERENCES playlist_syncs (id) ON DELETE CASCADE,
+    source_track_id      VARCHAR(255) NOT NULL,
+    destination_track_id VARCHAR(255),
+    CONSTRAINT uk_playlist_sync_tracks_source UNIQUE (playlist_sync_id, source_track_id)
+);
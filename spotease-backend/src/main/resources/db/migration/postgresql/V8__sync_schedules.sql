@@ -0,0 +1,25 @@
+-- Recurring SYNC runs per playlist pair, enqueued by the sync scheduler.
+
+CREATE TABLE sync_schedules (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                 BIGINT       NOT NULL REFERENCES users (id),
+    source_platform         VARCHAR(255) NOT NULL,
+    source_playlist_id      VARCHAR(255) NOT NULL,
+    destination_platform    VARCHAR(255) NOT NULL,
+    destination_playlist_id VARCHAR(255) NOT NULL,
+    interval_minutes        INTEGER      NOT NULL,
+    enabled                 BOOLEAN      NOT NULL,
+    next_run_at             TIMESTAMP(6) NOT NULL,
+    last_run_at             TIMESTAMP(6),
+    last_job_id             BIGINT,
+    created_at              TIMESTAMP(6) NOT NULL,
+    updated_at              TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_sync_schedules_pair UNIQUE (user_id, source_platform, source_playlist_id, destination_playlist_id)
+);
+
+-- The scheduler's due-schedule scan
+CREATE INDEX idx_sync_schedules_due ON sync_schedules (next_run_at) WHERE enabled;
+
+-- In-flight job counts for the scheduler's per-platform cap
+CREATE INDEX idx_conversion_jobs_active_destination ON conversion_jobs (destination_platform)
+    WHERE status IN ('QUEUED', 'PROCESSING');
@@ -0,0 +1,99 @@
+package com.spotease.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Migrates a database with duplicate in-flight jobs from V5 to V6.
+ */
+class DedupMigrationCallbackTest {
+
+    private static final String URL = "jdbc:h2:mem:dedup-migration;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+
+    // Keeps the in-memory database alive between Flyway's connections
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        flyway("5").migrate();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    void shouldFailDuplicateInFlightJobsBeforeDedupMigration() throws SQLException {
+        // Given
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (id, created_at, updated_at) VALUES (1, NOW(), NOW())");
+        }
+        job(1, "a", "QUEUED");
+        job(2, "a", "PROCESSING");
+        job(3, "a", "QUEUED");
+        job(4, "a", "COMPLETED");
+        job(5, "b", "QUEUED");
+        job(6, "c", "QUEUED");
+        job(7, "c", "QUEUED");
+
+        // When
+        flyway("6").migrate();
+
+        // Then: the processing job, else the newest, is kept
+        assertThat(statuses()).containsExactly(
+                Map.entry(1L, "FAILED"),
+                Map.entry(2L, "PROCESSING"),
+                Map.entry(3L, "FAILED"),
+                Map.entry(4L, "COMPLETED"),
+                Map.entry(5L, "QUEUED"),
+                Map.entry(6L, "FAILED"),
+                Map.entry(7L, "QUEUED"));
+    }
+
+    private Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(URL, "sa", "")
+                .locations("classpath:db/migration/h2")
+                .callbacks(new DedupMigrationCallback())
+                .target(target)
+                .load();
+    }
+
+    private void job(long id, String playlistId, String status) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO conversion_jobs (id, user_id, source_platform, source_playlist_id,
+                        destination_platform, destination_playlist_name, mode, status, created_at, updated_at)
+                    VALUES (%d, 1, 'SPOTIFY', '%s', 'NETEASE', 'Converted', 'CREATE', '%s', NOW(), NOW())
+                    """.formatted(id, playlistId, status));
+        }
+    }
+
+    private Map<Long, String> statuses() throws SQLException {
+        Map<Long, String> statuses = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT id, status FROM conversion_jobs ORDER BY id")) {
+            while (rows.next()) {
+                statuses.put(rows.getLong("id"), rows.getString("status"));
+            }
+        }
+        return statuses;
+    }
+}
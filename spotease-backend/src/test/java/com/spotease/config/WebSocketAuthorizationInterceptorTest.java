@@ -0,0 +1,99 @@
+package com.spotease.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class WebSocketAuthorizationInterceptorTest {
+
+    private final WebSocketAuthorizationInterceptor interceptor = new WebSocketAuthorizationInterceptor();
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @Test
+    void shouldAllowSubscriptionToOwnTopics() {
+        Message<?> all = frame(StompCommand.SUBSCRIBE, "/topic/users/1/conversions", 1L);
+        Message<?> single = frame(StompCommand.SUBSCRIBE, "/topic/users/1/conversions/42", 1L);
+
+        assertThat(interceptor.preSend(all, channel)).isSameAs(all);
+        assertThat(interceptor.preSend(single, channel)).isSameAs(single);
+    }
+
+    @Test
+    void shouldRejectSubscriptionToOtherUsersTopic() {
+        Message<?> message = frame(StompCommand.SUBSCRIBE, "/topic/users/2/conversions", 1L);
+
+        assertThatThrownBy(() -> interceptor.preSend(message, channel))
+                .isInstanceOf(MessageDeliveryException.class);
+    }
+
+    @Test
+    void shouldRejectSubscriptionWithoutSessionUser() {
+        Message<?> message = frame(StompCommand.SUBSCRIBE, "/topic/users/1/conversions", null);
+
+        assertThatThrownBy(() -> interceptor.preSend(message, channel))
+                .isInstanceOf(MessageDeliveryException.class);
+    }
+
+    @Test
+    void shouldRejectSubscriptionToLegacyBroadcastTopic() {
+        Message<?> message = frame(StompCommand.SUBSCRIBE, "/topic/conversions", 1L);
+
+        assertThatThrownBy(() -> interceptor.preSend(message, channel))
+                .isInstanceOf(MessageDeliveryException.class);
+    }
+
+    @Test
+    void shouldAllowSignedInSubscriptionToApplicationDestination() {
+        Message<?> message = frame(StompCommand.SUBSCRIBE, "/app/conversions/42/matches", 1L);
+
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+    }
+
+    @Test
+    void shouldRejectAnonymousSubscriptionToApplicationDestination() {
+        Message<?> message = frame(StompCommand.SUBSCRIBE, "/app/conversions/42/matches", null);
+
+        assertThatThrownBy(() -> interceptor.preSend(message, channel))
+                .isInstanceOf(MessageDeliveryException.class);
+    }
+
+    @Test
+    void shouldRejectClientSendToBrokerDestination() {
+        Message<?> message = frame(StompCommand.SEND, "/topic/users/1/conversions", 1L);
+
+        assertThatThrownBy(() -> interceptor.preSend(message, channel))
+                .isInstanceOf(MessageDeliveryException.class);
+    }
+
+    @Test
+    void shouldPassThroughOtherFrames() {
+        Message<?> message = frame(StompCommand.CONNECT, null, null);
+
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+    }
+
+    private Message<?> frame(StompCommand command, String destination, Long userId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        if (userId != null) {
+            attributes.put("userId", userId);
+        }
+        accessor.setSessionAttributes(attributes);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
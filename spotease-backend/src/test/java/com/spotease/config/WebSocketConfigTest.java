@@ -1,10 +1,19 @@
 package com.spotease.config;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.messaging.tcp.ReconnectStrategy;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.StompWebSocketEndpointRegistration;
+import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
 
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class WebSocketConfigTest {
@@ -20,9 +29,55 @@ class WebSocketConfigTest {
         verify(registry).setApplicationDestinationPrefixes("/app");
     }
 
+    @Test
+    void configureMessageBrokerShouldEnableRelayWhenConfigured() {
+        // Given
+        WebSocketConfig config = new WebSocketConfig();
+        ReflectionTestUtils.setField(config, "relayEnabled", true);
+        ReflectionTestUtils.setField(config, "relayHost", "broker");
+        ReflectionTestUtils.setField(config, "relayPort", 61613);
+        ReflectionTestUtils.setField(config, "relayLogin", "spotease");
+        ReflectionTestUtils.setField(config, "relayPasscode", "secret");
+        ReflectionTestUtils.setField(config, "relayVirtualHost", "");
+        ReflectionTestUtils.setField(config, "relayHeartbeatInterval", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(config, "relayReconnectInitialDelay", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(config, "relayReconnectMaxDelay", Duration.ofSeconds(30));
+        MessageBrokerRegistry registry = mock(MessageBrokerRegistry.class);
+        StompBrokerRelayRegistration relay = mock(StompBrokerRelayRegistration.class, RETURNS_SELF);
+        when(registry.enableStompBrokerRelay("/topic")).thenReturn(relay);
+
+        // When
+        config.configureMessageBroker(registry);
+
+        // Then
+        verify(registry, never()).enableSimpleBroker(any(String[].class));
+        verify(relay).setRelayHost("broker");
+        verify(relay).setSystemLogin("spotease");
+        verify(relay).setSystemHeartbeatSendInterval(10_000);
+        verify(relay).setSystemHeartbeatReceiveInterval(10_000);
+        verify(relay, never()).setVirtualHost(any());
+        ArgumentCaptor<WebSocketConfig.BackoffTcpClient> tcpClient =
+                ArgumentCaptor.forClass(WebSocketConfig.BackoffTcpClient.class);
+        verify(relay).setTcpClient(tcpClient.capture());
+        tcpClient.getValue().shutdownAsync().join();
+        verify(registry).setApplicationDestinationPrefixes("/app");
+    }
+
+    @Test
+    void relayReconnectShouldBackOffExponentiallyUpToMax() {
+        ReconnectStrategy strategy = WebSocketConfig.BackoffTcpClient.backoff(Duration.ofSeconds(1), Duration.ofSeconds(30));
+
+        assertThat(strategy.getTimeToNextAttempt(0)).isEqualTo(1_000L);
+        assertThat(strategy.getTimeToNextAttempt(3)).isEqualTo(8_000L);
+        assertThat(strategy.getTimeToNextAttempt(10)).isEqualTo(30_000L);
+        assertThat(strategy.getTimeToNextAttempt(1_000)).isEqualTo(30_000L);
+    }
+
     @Test
     void registerStompEndpointsShouldConfigureEndpoint() {
         WebSocketConfig config = new WebSocketConfig();
+        ReflectionTestUtils.setField(config, "allowedOrigins",
+                "http://localhost:5173, http://localhost:3000,http://127.0.0.1:5173,http://127.0.0.1:3000");
         StompEndpointRegistry registry = mock(StompEndpointRegistry.class);
         StompWebSocketEndpointRegistration registration = mock(StompWebSocketEndpointRegistration.class);
 
@@ -31,6 +86,7 @@ class WebSocketConfigTest {
                 "http://localhost:5173", "http://localhost:3000",
                 "http://127.0.0.1:5173", "http://127.0.0.1:3000"))
                 .thenReturn(registration);
+        when(registration.addInterceptors(any(HttpSessionHandshakeInterceptor.class))).thenReturn(registration);
 
         config.registerStompEndpoints(registry);
 
@@ -38,6 +94,8 @@ class WebSocketConfigTest {
         verify(registration).setAllowedOrigins(
                 "http://localhost:5173", "http://localhost:3000",
                 "http://127.0.0.1:5173", "http://127.0.0.1:3000");
+        verify(registration).addInterceptors(any(HttpSessionHandshakeInterceptor.class));
         verify(registration).withSockJS();
+        verify(registry).setPreserveReceiveOrder(true);
     }
 }
@@ -0,0 +1,159 @@
+package com.spotease.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotease.dto.BulkConversionRequest;
+import com.spotease.dto.ConversionRequest;
+import com.spotease.model.*;
+import com.spotease.repository.BulkConversionRepository;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.service.ConversionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class BulkConversionControllerTest {
+
+    private MockMvc mockMvc;
+
+    private ObjectMapper objectMapper;
+
+    @Mock
+    private ConversionService conversionService;
+
+    @Mock
+    private BulkConversionRepository bulkRepository;
+
+    @Mock
+    private ConversionJobRepository jobRepository;
+
+    @InjectMocks
+    private BulkConversionController bulkConversionController;
+
+    private MockHttpSession authenticatedSession;
+    private BulkConversionRequest request;
+    private BulkConversion bulk;
+    private ConversionJob child;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(bulkConversionController).build();
+        objectMapper = new ObjectMapper();
+        objectMapper.findAndRegisterModules();
+
+        authenticatedSession = new MockHttpSession();
+        authenticatedSession.setAttribute("userId", 1L);
+
+        User user = new User();
+        user.setId(1L);
+
+        request = BulkConversionRequest.builder()
+                .conversions(List.of(ConversionRequest.builder()
+                        .sourcePlatform(Platform.SPOTIFY)
+                        .sourcePlaylistId("playlist123")
+                        .mode(ConversionMode.CREATE)
+                        .destinationPlaylistName("Copy")
+                        .build()))
+                .build();
+
+        bulk = new BulkConversion();
+        bulk.setId(10L);
+        bulk.setUser(user);
+        bulk.setStatus(JobStatus.QUEUED);
+        bulk.setTotalJobs(1);
+
+        child = new ConversionJob();
+        child.setId(1L);
+        child.setUser(user);
+        child.setBulkConversion(bulk);
+        child.setStatus(JobStatus.QUEUED);
+        child.setSourcePlatform(Platform.SPOTIFY);
+        child.setSourcePlaylistId("playlist123");
+        child.setDestinationPlatform(Platform.NETEASE);
+        child.setMode(ConversionMode.CREATE);
+        child.setTotalTracks(12);
+        child.setProcessedTracks(0);
+    }
+
+    @Test
+    void shouldCreateBulkConversion() throws Exception {
+        // Given
+        when(conversionService.createBulkJob(eq(1L), any(BulkConversionRequest.class))).thenReturn(bulk);
+        when(jobRepository.findByBulkConversion_IdOrderById(10L)).thenReturn(List.of(child));
+
+        // When/Then
+        mockMvc.perform(post("/api/conversions/bulk")
+                        .session(authenticatedSession)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(10)))
+                .andExpect(jsonPath("$.jobs", hasSize(1)))
+                .andExpect(jsonPath("$.progress.totalJobs", is(1)))
+                .andExpect(jsonPath("$.progress.totalTracks", is(12)));
+    }
+
+    @Test
+    void shouldRejectEmptyBulkConversion() throws Exception {
+        // When/Then
+        mockMvc.perform(post("/api/conversions/bulk")
+                        .session(authenticatedSession)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"conversions\": []}"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(conversionService);
+    }
+
+    @Test
+    void shouldReturn422WhenEveryConversionIsInFlight() throws Exception {
+        // Given
+        when(conversionService.createBulkJob(eq(1L), any(BulkConversionRequest.class)))
+                .thenThrow(new IllegalStateException("Every conversion in the batch is already queued or in progress"));
+
+        // When/Then
+        mockMvc.perform(post("/api/conversions/bulk")
+                        .session(authenticatedSession)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void shouldNotReturnBulkConversionOfAnotherUser() throws Exception {
+        // Given
+        MockHttpSession otherSession = new MockHttpSession();
+        otherSession.setAttribute("userId", 2L);
+        when(bulkRepository.findById(10L)).thenReturn(Optional.of(bulk));
+
+        // When/Then
+        mockMvc.perform(get("/api/conversions/bulk/10").session(otherSession))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldReturn401WithoutSession() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/conversions/bulk/10"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -4,29 +4,41 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spotease.dto.ConversionRequest;
 import com.spotease.model.*;
 import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.ConversionJobSummary;
 import com.spotease.service.ConversionService;
+import com.spotease.service.JobControlService;
+import com.spotease.service.JobDispatcher;
+import com.spotease.service.MatchArchiveService;
+import com.spotease.service.ProgressSseService;
+import com.spotease.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpSession;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +54,18 @@ class ConversionControllerTest {
     @Mock
     private ConversionJobRepository jobRepository;
 
+    @Mock
+    private MatchArchiveService matchArchiveService;
+
+    @Mock
+    private ProgressSseService progressSseService;
+
+    @Mock
+    private JobDispatcher jobDispatcher;
+
+    @Mock
+    private JobControlService jobControlService;
+
     @InjectMocks
     private ConversionController conversionController;
 
@@ -97,8 +121,8 @@ class ConversionControllerTest {
     @Test
     void createConversionJob_WithValidRequest_ReturnsCreatedJob() throws Exception {
         // Given
-        when(conversionService.createJob(eq(1L), any(ConversionRequest.class)))
-                .thenReturn(job);
+        when(conversionService.createJob(eq(1L), any(ConversionRequest.class), isNull()))
+                .thenReturn(new ConversionService.Submission(job, true));
 
         // When & Then
         mockMvc.perform(post("/api/conversions")
@@ -118,7 +142,7 @@ class ConversionControllerTest {
                 .andExpect(jsonPath("$.createdAt", notNullValue()))
                 .andExpect(jsonPath("$.completedAt", nullValue()));
 
-        verify(conversionService).createJob(eq(1L), any(ConversionRequest.class));
+        verify(conversionService).createJob(eq(1L), any(ConversionRequest.class), isNull());
     }
 
     @Test
@@ -131,7 +155,51 @@ class ConversionControllerTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isUnauthorized());
 
-        verify(conversionService, never()).createJob(any(), any());
+        verify(conversionService, never()).createJob(any(), any(), any());
+    }
+
+    @Test
+    void createConversionJob_WithRepeatedIdempotencyKey_ReturnsExistingJob() throws Exception {
+        // Given
+        when(conversionService.createJob(eq(1L), any(ConversionRequest.class), eq("key-1")))
+                .thenReturn(new ConversionService.Submission(job, false));
+
+        // When & Then
+        mockMvc.perform(post("/api/conversions")
+                        .session(authenticatedSession)
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)));
+    }
+
+    @Test
+    void createConversionJob_WithIdempotencyKeyReusedForOtherConversion_ReturnsUnprocessable() throws Exception {
+        // Given
+        when(conversionService.createJob(eq(1L), any(ConversionRequest.class), eq("key-1")))
+                .thenThrow(new IllegalStateException("Idempotency key was already used for a different conversion"));
+
+        // When & Then
+        mockMvc.perform(post("/api/conversions")
+                        .session(authenticatedSession)
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void createConversionJob_WithBlankIdempotencyKey_ReturnsBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/conversions")
+                        .session(authenticatedSession)
+                        .header("Idempotency-Key", " ")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(conversionService, never()).createJob(any(), any(), any());
     }
 
     @Test
@@ -151,44 +219,82 @@ class ConversionControllerTest {
                         .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
 
-        verify(conversionService, never()).createJob(any(), any());
+        verify(conversionService, never()).createJob(any(), any(), any());
     }
 
     @Test
     void getAllConversionJobs_WithAuthentication_ReturnsUserJobs() throws Exception {
         // Given
-        ConversionJob job2 = new ConversionJob();
-        job2.setId(2L);
-        job2.setUser(user);
-        job2.setSourcePlatform(Platform.NETEASE);
-        job2.setSourcePlaylistId("netease-playlist-456");
-        job2.setSourcePlaylistName("NetEase Playlist");
-        job2.setDestinationPlatform(Platform.SPOTIFY);
-        job2.setDestinationPlaylistName("Spotify Playlist");
-        job2.setMode(ConversionMode.UPDATE);
-        job2.setStatus(JobStatus.COMPLETED);
-        job2.setTotalTracks(5);
-        job2.setProcessedTracks(5);
-        job2.setHighConfidenceMatches(4);
-        job2.setLowConfidenceMatches(1);
-        job2.setFailedTracks(0);
-        job2.setCreatedAt(LocalDateTime.now());
-        job2.setCompletedAt(LocalDateTime.now());
-
-        List<ConversionJob> jobs = Arrays.asList(job, job2);
-        when(jobRepository.findByUser_Id(1L)).thenReturn(jobs);
+        LocalDateTime now = LocalDateTime.now();
+        List<ConversionJobSummary> jobs = Arrays.asList(
+                summary(2L, JobStatus.COMPLETED, now),
+                summary(1L, JobStatus.QUEUED, now.minusMinutes(5)));
+        when(jobRepository.findSummariesByUserId(eq(1L), any(Pageable.class))).thenReturn(jobs);
+
+        // When & Then
+        mockMvc.perform(get("/api/conversions")
+                        .session(authenticatedSession))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(2)))
+                .andExpect(jsonPath("$[0].status", is("COMPLETED")))
+                .andExpect(jsonPath("$[1].id", is(1)))
+                .andExpect(jsonPath("$[1].status", is("QUEUED")))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        verify(jobRepository).findSummariesByUserId(eq(1L), any(Pageable.class));
+        verify(jobRepository, never()).findByUser_Id(any());
+    }
+
+    @Test
+    void getAllConversionJobs_WithMoreJobsThanLimit_ReturnsNextCursor() throws Exception {
+        // Given: one more row than requested comes back
+        LocalDateTime now = LocalDateTime.now();
+        ConversionJobSummary newest = summary(3L, JobStatus.COMPLETED, now);
+        ConversionJobSummary middle = summary(2L, JobStatus.COMPLETED, now.minusMinutes(1));
+        ConversionJobSummary oldest = summary(1L, JobStatus.QUEUED, now.minusMinutes(2));
+        when(jobRepository.findSummariesByUserId(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(newest, middle, oldest));
 
         // When & Then
         mockMvc.perform(get("/api/conversions")
+                        .param("limit", "2")
                         .session(authenticatedSession))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].status", is("QUEUED")))
-                .andExpect(jsonPath("$[1].id", is(2)))
-                .andExpect(jsonPath("$[1].status", is("COMPLETED")));
+                .andExpect(header().string("X-Next-Cursor", KeysetCursor.encode(middle.createdAt(), 2L)));
+
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(jobRepository).findSummariesByUserId(eq(1L), pageableCaptor.capture());
+        assertThat(pageableCaptor.getValue().getPageSize()).isEqualTo(3);
+    }
+
+    @Test
+    void getAllConversionJobs_WithCursor_SeeksPastCursor() throws Exception {
+        // Given
+        LocalDateTime cursorTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+        String cursor = KeysetCursor.encode(cursorTime, 5L);
+        when(jobRepository.findSummariesByUserIdBefore(eq(1L), eq(cursorTime), eq(5L), any(Pageable.class)))
+                .thenReturn(List.of(summary(4L, JobStatus.COMPLETED, cursorTime.minusDays(1))));
 
-        verify(jobRepository).findByUser_Id(1L);
+        // When & Then
+        mockMvc.perform(get("/api/conversions")
+                        .param("cursor", cursor)
+                        .session(authenticatedSession))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(4)));
+
+        verify(jobRepository, never()).findSummariesByUserId(any(), any());
+    }
+
+    @Test
+    void getAllConversionJobs_WithInvalidCursor_ReturnsBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/conversions")
+                        .param("cursor", "not-a-cursor")
+                        .session(authenticatedSession))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -197,13 +303,14 @@ class ConversionControllerTest {
         mockMvc.perform(get("/api/conversions"))
                 .andExpect(status().isUnauthorized());
 
-        verify(jobRepository, never()).findByUser_Id(any());
+        verify(jobRepository, never()).findSummariesByUserId(any(), any());
     }
 
     @Test
     void getConversionJob_WithValidJobId_ReturnsJob() throws Exception {
         // Given
         when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(jobDispatcher.queuePosition(job)).thenReturn(3);
 
         // When & Then
         mockMvc.perform(get("/api/conversions/1")
@@ -211,7 +318,8 @@ class ConversionControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(1)))
                 .andExpect(jsonPath("$.status", is("QUEUED")))
-                .andExpect(jsonPath("$.sourcePlaylistName", is("Original Playlist")));
+                .andExpect(jsonPath("$.sourcePlaylistName", is("Original Playlist")))
+                .andExpect(jsonPath("$.queuePosition", is(3)));
 
         verify(jobRepository).findById(1L);
     }
@@ -266,7 +374,83 @@ class ConversionControllerTest {
                 .andExpect(status().isNoContent());
 
         verify(jobRepository).findById(1L);
-        verify(jobRepository).delete(job);
+        verify(matchArchiveService).deleteJob(1L);
+    }
+
+    @Test
+    void deleteConversionJob_WhileRunning_ReturnsConflict() throws Exception {
+        // Given
+        job.setStatus(JobStatus.PROCESSING);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+
+        // When & Then
+        mockMvc.perform(delete("/api/conversions/1")
+                        .session(authenticatedSession))
+                .andExpect(status().isConflict());
+
+        verify(matchArchiveService, never()).deleteJob(any());
+    }
+
+    @Test
+    void cancelConversionJob_WhileRunning_ReturnsAccepted() throws Exception {
+        // Given
+        job.setStatus(JobStatus.PROCESSING);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(jobControlService.cancel(1L)).thenReturn(new JobControlService.StopResult(job, false));
+
+        // When & Then
+        mockMvc.perform(post("/api/conversions/1/cancel")
+                        .session(authenticatedSession))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status", is("PROCESSING")));
+    }
+
+    @Test
+    void pauseConversionJob_WhileQueued_ReturnsOk() throws Exception {
+        // Given
+        ConversionJob paused = new ConversionJob();
+        paused.setId(1L);
+        paused.setUser(job.getUser());
+        paused.setStatus(JobStatus.PAUSED);
+        paused.setSourcePlatform(Platform.SPOTIFY);
+        paused.setDestinationPlatform(Platform.NETEASE);
+        paused.setMode(ConversionMode.CREATE);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(jobControlService.pause(1L)).thenReturn(new JobControlService.StopResult(paused, true));
+
+        // When & Then
+        mockMvc.perform(post("/api/conversions/1/pause")
+                        .session(authenticatedSession))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("PAUSED")));
+    }
+
+    @Test
+    void resumeConversionJob_WhenNotPaused_ReturnsConflict() throws Exception {
+        // Given
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(jobControlService.resume(1L)).thenThrow(new IllegalStateException("Only a paused job can be resumed"));
+
+        // When & Then
+        mockMvc.perform(post("/api/conversions/1/resume")
+                        .session(authenticatedSession))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void cancelConversionJob_WithUnauthorizedAccess_ReturnsForbidden() throws Exception {
+        // Given
+        User otherUser = new User();
+        otherUser.setId(2L);
+        job.setUser(otherUser);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+
+        // When & Then
+        mockMvc.perform(post("/api/conversions/1/cancel")
+                        .session(authenticatedSession))
+                .andExpect(status().isForbidden());
+
+        verify(jobControlService, never()).cancel(any());
     }
 
     @Test
@@ -280,7 +464,7 @@ class ConversionControllerTest {
                 .andExpect(status().isNotFound());
 
         verify(jobRepository).findById(999L);
-        verify(jobRepository, never()).delete(any());
+        verify(matchArchiveService, never()).deleteJob(any());
     }
 
     @Test
@@ -298,7 +482,7 @@ class ConversionControllerTest {
                 .andExpect(status().isForbidden());
 
         verify(jobRepository).findById(1L);
-        verify(jobRepository, never()).delete(any());
+        verify(matchArchiveService, never()).deleteJob(any());
     }
 
     @Test
@@ -308,6 +492,49 @@ class ConversionControllerTest {
                 .andExpect(status().isUnauthorized());
 
         verify(jobRepository, never()).findById(any());
-        verify(jobRepository, never()).delete(any());
+        verify(matchArchiveService, never()).deleteJob(any());
+    }
+
+    private ConversionJobSummary summary(Long id, JobStatus status, LocalDateTime createdAt) {
+        return new ConversionJobSummary(id, status, Platform.SPOTIFY, "spotify-playlist-" + id,
+                "Playlist " + id, Platform.NETEASE, null, "Converted " + id, ConversionMode.CREATE,
+                10, 0, 0, 0, 0, 0, createdAt, createdAt, null);
+    }
+
+    @Test
+    void streamConversionJobEvents_WithLastEventId_ResumesStream() throws Exception {
+        // Given
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(progressSseService.subscribe(job, 5L)).thenReturn(new SseEmitter());
+
+        // When & Then
+        mockMvc.perform(get("/api/conversions/1/events")
+                        .session(authenticatedSession)
+                        .header("Last-Event-ID", "5"))
+                .andExpect(request().asyncStarted());
+
+        verify(progressSseService).subscribe(job, 5L);
+    }
+
+    @Test
+    void streamConversionJobEvents_WithUnauthorizedAccess_ReturnsForbidden() throws Exception {
+        // Given
+        User otherUser = new User();
+        otherUser.setId(2L);
+        job.setUser(otherUser);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+
+        // When & Then
+        mockMvc.perform(get("/api/conversions/1/events")
+                        .session(authenticatedSession))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(progressSseService);
+    }
+
+    @Test
+    void streamConversionJobEvents_WithoutAuthentication_ReturnsUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/conversions/1/events"))
+                .andExpect(status().isUnauthorized());
     }
 }
@@ -0,0 +1,86 @@
+package com.spotease.controller;
+
+import com.spotease.dto.MatchEventSnapshot;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.User;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.service.MatchEventStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MatchEventControllerTest {
+
+    @Mock
+    private ConversionJobRepository jobRepository;
+
+    @Mock
+    private MatchEventStream matchEventStream;
+
+    @InjectMocks
+    private MatchEventController controller;
+
+    private ConversionJob job;
+
+    @BeforeEach
+    void setUp() {
+        User owner = new User();
+        owner.setId(1L);
+
+        job = new ConversionJob();
+        job.setId(5L);
+        job.setUser(owner);
+    }
+
+    @Test
+    void shouldReturnSnapshotToOwner() {
+        // Given
+        MatchEventSnapshot snapshot = MatchEventSnapshot.builder().jobId(5L).live(true).events(List.of()).build();
+        when(jobRepository.findById(5L)).thenReturn(Optional.of(job));
+        when(matchEventStream.snapshot(job)).thenReturn(snapshot);
+
+        // When & Then
+        assertThat(controller.subscribeMatches(5L, headers(1L))).isSameAs(snapshot);
+    }
+
+    @Test
+    void shouldRejectOtherUsersJob() {
+        when(jobRepository.findById(5L)).thenReturn(Optional.of(job));
+
+        assertThatThrownBy(() -> controller.subscribeMatches(5L, headers(2L)))
+                .isInstanceOf(AccessDeniedException.class);
+        verifyNoInteractions(matchEventStream);
+    }
+
+    @Test
+    void shouldRejectUnauthenticatedSubscription() {
+        assertThatThrownBy(() -> controller.subscribeMatches(5L, headers(null)))
+                .isInstanceOf(AccessDeniedException.class);
+        verifyNoInteractions(jobRepository);
+    }
+
+    private SimpMessageHeaderAccessor headers(Long userId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+        Map<String, Object> attributes = new HashMap<>();
+        if (userId != null) {
+            attributes.put("userId", userId);
+        }
+        headers.setSessionAttributes(attributes);
+        return headers;
+    }
+}
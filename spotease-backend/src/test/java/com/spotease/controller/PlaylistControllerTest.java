@@ -4,29 +4,42 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spotease.dto.netease.NeteasePlaylist;
 import com.spotease.dto.spotify.SpotifyPlaylist;
 import com.spotease.model.User;
+import com.spotease.repository.PlaylistCacheVersionRepository;
 import com.spotease.repository.UserRepository;
+import com.spotease.service.CredentialProvider;
 import com.spotease.service.NeteaseService;
+import com.spotease.service.PlaylistCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import com.spotease.service.SpotifyService;
-import com.spotease.util.TokenEncryption;
+import com.spotease.service.SpotifyTokenService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpSession;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Mono;
+import se.michaelthelin.spotify.exceptions.detailed.UnauthorizedException;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,9 +59,11 @@ class PlaylistControllerTest {
     private UserRepository userRepository;
 
     @Mock
-    private TokenEncryption tokenEncryption;
+    private CredentialProvider credentialProvider;
+
+    @Mock
+    private SpotifyTokenService spotifyTokenService;
 
-    @InjectMocks
     private PlaylistController playlistController;
 
     private MockHttpSession authenticatedSession;
@@ -56,6 +71,17 @@ class PlaylistControllerTest {
 
     @BeforeEach
     void setUp() {
+        // Real cache, so listings are served through it as in production
+        PlaylistCache playlistCache = new PlaylistCache(
+                mock(PlaylistCacheVersionRepository.class), mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), Duration.ofMinutes(2), Duration.ofMinutes(10), 100);
+        playlistController = new PlaylistController(spotifyService, spotifyTokenService,
+                neteaseService, userRepository, credentialProvider, playlistCache);
+        // Tokens come from the stored credentials; the 401 retry is the real one
+        lenient().when(spotifyTokenService.getAccessToken(any()))
+                .thenAnswer(invocation -> credentialProvider.decrypt(invocation.<User>getArgument(0).getSpotifyAccessToken()));
+        lenient().when(spotifyTokenService.callAsync(any(), any())).thenCallRealMethod();
+
         // Set up MockMvc with standalone setup
         mockMvc = MockMvcBuilders.standaloneSetup(playlistController).build();
 
@@ -94,11 +120,11 @@ class PlaylistControllerTest {
         List<SpotifyPlaylist> playlists = Arrays.asList(playlist1, playlist2);
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(tokenEncryption.decrypt("encrypted_spotify_token")).thenReturn("decrypted_token");
-        when(spotifyService.getPlaylists("decrypted_token")).thenReturn(playlists);
+        when(credentialProvider.decrypt("encrypted_spotify_token")).thenReturn("decrypted_token");
+        when(spotifyService.getPlaylistsAsync("decrypted_token")).thenReturn(CompletableFuture.completedFuture(playlists));
 
         // Act & Assert
-        mockMvc.perform(get("/api/playlists/spotify")
+        performAsync(get("/api/playlists/spotify")
                         .session(authenticatedSession))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
@@ -109,14 +135,56 @@ class PlaylistControllerTest {
                 .andExpect(jsonPath("$[1].name", is("Another Playlist")));
 
         verify(userRepository).findById(1L);
-        verify(tokenEncryption).decrypt("encrypted_spotify_token");
-        verify(spotifyService).getPlaylists("decrypted_token");
+        verify(credentialProvider).decrypt("encrypted_spotify_token");
+        verify(spotifyService).getPlaylistsAsync("decrypted_token");
+    }
+
+    @Test
+    void testGetSpotifyPlaylists_ServedFromCacheOnRepeat() throws Exception {
+        // Arrange
+        SpotifyPlaylist playlist = new SpotifyPlaylist();
+        playlist.setId("playlist1");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(credentialProvider.decrypt("encrypted_spotify_token")).thenReturn("decrypted_token");
+        when(spotifyService.getPlaylistsAsync("decrypted_token"))
+                .thenReturn(CompletableFuture.completedFuture(List.of(playlist)));
+
+        // Act
+        performAsync(get("/api/playlists/spotify").session(authenticatedSession))
+                .andExpect(status().isOk());
+        performAsync(get("/api/playlists/spotify").session(authenticatedSession))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is("playlist1")));
+
+        // Assert
+        verify(spotifyService, times(1)).getPlaylistsAsync("decrypted_token");
+    }
+
+    @Test
+    void testGetSpotifyPlaylists_RetriesWithRefreshedTokenOn401() throws Exception {
+        // Arrange
+        SpotifyPlaylist playlist = new SpotifyPlaylist();
+        playlist.setId("playlist1");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(credentialProvider.decrypt("encrypted_spotify_token")).thenReturn("expired_token");
+        when(spotifyService.getPlaylistsAsync("expired_token")).thenReturn(CompletableFuture.failedFuture(
+                new RuntimeException("Failed to get Spotify playlists", new UnauthorizedException("expired"))));
+        when(spotifyTokenService.refreshAfterUnauthorized(1L, "expired_token")).thenReturn("fresh_token");
+        when(spotifyService.getPlaylistsAsync("fresh_token"))
+                .thenReturn(CompletableFuture.completedFuture(List.of(playlist)));
+
+        // Act & Assert
+        performAsync(get("/api/playlists/spotify").session(authenticatedSession))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is("playlist1")));
     }
 
     @Test
     void testGetSpotifyPlaylists_Unauthorized() throws Exception {
         // Act & Assert - no session
-        mockMvc.perform(get("/api/playlists/spotify"))
+        performAsync(get("/api/playlists/spotify"))
                 .andExpect(status().isUnauthorized());
 
         verifyNoInteractions(spotifyService);
@@ -128,12 +196,12 @@ class PlaylistControllerTest {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
-        mockMvc.perform(get("/api/playlists/spotify")
+        performAsync(get("/api/playlists/spotify")
                         .session(authenticatedSession))
                 .andExpect(status().isNotFound());
 
         verify(userRepository).findById(1L);
-        verifyNoInteractions(tokenEncryption);
+        verifyNoInteractions(credentialProvider);
         verifyNoInteractions(spotifyService);
     }
 
@@ -154,11 +222,11 @@ class PlaylistControllerTest {
         List<NeteasePlaylist> playlists = Arrays.asList(playlist1, playlist2);
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(tokenEncryption.decrypt("encrypted_netease_cookie")).thenReturn("decrypted_cookie");
-        when(neteaseService.getPlaylists("decrypted_cookie")).thenReturn(playlists);
+        when(credentialProvider.decrypt("encrypted_netease_cookie")).thenReturn("decrypted_cookie");
+        when(neteaseService.getPlaylistsAsync("decrypted_cookie")).thenReturn(Mono.just(playlists));
 
         // Act & Assert
-        mockMvc.perform(get("/api/playlists/netease")
+        performAsync(get("/api/playlists/netease")
                         .session(authenticatedSession))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
@@ -168,14 +236,28 @@ class PlaylistControllerTest {
                 .andExpect(jsonPath("$[1].id", is("456")));
 
         verify(userRepository).findById(1L);
-        verify(tokenEncryption).decrypt("encrypted_netease_cookie");
-        verify(neteaseService).getPlaylists("decrypted_cookie");
+        verify(credentialProvider).decrypt("encrypted_netease_cookie");
+        verify(neteaseService).getPlaylistsAsync("decrypted_cookie");
+    }
+
+    @Test
+    void testGetNeteasePlaylists_PlatformFailure() throws Exception {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(credentialProvider.decrypt("encrypted_netease_cookie")).thenReturn("decrypted_cookie");
+        when(neteaseService.getPlaylistsAsync("decrypted_cookie"))
+                .thenReturn(Mono.error(new RuntimeException("Failed to get NetEase playlists")));
+
+        // Act & Assert
+        performAsync(get("/api/playlists/netease")
+                        .session(authenticatedSession))
+                .andExpect(status().isInternalServerError());
     }
 
     @Test
     void testGetNeteasePlaylists_Unauthorized() throws Exception {
         // Act & Assert
-        mockMvc.perform(get("/api/playlists/netease"))
+        performAsync(get("/api/playlists/netease"))
                 .andExpect(status().isUnauthorized());
 
         verifyNoInteractions(neteaseService);
@@ -191,11 +273,11 @@ class PlaylistControllerTest {
         playlist.setTotalTracks(42);
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(tokenEncryption.decrypt("encrypted_spotify_token")).thenReturn("decrypted_token");
-        when(spotifyService.getPlaylistById("decrypted_token", "playlist123")).thenReturn(playlist);
+        when(credentialProvider.decrypt("encrypted_spotify_token")).thenReturn("decrypted_token");
+        when(spotifyService.getPlaylistByIdAsync("decrypted_token", "playlist123")).thenReturn(CompletableFuture.completedFuture(playlist));
 
         // Act & Assert
-        mockMvc.perform(get("/api/playlists/spotify/playlist123")
+        performAsync(get("/api/playlists/spotify/playlist123")
                         .session(authenticatedSession))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is("playlist123")))
@@ -203,8 +285,8 @@ class PlaylistControllerTest {
                 .andExpect(jsonPath("$.totalTracks", is(42)));
 
         verify(userRepository).findById(1L);
-        verify(tokenEncryption).decrypt("encrypted_spotify_token");
-        verify(spotifyService).getPlaylistById("decrypted_token", "playlist123");
+        verify(credentialProvider).decrypt("encrypted_spotify_token");
+        verify(spotifyService).getPlaylistByIdAsync("decrypted_token", "playlist123");
     }
 
     @Test
@@ -216,11 +298,11 @@ class PlaylistControllerTest {
         playlist.setTotalTracks(30);
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(tokenEncryption.decrypt("encrypted_netease_cookie")).thenReturn("decrypted_cookie");
-        when(neteaseService.getPlaylistById("decrypted_cookie", "789")).thenReturn(playlist);
+        when(credentialProvider.decrypt("encrypted_netease_cookie")).thenReturn("decrypted_cookie");
+        when(neteaseService.getPlaylistByIdAsync("decrypted_cookie", "789")).thenReturn(Mono.just(playlist));
 
         // Act & Assert
-        mockMvc.perform(get("/api/playlists/netease/789")
+        performAsync(get("/api/playlists/netease/789")
                         .session(authenticatedSession))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is("789")))
@@ -228,14 +310,14 @@ class PlaylistControllerTest {
                 .andExpect(jsonPath("$.totalTracks", is(30)));
 
         verify(userRepository).findById(1L);
-        verify(tokenEncryption).decrypt("encrypted_netease_cookie");
-        verify(neteaseService).getPlaylistById("decrypted_cookie", "789");
+        verify(credentialProvider).decrypt("encrypted_netease_cookie");
+        verify(neteaseService).getPlaylistByIdAsync("decrypted_cookie", "789");
     }
 
     @Test
     void testGetPlaylistById_InvalidPlatform() throws Exception {
         // Act & Assert
-        mockMvc.perform(get("/api/playlists/youtube/123")
+        performAsync(get("/api/playlists/youtube/123")
                         .session(authenticatedSession))
                 .andExpect(status().isBadRequest());
 
@@ -246,10 +328,17 @@ class PlaylistControllerTest {
     @Test
     void testGetPlaylistById_Unauthorized() throws Exception {
         // Act & Assert
-        mockMvc.perform(get("/api/playlists/spotify/123"))
+        performAsync(get("/api/playlists/spotify/123"))
                 .andExpect(status().isUnauthorized());
 
         verifyNoInteractions(spotifyService);
         verifyNoInteractions(neteaseService);
     }
+
+    private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
 }
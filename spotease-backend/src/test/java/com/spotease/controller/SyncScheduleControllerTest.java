@@ -0,0 +1,156 @@
+package com.spotease.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotease.dto.SyncScheduleRequest;
+import com.spotease.model.Platform;
+import com.spotease.model.SyncSchedule;
+import com.spotease.model.User;
+import com.spotease.repository.SyncScheduleRepository;
+import com.spotease.service.SyncScheduleService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class SyncScheduleControllerTest {
+
+    private MockMvc mockMvc;
+
+    private ObjectMapper objectMapper;
+
+    @Mock
+    private SyncScheduleService syncScheduleService;
+
+    @Mock
+    private SyncScheduleRepository scheduleRepository;
+
+    @InjectMocks
+    private SyncScheduleController syncScheduleController;
+
+    private MockHttpSession authenticatedSession;
+    private SyncScheduleRequest request;
+    private SyncSchedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(syncScheduleController).build();
+        objectMapper = new ObjectMapper();
+        objectMapper.findAndRegisterModules();
+
+        authenticatedSession = new MockHttpSession();
+        authenticatedSession.setAttribute("userId", 1L);
+
+        User user = new User();
+        user.setId(1L);
+
+        request = SyncScheduleRequest.builder()
+                .sourcePlatform(Platform.SPOTIFY)
+                .sourcePlaylistId("source")
+                .destinationPlaylistId("dest")
+                .intervalHours(12)
+                .build();
+
+        schedule = new SyncSchedule();
+        schedule.setId(7L);
+        schedule.setUser(user);
+        schedule.setSourcePlatform(Platform.SPOTIFY);
+        schedule.setSourcePlaylistId("source");
+        schedule.setDestinationPlatform(Platform.NETEASE);
+        schedule.setDestinationPlaylistId("dest");
+        schedule.setIntervalMinutes(12 * 60);
+        schedule.setNextRunAt(LocalDateTime.now().plusHours(3));
+    }
+
+    @Test
+    void shouldListSchedulesOfUser() throws Exception {
+        // Given
+        when(scheduleRepository.findByUser_IdOrderByCreatedAtDesc(1L)).thenReturn(List.of(schedule));
+
+        // When/Then
+        mockMvc.perform(get("/api/sync-schedules").session(authenticatedSession))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].intervalHours", is(12)))
+                .andExpect(jsonPath("$[0].destinationPlatform", is("NETEASE")));
+    }
+
+    @Test
+    void shouldSaveSchedule() throws Exception {
+        // Given
+        when(syncScheduleService.saveSchedule(eq(1L), any(SyncScheduleRequest.class))).thenReturn(schedule);
+
+        // When/Then
+        mockMvc.perform(put("/api/sync-schedules")
+                        .session(authenticatedSession)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(7)))
+                .andExpect(jsonPath("$.enabled", is(true)));
+    }
+
+    @Test
+    void shouldRejectInvalidInterval() throws Exception {
+        // Given
+        when(syncScheduleService.saveSchedule(eq(1L), any(SyncScheduleRequest.class)))
+                .thenThrow(new IllegalArgumentException("Sync interval must be between 1 and 168 hours"));
+
+        // When/Then
+        mockMvc.perform(put("/api/sync-schedules")
+                        .session(authenticatedSession)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturn401WithoutSession() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/sync-schedules"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void shouldDeleteOwnSchedule() throws Exception {
+        // Given
+        when(scheduleRepository.findById(7L)).thenReturn(Optional.of(schedule));
+
+        // When/Then
+        mockMvc.perform(delete("/api/sync-schedules/7").session(authenticatedSession))
+                .andExpect(status().isNoContent());
+        verify(scheduleRepository).delete(schedule);
+    }
+
+    @Test
+    void shouldNotDeleteScheduleOfAnotherUser() throws Exception {
+        // Given
+        MockHttpSession otherSession = new MockHttpSession();
+        otherSession.setAttribute("userId", 2L);
+        when(scheduleRepository.findById(7L)).thenReturn(Optional.of(schedule));
+
+        // When/Then
+        mockMvc.perform(delete("/api/sync-schedules/7").session(otherSession))
+                .andExpect(status().isForbidden());
+        verify(scheduleRepository, never()).delete(any());
+    }
+}
@@ -0,0 +1,128 @@
+package com.spotease.integration;
+
+import com.spotease.dto.WebSocketMessage;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.JobStatus;
+import com.spotease.model.User;
+import com.spotease.service.WebSocketService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Publishes through the broker relay to an embedded Artemis broker and receives the message with
+ * a separate STOMP client, as a client attached to another replica would.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BrokerRelayIntegrationTest {
+
+    private static final EmbeddedStompBroker broker = new EmbeddedStompBroker().start();
+
+    @DynamicPropertySource
+    static void relayProperties(DynamicPropertyRegistry registry) {
+        registry.add("spotease.websocket.relay.enabled", () -> true);
+        registry.add("spotease.websocket.relay.host", () -> "127.0.0.1");
+        registry.add("spotease.websocket.relay.port", broker::getPort);
+    }
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        broker.close();
+    }
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private StompBrokerRelayMessageHandler relayHandler;
+
+    @Test
+    void shouldDeliverJobUpdatesThroughExternalBroker() throws Exception {
+        // Given: the relay is connected and another client subscribed at the broker
+        waitForBroker();
+
+        ReactorNettyTcpStompClient client = new ReactorNettyTcpStompClient("127.0.0.1", broker.getPort());
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        ThreadPoolTaskScheduler receiptScheduler = new ThreadPoolTaskScheduler();
+        receiptScheduler.initialize();
+        client.setTaskScheduler(receiptScheduler);
+        StompSession session = client.connectAsync(new StompSessionHandlerAdapter() {
+        }).get(10, TimeUnit.SECONDS);
+
+        BlockingQueue<WebSocketMessage> received = new LinkedBlockingQueue<>();
+        session.setAutoReceipt(true);
+        StompSession.Receiptable subscription = session.subscribe("/topic/users/7/conversions", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return WebSocketMessage.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((WebSocketMessage) payload);
+            }
+        });
+        assertThat(subscription.getReceiptId()).isNotNull();
+        awaitReceipt(subscription);
+
+        // When
+        webSocketService.sendJobUpdate(job());
+
+        // Then
+        WebSocketMessage message = received.poll(10, TimeUnit.SECONDS);
+        assertThat(message).isNotNull();
+        assertThat(message.getJobId()).isEqualTo(3L);
+        assertThat(message.getStatus()).isEqualTo(JobStatus.PROCESSING);
+
+        session.disconnect();
+        client.shutdown();
+        receiptScheduler.shutdown();
+    }
+
+    private void waitForBroker() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!relayHandler.isBrokerAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(relayHandler.isBrokerAvailable()).isTrue();
+    }
+
+    private void awaitReceipt(StompSession.Receiptable subscription) throws InterruptedException {
+        BlockingQueue<Boolean> receipt = new LinkedBlockingQueue<>();
+        subscription.addReceiptTask(() -> receipt.add(true));
+        assertThat(receipt.poll(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private ConversionJob job() {
+        User user = new User();
+        user.setId(7L);
+
+        ConversionJob job = new ConversionJob();
+        job.setId(3L);
+        job.setUser(user);
+        job.setStatus(JobStatus.PROCESSING);
+        job.setTotalTracks(10);
+        job.setProcessedTracks(4);
+        return job;
+    }
+}
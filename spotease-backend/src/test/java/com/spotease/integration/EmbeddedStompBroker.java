@@ -0,0 +1,54 @@
+package com.spotease.integration;
+
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * In-JVM ActiveMQ Artemis broker with a STOMP acceptor on a free local port, so the broker relay
+ * can be tested without external services. {@code /topic/...} destinations are multicast.
+ */
+class EmbeddedStompBroker implements AutoCloseable {
+
+    private final EmbeddedActiveMQ server = new EmbeddedActiveMQ();
+    private int port;
+
+    EmbeddedStompBroker start() {
+        try {
+            port = freePort();
+            Path dataDir = Files.createTempDirectory("artemis");
+            Configuration configuration = new ConfigurationImpl()
+                    .setPersistenceEnabled(false)
+                    .setSecurityEnabled(false)
+                    .setJMXManagementEnabled(false)
+                    .addAcceptorConfiguration("stomp",
+                            "tcp://127.0.0.1:" + port + "?protocols=STOMP;multicastPrefix=/topic/");
+            configuration.setBrokerInstance(dataDir.toFile());
+            server.setConfiguration(configuration);
+            server.start();
+            return this;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to start embedded STOMP broker", e);
+        }
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() throws Exception {
+        server.stop();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
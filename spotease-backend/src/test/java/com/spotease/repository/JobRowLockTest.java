@@ -0,0 +1,121 @@
+package com.spotease.repository;
+
+import com.spotease.model.*;
+import com.spotease.service.BulkConversionService;
+import com.spotease.service.JobControlService;
+import com.spotease.service.ProgressPublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the worker's row lock against the job's progress writes, each in a transaction of its own.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JobRowLockTest {
+
+    @Autowired
+    private ConversionJobRepository jobRepository;
+
+    @Autowired
+    private JobControlRequestRepository controlRepository;
+
+    @Autowired
+    private JobHeartbeatRepository heartbeatRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private JobControlService jobControlService;
+    private User user;
+    private ConversionJob job;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        jobControlService = new JobControlService(jobRepository, controlRepository, heartbeatRepository,
+                mock(ProgressPublisher.class), mock(BulkConversionService.class), mock(ApplicationEventPublisher.class),
+                jdbcTemplate);
+
+        user = new User();
+        user.setEmail("row-lock@example.com");
+        user = userRepository.save(user);
+
+        job = new ConversionJob();
+        job.setUser(user);
+        job.setSourcePlatform(Platform.SPOTIFY);
+        job.setSourcePlaylistId("running");
+        job.setDestinationPlatform(Platform.NETEASE);
+        job.setMode(ConversionMode.CREATE);
+        job.setStatus(JobStatus.PROCESSING);
+        job.setDedupKey("running");
+        job.setClaimedBy("replica-1");
+        job.setClaimedAt(LocalDateTime.now().minusMinutes(10));
+        job = jobRepository.save(job);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRepository.deleteById(job.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void shouldNotHoldBackProgressWritesOfRunningJob() throws Exception {
+        // Given: a worker has started the job and its transaction is still open
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Void> worker = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            jobControlService.lockJob(job.getId());
+            locked.countDown();
+            await(finish);
+        }));
+        assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When: its progress is persisted in a transaction of its own
+        job.setProcessedTracks(5);
+        Integer updated = transaction.execute(status -> jobRepository.updateProgress(job, LocalDateTime.now()));
+        finish.countDown();
+        worker.get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(updated).isEqualTo(1);
+        assertThat(jobRepository.findById(job.getId()).orElseThrow().getProcessedTracks()).isEqualTo(5);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
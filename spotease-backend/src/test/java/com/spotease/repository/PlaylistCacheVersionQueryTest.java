@@ -0,0 +1,57 @@
+package com.spotease.repository;
+
+import com.spotease.model.Platform;
+import com.spotease.model.PlaylistCacheVersion;
+import com.spotease.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the playlist cache's version queries against the migrated schema.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class PlaylistCacheVersionQueryTest {
+
+    @Autowired
+    private PlaylistCacheVersionRepository versionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("cache@example.com");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void shouldBumpOnlyStampedListing() {
+        // Given
+        PlaylistCacheVersion version = new PlaylistCacheVersion();
+        version.setUserId(user.getId());
+        version.setPlatform(Platform.SPOTIFY);
+        version.setVersion(1);
+        versionRepository.saveAndFlush(version);
+
+        // When
+        int spotify = versionRepository.bump(user.getId(), Platform.SPOTIFY);
+        int netease = versionRepository.bump(user.getId(), Platform.NETEASE);
+
+        // Then
+        assertThat(spotify).isEqualTo(1);
+        assertThat(netease).isZero();
+        assertThat(versionRepository.findVersion(user.getId(), Platform.SPOTIFY)).contains(2L);
+        assertThat(versionRepository.findVersion(user.getId(), Platform.NETEASE)).isEmpty();
+    }
+}
@@ -0,0 +1,128 @@
+package com.spotease.repository;
+
+import com.spotease.config.DedupMigrationCallback;
+import com.spotease.service.TrackMatchPartitionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Postgres migrations and the partition maintenance against a real Postgres, since
+ * track_matches is only partitioned there (the H2 migrations keep it a plain table).
+ * <p>
+ * Needs a throwaway database: SPOTEASE_TEST_POSTGRES_URL (e.g.
+ * {@code jdbc:postgresql://localhost:5432/spotease_test}), with SPOTEASE_TEST_POSTGRES_USER and
+ * SPOTEASE_TEST_POSTGRES_PASSWORD defaulting to postgres. Everything in it is dropped first.
+ */
+@EnabledIfEnvironmentVariable(named = "SPOTEASE_TEST_POSTGRES_URL", matches = ".+")
+class PostgresPartitioningTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TrackMatchPartitionService partitionService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getenv("SPOTEASE_TEST_POSTGRES_URL"),
+                Objects.requireNonNullElse(System.getenv("SPOTEASE_TEST_POSTGRES_USER"), "postgres"),
+                Objects.requireNonNullElse(System.getenv("SPOTEASE_TEST_POSTGRES_PASSWORD"), "postgres"));
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/postgresql")
+                .callbacks(new DedupMigrationCallback())
+                .cleanDisabled(false)
+                .load();
+        flyway.clean();
+        flyway.migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        partitionService = new TrackMatchPartitionService(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), new SimpleMeterRegistry());
+        jdbcTemplate.update("INSERT INTO users (id, created_at, updated_at) VALUES (1, NOW(), NOW())");
+    }
+
+    @Test
+    void shouldAttachPartitionForNewJobBeforeItSavesMatches() {
+        // Given: a job in a block the migrations did not create a partition for
+        job(7200);
+
+        // When
+        int created = partitionService.createUpcomingPartitions();
+        match(7200);
+
+        // Then
+        assertThat(created).isEqualTo(6);
+        assertThat(partitions()).contains("track_matches_p7", "track_matches_p12");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM track_matches_p7 WHERE conversion_job_id = 7200", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPruneJobMatchesToItsPartition() {
+        // Given
+        job(7200);
+        partitionService.createUpcomingPartitions();
+        match(7200);
+
+        // When
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT id FROM track_matches WHERE conversion_job_id = 7200", String.class));
+
+        // Then
+        assertThat(plan).contains("track_matches_p7");
+        assertThat(plan).doesNotContain("track_matches_p8");
+    }
+
+    @Test
+    void shouldDropPartitionOfArchivedBlock() {
+        // Given: every job of block 7 is archived, block 8 still has a live job
+        job(7200);
+        job(8100);
+        partitionService.createUpcomingPartitions();
+        match(7200);
+        jdbcTemplate.update("UPDATE conversion_jobs SET archived_at = NOW() WHERE id = 7200");
+
+        // When
+        int dropped = partitionService.dropArchivedPartitions();
+
+        // Then
+        assertThat(dropped).isPositive();
+        assertThat(partitions()).doesNotContain("track_matches_p7").contains("track_matches_p8");
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('track_matches_p7')", String.class)).isNull();
+    }
+
+    private void job(long id) {
+        jdbcTemplate.update("""
+                INSERT INTO conversion_jobs (id, user_id, source_platform, source_playlist_id,
+                    destination_platform, destination_playlist_name, mode, status, dedup_key, created_at, updated_at)
+                VALUES (?, 1, 'SPOTIFY', ?, 'NETEASE', 'Converted', 'CREATE', 'COMPLETED', ?, NOW(), NOW())
+                """, id, "playlist-" + id, "playlist-" + id);
+    }
+
+    private void match(long jobId) {
+        jdbcTemplate.update("""
+                INSERT INTO track_matches (conversion_job_id, source_track_id, source_track_name, source_artist, status)
+                VALUES (?, 'track', 'Track', 'Artist', 'AUTO_MATCHED')
+                """, jobId);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'track_matches'::regclass
+                """, String.class);
+    }
+}
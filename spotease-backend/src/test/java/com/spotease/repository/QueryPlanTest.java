@@ -0,0 +1,58 @@
+package com.spotease.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the indexes behind the hot read paths: if a migration drops or renames one of them,
+ * the planner silently falls back to a scan and these assertions fail.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pendingMatchesShouldUseJobStatusIndex() {
+        String plan = explain("SELECT id FROM track_matches "
+                + "WHERE conversion_job_id = 1 AND status IN ('PENDING_REVIEW', 'FAILED') AND id > 0 ORDER BY id");
+
+        assertThat(plan).contains("idx_track_matches_job_status_id");
+    }
+
+    @Test
+    void jobListingShouldUseUserCreatedIndex() {
+        String plan = explain("SELECT id FROM conversion_jobs "
+                + "WHERE user_id = 1 ORDER BY created_at DESC, id DESC");
+
+        assertThat(plan).contains("idx_conversion_jobs_user_created");
+    }
+
+    @Test
+    void activeJobLookupShouldUseUserStatusIndex() {
+        String plan = explain("SELECT id FROM conversion_jobs "
+                + "WHERE user_id = 1 AND status = 'PROCESSING'");
+
+        assertThat(plan).contains("idx_conversion_jobs_user_status");
+    }
+
+    @Test
+    void userLookupBySpotifyIdShouldUseUniqueIndex() {
+        String plan = explain("SELECT id FROM users WHERE spotify_user_id = 'abc'");
+
+        assertThat(plan).contains("uk_users_spotify_user_id");
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class)).toLowerCase();
+    }
+}
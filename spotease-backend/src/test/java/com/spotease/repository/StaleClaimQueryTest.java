@@ -0,0 +1,121 @@
+package com.spotease.repository;
+
+import com.spotease.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the reaper's queries against the migrated schema.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class StaleClaimQueryTest {
+
+    private static final Set<JobStatus> IN_FLIGHT = EnumSet.of(JobStatus.QUEUED, JobStatus.PROCESSING);
+
+    @Autowired
+    private ConversionJobRepository jobRepository;
+
+    @Autowired
+    private JobHeartbeatRepository heartbeatRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final LocalDateTime cutoff = now.minusMinutes(2);
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("reaper@example.com");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void shouldFindClaimsWithoutRecentHeartbeat() {
+        // Given
+        Long silent = job("silent", JobStatus.QUEUED, now.minusMinutes(10)).getId();
+        Long staleBeat = job("stale-beat", JobStatus.PROCESSING, now.minusMinutes(10)).getId();
+        beat(staleBeat, now.minusMinutes(5));
+        Long freshBeat = job("fresh-beat", JobStatus.QUEUED, now.minusMinutes(10)).getId();
+        beat(freshBeat, now.minusSeconds(10));
+        job("just-claimed", JobStatus.QUEUED, now.minusSeconds(5));
+        job("finished", JobStatus.COMPLETED, now.minusMinutes(10));
+        job("unclaimed", JobStatus.QUEUED, null);
+
+        // When
+        List<Long> stale = jobRepository.findStaleClaims(IN_FLIGHT, cutoff);
+
+        // Then
+        assertThat(stale).containsExactly(silent, staleBeat);
+    }
+
+    @Test
+    void shouldLockJobsNoOtherTransactionHolds() {
+        // Given
+        Long first = job("first", JobStatus.QUEUED, now.minusMinutes(10)).getId();
+        Long second = job("second", JobStatus.QUEUED, now.minusMinutes(10)).getId();
+
+        // When
+        List<Long> locked = jobRepository.lockUnheld(List.of(first, second));
+
+        // Then
+        assertThat(locked).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    void shouldDeleteOnlyStaleHeartbeatsOfFinishedJobs() {
+        // Given
+        Long finished = job("finished", JobStatus.COMPLETED, null).getId();
+        beat(finished, now.minusMinutes(5));
+        Long running = job("running", JobStatus.PROCESSING, now.minusMinutes(10)).getId();
+        beat(running, now.minusMinutes(5));
+
+        // When
+        int deleted = heartbeatRepository.deleteOrphans(IN_FLIGHT, cutoff);
+
+        // Then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(heartbeatRepository.findAll()).extracting(JobHeartbeat::getJobId).containsExactly(running);
+    }
+
+    private ConversionJob job(String playlistId, JobStatus status, LocalDateTime claimedAt) {
+        ConversionJob job = new ConversionJob();
+        job.setUser(user);
+        job.setSourcePlatform(Platform.SPOTIFY);
+        job.setSourcePlaylistId(playlistId);
+        job.setSourcePlaylistName(playlistId);
+        job.setDestinationPlatform(Platform.NETEASE);
+        job.setDestinationPlaylistName(playlistId);
+        job.setMode(ConversionMode.CREATE);
+        job.setStatus(status);
+        job.setDedupKey(playlistId);
+        if (claimedAt != null) {
+            job.setClaimedBy("dead-replica");
+            job.setClaimedAt(claimedAt);
+        }
+        return jobRepository.saveAndFlush(job);
+    }
+
+    private void beat(Long jobId, LocalDateTime beatAt) {
+        JobHeartbeat heartbeat = new JobHeartbeat();
+        heartbeat.setJobId(jobId);
+        heartbeat.setInstanceId("dead-replica");
+        heartbeat.setBeatAt(beatAt);
+        heartbeatRepository.saveAndFlush(heartbeat);
+    }
+}
@@ -3,6 +3,7 @@ package com.spotease.service;
 import com.spotease.dto.AuthStatusResponse;
 import com.spotease.dto.netease.NeteaseQRKey;
 import com.spotease.dto.netease.NeteaseQRStatus;
+import com.spotease.model.Platform;
 import com.spotease.model.User;
 import com.spotease.repository.UserRepository;
 import com.spotease.util.TokenEncryption;
@@ -17,6 +18,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import se.michaelthelin.spotify.SpotifyApi;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -34,6 +36,12 @@ class AuthServiceTest {
     @Mock
     private TokenEncryption tokenEncryption;
 
+    @Mock
+    private CredentialProvider credentialProvider;
+
+    @Mock
+    private PlaylistCache playlistCache;
+
     @Mock
     private SpotifyApi spotifyApi;
 
@@ -56,7 +64,7 @@ class AuthServiceTest {
 
     @BeforeEach
     void setUp() {
-        authService = new AuthService(userRepository, tokenEncryption, spotifyApi, webClientBuilder);
+        authService = new AuthService(userRepository, tokenEncryption, credentialProvider, playlistCache, spotifyApi, webClientBuilder);
         ReflectionTestUtils.setField(authService, "neteaseWebClient", neteaseWebClient);
     }
 
@@ -181,4 +189,30 @@ class AuthServiceTest {
         assertThat(result.isSpotifyConnected()).isTrue();
         assertThat(result.isNeteaseConnected()).isTrue();
     }
+
+    @Test
+    void testHandleNeteaseQRLogin_InvalidatesOldCookie() {
+        // Arrange
+        User user = new User();
+        user.setId(1L);
+        user.setNeteaseCookie("old-encrypted-cookie");
+
+        when(neteaseWebClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri("/login/status")).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.header("Cookie", "new-cookie")).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.just(Map.of("data", Map.of("account", Map.of("id", 42)))));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(tokenEncryption.encrypt("new-cookie")).thenReturn("new-encrypted-cookie");
+        when(userRepository.save(user)).thenReturn(user);
+
+        // Act
+        User result = authService.handleNeteaseQRLogin(1L, "new-cookie");
+
+        // Assert
+        assertThat(result.getNeteaseCookie()).isEqualTo("new-encrypted-cookie");
+        verify(credentialProvider).invalidate("old-encrypted-cookie");
+        verify(playlistCache).invalidate(1L, Platform.NETEASE);
+    }
 }
@@ -0,0 +1,127 @@
+package com.spotease.service;
+
+import com.spotease.model.BulkConversion;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.JobStatus;
+import com.spotease.model.User;
+import com.spotease.repository.BulkConversionRepository;
+import com.spotease.repository.ConversionJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkConversionServiceTest {
+
+    @Mock
+    private BulkConversionRepository bulkRepository;
+
+    @Mock
+    private ConversionJobRepository jobRepository;
+
+    @Mock
+    private BulkMatchCache bulkMatchCache;
+
+    @Mock
+    private ProgressPublisher progressPublisher;
+
+    @InjectMocks
+    private BulkConversionService bulkConversionService;
+
+    private BulkConversion bulk;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(1L);
+
+        bulk = new BulkConversion();
+        bulk.setId(10L);
+        bulk.setUser(user);
+        bulk.setStatus(JobStatus.PROCESSING);
+        bulk.setTotalJobs(2);
+    }
+
+    @Test
+    void shouldWaitForSiblingsStillRunning() {
+        // Given
+        ConversionJob finished = child(1L, JobStatus.COMPLETED);
+        ConversionJob running = child(2L, JobStatus.PROCESSING);
+        when(bulkRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(bulk));
+        when(jobRepository.findByBulkConversion_IdOrderById(10L)).thenReturn(List.of(finished, running));
+
+        // When
+        bulkConversionService.jobFinished(finished);
+
+        // Then
+        assertThat(bulk.getStatus()).isEqualTo(JobStatus.PROCESSING);
+        verify(bulkRepository, never()).save(any());
+        verify(bulkMatchCache, never()).evict(any());
+    }
+
+    @Test
+    void shouldFinishBulkWithLastChild() {
+        // Given
+        ConversionJob completed = child(1L, JobStatus.COMPLETED);
+        ConversionJob needsReview = child(2L, JobStatus.REVIEW_PENDING);
+        List<ConversionJob> children = List.of(completed, needsReview);
+        when(bulkRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(bulk));
+        when(jobRepository.findByBulkConversion_IdOrderById(10L)).thenReturn(children);
+
+        // When
+        bulkConversionService.jobFinished(needsReview);
+
+        // Then
+        assertThat(bulk.getStatus()).isEqualTo(JobStatus.REVIEW_PENDING);
+        assertThat(bulk.getCompletedAt()).isNotNull();
+        verify(bulkRepository).save(bulk);
+        verify(bulkMatchCache).evict(10L);
+        verify(progressPublisher).bulkFinished(bulk, children);
+    }
+
+    @Test
+    void shouldFailBulkOnlyWhenEveryChildFailed() {
+        // Given
+        ConversionJob failed = child(1L, JobStatus.FAILED);
+        ConversionJob completed = child(2L, JobStatus.COMPLETED);
+        when(bulkRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(bulk));
+        when(jobRepository.findByBulkConversion_IdOrderById(10L)).thenReturn(List.of(failed, completed));
+
+        // When
+        bulkConversionService.jobFinished(completed);
+
+        // Then
+        assertThat(bulk.getStatus()).isEqualTo(JobStatus.COMPLETED);
+    }
+
+    @Test
+    void shouldIgnoreJobsOutsideBulk() {
+        // Given
+        ConversionJob job = new ConversionJob();
+
+        // When
+        bulkConversionService.jobStarted(job);
+        bulkConversionService.jobFinished(job);
+
+        // Then
+        verifyNoInteractions(bulkRepository, jobRepository, bulkMatchCache, progressPublisher);
+    }
+
+    private ConversionJob child(Long id, JobStatus status) {
+        ConversionJob job = new ConversionJob();
+        job.setId(id);
+        job.setBulkConversion(bulk);
+        job.setStatus(status);
+        return job;
+    }
+}
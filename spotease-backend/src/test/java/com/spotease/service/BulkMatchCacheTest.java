@@ -0,0 +1,237 @@
+package com.spotease.service;
+
+import com.spotease.model.BulkConversion;
+import com.spotease.model.BulkTrackMatch;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.MatchStatus;
+import com.spotease.model.Platform;
+import com.spotease.model.TrackMatch;
+import com.spotease.repository.BulkTrackMatchRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkMatchCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BulkTrackMatchRepository matchRepository = mock(BulkTrackMatchRepository.class);
+    private final BulkMatchCache cache = cache();
+
+    // The bulk_track_matches table shared by all replicas
+    private final Map<BulkTrackMatch.Key, BulkTrackMatch> stored = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(matchRepository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(stored.get(invocation.<BulkTrackMatch.Key>getArgument(0))));
+        when(matchRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            BulkTrackMatch match = invocation.getArgument(0);
+            stored.put(new BulkTrackMatch.Key(match.getBulkConversionId(), match.getSourceKey()), match);
+            return match;
+        });
+        when(matchRepository.deleteByBulkConversionId(any())).thenAnswer(invocation -> {
+            Long bulkId = invocation.getArgument(0);
+            stored.keySet().removeIf(key -> key.getBulkConversionId().equals(bulkId));
+            return 0;
+        });
+    }
+
+    @Test
+    void shouldSearchAlwaysForJobsOutsideBulk() {
+        // Given
+        ConversionJob job = job(1L, null);
+        AtomicInteger searches = new AtomicInteger();
+
+        // When
+        cache.match(job, "track", () -> search(job, searches));
+        cache.match(job, "track", () -> search(job, searches));
+
+        // Then
+        assertThat(searches.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReuseMatchWithinBulkAsCopyForEachJob() {
+        // Given
+        BulkConversion bulk = bulk(10L);
+        ConversionJob first = job(1L, bulk);
+        ConversionJob second = job(2L, bulk);
+        AtomicInteger searches = new AtomicInteger();
+
+        // When
+        TrackMatch original = cache.match(first, "track", () -> search(first, searches));
+        TrackMatch reused = cache.match(second, "track", () -> search(second, searches));
+
+        // Then
+        assertThat(searches.get()).isEqualTo(1);
+        assertThat(reused).isNotSameAs(original);
+        assertThat(reused.getConversionJob()).isSameAs(second);
+        assertThat(reused.getDestinationTrackId()).isEqualTo("dest-track");
+        assertThat(reused.getAppliedAt()).isNotNull();
+        assertThat(requests("hit")).isEqualTo(1);
+        assertThat(requests("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldWaitForSearchInProgressInsteadOfSearchingAgain() throws Exception {
+        // Given: the first job's search is still running
+        BulkConversion bulk = bulk(10L);
+        ConversionJob first = job(1L, bulk);
+        ConversionJob second = job(2L, bulk);
+        AtomicInteger searches = new AtomicInteger();
+        CountDownLatch searching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<TrackMatch> slow = CompletableFuture.supplyAsync(() -> cache.match(first, "track", () -> {
+            searching.countDown();
+            await(release);
+            return search(first, searches);
+        }));
+        assertThat(searching.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        CompletableFuture<TrackMatch> waiting =
+                CompletableFuture.supplyAsync(() -> cache.match(second, "track", () -> search(second, searches)));
+        release.countDown();
+
+        // Then
+        assertThat(waiting.get(5, TimeUnit.SECONDS).getConversionJob()).isSameAs(second);
+        assertThat(slow.get(5, TimeUnit.SECONDS).getConversionJob()).isSameAs(first);
+        assertThat(searches.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSearchAgainAfterFailedSearch() {
+        // Given
+        BulkConversion bulk = bulk(10L);
+        ConversionJob first = job(1L, bulk);
+        ConversionJob second = job(2L, bulk);
+        AtomicInteger searches = new AtomicInteger();
+        assertThatThrownBy(() -> cache.match(first, "track", () -> {
+            throw new RuntimeException("Failed to search tracks");
+        })).hasMessage("Failed to search tracks");
+
+        // When
+        TrackMatch match = cache.match(second, "track", () -> search(second, searches));
+
+        // Then
+        assertThat(searches.get()).isEqualTo(1);
+        assertThat(match.getConversionJob()).isSameAs(second);
+    }
+
+    @Test
+    void shouldReuseMatchStoredByJobOnAnotherReplica() {
+        // Given
+        BulkConversion bulk = bulk(10L);
+        ConversionJob first = job(1L, bulk);
+        ConversionJob second = job(2L, bulk);
+        AtomicInteger searches = new AtomicInteger();
+        BulkMatchCache otherReplica = cache();
+        otherReplica.match(first, "track", () -> search(first, searches));
+
+        // When
+        TrackMatch reused = cache.match(second, "track", () -> search(second, searches));
+
+        // Then
+        assertThat(searches.get()).isEqualTo(1);
+        assertThat(reused.getConversionJob()).isSameAs(second);
+        assertThat(reused.getDestinationTrackId()).isEqualTo("dest-track");
+        assertThat(reused.getStatus()).isEqualTo(MatchStatus.AUTO_MATCHED);
+        assertThat(reused.getAppliedAt()).isNotNull();
+        assertThat(requests("stored")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSearchWhenStoredMatchCannotBeRead() {
+        // Given
+        BulkConversion bulk = bulk(10L);
+        ConversionJob job = job(1L, bulk);
+        AtomicInteger searches = new AtomicInteger();
+        doThrow(new RuntimeException("database down")).when(matchRepository).findById(any());
+
+        // When
+        TrackMatch match = cache.match(job, "track", () -> search(job, searches));
+
+        // Then
+        assertThat(searches.get()).isEqualTo(1);
+        assertThat(match.getConversionJob()).isSameAs(job);
+    }
+
+    @Test
+    void shouldForgetMatchesOfEvictedBulk() {
+        // Given
+        BulkConversion bulk = bulk(10L);
+        AtomicInteger searches = new AtomicInteger();
+        ConversionJob first = job(1L, bulk);
+        cache.match(first, "track", () -> search(first, searches));
+
+        // When
+        cache.evict(10L);
+        ConversionJob second = job(2L, bulk);
+        cache.match(second, "track", () -> search(second, searches));
+
+        // Then
+        assertThat(searches.get()).isEqualTo(2);
+        assertThat(stored).hasSize(1);
+    }
+
+    private BulkMatchCache cache() {
+        return new BulkMatchCache(matchRepository, mock(PlatformTransactionManager.class), meterRegistry);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("spotease.bulk-match-cache.requests").tag("result", result).counter().count();
+    }
+
+    private static TrackMatch search(ConversionJob job, AtomicInteger searches) {
+        searches.incrementAndGet();
+        TrackMatch match = new TrackMatch();
+        match.setConversionJob(job);
+        match.setSourceTrackId("track");
+        match.setSourceTrackName("Track");
+        match.setSourceArtist("Artist");
+        match.setDestinationTrackId("dest-track");
+        match.setStatus(MatchStatus.AUTO_MATCHED);
+        match.setMatchConfidence(0.95);
+        return match;
+    }
+
+    private static BulkConversion bulk(Long id) {
+        BulkConversion bulk = new BulkConversion();
+        bulk.setId(id);
+        return bulk;
+    }
+
+    private static ConversionJob job(Long id, BulkConversion bulk) {
+        ConversionJob job = new ConversionJob();
+        job.setId(id);
+        job.setBulkConversion(bulk);
+        job.setSourcePlatform(Platform.SPOTIFY);
+        return job;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
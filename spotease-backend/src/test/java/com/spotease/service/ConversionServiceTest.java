@@ -1,9 +1,10 @@
 package com.spotease.service;
 
+import com.spotease.dto.BulkConversionRequest;
 import com.spotease.dto.ConversionRequest;
-import com.spotease.dto.spotify.SpotifyPlaylist;
 import com.spotease.event.ConversionJobCreatedEvent;
 import com.spotease.model.*;
+import com.spotease.repository.BulkConversionRepository;
 import com.spotease.repository.ConversionJobRepository;
 import com.spotease.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,12 +15,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,19 +40,19 @@ class ConversionServiceTest {
     private ConversionJobRepository jobRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private BulkConversionRepository bulkRepository;
 
     @Mock
-    private SpotifyService spotifyService;
+    private UserRepository userRepository;
 
     @Mock
-    private NeteaseService neteaseService;
+    private PlaylistCache playlistCache;
 
     @Mock
-    private com.spotease.util.TokenEncryption tokenEncryption;
+    private ApplicationEventPublisher eventPublisher;
 
     @Mock
-    private ApplicationEventPublisher eventPublisher;
+    private TransactionTemplate transactionTemplate;
 
     @InjectMocks
     private ConversionService conversionService;
@@ -63,6 +73,9 @@ class ConversionServiceTest {
                 .mode(ConversionMode.CREATE)
                 .destinationPlaylistName("My Converted Playlist")
                 .build();
+
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 
     @Test
@@ -70,40 +83,31 @@ class ConversionServiceTest {
         // Given
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
 
-        // Mock token decryption
-        when(tokenEncryption.decrypt("encrypted-spotify-token")).thenReturn("decrypted-spotify-token");
-
-        SpotifyPlaylist sourcePlaylist = new SpotifyPlaylist();
-        sourcePlaylist.setId("playlist123");
-        sourcePlaylist.setName("Source Playlist");
-        sourcePlaylist.setTotalTracks(10);
-        when(spotifyService.getPlaylistById("decrypted-spotify-token", "playlist123"))
-                .thenReturn(sourcePlaylist);
-
         ConversionJob savedJob = new ConversionJob();
         savedJob.setId(1L);
-        when(jobRepository.save(any(ConversionJob.class))).thenReturn(savedJob);
+        when(jobRepository.saveAndFlush(any(ConversionJob.class))).thenReturn(savedJob);
 
         // When
-        ConversionJob result = conversionService.createJob(1L, request);
+        ConversionJob result = conversionService.createJob(1L, request, null).job();
 
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(1L);
 
         ArgumentCaptor<ConversionJob> jobCaptor = ArgumentCaptor.forClass(ConversionJob.class);
-        verify(jobRepository).save(jobCaptor.capture());
+        verify(jobRepository).saveAndFlush(jobCaptor.capture());
 
         ConversionJob capturedJob = jobCaptor.getValue();
         assertThat(capturedJob.getUser()).isEqualTo(user);
         assertThat(capturedJob.getSourcePlatform()).isEqualTo(Platform.SPOTIFY);
         assertThat(capturedJob.getSourcePlaylistId()).isEqualTo("playlist123");
-        assertThat(capturedJob.getSourcePlaylistName()).isEqualTo("Source Playlist");
+        assertThat(capturedJob.getSourcePlaylistName()).isNull();
         assertThat(capturedJob.getDestinationPlatform()).isEqualTo(Platform.NETEASE);
         assertThat(capturedJob.getDestinationPlaylistName()).isEqualTo("My Converted Playlist");
         assertThat(capturedJob.getMode()).isEqualTo(ConversionMode.CREATE);
         assertThat(capturedJob.getStatus()).isEqualTo(JobStatus.QUEUED);
-        assertThat(capturedJob.getTotalTracks()).isEqualTo(10);
+        assertThat(capturedJob.getTotalTracks()).isZero();
+        assertThat(capturedJob.getDedupKey()).isEqualTo("SPOTIFY:playlist123>NETEASE:CREATE:My Converted Playlist");
     }
 
     @Test
@@ -112,7 +116,7 @@ class ConversionServiceTest {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
         // When/Then
-        assertThatThrownBy(() -> conversionService.createJob(1L, request))
+        assertThatThrownBy(() -> conversionService.createJob(1L, request, null))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("User not found");
     }
@@ -123,7 +127,7 @@ class ConversionServiceTest {
         request.setDestinationPlaylistName(null);
 
         // When/Then
-        assertThatThrownBy(() -> conversionService.createJob(1L, request))
+        assertThatThrownBy(() -> conversionService.createJob(1L, request, null))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("destination playlist name is required");
     }
@@ -135,7 +139,7 @@ class ConversionServiceTest {
         request.setDestinationPlaylistId(null);
 
         // When/Then
-        assertThatThrownBy(() -> conversionService.createJob(1L, request))
+        assertThatThrownBy(() -> conversionService.createJob(1L, request, null))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("destination playlist ID is required");
     }
@@ -144,21 +148,13 @@ class ConversionServiceTest {
     void shouldPublishEventAfterJobCreation() {
         // Given
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(tokenEncryption.decrypt("encrypted-spotify-token")).thenReturn("decrypted-spotify-token");
-
-        SpotifyPlaylist sourcePlaylist = new SpotifyPlaylist();
-        sourcePlaylist.setId("playlist123");
-        sourcePlaylist.setName("Source Playlist");
-        sourcePlaylist.setTotalTracks(10);
-        when(spotifyService.getPlaylistById("decrypted-spotify-token", "playlist123"))
-                .thenReturn(sourcePlaylist);
 
         ConversionJob savedJob = new ConversionJob();
         savedJob.setId(1L);
-        when(jobRepository.save(any())).thenReturn(savedJob);
+        when(jobRepository.saveAndFlush(any())).thenReturn(savedJob);
 
         // When
-        conversionService.createJob(1L, request);
+        conversionService.createJob(1L, request, null);
 
         // Then
         ArgumentCaptor<ConversionJobCreatedEvent> eventCaptor = ArgumentCaptor.forClass(ConversionJobCreatedEvent.class);
@@ -167,4 +163,190 @@ class ConversionServiceTest {
         ConversionJobCreatedEvent event = eventCaptor.getValue();
         assertThat(event.getJobId()).isEqualTo(1L);
     }
+
+    @Test
+    void shouldEstimateJobSizeFromCachedPlaylistListing() {
+        // Given
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(playlistCache.cachedTrackCount(1L, Platform.SPOTIFY, "playlist123")).thenReturn(Optional.of(42));
+        when(jobRepository.saveAndFlush(any(ConversionJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        ConversionJob job = conversionService.createJob(1L, request, null).job();
+
+        // Then
+        assertThat(job.getEstimatedTracks()).isEqualTo(42);
+        assertThat(job.getClaimedBy()).isNull();
+    }
+
+    @Test
+    void shouldQueueUpdateJobWithoutContactingPlatforms() {
+        // Given
+        request.setMode(ConversionMode.UPDATE);
+        request.setDestinationPlaylistId("netease456");
+        request.setDestinationPlaylistName("Existing Playlist");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(jobRepository.saveAndFlush(any(ConversionJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        ConversionJob result = conversionService.createJob(1L, request, null).job();
+
+        // Then: the worker validates the playlists and fills in their details later
+        assertThat(result.getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(result.getDestinationPlaylistId()).isEqualTo("netease456");
+        assertThat(result.getDestinationPlaylistName()).isEqualTo("Existing Playlist");
+        assertThat(result.getSourcePlaylistName()).isNull();
+    }
+
+    @Test
+    void shouldReturnJobCreatedForSameIdempotencyKey() {
+        // Given
+        ConversionJob existing = new ConversionJob();
+        existing.setId(7L);
+        existing.setDedupKey(ConversionService.dedupKey(request, Platform.NETEASE));
+        when(jobRepository.findByUser_IdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.of(existing));
+
+        // When
+        ConversionService.Submission result = conversionService.createJob(1L, request, "key-1");
+
+        // Then
+        assertThat(result.created()).isFalse();
+        assertThat(result.job()).isSameAs(existing);
+        verify(jobRepository, never()).saveAndFlush(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldRejectIdempotencyKeyReusedForDifferentConversion() {
+        // Given
+        ConversionJob existing = new ConversionJob();
+        existing.setDedupKey("SPOTIFY:other>NETEASE:CREATE:Other");
+        when(jobRepository.findByUser_IdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.of(existing));
+
+        // When/Then
+        assertThatThrownBy(() -> conversionService.createJob(1L, request, "key-1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("different conversion");
+    }
+
+    @Test
+    void shouldReturnInFlightJobForSameConversion() {
+        // Given
+        ConversionJob inFlight = new ConversionJob();
+        inFlight.setId(7L);
+        when(jobRepository.findFirstByUser_IdAndDedupKeyAndStatusIn(
+                eq(1L), eq("SPOTIFY:playlist123>NETEASE:CREATE:My Converted Playlist"), anyCollection()))
+                .thenReturn(Optional.of(inFlight));
+
+        // When
+        ConversionService.Submission result = conversionService.createJob(1L, request, null);
+
+        // Then
+        assertThat(result.created()).isFalse();
+        assertThat(result.job()).isSameAs(inFlight);
+        verify(jobRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void shouldReturnConcurrentlyInsertedJobOnUniqueViolation() {
+        // Given: another replica queued the same conversion between the check and the insert
+        ConversionJob inserted = new ConversionJob();
+        inserted.setId(7L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(jobRepository.findFirstByUser_IdAndDedupKeyAndStatusIn(eq(1L), any(), anyCollection()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(inserted));
+        when(jobRepository.saveAndFlush(any(ConversionJob.class)))
+                .thenThrow(new DataIntegrityViolationException("uq_conversion_jobs_user_active_dedup"));
+
+        // When
+        ConversionService.Submission result = conversionService.createJob(1L, request, null);
+
+        // Then
+        assertThat(result.created()).isFalse();
+        assertThat(result.job()).isSameAs(inserted);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldQueueOneChildJobPerDistinctConversionOfBulk() {
+        // Given: the same conversion twice, plus one the user already has in flight
+        ConversionRequest update = ConversionRequest.builder()
+                .sourcePlatform(Platform.SPOTIFY)
+                .sourcePlaylistId("playlist456")
+                .mode(ConversionMode.UPDATE)
+                .destinationPlaylistId("netease-playlist")
+                .build();
+        ConversionRequest inFlight = ConversionRequest.builder()
+                .sourcePlatform(Platform.NETEASE)
+                .sourcePlaylistId("netease-source")
+                .mode(ConversionMode.CREATE)
+                .destinationPlaylistName("Copy")
+                .build();
+        BulkConversionRequest bulkRequest = BulkConversionRequest.builder()
+                .conversions(List.of(request, update, request, inFlight))
+                .build();
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(jobRepository.findFirstByUser_IdAndDedupKeyAndStatusIn(eq(1L), any(), anyCollection()))
+                .thenReturn(Optional.empty());
+        when(jobRepository.findFirstByUser_IdAndDedupKeyAndStatusIn(
+                eq(1L), eq(ConversionService.dedupKey(inFlight, Platform.SPOTIFY)), anyCollection()))
+                .thenReturn(Optional.of(new ConversionJob()));
+        when(bulkRepository.save(any(BulkConversion.class))).thenAnswer(invocation -> {
+            BulkConversion bulk = invocation.getArgument(0);
+            bulk.setId(10L);
+            return bulk;
+        });
+        when(jobRepository.saveAndFlush(any(ConversionJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        BulkConversion bulk = conversionService.createBulkJob(1L, bulkRequest);
+
+        // Then
+        assertThat(bulk.getTotalJobs()).isEqualTo(2);
+        assertThat(bulk.getStatus()).isEqualTo(JobStatus.QUEUED);
+
+        ArgumentCaptor<ConversionJob> jobCaptor = ArgumentCaptor.forClass(ConversionJob.class);
+        verify(jobRepository, times(2)).saveAndFlush(jobCaptor.capture());
+        assertThat(jobCaptor.getAllValues())
+                .extracting(ConversionJob::getSourcePlaylistId)
+                .containsExactly("playlist123", "playlist456");
+        assertThat(jobCaptor.getAllValues()).allSatisfy(job -> assertThat(job.getBulkConversion()).isSameAs(bulk));
+        verify(eventPublisher, times(2)).publishEvent(any(ConversionJobCreatedEvent.class));
+    }
+
+    @Test
+    void shouldRejectBulkWhenEveryConversionIsInFlight() {
+        // Given
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(jobRepository.findFirstByUser_IdAndDedupKeyAndStatusIn(eq(1L), any(), anyCollection()))
+                .thenReturn(Optional.of(new ConversionJob()));
+        BulkConversionRequest bulkRequest = BulkConversionRequest.builder()
+                .conversions(List.of(request))
+                .build();
+
+        // When/Then
+        assertThatThrownBy(() -> conversionService.createBulkJob(1L, bulkRequest))
+                .isInstanceOf(IllegalStateException.class);
+        verify(bulkRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldValidateEveryConversionBeforeQueuingBulk() {
+        // Given
+        ConversionRequest invalid = ConversionRequest.builder()
+                .sourcePlatform(Platform.SPOTIFY)
+                .sourcePlaylistId("playlist456")
+                .mode(ConversionMode.UPDATE)
+                .build();
+        BulkConversionRequest bulkRequest = BulkConversionRequest.builder()
+                .conversions(List.of(request, invalid))
+                .build();
+
+        // When/Then
+        assertThatThrownBy(() -> conversionService.createBulkJob(1L, bulkRequest))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(jobRepository, never()).saveAndFlush(any());
+    }
 }
@@ -0,0 +1,72 @@
+package com.spotease.service;
+
+import com.spotease.util.TokenEncryption;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CredentialProviderTest {
+
+    @Mock
+    private TokenEncryption tokenEncryption;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CredentialProvider credentialProvider;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        credentialProvider = new CredentialProvider(tokenEncryption, meterRegistry, Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void shouldDecryptEachCiphertextOnce() {
+        when(tokenEncryption.decrypt("cipher-a")).thenReturn("plain-a");
+
+        assertThat(credentialProvider.decrypt("cipher-a")).isEqualTo("plain-a");
+        assertThat(credentialProvider.decrypt("cipher-a")).isEqualTo("plain-a");
+
+        verify(tokenEncryption, times(1)).decrypt("cipher-a");
+        assertThat(meterRegistry.get("spotease.credentials.decrypt").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDecryptAgainAfterInvalidate() {
+        when(tokenEncryption.decrypt("cipher-a")).thenReturn("plain-a");
+
+        credentialProvider.decrypt("cipher-a");
+        credentialProvider.invalidate("cipher-a");
+        credentialProvider.decrypt("cipher-a");
+
+        verify(tokenEncryption, times(2)).decrypt("cipher-a");
+        assertThat(meterRegistry.get("spotease.credentials.invalidations").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheFailedDecryption() {
+        when(tokenEncryption.decrypt("bad")).thenThrow(new RuntimeException("Decryption failed"));
+
+        assertThatThrownBy(() -> credentialProvider.decrypt("bad")).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> credentialProvider.decrypt("bad")).isInstanceOf(RuntimeException.class);
+
+        verify(tokenEncryption, times(2)).decrypt("bad");
+    }
+
+    @Test
+    void shouldRejectEmptyCiphertext() {
+        assertThatThrownBy(() -> credentialProvider.decrypt(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> credentialProvider.decrypt("")).isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(tokenEncryption);
+    }
+}
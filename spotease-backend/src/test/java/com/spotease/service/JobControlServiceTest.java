@@ -0,0 +1,208 @@
+package com.spotease.service;
+
+import com.spotease.event.ConversionJobCreatedEvent;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.JobControlRequest;
+import com.spotease.model.JobStatus;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.JobControlRequestRepository;
+import com.spotease.repository.JobHeartbeatRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobControlServiceTest {
+
+    @Mock
+    private ConversionJobRepository jobRepository;
+
+    @Mock
+    private JobControlRequestRepository controlRepository;
+
+    @Mock
+    private JobHeartbeatRepository heartbeatRepository;
+
+    @Mock
+    private ProgressPublisher progressPublisher;
+
+    @Mock
+    private BulkConversionService bulkConversionService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private JobControlService jobControlService;
+
+    @Test
+    void shouldCancelQueuedJobAtOnce() {
+        // Given
+        ConversionJob job = job(JobStatus.CANCELLED);
+        when(jobRepository.transitionUnclaimed(eq(1L), anyCollection(), eq(JobStatus.CANCELLED), any())).thenReturn(1);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+
+        // When
+        JobControlService.StopResult result = jobControlService.cancel(1L);
+
+        // Then
+        assertThat(result.stopped()).isTrue();
+        verify(progressPublisher).jobStatusChanged(job);
+        verify(bulkConversionService).jobFinished(job);
+        verify(controlRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldAskRunningWorkerToPause() {
+        // Given: the job runs on this replica
+        JobCancellation cancellation = jobControlService.register(1L);
+        when(jobRepository.transitionUnclaimed(eq(1L), anyCollection(), eq(JobStatus.PAUSED), any())).thenReturn(0);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job(JobStatus.PROCESSING)));
+
+        // When
+        JobControlService.StopResult result = jobControlService.pause(1L);
+
+        // Then
+        assertThat(result.stopped()).isFalse();
+        assertThat(cancellation.requestedStatus()).isEqualTo(JobStatus.PAUSED);
+        ArgumentCaptor<JobControlRequest> request = ArgumentCaptor.forClass(JobControlRequest.class);
+        verify(controlRepository).save(request.capture());
+        assertThat(request.getValue().getJobId()).isEqualTo(1L);
+        assertThat(request.getValue().getRequestedStatus()).isEqualTo(JobStatus.PAUSED);
+    }
+
+    @Test
+    void shouldNotDowngradeCancelToPause() {
+        // Given
+        JobControlRequest cancel = new JobControlRequest();
+        cancel.setJobId(1L);
+        cancel.setRequestedStatus(JobStatus.CANCELLED);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job(JobStatus.PROCESSING)));
+        when(controlRepository.findById(1L)).thenReturn(Optional.of(cancel));
+
+        // When
+        jobControlService.pause(1L);
+
+        // Then
+        assertThat(cancel.getRequestedStatus()).isEqualTo(JobStatus.CANCELLED);
+    }
+
+    @Test
+    void shouldRequeueRunningJobsWithoutOverridingUserStop() {
+        // Given: two jobs run here, one of them already asked to pause
+        JobCancellation running = jobControlService.register(1L);
+        JobCancellation pausing = jobControlService.register(2L);
+        pausing.request(JobStatus.PAUSED);
+
+        // When
+        int asked = jobControlService.requeueRunningJobs();
+
+        // Then
+        assertThat(asked).isEqualTo(2);
+        assertThat(running.requestedStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(pausing.requestedStatus()).isEqualTo(JobStatus.PAUSED);
+    }
+
+    @Test
+    void shouldKeepFinishedJobRunningUntilItsTransactionEnds() {
+        // Given: the worker's transaction is still open
+        jobControlService.register(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            jobControlService.finished(1L);
+
+            // Then
+            assertThat(jobControlService.runningJobs()).containsKey(1L);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertThat(jobControlService.runningJobs()).isEmpty();
+            verify(controlRepository).deleteByJobId(1L);
+            verify(heartbeatRepository).deleteByJobId(1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldRejectStoppingFinishedJob() {
+        // Given
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job(JobStatus.COMPLETED)));
+
+        // When/Then
+        assertThatThrownBy(() -> jobControlService.cancel(1L))
+                .isInstanceOf(IllegalStateException.class);
+        verify(controlRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldRequeuePausedJobOnResume() {
+        // Given
+        ConversionJob job = job(JobStatus.QUEUED);
+        when(jobRepository.transitionUnclaimed(eq(1L), anyCollection(), eq(JobStatus.QUEUED), any())).thenReturn(1);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+
+        // When
+        ConversionJob resumed = jobControlService.resume(1L);
+
+        // Then
+        assertThat(resumed).isSameAs(job);
+        verify(controlRepository).deleteByJobId(1L);
+        verify(eventPublisher).publishEvent(any(ConversionJobCreatedEvent.class));
+    }
+
+    @Test
+    void shouldRejectResumingJobThatIsNotPaused() {
+        // Given
+        when(jobRepository.transitionUnclaimed(eq(1L), anyCollection(), eq(JobStatus.QUEUED), any())).thenReturn(0);
+
+        // When/Then
+        assertThatThrownBy(() -> jobControlService.resume(1L))
+                .isInstanceOf(IllegalStateException.class);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldDeliverRequestsFromOtherReplicas() {
+        // Given
+        JobCancellation cancellation = jobControlService.register(1L);
+        JobControlRequest cancel = new JobControlRequest();
+        cancel.setJobId(1L);
+        cancel.setRequestedStatus(JobStatus.CANCELLED);
+        when(controlRepository.findAllById(anyCollection())).thenReturn(List.of(cancel));
+
+        // When
+        jobControlService.pollRequests();
+
+        // Then
+        assertThat(cancellation.isCancelled()).isTrue();
+        assertThatThrownBy(() -> cancellation.abortable(() -> "search"))
+                .isInstanceOf(CancellationException.class);
+    }
+
+    private static ConversionJob job(JobStatus status) {
+        ConversionJob job = new ConversionJob();
+        job.setId(1L);
+        job.setStatus(status);
+        job.setProcessedTracks(0);
+        job.setTotalTracks(10);
+        return job;
+    }
+}
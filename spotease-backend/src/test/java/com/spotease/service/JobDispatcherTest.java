@@ -0,0 +1,225 @@
+package com.spotease.service;
+
+import com.spotease.model.ConversionJob;
+import com.spotease.model.JobStatus;
+import com.spotease.model.Platform;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.QueuedJob;
+import com.spotease.worker.ConversionWorker;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobDispatcherTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Mock
+    private ConversionJobRepository jobRepository;
+
+    @Mock
+    private ConversionWorker conversionWorker;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private JobDispatcher jobDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        jobDispatcher = new JobDispatcher(jobRepository, conversionWorker, jdbcTemplate, transactionManager, "replica-1");
+        ReflectionTestUtils.setField(jobDispatcher, "workerThreads", 5);
+        ReflectionTestUtils.setField(jobDispatcher, "maxJobsPerUser", 2);
+        ReflectionTestUtils.setField(jobDispatcher, "maxJobsPerPlatform", 10);
+        ReflectionTestUtils.setField(jobDispatcher, "defaultJobTracks", 200);
+    }
+
+    @Test
+    void shouldRunOtherUsersAndSmallJobsBeforeOneUsersBacklog() {
+        // Given: user 1 has a large job running and three more queued first; user 2 queues later
+        List<QueuedJob> running = List.of(job(10L, 1L, Platform.NETEASE, 3000, 0));
+        List<QueuedJob> queued = List.of(
+                job(11L, 1L, Platform.NETEASE, 3000, 1),
+                job(12L, 1L, Platform.NETEASE, 3000, 2),
+                job(13L, 1L, Platform.NETEASE, 20, 3),
+                job(21L, 2L, Platform.NETEASE, 500, 4),
+                job(22L, 2L, Platform.NETEASE, 50, 5));
+
+        // When
+        List<QueuedJob> order = jobDispatcher.fairOrder(queued, running);
+
+        // Then: user 2's jobs smallest first, then user 1's small job ahead of its large ones
+        assertThat(order).extracting(QueuedJob::id).containsExactly(22L, 21L, 13L, 11L, 12L);
+    }
+
+    @Test
+    void shouldCostJobsOfUnknownSizeAsDefault() {
+        // Given
+        List<QueuedJob> queued = List.of(
+                job(1L, 1L, Platform.NETEASE, null, 0),
+                job(2L, 2L, Platform.NETEASE, 150, 1),
+                job(3L, 3L, Platform.NETEASE, 250, 2));
+
+        // When
+        List<QueuedJob> order = jobDispatcher.fairOrder(queued, List.of());
+
+        // Then
+        assertThat(order).extracting(QueuedJob::id).containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    void shouldClaimWithinFreeWorkersAndPerUserCap() {
+        // Given: two free workers here, and user 1 already at the cap of one running job
+        ReflectionTestUtils.setField(jobDispatcher, "maxJobsPerUser", 1);
+        when(jobRepository.countByClaimedByAndStatusIn(eq("replica-1"), anyCollection())).thenReturn(3L);
+        when(jobRepository.findClaimed(anyCollection()))
+                .thenReturn(List.of(job(10L, 1L, Platform.NETEASE, 100, 0)));
+        when(jobRepository.findUnclaimed(eq(JobStatus.QUEUED), any())).thenReturn(List.of(
+                job(11L, 1L, Platform.NETEASE, 10, 1),
+                job(21L, 2L, Platform.NETEASE, 100, 2),
+                job(22L, 2L, Platform.NETEASE, 100, 3),
+                job(31L, 3L, Platform.NETEASE, 100, 4)));
+        when(jobRepository.claim(anyLong(), eq(JobStatus.QUEUED), eq("replica-1"), any())).thenReturn(1);
+
+        // When
+        int started = jobDispatcher.dispatch();
+
+        // Then: one job each for users 2 and 3, nothing more for user 1
+        assertThat(started).isEqualTo(2);
+        verify(conversionWorker).processConversionJob(21L);
+        verify(conversionWorker).processConversionJob(31L);
+        verify(jobRepository, never()).claim(eq(11L), any(), any(), any());
+        verify(jobRepository, never()).claim(eq(22L), any(), any(), any());
+    }
+
+    @Test
+    void shouldRespectPerPlatformCap() {
+        // Given
+        ReflectionTestUtils.setField(jobDispatcher, "maxJobsPerPlatform", 1);
+        when(jobRepository.findClaimed(anyCollection()))
+                .thenReturn(List.of(job(10L, 1L, Platform.SPOTIFY, 100, 0)));
+        when(jobRepository.findUnclaimed(eq(JobStatus.QUEUED), any())).thenReturn(List.of(
+                job(21L, 2L, Platform.SPOTIFY, 10, 1),
+                job(31L, 3L, Platform.NETEASE, 100, 2)));
+        when(jobRepository.claim(anyLong(), eq(JobStatus.QUEUED), eq("replica-1"), any())).thenReturn(1);
+
+        // When
+        jobDispatcher.dispatch();
+
+        // Then
+        verify(conversionWorker).processConversionJob(31L);
+        verify(conversionWorker, never()).processConversionJob(21L);
+    }
+
+    @Test
+    void shouldNotStartJobClaimedByAnotherReplica() {
+        // Given
+        when(jobRepository.findUnclaimed(eq(JobStatus.QUEUED), any()))
+                .thenReturn(List.of(job(21L, 2L, Platform.NETEASE, 100, 1)));
+        when(jobRepository.claim(eq(21L), eq(JobStatus.QUEUED), eq("replica-1"), any())).thenReturn(0);
+
+        // When
+        int started = jobDispatcher.dispatch();
+
+        // Then
+        assertThat(started).isZero();
+        verify(conversionWorker, never()).processConversionJob(anyLong());
+    }
+
+    @Test
+    void shouldReleaseJobWhenWorkerPoolRejectsIt() {
+        // Given
+        when(jobRepository.findUnclaimed(eq(JobStatus.QUEUED), any()))
+                .thenReturn(List.of(job(21L, 2L, Platform.NETEASE, 100, 1)));
+        when(jobRepository.claim(eq(21L), eq(JobStatus.QUEUED), eq("replica-1"), any())).thenReturn(1);
+        doThrow(new TaskRejectedException("full")).when(conversionWorker).processConversionJob(21L);
+
+        // When
+        jobDispatcher.dispatch();
+
+        // Then
+        verify(jobRepository).release(21L, "replica-1");
+    }
+
+    @Test
+    void shouldClaimNothingOnceShuttingDown() {
+        // Given
+        jobDispatcher.stopClaiming();
+
+        // When
+        int started = jobDispatcher.dispatch();
+
+        // Then
+        assertThat(started).isZero();
+        verifyNoInteractions(jobRepository, conversionWorker);
+    }
+
+    @Test
+    void shouldReportQueuePositionOnlyWhileWaiting() {
+        // Given
+        when(jobRepository.findClaimed(anyCollection())).thenReturn(List.of());
+        when(jobRepository.findUnclaimed(eq(JobStatus.QUEUED), any())).thenReturn(List.of(
+                job(11L, 1L, Platform.NETEASE, 3000, 1),
+                job(21L, 2L, Platform.NETEASE, 50, 2)));
+        ConversionJob waiting = new ConversionJob();
+        waiting.setId(11L);
+        waiting.setStatus(JobStatus.QUEUED);
+        ConversionJob claimed = new ConversionJob();
+        claimed.setId(12L);
+        claimed.setStatus(JobStatus.QUEUED);
+        claimed.setClaimedBy("replica-2");
+
+        // When/Then
+        assertThat(jobDispatcher.queuePosition(waiting)).isEqualTo(2);
+        assertThat(jobDispatcher.queuePosition(claimed)).isNull();
+    }
+
+    @Test
+    void shouldRefuseToStartWithoutTwoConnectionsPerJob() {
+        // Given: 20 virtual-thread jobs on a pool of 30 connections
+        ReflectionTestUtils.setField(jobDispatcher, "virtualThreads", true);
+        ReflectionTestUtils.setField(jobDispatcher, "maxVirtualJobs", 20);
+        when(jdbcTemplate.getDataSource()).thenReturn(pool(30));
+
+        // When/Then
+        assertThatThrownBy(jobDispatcher::checkConnectionHeadroom)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("at least 40");
+
+        ReflectionTestUtils.setField(jobDispatcher, "maxVirtualJobs", 15);
+        assertThatCode(jobDispatcher::checkConnectionHeadroom).doesNotThrowAnyException();
+    }
+
+    private static HikariDataSource pool(int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        return dataSource;
+    }
+
+    private static QueuedJob job(Long id, Long userId, Platform destination, Integer tracks, int minutesAfterT0) {
+        return new QueuedJob(id, userId, destination, tracks, T0.plusMinutes(minutesAfterT0));
+    }
+}
@@ -0,0 +1,245 @@
+package com.spotease.service;
+
+import com.spotease.event.ConversionJobCreatedEvent;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.ConversionMode;
+import com.spotease.model.JobControlRequest;
+import com.spotease.model.JobHeartbeat;
+import com.spotease.model.JobStatus;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.JobControlRequestRepository;
+import com.spotease.repository.JobHeartbeatRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobHeartbeatServiceTest {
+
+    @Mock
+    private ConversionJobRepository jobRepository;
+
+    @Mock
+    private JobHeartbeatRepository heartbeatRepository;
+
+    @Mock
+    private JobControlRequestRepository controlRepository;
+
+    @Mock
+    private JobControlService jobControlService;
+
+    @Mock
+    private ProgressPublisher progressPublisher;
+
+    @Mock
+    private BulkConversionService bulkConversionService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JobDispatcher jobDispatcher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private JobHeartbeatService heartbeatService;
+
+    @BeforeEach
+    void setUp() {
+        when(jobDispatcher.getInstanceId()).thenReturn("replica-1");
+        heartbeatService = new JobHeartbeatService(jobRepository, heartbeatRepository, controlRepository,
+                jobControlService, progressPublisher, bulkConversionService, eventPublisher, jdbcTemplate,
+                jobDispatcher, meterRegistry);
+    }
+
+    @Test
+    void shouldBeatOnlyForJobsThatMadeProgress() {
+        // Given: job 1 is working, job 2's worker has been silent for ten minutes
+        JobCancellation silent = new JobCancellation();
+        ReflectionTestUtils.setField(silent, "lastActivity", Instant.now().minusSeconds(600));
+        when(jobControlService.runningJobs()).thenReturn(Map.of(1L, new JobCancellation(), 2L, silent));
+        when(heartbeatRepository.beat(eq(List.of(1L)), eq("replica-1"), any())).thenReturn(0);
+        when(heartbeatRepository.findAllById(List.of(1L))).thenReturn(List.of());
+
+        // When
+        int beats = heartbeatService.beat();
+
+        // Then: job 1 gets its first heartbeat, job 2 none
+        assertThat(beats).isEqualTo(1);
+        ArgumentCaptor<JobHeartbeat> heartbeat = ArgumentCaptor.forClass(JobHeartbeat.class);
+        verify(heartbeatRepository).save(heartbeat.capture());
+        assertThat(heartbeat.getValue().getJobId()).isEqualTo(1L);
+        assertThat(heartbeat.getValue().getInstanceId()).isEqualTo("replica-1");
+    }
+
+    @Test
+    void shouldBeatForJobInsideLongPlatformCall() throws Exception {
+        // Given: the worker entered a platform call ten minutes ago and is still waiting on it
+        JobCancellation calling = new JobCancellation();
+        CountDownLatch inCall = new CountDownLatch(1);
+        CountDownLatch finishCall = new CountDownLatch(1);
+        CompletableFuture<Boolean> call = CompletableFuture.supplyAsync(() -> calling.abortable(() -> {
+            inCall.countDown();
+            try {
+                return finishCall.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertThat(inCall.await(5, TimeUnit.SECONDS)).isTrue();
+        ReflectionTestUtils.setField(calling, "lastActivity", Instant.now().minusSeconds(600));
+        when(jobControlService.runningJobs()).thenReturn(Map.of(1L, calling));
+        when(heartbeatRepository.beat(eq(List.of(1L)), eq("replica-1"), any())).thenReturn(1);
+
+        // When
+        int beats = heartbeatService.beat();
+        finishCall.countDown();
+
+        // Then
+        assertThat(beats).isEqualTo(1);
+        assertThat(call.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldRequeueDeadUpdateJobAndCountStalledOne() {
+        // Given: job 1's replica died; job 2 is stale but runs here; job 3's worker still holds its row
+        ConversionJob job = job(1L, ConversionMode.UPDATE);
+        when(jobRepository.findStaleClaims(anyCollection(), any())).thenReturn(List.of(1L, 2L, 3L));
+        when(jobControlService.runningJobs()).thenReturn(Map.of(2L, new JobCancellation()));
+        when(jobRepository.lockUnheld(List.of(1L, 3L))).thenReturn(List.of(1L));
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(heartbeatRepository.findById(1L)).thenReturn(Optional.of(heartbeat(1L)));
+
+        // When
+        int reaped = heartbeatService.reapStuckJobs();
+
+        // Then
+        assertThat(reaped).isEqualTo(1);
+        assertThat(job.getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(job.getClaimedBy()).isNull();
+        assertThat(job.getRecoveryAttempts()).isEqualTo(1);
+        verify(progressPublisher).jobStatusChanged(job);
+        verify(eventPublisher).publishEvent(any(ConversionJobCreatedEvent.class));
+        verify(heartbeatRepository).deleteByJobId(1L);
+        assertThat(meterRegistry.get("spotease.jobs.stuck").tag("state", "dead").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("spotease.jobs.stuck").tag("state", "stalled").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("spotease.jobs.reaped").tag("outcome", "requeued").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRequeueCreateJobWhoseWorkerNeverStarted() {
+        // Given: claimed, but no heartbeat was ever written
+        ConversionJob job = job(1L, ConversionMode.CREATE);
+        givenDeadJob(job);
+        when(heartbeatRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // When
+        heartbeatService.reapStuckJobs();
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(JobStatus.QUEUED);
+    }
+
+    @Test
+    void shouldFailCreateJobThatDiedMidway() {
+        // Given: rerunning it could add its tracks to the destination twice
+        ConversionJob job = job(1L, ConversionMode.CREATE);
+        givenDeadJob(job);
+        when(heartbeatRepository.findById(1L)).thenReturn(Optional.of(heartbeat(1L)));
+
+        // When
+        heartbeatService.reapStuckJobs();
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(JobStatus.FAILED);
+        assertThat(job.getFailureReason()).contains("Worker stopped responding", "replica-2");
+        verify(progressPublisher).jobFailed(job, job.getFailureReason());
+        verify(bulkConversionService).jobFinished(job);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldFailJobThatUsedUpItsRequeues() {
+        // Given
+        ConversionJob job = job(1L, ConversionMode.UPDATE);
+        job.setRecoveryAttempts(2);
+        givenDeadJob(job);
+        when(heartbeatRepository.findById(1L)).thenReturn(Optional.of(heartbeat(1L)));
+
+        // When
+        heartbeatService.reapStuckJobs();
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(JobStatus.FAILED);
+    }
+
+    @Test
+    void shouldApplyCancelRequestedWhileWorkerWasGone() {
+        // Given
+        ConversionJob job = job(1L, ConversionMode.UPDATE);
+        givenDeadJob(job);
+        JobControlRequest request = new JobControlRequest();
+        request.setJobId(1L);
+        request.setRequestedStatus(JobStatus.CANCELLED);
+        when(controlRepository.findById(1L)).thenReturn(Optional.of(request));
+
+        // When
+        heartbeatService.reapStuckJobs();
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(JobStatus.CANCELLED);
+        verify(controlRepository).deleteByJobId(1L);
+        verify(bulkConversionService).jobFinished(job);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    private void givenDeadJob(ConversionJob job) {
+        when(jobRepository.findStaleClaims(anyCollection(), any())).thenReturn(List.of(job.getId()));
+        when(jobControlService.runningJobs()).thenReturn(Map.of());
+        when(jobRepository.lockUnheld(List.of(job.getId()))).thenReturn(List.of(job.getId()));
+        when(jobRepository.findById(job.getId())).thenReturn(Optional.of(job));
+    }
+
+    private static JobHeartbeat heartbeat(Long jobId) {
+        JobHeartbeat heartbeat = new JobHeartbeat();
+        heartbeat.setJobId(jobId);
+        heartbeat.setInstanceId("replica-2");
+        heartbeat.setBeatAt(LocalDateTime.now().minusMinutes(5));
+        return heartbeat;
+    }
+
+    private static ConversionJob job(Long id, ConversionMode mode) {
+        ConversionJob job = new ConversionJob();
+        job.setId(id);
+        job.setMode(mode);
+        job.setStatus(JobStatus.QUEUED);
+        job.setClaimedBy("replica-2");
+        job.setClaimedAt(LocalDateTime.now().minusMinutes(10));
+        return job;
+    }
+}
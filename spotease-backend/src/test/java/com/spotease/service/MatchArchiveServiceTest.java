@@ -0,0 +1,158 @@
+package com.spotease.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotease.dto.TrackMatchDto;
+import com.spotease.model.MatchStatus;
+import com.spotease.model.TrackMatchArchive;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.TrackMatchArchiveRepository;
+import com.spotease.repository.TrackMatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MatchArchiveServiceTest {
+
+    @Mock
+    private ConversionJobRepository jobRepository;
+
+    @Mock
+    private TrackMatchRepository matchRepository;
+
+    @Mock
+    private TrackMatchArchiveRepository archiveRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TrackMatchPartitionService partitionService;
+
+    private MatchArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        archiveService = new MatchArchiveService(jobRepository, matchRepository, archiveRepository,
+                new ObjectMapper(), new TransactionTemplate(transactionManager), partitionService);
+        ReflectionTestUtils.setField(archiveService, "retentionDays", 30);
+        ReflectionTestUtils.setField(archiveService, "batchSize", 2);
+        ReflectionTestUtils.setField(archiveService, "jobsPerRun", 10);
+    }
+
+    @Test
+    void shouldArchiveMatchesAndReadThemBack() {
+        // Given
+        when(matchRepository.findDtosByJobId(1L)).thenReturn(List.of(
+                match(1L, MatchStatus.AUTO_MATCHED),
+                match(2L, MatchStatus.FAILED),
+                match(3L, MatchStatus.USER_SKIPPED),
+                match(4L, MatchStatus.FAILED)));
+
+        // When
+        archiveService.archiveJob(1L);
+
+        // Then
+        ArgumentCaptor<TrackMatchArchive> captor = ArgumentCaptor.forClass(TrackMatchArchive.class);
+        verify(archiveRepository).save(captor.capture());
+        TrackMatchArchive archive = captor.getValue();
+        assertThat(archive.getConversionJobId()).isEqualTo(1L);
+        assertThat(archive.getMatchCount()).isEqualTo(4);
+        verify(jobRepository).markArchived(eq(1L), any());
+
+        when(archiveRepository.findById(1L)).thenReturn(Optional.of(archive));
+        List<TrackMatchDto> page = archiveService.findArchivedMatches(1L, List.of(MatchStatus.FAILED), 2L, 10);
+        assertThat(page).extracting(TrackMatchDto::getMatchId).containsExactly(4L);
+        assertThat(page.get(0).getSourceTrackName()).isEqualTo("Track 4");
+    }
+
+    @Test
+    void shouldReturnEmptyPageWhenArchiveIsMissing() {
+        when(archiveRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThat(archiveService.findArchivedMatches(1L, List.of(MatchStatus.FAILED), 0L, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldDeleteHotMatchesInBatchesUntilExhausted() {
+        // Given: batch size is 2
+        when(matchRepository.deleteBatchByJobId(1L, 2)).thenReturn(2, 2, 1);
+
+        // When
+        long deleted = archiveService.deleteHotMatches(1L);
+
+        // Then
+        assertThat(deleted).isEqualTo(5);
+        verify(matchRepository, times(3)).deleteBatchByJobId(1L, 2);
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void shouldArchiveExpiredJobsAndSkipFailures() {
+        // Given
+        when(jobRepository.findArchivableJobIds(any(), any(), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(matchRepository.findDtosByJobId(1L)).thenReturn(List.of(match(1L, MatchStatus.AUTO_MATCHED)));
+        when(matchRepository.findDtosByJobId(2L)).thenThrow(new RuntimeException("boom"));
+        when(matchRepository.deleteBatchByJobId(1L, 2)).thenReturn(1);
+
+        // When
+        int archived = archiveService.archiveExpiredJobs();
+
+        // Then
+        assertThat(archived).isEqualTo(1);
+        verify(matchRepository).deleteBatchByJobId(1L, 2);
+        verify(matchRepository, never()).deleteBatchByJobId(eq(2L), anyInt());
+        verify(partitionService).dropArchivedPartitions();
+    }
+
+    @Test
+    void shouldDeleteLeftoverHotMatchesOfArchivedJobs() {
+        // Given: job 3 was archived by a run that stopped before deleting its hot rows
+        when(jobRepository.findArchivedJobIdsWithHotMatches(any(Pageable.class))).thenReturn(List.of(3L), List.of());
+        when(matchRepository.deleteBatchByJobId(3L, 2)).thenReturn(2, 1);
+
+        // When
+        long deleted = archiveService.deleteLeftoverHotMatches();
+
+        // Then
+        assertThat(deleted).isEqualTo(3);
+        verify(matchRepository, times(2)).deleteBatchByJobId(3L, 2);
+        verify(jobRepository, never()).findArchivableJobIds(any(), any(), any(Pageable.class));
+    }
+
+    @Test
+    void shouldDeleteMatchesBeforeJob() {
+        when(matchRepository.deleteBatchByJobId(1L, 2)).thenReturn(0);
+
+        archiveService.deleteJob(1L);
+
+        var inOrder = inOrder(matchRepository, jobRepository);
+        inOrder.verify(matchRepository).deleteBatchByJobId(1L, 2);
+        inOrder.verify(jobRepository).deleteJobById(1L);
+    }
+
+    private TrackMatchDto match(Long id, MatchStatus status) {
+        return TrackMatchDto.builder()
+                .matchId(id)
+                .sourceTrackId("track-" + id)
+                .sourceTrackName("Track " + id)
+                .sourceArtist("Artist")
+                .status(status)
+                .build();
+    }
+}
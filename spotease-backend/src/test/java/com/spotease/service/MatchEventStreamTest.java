@@ -0,0 +1,121 @@
+package com.spotease.service;
+
+import com.spotease.dto.MatchEvent;
+import com.spotease.dto.MatchEventSnapshot;
+import com.spotease.dto.TrackMatchDto;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.MatchStatus;
+import com.spotease.model.TrackMatch;
+import com.spotease.repository.TrackMatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MatchEventStreamTest {
+
+    @Mock
+    private TrackMatchRepository trackMatchRepository;
+
+    @Mock
+    private MatchArchiveService matchArchiveService;
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    @InjectMocks
+    private MatchEventStream matchEventStream;
+
+    private ConversionJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new ConversionJob();
+        job.setId(1L);
+    }
+
+    @Test
+    void shouldPublishSequencedEventsAndServeThemAsSnapshot() {
+        // Given
+        matchEventStream.open(1L);
+
+        // When
+        matchEventStream.publish(job, match(10L, MatchStatus.AUTO_MATCHED, 0.95));
+        matchEventStream.publish(job, match(11L, MatchStatus.PENDING_REVIEW, 0.7));
+
+        // Then
+        verify(webSocketService, times(2)).sendMatchEvent(eq(job), any(MatchEvent.class));
+
+        MatchEventSnapshot snapshot = matchEventStream.snapshot(job);
+        assertThat(snapshot.isLive()).isTrue();
+        assertThat(snapshot.getLastSequence()).isEqualTo(2L);
+        assertThat(snapshot.getEvents()).extracting(MatchEvent::getMatchId).containsExactly(10L, 11L);
+        assertThat(snapshot.getEvents()).extracting(MatchEvent::getSequence).containsExactly(1L, 2L);
+        assertThat(snapshot.getEvents().get(1).getStatus()).isEqualTo(MatchStatus.PENDING_REVIEW);
+        verifyNoInteractions(trackMatchRepository);
+    }
+
+    @Test
+    void shouldReadSnapshotFromDatabaseAfterJobCloses() {
+        // Given
+        matchEventStream.open(1L);
+        matchEventStream.publish(job, match(10L, MatchStatus.AUTO_MATCHED, 0.95));
+        matchEventStream.close(1L);
+        when(trackMatchRepository.findEventsByJobId(1L))
+                .thenReturn(List.of(new MatchEvent(10L, "track-10", MatchStatus.AUTO_MATCHED, 0.95)));
+
+        // When
+        MatchEventSnapshot snapshot = matchEventStream.snapshot(job);
+
+        // Then
+        assertThat(snapshot.isLive()).isFalse();
+        assertThat(snapshot.getEvents()).extracting(MatchEvent::getMatchId).containsExactly(10L);
+    }
+
+    @Test
+    void shouldReadSnapshotFromArchiveForArchivedJob() {
+        // Given
+        job.setArchivedAt(LocalDateTime.now());
+        when(matchArchiveService.findArchivedMatches(eq(1L), anyList(), anyLong(), anyInt()))
+                .thenReturn(List.of(TrackMatchDto.builder()
+                        .matchId(10L)
+                        .sourceTrackId("track-10")
+                        .status(MatchStatus.USER_APPROVED)
+                        .matchConfidence(0.8)
+                        .build()));
+
+        // When
+        MatchEventSnapshot snapshot = matchEventStream.snapshot(job);
+
+        // Then
+        assertThat(snapshot.getEvents()).singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getMatchId()).isEqualTo(10L);
+                    assertThat(event.getStatus()).isEqualTo(MatchStatus.USER_APPROVED);
+                });
+        verifyNoInteractions(trackMatchRepository);
+    }
+
+    private TrackMatch match(Long id, MatchStatus status, double confidence) {
+        TrackMatch match = new TrackMatch();
+        match.setId(id);
+        match.setSourceTrackId("track-" + id);
+        match.setStatus(status);
+        match.setMatchConfidence(confidence);
+        return match;
+    }
+}
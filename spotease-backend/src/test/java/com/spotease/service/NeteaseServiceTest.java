@@ -1,5 +1,6 @@
 package com.spotease.service;
 
+import com.spotease.exception.NeteaseSessionExpiredException;
 import com.spotease.dto.netease.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,7 +14,9 @@ import org.springframework.web.util.UriBuilder;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -49,6 +52,7 @@ class NeteaseServiceTest {
         // Inject the mocked WebClient directly to avoid calling @PostConstruct
         ReflectionTestUtils.setField(neteaseService, "neteaseApiUrl", "http://localhost:3000");
         ReflectionTestUtils.setField(neteaseService, "webClient", webClient);
+        ReflectionTestUtils.setField(neteaseService, "requestTimeout", Duration.ofSeconds(20));
     }
 
     @Test
@@ -107,6 +111,39 @@ class NeteaseServiceTest {
         verify(requestHeadersSpec, times(2)).header("Cookie", cookie);
     }
 
+    @Test
+    void shouldSkipAccountCallWhenAccountIdIsCached() {
+        // Given
+        String cookie = "test-cookie";
+
+        NeteaseResponse<Void> accountResponse = new NeteaseResponse<>();
+        accountResponse.setCode(200);
+        NeteaseUserProfile profile = new NeteaseUserProfile();
+        profile.setUserId(123L);
+        accountResponse.setProfile(profile);
+
+        NeteaseResponse<Void> playlistResponse = new NeteaseResponse<>();
+        playlistResponse.setCode(200);
+        playlistResponse.setPlaylist(List.of());
+
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(anyString())).thenReturn(requestHeadersSpec);
+        when(requestHeadersUriSpec.uri(any(Function.class))).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.header(anyString(), anyString())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.just(accountResponse))
+                .thenReturn(Mono.just(playlistResponse));
+
+        // When
+        neteaseService.getPlaylists(cookie);
+        neteaseService.getPlaylists(cookie);
+
+        // Then: one account call, two playlist calls
+        verify(requestHeadersUriSpec, times(1)).uri("/user/account");
+        verify(webClient, times(3)).get();
+    }
+
     @Test
     void shouldThrowExceptionWhenAccountResponseIsNull() {
         // Given
@@ -336,6 +373,42 @@ class NeteaseServiceTest {
         verify(requestHeadersSpec).header("Cookie", cookie);
     }
 
+    @Test
+    void shouldPassSessionExpiryThroughAsyncSearch() {
+        // Given
+        NeteaseResponse<Void> response = new NeteaseResponse<>();
+        response.setCode(301);
+
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(any(Function.class))).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.header(anyString(), anyString())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.just(response));
+
+        // When / Then
+        assertThatThrownBy(() -> neteaseService.searchTrackAsync("test-cookie", "test song").block())
+                .isInstanceOf(NeteaseSessionExpiredException.class);
+    }
+
+    @Test
+    void shouldFailAsyncSearchAfterRequestTimeout() {
+        // Given: the API never answers
+        ReflectionTestUtils.setField(neteaseService, "requestTimeout", Duration.ofMillis(50));
+
+        when(webClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(any(Function.class))).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.header(anyString(), anyString())).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class))).thenReturn(Mono.never());
+
+        // When / Then
+        assertThatThrownBy(() -> neteaseService.searchTrackAsync("test-cookie", "test song").block())
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Failed to search tracks")
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
     @Test
     void shouldReturnEmptyListWhenSearchResultIsNull() {
         // Given
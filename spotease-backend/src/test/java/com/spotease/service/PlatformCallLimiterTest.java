@@ -0,0 +1,101 @@
+package com.spotease.service;
+
+import com.spotease.model.Platform;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PlatformCallLimiterTest {
+
+    @Test
+    void shouldCapConcurrentCallsPerPlatform() throws Exception {
+        // Given: two NetEase slots and eight callers
+        PlatformCallLimiter limiter = new PlatformCallLimiter(10, 2, new SimpleMeterRegistry());
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> limiter.call(Platform.NETEASE, () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(20);
+                inFlight.decrementAndGet();
+                return "ok";
+            })));
+        }
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        }
+        callers.shutdown();
+
+        // Then
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotLimitOnePlatformByTheOther() {
+        // Given: the only NetEase slot is taken
+        PlatformCallLimiter limiter = new PlatformCallLimiter(1, 1, new SimpleMeterRegistry());
+
+        // When
+        String result = limiter.call(Platform.NETEASE, () -> limiter.call(Platform.SPOTIFY, () -> "ok"));
+
+        // Then
+        assertThat(result).isEqualTo("ok");
+    }
+
+    @Test
+    void shouldGiveUpWaitingWhenInterrupted() throws Exception {
+        // Given: the only Spotify slot is held by another caller
+        PlatformCallLimiter limiter = new PlatformCallLimiter(1, 1, new SimpleMeterRegistry());
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> limiter.call(Platform.SPOTIFY, () -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        holder.start();
+        holding.await();
+
+        // When: a cancelled job's thread is interrupted while waiting
+        Thread.currentThread().interrupt();
+
+        // Then
+        assertThatThrownBy(() -> limiter.call(Platform.SPOTIFY, () -> "never"))
+                .isInstanceOf(CancellationException.class);
+        assertThat(Thread.interrupted()).isTrue();
+        release.countDown();
+        holder.join();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
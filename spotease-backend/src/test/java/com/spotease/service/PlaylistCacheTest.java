@@ -0,0 +1,230 @@
+package com.spotease.service;
+
+import com.spotease.dto.spotify.SpotifyPlaylist;
+import com.spotease.model.Platform;
+import com.spotease.model.PlaylistCacheVersion;
+import com.spotease.repository.PlaylistCacheVersionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PlaylistCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PlaylistCacheVersionRepository versionRepository = mock(PlaylistCacheVersionRepository.class);
+
+    // The playlist_cache_versions table shared by all replicas
+    private final Map<PlaylistCacheVersion.Key, Long> versions = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(versionRepository.findVersion(any(), any())).thenAnswer(invocation ->
+                Optional.ofNullable(versions.get(new PlaylistCacheVersion.Key(invocation.getArgument(0), invocation.getArgument(1)))));
+        when(versionRepository.bump(any(), any())).thenAnswer(invocation ->
+                versions.computeIfPresent(new PlaylistCacheVersion.Key(invocation.getArgument(0), invocation.getArgument(1)),
+                        (key, version) -> version + 1) == null ? 0 : 1);
+        when(versionRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            PlaylistCacheVersion version = invocation.getArgument(0);
+            versions.put(new PlaylistCacheVersion.Key(version.getUserId(), version.getPlatform()), version.getVersion());
+            return version;
+        });
+    }
+
+    @Test
+    void shouldServeFreshListingWithoutCallingPlatform() {
+        // Given
+        PlaylistCache cache = cache(Duration.ofMinutes(2));
+        CountingLoader loader = new CountingLoader();
+
+        // When
+        cache.getSpotifyPlaylists(1L, loader).join();
+        List<SpotifyPlaylist> second = cache.getSpotifyPlaylists(1L, loader).join();
+
+        // Then
+        assertThat(second).extracting(SpotifyPlaylist::getName).containsExactly("v1");
+        assertThat(loader.calls.get()).isEqualTo(1);
+        assertThat(requests("hit")).isEqualTo(1);
+        assertThat(requests("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldServeStaleListingWhileRevalidating() {
+        // Given: every listing is stale as soon as it is loaded
+        PlaylistCache cache = cache(Duration.ZERO);
+        CountingLoader loader = new CountingLoader();
+        cache.getSpotifyPlaylists(1L, loader).join();
+
+        // When
+        List<SpotifyPlaylist> stale = cache.getSpotifyPlaylists(1L, loader).join();
+        List<SpotifyPlaylist> revalidated = cache.getSpotifyPlaylists(1L, loader).join();
+
+        // Then
+        assertThat(stale).extracting(SpotifyPlaylist::getName).containsExactly("v1");
+        assertThat(revalidated).extracting(SpotifyPlaylist::getName).containsExactly("v2");
+        assertThat(requests("stale")).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepStaleListingWhenRevalidationFails() {
+        // Given
+        PlaylistCache cache = cache(Duration.ZERO);
+        cache.getSpotifyPlaylists(1L, new CountingLoader()).join();
+
+        // When
+        List<SpotifyPlaylist> stale = cache.getSpotifyPlaylists(1L,
+                () -> CompletableFuture.failedFuture(new RuntimeException("Failed to get Spotify playlists"))).join();
+
+        // Then
+        assertThat(stale).extracting(SpotifyPlaylist::getName).containsExactly("v1");
+    }
+
+    @Test
+    void shouldShareOneLoadBetweenConcurrentMisses() {
+        // Given
+        PlaylistCache cache = cache(Duration.ofMinutes(2));
+        CompletableFuture<List<SpotifyPlaylist>> pending = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<CompletableFuture<List<SpotifyPlaylist>>> loader = () -> {
+            calls.incrementAndGet();
+            return pending;
+        };
+
+        // When
+        CompletableFuture<List<SpotifyPlaylist>> first = cache.getSpotifyPlaylists(1L, loader);
+        CompletableFuture<List<SpotifyPlaylist>> second = cache.getSpotifyPlaylists(1L, loader);
+        pending.complete(List.of(playlist("v1")));
+
+        // Then
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(first.join()).isEqualTo(second.join());
+    }
+
+    @Test
+    void shouldNotCacheFailedLoad() {
+        // Given
+        PlaylistCache cache = cache(Duration.ofMinutes(2));
+        CompletableFuture<List<SpotifyPlaylist>> failed =
+                cache.getSpotifyPlaylists(1L, () -> CompletableFuture.failedFuture(new RuntimeException("boom")));
+        assertThatThrownBy(failed::join).hasRootCauseMessage("boom");
+
+        // When
+        CountingLoader loader = new CountingLoader();
+        List<SpotifyPlaylist> result = cache.getSpotifyPlaylists(1L, loader).join();
+
+        // Then
+        assertThat(result).extracting(SpotifyPlaylist::getName).containsExactly("v1");
+        assertThat(loader.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReloadAfterInvalidation() {
+        // Given
+        PlaylistCache cache = cache(Duration.ofMinutes(2));
+        CountingLoader loader = new CountingLoader();
+        cache.getSpotifyPlaylists(1L, loader).join();
+
+        // When
+        cache.invalidate(1L, Platform.SPOTIFY);
+        List<SpotifyPlaylist> result = cache.getSpotifyPlaylists(1L, loader).join();
+
+        // Then
+        assertThat(result).extracting(SpotifyPlaylist::getName).containsExactly("v2");
+        assertThat(meterRegistry.get("spotease.playlist-cache.invalidations").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReloadListingInvalidatedOnAnotherReplica() {
+        // Given: both replicas have the listing cached
+        PlaylistCache replica = cache(Duration.ofMinutes(2));
+        PlaylistCache other = cache(Duration.ofMinutes(2));
+        CountingLoader loader = new CountingLoader();
+        CountingLoader otherLoader = new CountingLoader();
+        replica.getSpotifyPlaylists(1L, loader).join();
+        other.getSpotifyPlaylists(1L, otherLoader).join();
+
+        // When
+        other.invalidate(1L, Platform.SPOTIFY);
+        List<SpotifyPlaylist> result = replica.getSpotifyPlaylists(1L, loader).join();
+        List<SpotifyPlaylist> cached = replica.getSpotifyPlaylists(1L, loader).join();
+
+        // Then: reloaded once, then served from the cache again
+        assertThat(result).extracting(SpotifyPlaylist::getName).containsExactly("v2");
+        assertThat(cached).extracting(SpotifyPlaylist::getName).containsExactly("v2");
+        assertThat(loader.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldServeCachedListingWhenVersionCannotBeRead() {
+        // Given
+        PlaylistCache cache = cache(Duration.ofMinutes(2));
+        CountingLoader loader = new CountingLoader();
+        cache.getSpotifyPlaylists(1L, loader).join();
+        when(versionRepository.findVersion(any(), any())).thenThrow(new RuntimeException("database down"));
+
+        // When
+        List<SpotifyPlaylist> result = cache.getSpotifyPlaylists(1L, loader).join();
+
+        // Then
+        assertThat(result).extracting(SpotifyPlaylist::getName).containsExactly("v1");
+        assertThat(loader.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepUsersAndPlatformsApart() {
+        // Given
+        PlaylistCache cache = cache(Duration.ofMinutes(2));
+        CountingLoader loader = new CountingLoader();
+        cache.getSpotifyPlaylists(1L, loader).join();
+
+        // When
+        cache.invalidate(1L, Platform.NETEASE);
+        cache.getSpotifyPlaylists(1L, loader).join();
+        cache.getSpotifyPlaylists(2L, loader).join();
+
+        // Then: only the other user's listing was loaded
+        assertThat(loader.calls.get()).isEqualTo(2);
+    }
+
+    private PlaylistCache cache(Duration ttl) {
+        return new PlaylistCache(versionRepository, mock(PlatformTransactionManager.class), meterRegistry, ttl, Duration.ofMinutes(10), 100);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("spotease.playlist-cache.requests").tag("result", result).counter().count();
+    }
+
+    private static SpotifyPlaylist playlist(String name) {
+        SpotifyPlaylist playlist = new SpotifyPlaylist();
+        playlist.setName(name);
+        return playlist;
+    }
+
+    /**
+     * Returns a listing named after the number of loads so far ("v1", "v2", ...)
+     */
+    private static class CountingLoader implements Supplier<CompletableFuture<List<SpotifyPlaylist>>> {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public CompletableFuture<List<SpotifyPlaylist>> get() {
+            return CompletableFuture.completedFuture(List.of(playlist("v" + calls.incrementAndGet())));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.spotease.service;
+
+import com.spotease.model.*;
+import com.spotease.repository.PlaylistSyncRepository;
+import com.spotease.repository.PlaylistSyncTrackRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PlaylistSyncServiceTest {
+
+    @Mock
+    private PlaylistSyncRepository syncRepository;
+
+    @Mock
+    private PlaylistSyncTrackRepository syncTrackRepository;
+
+    @InjectMocks
+    private PlaylistSyncService playlistSyncService;
+
+    @Test
+    void contentHashShouldChangeWhenTracksChange() {
+        // Given
+        String hash = PlaylistSyncService.contentHash(List.of("1", "2"));
+
+        // Then
+        assertThat(PlaylistSyncService.contentHash(List.of("1", "2"))).isEqualTo(hash);
+        assertThat(PlaylistSyncService.contentHash(List.of("2", "1"))).isNotEqualTo(hash);
+        assertThat(PlaylistSyncService.contentHash(List.of("12"))).isNotEqualTo(hash);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRecordDestinationTrackOnlyForResolvedMatches() {
+        // Given
+        PlaylistSync sync = new PlaylistSync();
+        ConversionJob job = new ConversionJob();
+        job.setId(5L);
+        TrackMatch autoMatched = match("track1", "dest1", MatchStatus.AUTO_MATCHED);
+        TrackMatch pending = match("track2", "dest2", MatchStatus.PENDING_REVIEW);
+
+        // When
+        playlistSyncService.recordSync(sync, job, "snapshot-2", List.of(autoMatched, pending), List.of());
+
+        // Then
+        ArgumentCaptor<List<PlaylistSyncTrack>> tracks = ArgumentCaptor.forClass(List.class);
+        verify(syncTrackRepository).saveAll(tracks.capture());
+        assertThat(tracks.getValue())
+                .extracting(PlaylistSyncTrack::getSourceTrackId, PlaylistSyncTrack::getDestinationTrackId)
+                .containsExactly(
+                        tuple("track1", "dest1"),
+                        tuple("track2", null));
+        assertThat(sync.getSourceSnapshot()).isEqualTo("snapshot-2");
+        assertThat(sync.getLastJobId()).isEqualTo(5L);
+    }
+
+    @Test
+    void shouldRecordApprovedDestinationTrackForSyncJobs() {
+        // Given
+        User user = new User();
+        user.setId(1L);
+        ConversionJob job = new ConversionJob();
+        job.setUser(user);
+        job.setMode(ConversionMode.SYNC);
+        job.setSourcePlatform(Platform.SPOTIFY);
+        job.setSourcePlaylistId("source");
+        job.setDestinationPlaylistId("destination");
+
+        PlaylistSync sync = new PlaylistSync();
+        sync.setId(3L);
+        PlaylistSyncTrack track = new PlaylistSyncTrack();
+        when(syncRepository.findByUser_IdAndSourcePlatformAndSourcePlaylistIdAndDestinationPlaylistId(
+                1L, Platform.SPOTIFY, "source", "destination")).thenReturn(Optional.of(sync));
+        when(syncTrackRepository.findByPlaylistSync_IdAndSourceTrackId(3L, "track1")).thenReturn(Optional.of(track));
+
+        // When
+        playlistSyncService.recordApproval(job, match("track1", "dest1", MatchStatus.USER_APPROVED));
+
+        // Then
+        assertThat(track.getDestinationTrackId()).isEqualTo("dest1");
+        verify(syncTrackRepository).save(track);
+    }
+
+    @Test
+    void shouldIgnoreApprovalsOfOtherModes() {
+        // Given
+        ConversionJob job = new ConversionJob();
+        job.setMode(ConversionMode.UPDATE);
+
+        // When
+        playlistSyncService.recordApproval(job, match("track1", "dest1", MatchStatus.USER_APPROVED));
+
+        // Then
+        verify(syncTrackRepository, never()).save(any());
+    }
+
+    private static TrackMatch match(String sourceTrackId, String destinationTrackId, MatchStatus status) {
+        TrackMatch match = new TrackMatch();
+        match.setSourceTrackId(sourceTrackId);
+        match.setDestinationTrackId(destinationTrackId);
+        match.setStatus(status);
+        return match;
+    }
+}
@@ -0,0 +1,183 @@
+package com.spotease.service;
+
+import com.spotease.dto.BulkProgressMessage;
+import com.spotease.model.BulkConversion;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.JobStatus;
+import com.spotease.model.User;
+import com.spotease.repository.ConversionJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProgressPublisherTest {
+
+    @Mock
+    private ConversionJobRepository jobRepository;
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConversionJob job;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        job = new ConversionJob();
+        job.setId(1L);
+        job.setStatus(JobStatus.PROCESSING);
+        lenient().when(jobRepository.updateProgress(any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void shouldCoalesceUpdatesWithinInterval() {
+        // Given
+        ProgressPublisher publisher = publisher(Duration.ofHours(1), Duration.ofHours(1));
+        publisher.jobStarted(job);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            publisher.trackProcessed(job);
+        }
+
+        // Then: only the start transition reached the broker and the database
+        verify(webSocketService, times(1)).sendJobUpdate(job);
+        verify(jobRepository, times(1)).updateProgress(eq(job), any());
+        assertThat(meterRegistry.counter("spotease.progress.coalesced").count()).isEqualTo(100);
+        assertThat(meterRegistry.counter("spotease.progress.published").count()).isZero();
+    }
+
+    @Test
+    void shouldPublishAggregateProgressOfBulkChildren() {
+        // Given: two children of a bulk conversion of three playlists
+        ProgressPublisher publisher = publisher(Duration.ZERO, Duration.ofHours(1));
+        User user = new User();
+        user.setId(7L);
+        BulkConversion bulk = new BulkConversion();
+        bulk.setId(10L);
+        bulk.setTotalJobs(3);
+        ConversionJob first = bulkChild(1L, user, bulk, 10, 4);
+        ConversionJob second = bulkChild(2L, user, bulk, 5, 5);
+        second.setStatus(JobStatus.COMPLETED);
+
+        // When
+        publisher.trackProcessed(first);
+        publisher.jobFinished(second);
+
+        // Then
+        ArgumentCaptor<BulkProgressMessage> captor = ArgumentCaptor.forClass(BulkProgressMessage.class);
+        verify(webSocketService, times(2)).sendBulkProgress(eq(7L), captor.capture());
+        BulkProgressMessage latest = captor.getValue();
+        assertThat(latest.getTotalJobs()).isEqualTo(3);
+        assertThat(latest.getFinishedJobs()).isEqualTo(1);
+        assertThat(latest.getTotalTracks()).isEqualTo(15);
+        assertThat(latest.getProcessedTracks()).isEqualTo(9);
+    }
+
+    @Test
+    void shouldPublishEveryUpdateWhenIntervalIsZero() {
+        ProgressPublisher publisher = publisher(Duration.ZERO, Duration.ofHours(1));
+        publisher.jobStarted(job);
+
+        publisher.trackProcessed(job);
+        publisher.trackProcessed(job);
+
+        verify(webSocketService, times(3)).sendJobUpdate(job);
+        // Persistence runs on its own, slower cadence
+        verify(jobRepository, times(1)).updateProgress(eq(job), any());
+        assertThat(meterRegistry.counter("spotease.progress.published").count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFlushImmediatelyOnCompletion() {
+        // Given
+        ProgressPublisher publisher = publisher(Duration.ofHours(1), Duration.ofHours(1));
+        publisher.jobStarted(job);
+        publisher.trackProcessed(job);
+
+        // When
+        job.setStatus(JobStatus.COMPLETED);
+        publisher.jobFinished(job);
+
+        // Then: the final state is saved with the worker's transaction
+        verify(jobRepository, times(1)).updateProgress(eq(job), any());
+        verify(jobRepository, times(1)).save(job);
+        verify(webSocketService).sendJobComplete(job);
+        assertThat(meterRegistry.get("spotease.progress.active-jobs").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldFlushImmediatelyOnFailure() {
+        ProgressPublisher publisher = publisher(Duration.ofHours(1), Duration.ofHours(1));
+        publisher.jobStarted(job);
+
+        publisher.jobFailed(job, "boom");
+
+        verify(jobRepository, times(1)).save(job);
+        verify(webSocketService).sendJobError(job, "boom");
+        assertThat(meterRegistry.counter("spotease.progress.transitions").count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPersistProgressInItsOwnTransaction() {
+        // Given
+        ProgressPublisher publisher = publisher(Duration.ofHours(1), Duration.ZERO);
+        publisher.jobStarted(job);
+
+        // When
+        job.setProcessedTracks(3);
+        publisher.trackProcessed(job);
+
+        // Then: every write ran outside the worker's transaction and was counted
+        verify(transactionManager, times(2)).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        verify(jobRepository, times(2)).updateProgress(eq(job), any());
+        verify(jobRepository, never()).save(any());
+        assertThat(meterRegistry.counter("spotease.progress.persisted").count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotCountProgressWriteThatFailed() {
+        ProgressPublisher publisher = publisher(Duration.ofHours(1), Duration.ZERO);
+        when(jobRepository.updateProgress(any(), any())).thenThrow(new RuntimeException("lock timeout"));
+
+        publisher.trackProcessed(job);
+
+        assertThat(meterRegistry.counter("spotease.progress.persisted").count()).isZero();
+    }
+
+    private ProgressPublisher publisher(Duration publishInterval, Duration persistInterval) {
+        return new ProgressPublisher(jobRepository, webSocketService, meterRegistry, transactionManager,
+                publishInterval, persistInterval);
+    }
+
+    private static ConversionJob bulkChild(Long id, User user, BulkConversion bulk, int totalTracks, int processedTracks) {
+        ConversionJob child = new ConversionJob();
+        child.setId(id);
+        child.setUser(user);
+        child.setBulkConversion(bulk);
+        child.setStatus(JobStatus.PROCESSING);
+        child.setTotalTracks(totalTracks);
+        child.setProcessedTracks(processedTracks);
+        return child;
+    }
+}
@@ -0,0 +1,184 @@
+package com.spotease.service;
+
+import com.spotease.controller.ConversionController;
+import com.spotease.dto.WebSocketMessage;
+import com.spotease.model.ConversionJob;
+import com.spotease.model.JobStatus;
+import com.spotease.model.User;
+import com.spotease.repository.ConversionJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Exercises SSE streams end to end through the controller, so events are written to a real response.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProgressSseServiceTest {
+
+    @Mock
+    private ConversionService conversionService;
+
+    @Mock
+    private ConversionJobRepository jobRepository;
+
+    @Mock
+    private MatchArchiveService matchArchiveService;
+
+    private ProgressSseService sseService;
+    private Executor sendExecutor = Runnable::run;
+    private MockMvc mockMvc;
+    private MockHttpSession session;
+    private ConversionJob job;
+
+    @BeforeEach
+    void setUp() {
+        // Sends run on the publishing thread unless a test holds them back
+        sseService = new ProgressSseService(task -> sendExecutor.execute(task));
+        ReflectionTestUtils.setField(sseService, "bufferSize", 3);
+        ReflectionTestUtils.setField(sseService, "watcherQueueSize", 2);
+        ReflectionTestUtils.setField(sseService, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(sseService, "retention", Duration.ofMinutes(1));
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new ConversionController(conversionService, jobRepository, matchArchiveService, sseService, null, null)).build();
+
+        session = new MockHttpSession();
+        session.setAttribute("userId", 1L);
+
+        User user = new User();
+        user.setId(1L);
+        job = new ConversionJob();
+        job.setId(9L);
+        job.setUser(user);
+        job.setStatus(JobStatus.PROCESSING);
+        job.setProcessedTracks(0);
+        when(jobRepository.findById(9L)).thenReturn(Optional.of(job));
+    }
+
+    @Test
+    void shouldStreamPublishedMessages() throws Exception {
+        // Given
+        MvcResult result = watch(null);
+
+        // When
+        sseService.publish(9L, message(JobStatus.PROCESSING, 1));
+        sseService.publish(9L, message(JobStatus.PROCESSING, 2));
+
+        // Then
+        String body = result.getResponse().getContentAsString();
+        assertThat(body).contains("id:1\nevent:progress\ndata:{\"jobId\":9,\"status\":\"PROCESSING\"");
+        assertThat(body).contains("id:2\n");
+        assertThat(sseService.watcherCount(9L)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReplayEventsAfterLastEventId() throws Exception {
+        // Given
+        for (int i = 1; i <= 3; i++) {
+            sseService.publish(9L, message(JobStatus.PROCESSING, i));
+        }
+
+        // When
+        String body = watch(1L).getResponse().getContentAsString();
+
+        // Then
+        assertThat(body).doesNotContain("id:1\n").contains("id:2\n", "id:3\n");
+    }
+
+    @Test
+    void shouldSendLatestStateWhenLastEventIdFellOutOfBuffer() throws Exception {
+        // Given: buffer holds 3 events, 5 were published
+        for (int i = 1; i <= 5; i++) {
+            sseService.publish(9L, message(JobStatus.PROCESSING, i));
+        }
+
+        // When
+        String body = watch(1L).getResponse().getContentAsString();
+
+        // Then
+        assertThat(body).contains("id:5\n").doesNotContain("id:3\n", "id:4\n");
+    }
+
+    @Test
+    void shouldCompleteWatchersOnFinalStatus() throws Exception {
+        // Given
+        MvcResult result = watch(null);
+
+        // When
+        sseService.publish(9L, message(JobStatus.COMPLETED, 10));
+
+        // Then
+        assertThat(result.getResponse().getContentAsString()).contains("\"status\":\"COMPLETED\"");
+        assertThat(sseService.watcherCount(9L)).isZero();
+
+        // A late reconnect still receives the final event and is closed
+        String late = watch(0L).getResponse().getContentAsString();
+        assertThat(late).contains("id:1\n", "\"status\":\"COMPLETED\"");
+        assertThat(sseService.watcherCount(9L)).isZero();
+    }
+
+    @Test
+    void shouldSendCurrentStateOfFinishedJobWithoutStream() throws Exception {
+        job.setStatus(JobStatus.REVIEW_PENDING);
+
+        String body = watch(null).getResponse().getContentAsString();
+
+        assertThat(body).contains("id:0\n", "\"status\":\"REVIEW_PENDING\"");
+        assertThat(sseService.watcherCount(9L)).isZero();
+    }
+
+    @Test
+    void shouldNotBlockPublisherAndCloseWatcherThatFallsBehind() throws Exception {
+        // Given: a watcher whose sends do not get to run
+        List<Runnable> heldSends = new ArrayList<>();
+        sendExecutor = heldSends::add;
+        MvcResult result = watch(null);
+
+        // When: more events than its queue holds are published
+        for (int i = 1; i <= 3; i++) {
+            sseService.publish(9L, message(JobStatus.PROCESSING, i));
+        }
+
+        // Then: publishing returned, and the watcher was dropped
+        assertThat(sseService.watcherCount(9L)).isZero();
+        heldSends.forEach(Runnable::run);
+        assertThat(result.getResponse().getContentAsString()).doesNotContain("id:3\n");
+        assertThat(result.getAsyncResult()).isNull();
+    }
+
+    private MvcResult watch(Long lastEventId) throws Exception {
+        var request = get("/api/conversions/9/events").session(session);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private WebSocketMessage message(JobStatus status, int processed) {
+        return WebSocketMessage.builder()
+                .jobId(9L)
+                .status(status)
+                .processedTracks(processed)
+                .build();
+    }
+}
@@ -8,15 +8,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import se.michaelthelin.spotify.SpotifyApi;
 import se.michaelthelin.spotify.model_objects.miscellaneous.PlaylistTracksInformation;
 import se.michaelthelin.spotify.model_objects.specification.*;
 import se.michaelthelin.spotify.requests.data.playlists.GetListOfCurrentUsersPlaylistsRequest;
+import se.michaelthelin.spotify.requests.data.playlists.GetPlaylistRequest;
 import se.michaelthelin.spotify.requests.data.search.simplified.SearchTracksRequest;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -111,6 +118,56 @@ class SpotifyServiceTest {
         assertThat(result.get(0).getArtists()).containsExactly("Test Artist");
     }
 
+    @Test
+    void shouldSearchTracksAsync() {
+        // Given
+        ReflectionTestUtils.setField(spotifyService, "requestTimeout", Duration.ofSeconds(20));
+
+        Track mockTrack = mock(Track.class);
+        when(mockTrack.getId()).thenReturn("track123");
+        when(mockTrack.getArtists()).thenReturn(new ArtistSimplified[0]);
+        when(mockTrack.getAlbum()).thenReturn(mock(AlbumSimplified.class));
+
+        Paging<Track> mockPaging = mock(Paging.class);
+        when(mockPaging.getItems()).thenReturn(new Track[]{mockTrack});
+
+        SearchTracksRequest mockRequest = mock(SearchTracksRequest.class);
+        when(mockRequest.executeAsync()).thenReturn(CompletableFuture.completedFuture(mockPaging));
+
+        SearchTracksRequest.Builder mockBuilder = mock(SearchTracksRequest.Builder.class);
+        when(mockBuilder.limit(5)).thenReturn(mockBuilder);
+        when(mockBuilder.build()).thenReturn(mockRequest);
+
+        when(authenticatedApi.searchTracks(anyString())).thenReturn(mockBuilder);
+
+        // When
+        List<SpotifyTrack> result = spotifyService.searchTrackAsync("test-token", "test query").join();
+
+        // Then
+        assertThat(result).extracting(SpotifyTrack::getId).containsExactly("track123");
+    }
+
+    @Test
+    void shouldFailAsyncRequestAfterRequestTimeout() {
+        // Given: Spotify never answers
+        ReflectionTestUtils.setField(spotifyService, "requestTimeout", Duration.ofMillis(50));
+
+        GetPlaylistRequest mockRequest = mock(GetPlaylistRequest.class);
+        when(mockRequest.executeAsync()).thenReturn(new CompletableFuture<>());
+
+        GetPlaylistRequest.Builder mockBuilder = mock(GetPlaylistRequest.Builder.class);
+        when(mockBuilder.build()).thenReturn(mockRequest);
+
+        when(authenticatedApi.getPlaylist("playlist123")).thenReturn(mockBuilder);
+
+        // When / Then
+        assertThatThrownBy(() -> spotifyService.getPlaylistByIdAsync("test-token", "playlist123").join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .hasMessage("Failed to get Spotify playlist")
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
     @Test
     void shouldSelectMediumImageFromMultiple() {
         // Given - with 3+ images, selectMediumImage takes the middle one
@@ -0,0 +1,205 @@
+package com.spotease.service;
+
+import com.spotease.model.User;
+import com.spotease.repository.UserRepository;
+import com.spotease.util.TokenEncryption;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import se.michaelthelin.spotify.SpotifyApi;
+import se.michaelthelin.spotify.exceptions.detailed.UnauthorizedException;
+import se.michaelthelin.spotify.model_objects.credentials.AuthorizationCodeCredentials;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SpotifyTokenServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TokenEncryption tokenEncryption;
+
+    @Mock
+    private CredentialProvider credentialProvider;
+
+    @Mock
+    private SpotifyApi spotifyApi;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SpotifyTokenService tokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = spy(new SpotifyTokenService(
+                userRepository, tokenEncryption, credentialProvider, spotifyApi, transactionManager, 100));
+        ReflectionTestUtils.setField(tokenService, "refreshMargin", Duration.ofMinutes(5));
+
+        user = new User();
+        user.setId(1L);
+        user.setSpotifyAccessToken("encrypted-access");
+        user.setSpotifyRefreshToken("encrypted-refresh");
+        user.setSpotifyTokenExpiry(LocalDateTime.now().plusMinutes(30));
+    }
+
+    @Test
+    void shouldReturnStoredTokenWhenNotExpiring() {
+        when(credentialProvider.decrypt("encrypted-access")).thenReturn("access");
+
+        assertThat(tokenService.getAccessToken(user)).isEqualTo("access");
+
+        verify(tokenService, never()).requestRefresh(anyString());
+    }
+
+    @Test
+    void shouldRefreshTokenThatExpiresSoon() {
+        // Given
+        user.setSpotifyTokenExpiry(LocalDateTime.now().plusMinutes(1));
+        when(credentialProvider.decrypt("encrypted-access")).thenReturn("old-access");
+        stubRefresh("new-access");
+
+        // When
+        String token = tokenService.getAccessToken(user);
+
+        // Then
+        assertThat(token).isEqualTo("new-access");
+        assertThat(user.getSpotifyAccessToken()).isEqualTo("encrypted-new-access");
+        assertThat(user.getSpotifyTokenExpiry()).isAfter(LocalDateTime.now().plusMinutes(50));
+        verify(credentialProvider).invalidate("encrypted-access");
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void shouldServeRefreshedTokenToCallersHoldingStaleUser() {
+        // Given: a refresh happened, but the caller's entity still has the old token
+        stubRefresh("new-access");
+        tokenService.refresh(1L);
+
+        User staleUser = new User();
+        staleUser.setId(1L);
+        staleUser.setSpotifyAccessToken("encrypted-access");
+        staleUser.setSpotifyTokenExpiry(LocalDateTime.now().plusMinutes(10));
+
+        // When & Then
+        assertThat(tokenService.getAccessToken(staleUser)).isEqualTo("new-access");
+        verify(credentialProvider, never()).decrypt("encrypted-access");
+    }
+
+    @Test
+    void shouldNotRefreshAgainWhenRejectedTokenWasAlreadyReplaced() {
+        stubRefresh("new-access");
+        tokenService.refresh(1L);
+
+        assertThat(tokenService.refreshAfterUnauthorized(1L, "old-access")).isEqualTo("new-access");
+
+        verify(tokenService, times(1)).requestRefresh(anyString());
+    }
+
+    @Test
+    void shouldShareSingleRefreshBetweenConcurrentCallers() throws Exception {
+        // Given: the first refresh blocks inside the Spotify call
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(credentialProvider.decrypt("encrypted-refresh")).thenReturn("refresh");
+        when(tokenEncryption.encrypt(anyString())).thenAnswer(invocation -> "encrypted-" + invocation.getArgument(0));
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch releaseRefresh = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            refreshStarted.countDown();
+            releaseRefresh.await(5, TimeUnit.SECONDS);
+            return credentials("new-access");
+        }).when(tokenService).requestRefresh("refresh");
+
+        // When
+        CompletableFuture<SpotifyTokenService.AccessToken> first =
+                CompletableFuture.supplyAsync(() -> tokenService.refresh(1L));
+        assertThat(refreshStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<SpotifyTokenService.AccessToken> second =
+                CompletableFuture.supplyAsync(() -> tokenService.refresh(1L));
+        Thread.sleep(100);
+        releaseRefresh.countDown();
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS).value()).isEqualTo("new-access");
+        assertThat(second.get(5, TimeUnit.SECONDS).value()).isEqualTo("new-access");
+        verify(tokenService, times(1)).requestRefresh("refresh");
+    }
+
+    @Test
+    void shouldKeepRefreshingOtherUsersWhenOneFails() {
+        // Given
+        when(userRepository.findUserIdsNeedingSpotifyRefresh(any(), any())).thenReturn(List.of(2L, 1L));
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+        stubRefresh("new-access");
+
+        // When
+        int refreshed = tokenService.refreshExpiringTokens();
+
+        // Then
+        assertThat(refreshed).isEqualTo(1);
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void shouldRetryAsyncCallOnceWithRefreshedToken() throws Exception {
+        // Given: Spotify rejects the stored token
+        when(credentialProvider.decrypt("encrypted-access")).thenReturn("access");
+        stubRefresh("new-access");
+        List<String> tokensUsed = new CopyOnWriteArrayList<>();
+
+        // When
+        CompletableFuture<String> result = tokenService.callAsync(user, token -> {
+            tokensUsed.add(token);
+            return token.equals("access")
+                    ? CompletableFuture.failedFuture(new RuntimeException("Failed to get Spotify playlists",
+                            new UnauthorizedException("The access token expired")))
+                    : CompletableFuture.completedFuture("playlists");
+        });
+
+        // Then
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("playlists");
+        assertThat(tokensUsed).containsExactly("access", "new-access");
+    }
+
+    @Test
+    void shouldDetectUnauthorizedInCauseChain() {
+        RuntimeException wrapped = new RuntimeException("Failed to search tracks",
+                new UnauthorizedException("The access token expired"));
+
+        assertThat(SpotifyTokenService.isUnauthorized(wrapped)).isTrue();
+        assertThat(SpotifyTokenService.isUnauthorized(new RuntimeException("boom"))).isFalse();
+    }
+
+    private void stubRefresh(String accessToken) {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(credentialProvider.decrypt("encrypted-refresh")).thenReturn("refresh");
+        when(tokenEncryption.encrypt(anyString())).thenAnswer(invocation -> "encrypted-" + invocation.getArgument(0));
+        doReturn(credentials(accessToken)).when(tokenService).requestRefresh("refresh");
+    }
+
+    private AuthorizationCodeCredentials credentials(String accessToken) {
+        return new AuthorizationCodeCredentials.Builder()
+                .setAccessToken(accessToken)
+                .setExpiresIn(3600)
+                .build();
+    }
+}
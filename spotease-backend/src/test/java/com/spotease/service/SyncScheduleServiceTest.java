@@ -0,0 +1,215 @@
+package com.spotease.service;
+
+import com.spotease.dto.ConversionRequest;
+import com.spotease.dto.SyncScheduleRequest;
+import com.spotease.model.*;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.SyncScheduleRepository;
+import com.spotease.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SyncScheduleServiceTest {
+
+    @Mock
+    private SyncScheduleRepository scheduleRepository;
+
+    @Mock
+    private ConversionJobRepository jobRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ConversionService conversionService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SyncScheduleService syncScheduleService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        syncScheduleService = new SyncScheduleService(scheduleRepository, jobRepository, userRepository,
+                conversionService, jdbcTemplate, transactionManager);
+        ReflectionTestUtils.setField(syncScheduleService, "jitter", Duration.ZERO);
+        ReflectionTestUtils.setField(syncScheduleService, "maxJobsPerUser", 1);
+        ReflectionTestUtils.setField(syncScheduleService, "maxJobsPerPlatform", 20);
+
+        user = new User();
+        user.setId(1L);
+    }
+
+    @Test
+    void shouldCreateScheduleWithinFirstInterval() {
+        // Given
+        SyncScheduleRequest request = SyncScheduleRequest.builder()
+                .sourcePlatform(Platform.SPOTIFY)
+                .sourcePlaylistId("source")
+                .destinationPlaylistId("dest")
+                .intervalHours(6)
+                .build();
+        when(scheduleRepository.findByUser_IdAndSourcePlatformAndSourcePlaylistIdAndDestinationPlaylistId(
+                1L, Platform.SPOTIFY, "source", "dest")).thenReturn(Optional.empty());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(scheduleRepository.save(any(SyncSchedule.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LocalDateTime before = LocalDateTime.now();
+
+        // When
+        SyncSchedule schedule = syncScheduleService.saveSchedule(1L, request);
+
+        // Then
+        assertThat(schedule.getDestinationPlatform()).isEqualTo(Platform.NETEASE);
+        assertThat(schedule.getIntervalMinutes()).isEqualTo(360);
+        assertThat(schedule.isEnabled()).isTrue();
+        assertThat(schedule.getNextRunAt()).isBetween(before, LocalDateTime.now().plusHours(6));
+    }
+
+    @Test
+    void shouldRejectIntervalOutOfRange() {
+        // Given
+        SyncScheduleRequest request = SyncScheduleRequest.builder()
+                .sourcePlatform(Platform.SPOTIFY)
+                .sourcePlaylistId("source")
+                .destinationPlaylistId("dest")
+                .intervalHours(0)
+                .build();
+
+        // When/Then
+        assertThatThrownBy(() -> syncScheduleService.saveSchedule(1L, request))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(scheduleRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldNotScheduleWhenAnotherReplicaHoldsLock() {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyLong())).thenReturn(false);
+
+        // When
+        int enqueued = syncScheduleService.enqueueDueSyncs();
+
+        // Then
+        assertThat(enqueued).isZero();
+        verify(scheduleRepository, never()).findDue(any(), any());
+    }
+
+    @Test
+    void shouldEnqueueSyncJobAndAdvanceSchedule() {
+        // Given
+        LocalDateTime slot = LocalDateTime.now().minusMinutes(1);
+        SyncSchedule schedule = schedule(slot);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+        when(scheduleRepository.findDue(any(), any())).thenReturn(List.of(schedule));
+        when(conversionService.createJob(eq(1L), any(ConversionRequest.class), isNull()))
+                .thenReturn(new ConversionService.Submission(job(42L), true));
+
+        // When
+        int enqueued = syncScheduleService.enqueueDueSyncs();
+
+        // Then
+        assertThat(enqueued).isEqualTo(1);
+        ArgumentCaptor<ConversionRequest> requestCaptor = ArgumentCaptor.forClass(ConversionRequest.class);
+        verify(conversionService).createJob(eq(1L), requestCaptor.capture(), isNull());
+        assertThat(requestCaptor.getValue().getMode()).isEqualTo(ConversionMode.SYNC);
+        assertThat(requestCaptor.getValue().getDestinationPlaylistId()).isEqualTo("dest");
+        assertThat(schedule.getLastJobId()).isEqualTo(42L);
+        assertThat(schedule.getNextRunAt()).isEqualTo(slot.plusHours(24));
+    }
+
+    @Test
+    void shouldPostponeSchedulesOverUserCap() {
+        // Given: the user already has a job in flight
+        SyncSchedule schedule = schedule(LocalDateTime.now().minusMinutes(1));
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+        when(scheduleRepository.findDue(any(), any())).thenReturn(List.of(schedule));
+        when(jobRepository.countByUser_IdAndStatusIn(eq(1L), any())).thenReturn(1L);
+        LocalDateTime before = LocalDateTime.now();
+
+        // When
+        int enqueued = syncScheduleService.enqueueDueSyncs();
+
+        // Then
+        assertThat(enqueued).isZero();
+        verify(conversionService, never()).createJob(any(), any(), any());
+        assertThat(schedule.getNextRunAt()).isBetween(before.plusMinutes(5), LocalDateTime.now().plusMinutes(5));
+    }
+
+    @Test
+    void shouldCountEnqueuedJobsAgainstCapWithinRun() {
+        // Given: two due schedules of the same user
+        SyncSchedule first = schedule(LocalDateTime.now().minusMinutes(2));
+        SyncSchedule second = schedule(LocalDateTime.now().minusMinutes(1));
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+        when(scheduleRepository.findDue(any(), any())).thenReturn(List.of(first, second));
+        when(conversionService.createJob(eq(1L), any(ConversionRequest.class), isNull()))
+                .thenReturn(new ConversionService.Submission(job(42L), true));
+
+        // When
+        int enqueued = syncScheduleService.enqueueDueSyncs();
+
+        // Then
+        assertThat(enqueued).isEqualTo(1);
+        verify(conversionService, times(1)).createJob(any(), any(), any());
+        assertThat(second.getLastJobId()).isNull();
+    }
+
+    @Test
+    void shouldCatchUpFromNowWhenScheduleFellBehind() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        SyncSchedule schedule = schedule(now.minusDays(3));
+
+        // When
+        LocalDateTime next = syncScheduleService.nextRunAt(schedule, now);
+
+        // Then
+        assertThat(next).isEqualTo(now.plusHours(24));
+    }
+
+    private SyncSchedule schedule(LocalDateTime nextRunAt) {
+        SyncSchedule schedule = new SyncSchedule();
+        schedule.setUser(user);
+        schedule.setSourcePlatform(Platform.SPOTIFY);
+        schedule.setSourcePlaylistId("source");
+        schedule.setDestinationPlatform(Platform.NETEASE);
+        schedule.setDestinationPlaylistId("dest");
+        schedule.setIntervalMinutes(24 * 60);
+        schedule.setNextRunAt(nextRunAt);
+        return schedule;
+    }
+
+    private ConversionJob job(Long id) {
+        ConversionJob job = new ConversionJob();
+        job.setId(id);
+        return job;
+    }
+}
@@ -0,0 +1,178 @@
+package com.spotease.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrackMatchPartitionServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TrackMatchPartitionService partitionService;
+
+    @BeforeEach
+    void setUp() {
+        partitionService = new TrackMatchPartitionService(jdbcTemplate,
+                new TransactionTemplate(transactionManager), meterRegistry);
+    }
+
+    @Test
+    void shouldAttachMissingPartitionsAheadOfNewestJob() {
+        // Given: job 2500 is the newest, blocks 2 and 5 already have partitions
+        givenPostgres(2500L, "track_matches_p2", "track_matches_p5");
+
+        // When
+        int created = partitionService.createUpcomingPartitions();
+
+        // Then
+        assertThat(created).isEqualTo(4);
+        verify(jdbcTemplate, times(4)).execute("SET LOCAL lock_timeout = 2000");
+        verify(jdbcTemplate).execute("CREATE TABLE track_matches_p3"
+                + " (LIKE track_matches INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        verify(jdbcTemplate).execute("ALTER TABLE track_matches ATTACH PARTITION track_matches_p3"
+                + " FOR VALUES FROM (3000) TO (4000)");
+        verify(jdbcTemplate, never()).execute(contains("track_matches_p5"));
+        assertThat(headroom()).isEqualTo(7999 - 2500);
+    }
+
+    @Test
+    void shouldRetryPartitionWhoseLocksTimeOutOnNextRun() {
+        // Given: attaching block 4 times out waiting for its locks
+        givenPostgres(2500L, "track_matches_p2", "track_matches_p3", "track_matches_p5",
+                "track_matches_p6", "track_matches_p7");
+        lenient().doThrow(new CannotAcquireLockException("lock timeout"))
+                .when(jdbcTemplate).execute(contains("ATTACH PARTITION track_matches_p4"));
+
+        // When
+        int created = partitionService.createUpcomingPartitions();
+
+        // Then: new jobs are covered up to block 3 only
+        assertThat(created).isZero();
+        verify(transactionManager).rollback(any());
+        assertThat(headroom()).isEqualTo(3999 - 2500);
+    }
+
+    @Test
+    void shouldDoNothingWithoutPartitioning() {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        // When
+        int created = partitionService.createUpcomingPartitions();
+
+        // Then
+        assertThat(created).isZero();
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void shouldDetachArchivedPartitionsConcurrentlyOneAtATime() throws SQLException {
+        // Given: block 1 is attached, block 2 was left detach-pending, block 3 detached but not dropped
+        givenArchivedPartitions(
+                partition("track_matches_p1", true, false),
+                partition("track_matches_p2", true, true),
+                partition("track_matches_p3", false, false));
+
+        // When
+        int dropped = partitionService.dropArchivedPartitions();
+
+        // Then
+        assertThat(dropped).isEqualTo(3);
+        InOrder inOrder = inOrder(statement);
+        inOrder.verify(statement).execute("SET lock_timeout = 2000");
+        inOrder.verify(statement).execute("ALTER TABLE track_matches DETACH PARTITION track_matches_p1 CONCURRENTLY");
+        inOrder.verify(statement).execute("DROP TABLE track_matches_p1");
+        inOrder.verify(statement).execute("RESET lock_timeout");
+        inOrder.verify(statement).execute("ALTER TABLE track_matches DETACH PARTITION track_matches_p2 FINALIZE");
+        inOrder.verify(statement).execute("DROP TABLE track_matches_p2");
+        inOrder.verify(statement).execute("DROP TABLE track_matches_p3");
+        verify(statement, never()).execute(contains("DETACH PARTITION track_matches_p3"));
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void shouldSkipArchivedPartitionWhoseLockTimesOut() throws SQLException {
+        // Given
+        givenArchivedPartitions(
+                partition("track_matches_p1", true, false),
+                partition("track_matches_p2", true, false));
+        lenient().when(statement.execute(contains("track_matches_p1 CONCURRENTLY")))
+                .thenThrow(new SQLException("canceling statement due to lock timeout", "55P03"));
+
+        // When
+        int dropped = partitionService.dropArchivedPartitions();
+
+        // Then: block 1 is left for the next run
+        assertThat(dropped).isEqualTo(1);
+        verify(statement, never()).execute("DROP TABLE track_matches_p1");
+        verify(statement).execute("DROP TABLE track_matches_p2");
+        verify(statement, times(2)).execute("RESET lock_timeout");
+    }
+
+    @SafeVarargs
+    private void givenArchivedPartitions(Map<String, Object>... partitions) throws SQLException {
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.createStatement()).thenReturn(statement);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation -> {
+            try {
+                return invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection);
+            } catch (SQLException e) {
+                throw new CannotAcquireLockException(e.getMessage(), e);
+            }
+        });
+        when(jdbcTemplate.queryForList(contains("track_matches_archived_partitions()"))).thenReturn(List.of(partitions));
+    }
+
+    private static Map<String, Object> partition(String name, boolean attached, boolean detachPending) {
+        return Map.of("partition_name", name, "attached", attached, "detach_pending", detachPending);
+    }
+
+    private void givenPostgres(long maxJobId, String... partitions) {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject(contains("MAX(id)"), eq(Long.class))).thenReturn(maxJobId);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class))).thenReturn(List.of(partitions));
+        when(jdbcTemplate.queryForObject(contains("pg_try_advisory_xact_lock"), eq(Boolean.class), any()))
+                .thenReturn(true);
+    }
+
+    private double headroom() {
+        return meterRegistry.get("spotease.track-matches.partition-headroom").gauge().value();
+    }
+}
@@ -1,8 +1,11 @@
 package com.spotease.service;
 
+import com.spotease.dto.MatchEvent;
 import com.spotease.dto.WebSocketMessage;
 import com.spotease.model.ConversionJob;
 import com.spotease.model.JobStatus;
+import com.spotease.model.MatchStatus;
+import com.spotease.model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,6 +27,9 @@ class WebSocketServiceTest {
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
+    @Mock
+    private ProgressSseService progressSseService;
+
     @InjectMocks
     private WebSocketService webSocketService;
 
@@ -31,8 +37,12 @@ class WebSocketServiceTest {
 
     @BeforeEach
     void setUp() {
+        User user = new User();
+        user.setId(7L);
+
         job = new ConversionJob();
         job.setId(1L);
+        job.setUser(user);
         job.setStatus(JobStatus.PROCESSING);
         job.setTotalTracks(10);
         job.setProcessedTracks(5);
@@ -46,10 +56,10 @@ class WebSocketServiceTest {
         // When
         webSocketService.sendJobUpdate(job);
 
-        // Then - verify message sent to both general and job-specific topics
+        // Then - verify message sent to both the owner's and the job-specific topic
         verify(messagingTemplate, times(2)).convertAndSend(any(String.class), any(WebSocketMessage.class));
-        verify(messagingTemplate).convertAndSend(eq("/topic/conversions"), any(WebSocketMessage.class));
-        verify(messagingTemplate).convertAndSend(eq("/topic/conversions/1"), any(WebSocketMessage.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/users/7/conversions"), any(WebSocketMessage.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/users/7/conversions/1"), any(WebSocketMessage.class));
     }
 
     @Test
@@ -59,7 +69,7 @@ class WebSocketServiceTest {
 
         // Then
         ArgumentCaptor<WebSocketMessage> messageCaptor = ArgumentCaptor.forClass(WebSocketMessage.class);
-        verify(messagingTemplate).convertAndSend(eq("/topic/conversions"), messageCaptor.capture());
+        verify(messagingTemplate).convertAndSend(eq("/topic/users/7/conversions"), messageCaptor.capture());
 
         WebSocketMessage message = messageCaptor.getValue();
         assertThat(message.getJobId()).isEqualTo(1L);
@@ -78,8 +88,8 @@ class WebSocketServiceTest {
 
         // Then
         verify(messagingTemplate, times(2)).convertAndSend(any(String.class), any(WebSocketMessage.class));
-        verify(messagingTemplate).convertAndSend(eq("/topic/conversions"), any(WebSocketMessage.class));
-        verify(messagingTemplate).convertAndSend(eq("/topic/conversions/1"), any(WebSocketMessage.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/users/7/conversions"), any(WebSocketMessage.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/users/7/conversions/1"), any(WebSocketMessage.class));
     }
 
     @Test
@@ -89,7 +99,7 @@ class WebSocketServiceTest {
 
         // Then
         ArgumentCaptor<WebSocketMessage> messageCaptor = ArgumentCaptor.forClass(WebSocketMessage.class);
-        verify(messagingTemplate).convertAndSend(eq("/topic/conversions"), messageCaptor.capture());
+        verify(messagingTemplate).convertAndSend(eq("/topic/users/7/conversions"), messageCaptor.capture());
 
         WebSocketMessage message = messageCaptor.getValue();
         assertThat(message.getJobId()).isEqualTo(1L);
@@ -103,8 +113,8 @@ class WebSocketServiceTest {
 
         // Then
         verify(messagingTemplate, times(2)).convertAndSend(any(String.class), any(WebSocketMessage.class));
-        verify(messagingTemplate).convertAndSend(eq("/topic/conversions"), any(WebSocketMessage.class));
-        verify(messagingTemplate).convertAndSend(eq("/topic/conversions/1"), any(WebSocketMessage.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/users/7/conversions"), any(WebSocketMessage.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/users/7/conversions/1"), any(WebSocketMessage.class));
     }
 
     @Test
@@ -114,11 +124,35 @@ class WebSocketServiceTest {
 
         // Then
         ArgumentCaptor<WebSocketMessage> messageCaptor = ArgumentCaptor.forClass(WebSocketMessage.class);
-        verify(messagingTemplate).convertAndSend(eq("/topic/conversions"), messageCaptor.capture());
+        verify(messagingTemplate).convertAndSend(eq("/topic/users/7/conversions"), messageCaptor.capture());
 
         WebSocketMessage message = messageCaptor.getValue();
         assertThat(message.getJobId()).isEqualTo(1L);
         assertThat(message.getStatus()).isEqualTo(JobStatus.FAILED);
         assertThat(message.getErrorMessage()).isEqualTo("Test error message");
     }
+
+    @Test
+    void shouldPublishSameMessageToSseWatchers() {
+        // When
+        webSocketService.sendJobError(job, "Test error message");
+
+        // Then
+        ArgumentCaptor<WebSocketMessage> topicMessage = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/users/7/conversions/1"), topicMessage.capture());
+        verify(progressSseService).publish(1L, topicMessage.getValue());
+        assertThat(topicMessage.getValue().getErrorMessage()).isEqualTo("Test error message");
+    }
+
+    @Test
+    void shouldSendMatchEventToJobMatchesTopic() {
+        // Given
+        MatchEvent event = MatchEvent.builder().sequence(1L).matchId(10L).status(MatchStatus.AUTO_MATCHED).build();
+
+        // When
+        webSocketService.sendMatchEvent(job, event);
+
+        // Then
+        verify(messagingTemplate).convertAndSend("/topic/users/7/conversions/1/matches", event);
+    }
 }
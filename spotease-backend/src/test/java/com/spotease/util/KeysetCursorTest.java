@@ -0,0 +1,46 @@
+package com.spotease.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void testTimestampedCursorRoundTrip() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 12, 30, 10, 15, 30, 123456000);
+
+        KeysetCursor.Position position = KeysetCursor.decode(KeysetCursor.encode(createdAt, 42L));
+
+        assertEquals(createdAt, position.createdAt());
+        assertEquals(42L, position.id());
+    }
+
+    @Test
+    void testIdOnlyCursorRoundTrip() {
+        KeysetCursor.Position position = KeysetCursor.decode(KeysetCursor.encode(1234L));
+
+        assertNull(position.createdAt());
+        assertEquals(1234L, position.id());
+    }
+
+    @Test
+    void testCursorIsUrlSafe() {
+        String cursor = KeysetCursor.encode(LocalDateTime.of(2025, 1, 1, 0, 0), Long.MAX_VALUE);
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void testDecodeWithInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("bm90LWEtbnVtYmVy")); // "not-a-number"
+    }
+
+    @Test
+    void testDecodeWithNullInput() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(null));
+    }
+}
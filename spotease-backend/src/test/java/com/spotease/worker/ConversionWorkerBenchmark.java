@@ -0,0 +1,256 @@
+package com.spotease.worker;
+
+import com.spotease.config.AsyncConfig;
+import com.spotease.dto.netease.NeteasePlaylist;
+import com.spotease.dto.spotify.SpotifyPlaylist;
+import com.spotease.dto.spotify.SpotifyTrack;
+import com.spotease.model.*;
+import com.spotease.repository.BulkTrackMatchRepository;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.TrackMatchRepository;
+import com.spotease.service.BulkConversionService;
+import com.spotease.service.BulkMatchCache;
+import com.spotease.service.CredentialProvider;
+import com.spotease.service.JobCancellation;
+import com.spotease.service.JobControlService;
+import com.spotease.service.MatchEventStream;
+import com.spotease.service.MatchingService;
+import com.spotease.service.NeteaseService;
+import com.spotease.service.PlatformCallLimiter;
+import com.spotease.service.PlaylistCache;
+import com.spotease.service.PlaylistSyncService;
+import com.spotease.service.ProgressPublisher;
+import com.spotease.service.SpotifyService;
+import com.spotease.service.SpotifyTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Compares the fixed worker pool with virtual-thread mode: jobs per hour and resident memory while
+ * converting the same jobs against stubbed platform clients with a fixed latency per call. Not part
+ * of the regular test run; run it with {@code mvn test -Pbenchmark}, on Java 21 for the virtual
+ * thread side. Sizes can be set with {@code -Dbenchmark.jobs}, {@code -Dbenchmark.tracks} and
+ * {@code -Dbenchmark.latency-ms}.
+ */
+@Tag("benchmark")
+@Slf4j
+class ConversionWorkerBenchmark {
+
+    private static final int JOBS = Integer.getInteger("benchmark.jobs", 40);
+    private static final int TRACKS = Integer.getInteger("benchmark.tracks", 50);
+    private static final int LATENCY_MS = Integer.getInteger("benchmark.latency-ms", 20);
+
+    // Defaults of spotease.scheduler and spotease.platform-limits
+    private static final int WORKER_THREADS = 5;
+    private static final int VIRTUAL_MAX_JOBS = 20;
+    private static final int TRACK_PARALLELISM = 8;
+    private static final int CALLS_PER_PLATFORM = 10;
+
+    @Test
+    void compareWorkerPoolWithVirtualThreads() throws Exception {
+        Result pool = run(false);
+        log.info("Benchmark: {} jobs x {} tracks, {} ms per platform call", JOBS, TRACKS, LATENCY_MS);
+        log.info("  worker pool ({} threads):   {}", WORKER_THREADS, pool);
+
+        if (Runtime.version().feature() < 21) {
+            log.info("  virtual threads: skipped, needs Java 21 (running {})", Runtime.version());
+            return;
+        }
+        Result virtual = run(true);
+        log.info("  virtual threads ({} jobs): {}", VIRTUAL_MAX_JOBS, virtual);
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        Map<Long, ConversionJob> jobs = new ConcurrentHashMap<>();
+        Semaphore slots = new Semaphore(virtualThreads ? VIRTUAL_MAX_JOBS : WORKER_THREADS);
+        CountDownLatch finished = new CountDownLatch(JOBS);
+        ConversionWorker worker = worker(jobs, virtualThreads, () -> {
+            slots.release();
+            finished.countDown();
+        });
+        Executor executor = new AsyncConfig().taskExecutor(WORKER_THREADS, virtualThreads);
+
+        System.gc();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long baselineRss = residentMemory();
+        AtomicLong peakRss = new AtomicLong(baselineRss);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakRss.accumulateAndGet(residentMemory(), Math::max),
+                0, 50, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        // Stands in for the dispatcher, which claims no more jobs than there are slots
+        for (long id = 1; id <= JOBS; id++) {
+            jobs.put(id, job(id));
+            slots.acquire();
+            long jobId = id;
+            executor.execute(() -> worker.processConversionJob(jobId));
+        }
+        assertThat(finished.await(10, TimeUnit.MINUTES)).isTrue();
+        long elapsedNanos = System.nanoTime() - start;
+
+        sampler.shutdownNow();
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+        assertThat(jobs.values()).allMatch(job -> job.getStatus() == JobStatus.COMPLETED);
+
+        double jobsPerHour = JOBS * TimeUnit.HOURS.toNanos(1) / (double) elapsedNanos;
+        return new Result(jobsPerHour, elapsedNanos / 1_000_000, peakRss.get() - baselineRss,
+                threads.getPeakThreadCount());
+    }
+
+    private record Result(double jobsPerHour, long elapsedMs, long rssGrowthBytes, int peakThreads) {
+        @Override
+        public String toString() {
+            return String.format("%,.0f jobs/hour, %,d ms, peak RSS +%,d KiB, peak %d platform threads",
+                    jobsPerHour, elapsedMs, rssGrowthBytes / 1024, peakThreads);
+        }
+    }
+
+    private static ConversionWorker worker(Map<Long, ConversionJob> jobs, boolean virtualThreads, Runnable onFinished) {
+        ConversionJobRepository jobRepository = stub(ConversionJobRepository.class);
+        when(jobRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(jobs.get(invocation.<Long>getArgument(0))));
+        when(jobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        SpotifyService spotifyService = stub(SpotifyService.class);
+        SpotifyPlaylist source = new SpotifyPlaylist();
+        source.setName("Source");
+        source.setTotalTracks(TRACKS);
+        when(spotifyService.getPlaylistById(any(), any())).thenAnswer(invocation -> platformCall(source));
+        List<SpotifyTrack> tracks = IntStream.range(0, TRACKS).mapToObj(ConversionWorkerBenchmark::track).toList();
+        when(spotifyService.getPlaylistTracks(any(), any())).thenAnswer(invocation -> platformCall(tracks));
+
+        NeteaseService neteaseService = stub(NeteaseService.class);
+        when(neteaseService.getPlaylistById(any(), any())).thenAnswer(invocation -> platformCall(new NeteasePlaylist()));
+        when(neteaseService.createPlaylist(any(), any())).thenAnswer(invocation -> platformCall("destination"));
+        doAnswer(invocation -> platformCall(null)).when(neteaseService).addTracksToPlaylist(any(), any(), anyList());
+
+        MatchingService matchingService = stub(MatchingService.class);
+        when(matchingService.findBestMatch(any(), any(), any(), any())).thenAnswer(invocation -> {
+            SpotifyTrack track = invocation.getArgument(0);
+            TrackMatch match = new TrackMatch();
+            match.setConversionJob(invocation.getArgument(3));
+            match.setSourceTrackId(track.getId());
+            match.setStatus(MatchStatus.AUTO_MATCHED);
+            match.setDestinationTrackId("netease-" + track.getId());
+            return platformCall(match);
+        });
+
+        ProgressPublisher progressPublisher = stub(ProgressPublisher.class);
+        doAnswer(invocation -> {
+            onFinished.run();
+            return null;
+        }).when(progressPublisher).jobFinished(any());
+
+        SpotifyTokenService spotifyTokenService = stub(SpotifyTokenService.class);
+        when(spotifyTokenService.getAccessToken(any())).thenReturn("token");
+        when(spotifyTokenService.call(any(), any())).thenCallRealMethod();
+        CredentialProvider credentialProvider = stub(CredentialProvider.class);
+        when(credentialProvider.decrypt(any())).thenReturn("cookie");
+
+        Map<Long, JobCancellation> cancellations = new ConcurrentHashMap<>();
+        JobControlService jobControlService = stub(JobControlService.class);
+        when(jobControlService.register(anyLong()))
+                .thenAnswer(invocation -> cancellations.computeIfAbsent(invocation.getArgument(0), id -> new JobCancellation()));
+        when(jobControlService.cancellation(anyLong()))
+                .thenAnswer(invocation -> cancellations.computeIfAbsent(invocation.getArgument(0), id -> new JobCancellation()));
+
+        SequentialTrackPipeline pipeline = new SequentialTrackPipeline(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pipeline, "virtualThreads", virtualThreads);
+        ReflectionTestUtils.setField(pipeline, "trackParallelism", TRACK_PARALLELISM);
+        pipeline.initSearchExecutor();
+
+        ConversionWorker worker = new ConversionWorker(jobRepository, stub(TrackMatchRepository.class), spotifyService,
+                neteaseService, matchingService, progressPublisher, stub(MatchEventStream.class), credentialProvider,
+                spotifyTokenService, stub(PlaylistCache.class), stub(PlaylistSyncService.class),
+                new BulkMatchCache(stub(BulkTrackMatchRepository.class), stub(PlatformTransactionManager.class),
+                        new SimpleMeterRegistry()),
+                stub(BulkConversionService.class), jobControlService,
+                new PlatformCallLimiter(CALLS_PER_PLATFORM, CALLS_PER_PLATFORM, new SimpleMeterRegistry()),
+                pipeline, stub(EntityManager.class));
+        return worker;
+    }
+
+    private static <T> T stub(Class<T> type) {
+        // Mocks that do not record the hundreds of thousands of calls a run makes
+        return mock(type, withSettings().stubOnly());
+    }
+
+    private static <T> T platformCall(T result) throws InterruptedException {
+        Thread.sleep(LATENCY_MS);
+        return result;
+    }
+
+    private static ConversionJob job(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setNeteaseCookie("encrypted-cookie");
+
+        ConversionJob job = new ConversionJob();
+        job.setId(id);
+        job.setUser(user);
+        job.setSourcePlatform(Platform.SPOTIFY);
+        job.setSourcePlaylistId("source-" + id);
+        job.setDestinationPlatform(Platform.NETEASE);
+        job.setDestinationPlaylistName("Destination " + id);
+        job.setMode(ConversionMode.CREATE);
+        job.setStatus(JobStatus.QUEUED);
+        job.setTotalTracks(0);
+        return job;
+    }
+
+    private static SpotifyTrack track(int index) {
+        SpotifyTrack track = new SpotifyTrack();
+        track.setId("track" + index);
+        track.setName("Track " + index);
+        track.setArtists(List.of("Artist " + index));
+        track.setDurationMs(180_000 + index * 1000);
+        return track;
+    }
+
+    /**
+     * Resident set size of this process in bytes; the used heap where /proc is not available.
+     */
+    private static long residentMemory() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (Exception e) {
+            // Not Linux
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,25 +1,47 @@
 package com.spotease.worker;
 
+import com.spotease.dto.netease.NeteasePlaylist;
 import com.spotease.dto.netease.NeteaseTrack;
+import com.spotease.dto.spotify.SpotifyPlaylist;
 import com.spotease.dto.spotify.SpotifyTrack;
 import com.spotease.model.*;
+import com.spotease.repository.BulkTrackMatchRepository;
 import com.spotease.repository.ConversionJobRepository;
 import com.spotease.repository.TrackMatchRepository;
+import com.spotease.service.BulkConversionService;
+import com.spotease.service.BulkMatchCache;
+import com.spotease.service.CredentialProvider;
+import com.spotease.service.JobCancellation;
+import com.spotease.service.JobControlService;
+import com.spotease.service.MatchEventStream;
 import com.spotease.service.MatchingService;
 import com.spotease.service.NeteaseService;
+import com.spotease.service.PlatformCallLimiter;
+import com.spotease.service.PlaylistCache;
+import com.spotease.service.PlaylistSyncService;
+import com.spotease.service.ProgressPublisher;
 import com.spotease.service.SpotifyService;
-import com.spotease.service.WebSocketService;
-import com.spotease.util.TokenEncryption;
+import com.spotease.service.SpotifyTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import se.michaelthelin.spotify.exceptions.detailed.UnauthorizedException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -44,16 +66,49 @@ class ConversionWorkerTest {
     private MatchingService matchingService;
 
     @Mock
-    private WebSocketService webSocketService;
+    private ProgressPublisher progressPublisher;
 
     @Mock
-    private TokenEncryption tokenEncryption;
+    private MatchEventStream matchEventStream;
+
+    @Mock
+    private CredentialProvider credentialProvider;
+
+    @Mock
+    private SpotifyTokenService spotifyTokenService;
+
+    @Mock
+    private PlaylistCache playlistCache;
+
+    @Mock
+    private PlaylistSyncService playlistSyncService;
+
+    @Spy
+    private BulkMatchCache bulkMatchCache = new BulkMatchCache(
+            mock(BulkTrackMatchRepository.class), mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+
+    @Mock
+    private BulkConversionService bulkConversionService;
+
+    @Mock
+    private JobControlService jobControlService;
+
+    @Spy
+    private PlatformCallLimiter callLimiter = new PlatformCallLimiter(10, 10, new SimpleMeterRegistry());
+
+    @Spy
+    private SequentialTrackPipeline trackPipeline = new SequentialTrackPipeline(new SimpleMeterRegistry());
+
+    @Mock
+    private EntityManager entityManager;
 
     @InjectMocks
     private ConversionWorker conversionWorker;
 
     private ConversionJob job;
     private User user;
+    private SpotifyPlaylist sourcePlaylist;
+    private JobCancellation cancellation;
 
     @BeforeEach
     void setUp() {
@@ -71,16 +126,31 @@ class ConversionWorkerTest {
         job.setMode(ConversionMode.CREATE);
         job.setDestinationPlaylistName("New Playlist");
         job.setStatus(JobStatus.QUEUED);
-        job.setTotalTracks(2);
+        job.setTotalTracks(0);
+
+        cancellation = new JobCancellation();
+        lenient().when(jobControlService.register(anyLong())).thenReturn(cancellation);
+        lenient().when(jobControlService.cancellation(anyLong())).thenReturn(cancellation);
+        lenient().when(spotifyTokenService.call(any(), any())).thenCallRealMethod();
+
+        // Playlists the worker validates before processing
+        sourcePlaylist = new SpotifyPlaylist();
+        sourcePlaylist.setName("Source Playlist");
+        sourcePlaylist.setTotalTracks(2);
+        lenient().when(spotifyService.getPlaylistById(any(), eq("playlist123"))).thenReturn(sourcePlaylist);
+
+        NeteasePlaylist destinationPlaylist = new NeteasePlaylist();
+        destinationPlaylist.setName("Existing Playlist");
+        destinationPlaylist.setTotalTracks(1);
+        lenient().when(neteaseService.getPlaylistById(any(), eq("existing-playlist-id"))).thenReturn(destinationPlaylist);
     }
 
     @Test
     void shouldProcessJobWithAutoMatchedTracks() {
         // Given
         when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
-        when(jobRepository.save(any(ConversionJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(tokenEncryption.decrypt("encrypted-token")).thenReturn("decrypted-token");
-        when(tokenEncryption.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
 
         // Source tracks
         SpotifyTrack track1 = new SpotifyTrack();
@@ -117,8 +187,13 @@ class ConversionWorkerTest {
         conversionWorker.processConversionJob(1L);
 
         // Then
-        // Verify job repository was called multiple times to save progress
-        verify(jobRepository, atLeast(5)).save(any(ConversionJob.class));
+        // Verify progress was reported for the start, each track and the end
+        verify(progressPublisher).jobStarted(job);
+        verify(progressPublisher, times(2)).trackProcessed(job);
+        verify(progressPublisher).jobFinished(job);
+        verify(matchEventStream).publish(job, match1);
+        verify(matchEventStream).publish(job, match2);
+        verify(matchEventStream).close(1L);
 
         // Verify final state of job
         assertThat(job.getStatus()).isEqualTo(JobStatus.COMPLETED);
@@ -129,17 +204,390 @@ class ConversionWorkerTest {
         verify(trackMatchRepository, times(2)).save(any(TrackMatch.class));
         verify(neteaseService).createPlaylist(eq("decrypted-cookie"), eq("New Playlist"));
         verify(neteaseService).addTracksToPlaylist(eq("decrypted-cookie"), eq("created-playlist-id"), anyList());
-        verify(webSocketService, atLeast(2)).sendJobUpdate(any(ConversionJob.class));
-        verify(webSocketService).sendJobComplete(any(ConversionJob.class));
+        // The job row stays locked while the job runs, and is written outside the worker's transaction
+        verify(jobControlService).lockJob(1L);
+        verify(entityManager).detach(job);
+        verify(progressPublisher).persistProgress(job);
+        // Once for the created playlist, once for the added tracks
+        verify(playlistCache, times(2)).invalidate(1L, Platform.NETEASE);
+    }
+
+    @Test
+    void shouldMatchRepeatedSourceTracksOnce() {
+        // Given: a track listed twice, and a re-upload of it under another id with the same ISRC
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(neteaseService.createPlaylist(eq("decrypted-cookie"), eq("New Playlist")))
+                .thenReturn("created-playlist-id");
+
+        SpotifyTrack track = new SpotifyTrack();
+        track.setId("track1");
+        track.setName("Track 1");
+        track.setIsrc("USRC17607839");
+        SpotifyTrack reupload = new SpotifyTrack();
+        reupload.setId("track1-reupload");
+        reupload.setName("Track 1");
+        reupload.setIsrc("usrc17607839");
+        when(spotifyService.getPlaylistTracks(eq("decrypted-token"), eq("playlist123")))
+                .thenReturn(List.of(track, track, reupload));
+
+        TrackMatch match = new TrackMatch();
+        match.setConversionJob(job);
+        match.setSourceTrackId("track1");
+        match.setStatus(MatchStatus.AUTO_MATCHED);
+        match.setDestinationTrackId("netease-track1");
+        match.setMatchConfidence(0.95);
+        when(matchingService.findBestMatch(eq(track), eq(Platform.NETEASE), eq("decrypted-cookie"), eq(job)))
+                .thenReturn(match);
+
+        // When
+        conversionWorker.processConversionJob(1L);
+
+        // Then: one search, a row per occurrence
+        verify(matchingService, times(1)).findBestMatch(any(), any(), any(), any());
+        ArgumentCaptor<TrackMatch> saved = ArgumentCaptor.forClass(TrackMatch.class);
+        verify(trackMatchRepository, times(3)).save(saved.capture());
+        assertThat(saved.getAllValues())
+                .extracting(TrackMatch::getSourceTrackId)
+                .containsExactly("track1", "track1", "track1-reupload");
+        assertThat(saved.getAllValues())
+                .extracting(TrackMatch::getDestinationTrackId)
+                .containsOnly("netease-track1");
+        assertThat(job.getSearchesSaved()).isEqualTo(2);
+        assertThat(job.getProcessedTracks()).isEqualTo(3);
+        assertThat(job.getHighConfidenceMatches()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldSearchAheadAndStillSaveTracksInOrder() {
+        // Given: search-ahead enabled (platform threads stand in for virtual ones), a repeated track
+        // and a slow search for the second track
+        ReflectionTestUtils.setField(trackPipeline, "searchExecutor", new SimpleAsyncTaskExecutor("track-search-"));
+        ReflectionTestUtils.setField(trackPipeline, "trackParallelism", 4);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(neteaseService.createPlaylist(eq("decrypted-cookie"), eq("New Playlist")))
+                .thenReturn("created-playlist-id");
+
+        SpotifyTrack track1 = new SpotifyTrack();
+        track1.setId("track1");
+        track1.setName("Track 1");
+        SpotifyTrack track2 = new SpotifyTrack();
+        track2.setId("track2");
+        track2.setName("Track 2");
+        SpotifyTrack track3 = new SpotifyTrack();
+        track3.setId("track3");
+        track3.setName("Track 3");
+        when(spotifyService.getPlaylistTracks(eq("decrypted-token"), eq("playlist123")))
+                .thenReturn(List.of(track1, track2, track1, track3));
+
+        Set<String> searchThreads = ConcurrentHashMap.newKeySet();
+        when(matchingService.findBestMatch(any(), eq(Platform.NETEASE), eq("decrypted-cookie"), eq(job)))
+                .thenAnswer(invocation -> {
+                    SpotifyTrack track = invocation.getArgument(0);
+                    searchThreads.add(Thread.currentThread().getName());
+                    if (track == track2) {
+                        Thread.sleep(100);
+                    }
+                    TrackMatch match = new TrackMatch();
+                    match.setConversionJob(job);
+                    match.setSourceTrackId(track.getId());
+                    match.setStatus(MatchStatus.AUTO_MATCHED);
+                    match.setDestinationTrackId("netease-" + track.getId());
+                    return match;
+                });
+
+        // When
+        conversionWorker.processConversionJob(1L);
+
+        // Then: one search per distinct track, off the worker thread, rows in playlist order
+        verify(matchingService, times(3)).findBestMatch(any(), any(), any(), any());
+        assertThat(searchThreads).allMatch(name -> name.startsWith("track-search-"));
+        ArgumentCaptor<TrackMatch> saved = ArgumentCaptor.forClass(TrackMatch.class);
+        verify(trackMatchRepository, times(4)).save(saved.capture());
+        assertThat(saved.getAllValues())
+                .extracting(TrackMatch::getSourceTrackId)
+                .containsExactly("track1", "track2", "track1", "track3");
+        assertThat(job.getStatus()).isEqualTo(JobStatus.COMPLETED);
+        assertThat(job.getSearchesSaved()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPauseBetweenTracksAndKeepWhatWasMatched() {
+        // Given: a pause requested while the first track is being matched
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(neteaseService.createPlaylist(eq("decrypted-cookie"), eq("New Playlist")))
+                .thenReturn("created-playlist-id");
+        job.setClaimedBy("replica-1");
+
+        SpotifyTrack track1 = new SpotifyTrack();
+        track1.setId("track1");
+        track1.setName("Track 1");
+        SpotifyTrack track2 = new SpotifyTrack();
+        track2.setId("track2");
+        track2.setName("Track 2");
+        when(spotifyService.getPlaylistTracks(eq("decrypted-token"), eq("playlist123")))
+                .thenReturn(List.of(track1, track2));
+
+        TrackMatch match1 = new TrackMatch();
+        match1.setSourceTrackId("track1");
+        match1.setStatus(MatchStatus.AUTO_MATCHED);
+        match1.setDestinationTrackId("netease-track1");
+        when(matchingService.findBestMatch(eq(track1), any(), any(), any())).thenAnswer(invocation -> {
+            cancellation.request(JobStatus.PAUSED);
+            return match1;
+        });
+
+        // When
+        conversionWorker.processConversionJob(1L);
+
+        // Then: the second track is left for the resumed run, the first is already in the destination
+        assertThat(job.getStatus()).isEqualTo(JobStatus.PAUSED);
+        assertThat(job.getProcessedTracks()).isEqualTo(1);
+        assertThat(job.getClaimedBy()).isNull();
+        verify(matchingService, never()).findBestMatch(eq(track2), any(), any(), any());
+        verify(neteaseService).addTracksToPlaylist("decrypted-cookie", "created-playlist-id", List.of("netease-track1"));
+        verify(progressPublisher).jobStatusChanged(job);
+        verify(progressPublisher, never()).jobFinished(any());
+        verify(jobControlService).finished(1L);
+    }
+
+    @Test
+    void shouldCheckpointAndGoBackOnQueueWhenReplicaShutsDown() {
+        // Given: the replica starts shutting down while the first track is being matched
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(neteaseService.createPlaylist(eq("decrypted-cookie"), eq("New Playlist")))
+                .thenReturn("created-playlist-id");
+        job.setClaimedBy("replica-1");
+
+        SpotifyTrack track1 = new SpotifyTrack();
+        track1.setId("track1");
+        track1.setName("Track 1");
+        SpotifyTrack track2 = new SpotifyTrack();
+        track2.setId("track2");
+        track2.setName("Track 2");
+        when(spotifyService.getPlaylistTracks(eq("decrypted-token"), eq("playlist123")))
+                .thenReturn(List.of(track1, track2));
+
+        TrackMatch match1 = new TrackMatch();
+        match1.setSourceTrackId("track1");
+        match1.setStatus(MatchStatus.AUTO_MATCHED);
+        match1.setDestinationTrackId("netease-track1");
+        when(matchingService.findBestMatch(eq(track1), any(), any(), any())).thenAnswer(invocation -> {
+            cancellation.requeue();
+            return match1;
+        });
+
+        // When
+        conversionWorker.processConversionJob(1L);
+
+        // Then: queued and unclaimed for any replica to resume, with the first track in the destination
+        assertThat(job.getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(job.getProcessedTracks()).isEqualTo(1);
+        assertThat(job.getClaimedBy()).isNull();
+        verify(matchingService, never()).findBestMatch(eq(track2), any(), any(), any());
+        verify(neteaseService).addTracksToPlaylist("decrypted-cookie", "created-playlist-id", List.of("netease-track1"));
+        verify(progressPublisher).jobStatusChanged(job);
+        verify(jobControlService).finished(1L);
+    }
+
+    @Test
+    void shouldResumeAfterSavedMatchesWithoutSearchingAgain() {
+        // Given: a CREATE job paused after its first track
+        job.setDestinationPlaylistId("created-playlist-id");
+        job.setProcessedTracks(1);
+        job.setHighConfidenceMatches(1);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+
+        SpotifyTrack track1 = new SpotifyTrack();
+        track1.setId("track1");
+        track1.setName("Track 1");
+        SpotifyTrack track2 = new SpotifyTrack();
+        track2.setId("track2");
+        track2.setName("Track 2");
+        when(spotifyService.getPlaylistTracks(eq("decrypted-token"), eq("playlist123")))
+                .thenReturn(List.of(track1, track2));
+
+        TrackMatch saved = new TrackMatch();
+        saved.setConversionJob(job);
+        saved.setSourceTrackId("track1");
+        saved.setStatus(MatchStatus.AUTO_MATCHED);
+        saved.setDestinationTrackId("netease-track1");
+        when(trackMatchRepository.findByConversionJob_Id(1L)).thenReturn(List.of(saved));
+
+        TrackMatch match2 = new TrackMatch();
+        match2.setConversionJob(job);
+        match2.setSourceTrackId("track2");
+        match2.setStatus(MatchStatus.AUTO_MATCHED);
+        match2.setDestinationTrackId("netease-track2");
+        when(matchingService.findBestMatch(eq(track2), any(), any(), any())).thenReturn(match2);
+
+        // When
+        conversionWorker.processConversionJob(1L);
+
+        // Then
+        verify(neteaseService, never()).createPlaylist(any(), any());
+        verify(matchingService, never()).findBestMatch(eq(track1), any(), any(), any());
+        verify(trackMatchRepository, times(1)).save(any(TrackMatch.class));
+        verify(neteaseService).addTracksToPlaylist("decrypted-cookie", "created-playlist-id", List.of("netease-track2"));
+        assertThat(job.getStatus()).isEqualTo(JobStatus.COMPLETED);
+        assertThat(job.getProcessedTracks()).isEqualTo(2);
+        assertThat(job.getHighConfidenceMatches()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRecountProgressOfJobWhoseWorkerDied() {
+        // Given: a requeued job whose progress was committed but whose matches were rolled back
+        job.setDestinationPlaylistId("created-playlist-id");
+        job.setProcessedTracks(2);
+        job.setHighConfidenceMatches(1);
+        job.setFailedTracks(1);
+        job.setSearchesSaved(1);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+
+        SpotifyTrack track1 = new SpotifyTrack();
+        track1.setId("track1");
+        track1.setName("Track 1");
+        SpotifyTrack track2 = new SpotifyTrack();
+        track2.setId("track2");
+        track2.setName("Track 2");
+        when(spotifyService.getPlaylistTracks(eq("decrypted-token"), eq("playlist123")))
+                .thenReturn(List.of(track1, track2));
+        when(trackMatchRepository.findByConversionJob_Id(1L)).thenReturn(List.of());
+
+        TrackMatch match1 = new TrackMatch();
+        match1.setStatus(MatchStatus.AUTO_MATCHED);
+        match1.setDestinationTrackId("netease-track1");
+        TrackMatch match2 = new TrackMatch();
+        match2.setStatus(MatchStatus.PENDING_REVIEW);
+        match2.setDestinationTrackId("netease-track2");
+        when(matchingService.findBestMatch(eq(track1), any(), any(), any())).thenReturn(match1);
+        when(matchingService.findBestMatch(eq(track2), any(), any(), any())).thenReturn(match2);
+
+        // When
+        conversionWorker.processConversionJob(1L);
+
+        // Then: both tracks are matched again and counted once
+        verify(trackMatchRepository, times(2)).save(any(TrackMatch.class));
+        assertThat(job.getStatus()).isEqualTo(JobStatus.REVIEW_PENDING);
+        assertThat(job.getProcessedTracks()).isEqualTo(2);
+        assertThat(job.getHighConfidenceMatches()).isEqualTo(1);
+        assertThat(job.getLowConfidenceMatches()).isEqualTo(1);
+        assertThat(job.getFailedTracks()).isZero();
+        assertThat(job.getSearchesSaved()).isZero();
+    }
+
+    @Test
+    void shouldMarkJobCancelledWhenCancelAbortsPlatformCall() {
+        // Given: the cancel interrupts the search in progress, which fails
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(neteaseService.createPlaylist(eq("decrypted-cookie"), eq("New Playlist")))
+                .thenReturn("created-playlist-id");
+
+        SpotifyTrack track1 = new SpotifyTrack();
+        track1.setId("track1");
+        track1.setName("Track 1");
+        when(spotifyService.getPlaylistTracks(eq("decrypted-token"), eq("playlist123")))
+                .thenReturn(List.of(track1));
+        when(matchingService.findBestMatch(eq(track1), any(), any(), any())).thenAnswer(invocation -> {
+            cancellation.request(JobStatus.CANCELLED);
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+            throw new RuntimeException("Failed to search tracks");
+        });
+
+        // When
+        conversionWorker.processConversionJob(1L);
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(JobStatus.CANCELLED);
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        verify(progressPublisher).jobStatusChanged(job);
+        verify(progressPublisher, never()).jobFailed(any(), any());
+        verify(neteaseService, never()).addTracksToPlaylist(any(), any(), any());
+    }
+
+    @Test
+    void shouldMatchTrackSharedByBulkChildrenOnce() {
+        // Given: two children of one bulk conversion whose playlists share a track
+        BulkConversion bulk = new BulkConversion();
+        bulk.setId(10L);
+        job.setBulkConversion(bulk);
+
+        ConversionJob sibling = new ConversionJob();
+        sibling.setId(2L);
+        sibling.setUser(user);
+        sibling.setBulkConversion(bulk);
+        sibling.setSourcePlatform(Platform.SPOTIFY);
+        sibling.setSourcePlaylistId("playlist456");
+        sibling.setDestinationPlatform(Platform.NETEASE);
+        sibling.setMode(ConversionMode.UPDATE);
+        sibling.setDestinationPlaylistId("existing-playlist-id");
+        sibling.setStatus(JobStatus.QUEUED);
+        sibling.setTotalTracks(0);
+        when(spotifyService.getPlaylistById(any(), eq("playlist456"))).thenReturn(sourcePlaylist);
+
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(jobRepository.findById(2L)).thenReturn(Optional.of(sibling));
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(neteaseService.createPlaylist(eq("decrypted-cookie"), eq("New Playlist")))
+                .thenReturn("created-playlist-id");
+        when(neteaseService.getPlaylistTracks(eq("decrypted-cookie"), eq("existing-playlist-id")))
+                .thenReturn(List.of());
+
+        SpotifyTrack shared = new SpotifyTrack();
+        shared.setId("shared-track");
+        shared.setName("Shared Track");
+        when(spotifyService.getPlaylistTracks(eq("decrypted-token"), eq("playlist123"))).thenReturn(List.of(shared));
+        when(spotifyService.getPlaylistTracks(eq("decrypted-token"), eq("playlist456"))).thenReturn(List.of(shared));
+
+        TrackMatch match = new TrackMatch();
+        match.setConversionJob(job);
+        match.setSourceTrackId("shared-track");
+        match.setStatus(MatchStatus.AUTO_MATCHED);
+        match.setDestinationTrackId("netease-shared");
+        match.setMatchConfidence(0.95);
+        when(matchingService.findBestMatch(eq(shared), eq(Platform.NETEASE), eq("decrypted-cookie"), eq(job)))
+                .thenReturn(match);
+
+        // When
+        conversionWorker.processConversionJob(1L);
+        conversionWorker.processConversionJob(2L);
+
+        // Then: searched once, and the sibling got its own copy of the match
+        verify(matchingService, times(1)).findBestMatch(any(), any(), any(), any());
+        ArgumentCaptor<TrackMatch> saved = ArgumentCaptor.forClass(TrackMatch.class);
+        verify(trackMatchRepository, times(2)).save(saved.capture());
+        TrackMatch copy = saved.getAllValues().get(1);
+        assertThat(copy).isNotSameAs(match);
+        assertThat(copy.getConversionJob()).isSameAs(sibling);
+        assertThat(copy.getDestinationTrackId()).isEqualTo("netease-shared");
+
+        // Both destinations get the track
+        verify(neteaseService).addTracksToPlaylist("decrypted-cookie", "created-playlist-id", List.of("netease-shared"));
+        verify(neteaseService).addTracksToPlaylist("decrypted-cookie", "existing-playlist-id", List.of("netease-shared"));
+        verify(bulkConversionService).jobFinished(job);
+        verify(bulkConversionService).jobFinished(sibling);
     }
 
     @Test
     void shouldHandlePendingReviewTracks() {
         // Given
         when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
-        when(jobRepository.save(any(ConversionJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(tokenEncryption.decrypt("encrypted-token")).thenReturn("decrypted-token");
-        when(tokenEncryption.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
 
         SpotifyTrack track1 = new SpotifyTrack();
         track1.setId("track1");
@@ -158,8 +606,11 @@ class ConversionWorkerTest {
         conversionWorker.processConversionJob(1L);
 
         // Then
-        // Verify job repository was called multiple times
-        verify(jobRepository, atLeast(3)).save(any(ConversionJob.class));
+        // Verify progress was reported
+        verify(progressPublisher).trackProcessed(job);
+        verify(progressPublisher).jobFinished(job);
+        verify(matchEventStream).publish(job, match);
+        verify(matchEventStream).close(1L);
 
         // Verify final state of job
         assertThat(job.getStatus()).isEqualTo(JobStatus.REVIEW_PENDING);
@@ -176,8 +627,8 @@ class ConversionWorkerTest {
         job.setDestinationPlaylistId("existing-playlist-id");
 
         when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
-        when(jobRepository.save(any(ConversionJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(tokenEncryption.decrypt(any())).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt(any())).thenReturn("decrypted-token");
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
 
         SpotifyTrack sourceTrack = new SpotifyTrack();
         sourceTrack.setId("track1");
@@ -212,7 +663,7 @@ class ConversionWorkerTest {
         verify(trackMatchRepository).save(any(TrackMatch.class));
 
         // Verify counters were updated correctly
-        verify(jobRepository, atLeastOnce()).save(argThat(j ->
+        verify(progressPublisher).trackProcessed(argThat(j ->
                 j.getHighConfidenceMatches() == 1 &&
                         j.getProcessedTracks() == 1
         ));
@@ -222,8 +673,8 @@ class ConversionWorkerTest {
     void shouldHandleErrorsGracefully() {
         // Given
         when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
-        when(jobRepository.save(any(ConversionJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(tokenEncryption.decrypt(any())).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt(any())).thenReturn("decrypted-token");
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
         when(neteaseService.createPlaylist(any(), any())).thenReturn("created-playlist-id");
         when(spotifyService.getPlaylistTracks(any(), any()))
                 .thenThrow(new RuntimeException("Spotify API error"));
@@ -232,14 +683,154 @@ class ConversionWorkerTest {
         conversionWorker.processConversionJob(1L);
 
         // Then
-        // Verify job was saved multiple times (PROCESSING, FAILED)
+        // Verify the failure was persisted and published with FAILED status
         ArgumentCaptor<ConversionJob> jobCaptor = ArgumentCaptor.forClass(ConversionJob.class);
-        verify(jobRepository, atLeastOnce()).save(jobCaptor.capture());
+        verify(progressPublisher).jobFailed(jobCaptor.capture(), eq("Spotify API error"));
+        assertThat(jobCaptor.getValue().getStatus()).isEqualTo(JobStatus.FAILED);
+    }
+
+    @Test
+    void shouldRefreshSpotifyTokenAndRetryOnUnauthorized() {
+        // Given: Spotify rejects the first token mid-job
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(neteaseService.createPlaylist(any(), any())).thenReturn("created-playlist-id");
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("expired-token");
+        when(spotifyTokenService.refreshAfterUnauthorized(1L, "expired-token")).thenReturn("fresh-token");
+
+        when(spotifyService.getPlaylistTracks("expired-token", "playlist123"))
+                .thenThrow(new RuntimeException("Failed to get playlist tracks",
+                        new UnauthorizedException("The access token expired")));
+        when(spotifyService.getPlaylistTracks("fresh-token", "playlist123")).thenReturn(List.of());
+
+        // When
+        conversionWorker.processConversionJob(1L);
 
-        // Verify that at least one save had FAILED status
-        assertThat(jobCaptor.getAllValues())
-                .anyMatch(j -> j.getStatus() == JobStatus.FAILED);
+        // Then
+        verify(spotifyTokenService).refreshAfterUnauthorized(1L, "expired-token");
+        verify(spotifyService).getPlaylistTracks("fresh-token", "playlist123");
+        assertThat(job.getStatus()).isEqualTo(JobStatus.COMPLETED);
+    }
+
+    @Test
+    void shouldFillInPlaylistDetailsBeforeProcessing() {
+        // Given: the job was queued with identifiers only
+        job.setMode(ConversionMode.UPDATE);
+        job.setDestinationPlaylistId("existing-playlist-id");
+        job.setDestinationPlaylistName(null);
+
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(spotifyService.getPlaylistTracks("decrypted-token", "playlist123")).thenReturn(List.of());
+        when(neteaseService.getPlaylistTracks("decrypted-cookie", "existing-playlist-id")).thenReturn(List.of());
+
+        // When
+        conversionWorker.processConversionJob(1L);
+
+        // Then
+        verify(progressPublisher).jobStarted(argThat(j ->
+                "Source Playlist".equals(j.getSourcePlaylistName()) &&
+                        "Existing Playlist".equals(j.getDestinationPlaylistName()) &&
+                        j.getTotalTracks() == 2
+        ));
+        assertThat(job.getStatus()).isEqualTo(JobStatus.COMPLETED);
+    }
+
+    @Test
+    void shouldFailJobWhenSourcePlaylistIsInaccessible() {
+        // Given
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(spotifyService.getPlaylistById("decrypted-token", "playlist123"))
+                .thenThrow(new RuntimeException("Failed to get Spotify playlist"));
+
+        // When
+        conversionWorker.processConversionJob(1L);
+
+        // Then: reported like any other failure, before anything is created on the destination
+        verify(progressPublisher).jobFailed(job, "Failed to get Spotify playlist");
+        verify(progressPublisher, never()).jobStarted(any());
+        verify(neteaseService, never()).createPlaylist(any(), any());
+        assertThat(job.getStatus()).isEqualTo(JobStatus.FAILED);
+    }
+
+    @Test
+    void shouldSkipSyncWhenSourceSnapshotIsUnchanged() {
+        // Given
+        job.setMode(ConversionMode.SYNC);
+        job.setDestinationPlaylistId("existing-playlist-id");
+        sourcePlaylist.setSnapshotId("snapshot-1");
+
+        PlaylistSync sync = new PlaylistSync();
+        sync.setSourceSnapshot("snapshot-1");
+
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(playlistSyncService.getOrCreate(job)).thenReturn(sync);
+
+        // When
+        conversionWorker.processConversionJob(1L);
+
+        // Then: no tracks are read, matched or written
+        verify(spotifyService, never()).getPlaylistTracks(any(), any());
+        verify(matchingService, never()).findBestMatch(any(), any(), any(), any());
+        verify(playlistSyncService, never()).recordSync(any(), any(), any(), any(), any());
+        assertThat(job.getStatus()).isEqualTo(JobStatus.COMPLETED);
+        assertThat(job.getTotalTracks()).isZero();
+    }
+
+    @Test
+    void shouldSyncOnlyTracksAddedOrRemovedSinceLastSync() {
+        // Given: track1 was synced before, track2 is new and track3 was removed from the source
+        job.setMode(ConversionMode.SYNC);
+        job.setDestinationPlaylistId("existing-playlist-id");
+        sourcePlaylist.setSnapshotId("snapshot-2");
+
+        PlaylistSync sync = new PlaylistSync();
+        sync.setSourceSnapshot("snapshot-1");
+        PlaylistSyncTrack synced1 = syncTrack("track1", "netease-track1");
+        PlaylistSyncTrack synced3 = syncTrack("track3", "netease-track3");
+
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(spotifyTokenService.getAccessToken(user)).thenReturn("decrypted-token");
+        when(credentialProvider.decrypt("encrypted-cookie")).thenReturn("decrypted-cookie");
+        when(playlistSyncService.getOrCreate(job)).thenReturn(sync);
+        when(playlistSyncService.getSyncedTracks(sync)).thenReturn(Map.of("track1", synced1, "track3", synced3));
+
+        SpotifyTrack track1 = new SpotifyTrack();
+        track1.setId("track1");
+        SpotifyTrack track2 = new SpotifyTrack();
+        track2.setId("track2");
+        when(spotifyService.getPlaylistTracks("decrypted-token", "playlist123")).thenReturn(List.of(track1, track2));
+
+        TrackMatch match2 = new TrackMatch();
+        match2.setSourceTrackId("track2");
+        match2.setStatus(MatchStatus.AUTO_MATCHED);
+        match2.setDestinationTrackId("netease-track2");
+        when(matchingService.findBestMatch(eq(track2), eq(Platform.NETEASE), eq("decrypted-cookie"), eq(job)))
+                .thenReturn(match2);
+
+        // When
+        conversionWorker.processConversionJob(1L);
+
+        // Then
+        verify(matchingService, never()).findBestMatch(eq(track1), any(), any(), any());
+        verify(neteaseService, never()).getPlaylistTracks(any(), any());
+        verify(neteaseService).removeTracksFromPlaylist("decrypted-cookie", "existing-playlist-id",
+                List.of("netease-track3"));
+        verify(neteaseService).addTracksToPlaylist("decrypted-cookie", "existing-playlist-id",
+                List.of("netease-track2"));
+        verify(playlistSyncService).recordSync(sync, job, "snapshot-2", List.of(match2), List.of(synced3));
+        assertThat(job.getTotalTracks()).isEqualTo(1);
+        assertThat(job.getStatus()).isEqualTo(JobStatus.COMPLETED);
+    }
 
-        verify(webSocketService).sendJobError(any(ConversionJob.class), anyString());
+    private static PlaylistSyncTrack syncTrack(String sourceTrackId, String destinationTrackId) {
+        PlaylistSyncTrack track = new PlaylistSyncTrack();
+        track.setSourceTrackId(sourceTrackId);
+        track.setDestinationTrackId(destinationTrackId);
+        return track;
     }
 }
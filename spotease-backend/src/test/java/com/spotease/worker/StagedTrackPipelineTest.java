@@ -0,0 +1,99 @@
+package com.spotease.worker;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StagedTrackPipelineTest {
+
+    private final StagedTrackPipeline pipeline = new StagedTrackPipeline(new SimpleMeterRegistry(), 2, 2, 8);
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void shouldNotResolveQueuedTracksOfStoppedJob() throws InterruptedException {
+        // Given: the first track is still being resolved when the job is asked to stop
+        CountDownLatch firstResolving = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch secondResolved = new CountDownLatch(1);
+        TrackSteps steps = new StoppedSteps() {
+            @Override
+            public TrackStep resolve(int index, Object sourceTrack) {
+                if (index == 0) {
+                    firstResolving.countDown();
+                    await(releaseFirst);
+                } else {
+                    secondResolved.countDown();
+                }
+                return new TrackStep(index, sourceTrack, "track-" + index, "track-" + index, TrackStep.Kind.SEARCH);
+            }
+
+            @Override
+            public boolean stopRequested() {
+                await(firstResolving);
+                return true;
+            }
+        };
+
+        // When
+        boolean finished = pipeline.run(List.of("first", "second", "third"), steps);
+        releaseFirst.countDown();
+
+        // Then
+        assertThat(finished).isFalse();
+        assertThat(secondResolved.await(500, TimeUnit.MILLISECONDS)).isFalse();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Steps of a job that is stopped before any track is recorded.
+     */
+    private abstract static class StoppedSteps implements TrackSteps {
+
+        @Override
+        public void match(TrackStep step) {
+        }
+
+        @Override
+        public void search(TrackStep step) {
+        }
+
+        @Override
+        public void score(TrackStep step) {
+        }
+
+        @Override
+        public void record(TrackStep step) {
+            throw new AssertionError("No track of a stopped job is recorded");
+        }
+
+        @Override
+        public void persist(List<TrackStep> steps) {
+        }
+
+        @Override
+        public int pendingAdds() {
+            return 0;
+        }
+
+        @Override
+        public void apply() {
+        }
+    }
+}
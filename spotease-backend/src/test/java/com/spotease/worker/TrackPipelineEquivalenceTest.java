@@ -0,0 +1,246 @@
+package com.spotease.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotease.dto.netease.NeteasePlaylist;
+import com.spotease.dto.netease.NeteaseTrack;
+import com.spotease.dto.spotify.SpotifyPlaylist;
+import com.spotease.dto.spotify.SpotifyTrack;
+import com.spotease.model.*;
+import com.spotease.repository.BulkTrackMatchRepository;
+import com.spotease.repository.ConversionJobRepository;
+import com.spotease.repository.TrackMatchRepository;
+import com.spotease.service.BulkConversionService;
+import com.spotease.service.BulkMatchCache;
+import com.spotease.service.CredentialProvider;
+import com.spotease.service.JobCancellation;
+import com.spotease.service.JobControlService;
+import com.spotease.service.MatchEventStream;
+import com.spotease.service.MatchingService;
+import com.spotease.service.NeteaseService;
+import com.spotease.service.PlatformCallLimiter;
+import com.spotease.service.PlaylistCache;
+import com.spotease.service.PlaylistSyncService;
+import com.spotease.service.ProgressPublisher;
+import com.spotease.service.SpotifyService;
+import com.spotease.service.SpotifyTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs recorded conversions through every {@link TrackPipeline} and checks they end up with the
+ * same matches, counters and destination tracks as the sequential one. Searches answer with the
+ * recorded responses after a random delay, so concurrent pipelines see them complete out of order.
+ */
+class TrackPipelineEquivalenceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Set<String> searchThreads = ConcurrentHashMap.newKeySet();
+
+    @Test
+    void reactivePipelineShouldMatchSequentialOnCreateFixture() throws IOException {
+        // Given
+        Fixture fixture = fixture("spotify-to-netease-create.json");
+
+        // When
+        Outcome sequential = convert(fixture, new SequentialTrackPipeline(meterRegistry));
+        Outcome reactive = convert(fixture, reactivePipeline());
+
+        // Then: the fixture covers every kind of outcome, and both pipelines agree on all of it
+        assertThat(sequential.matches()).extracting(SavedMatch::status)
+                .contains(MatchStatus.AUTO_MATCHED, MatchStatus.PENDING_REVIEW, MatchStatus.FAILED);
+        assertThat(sequential.counters().get(3)).isPositive();
+        assertThat(reactive).isEqualTo(sequential);
+    }
+
+    @Test
+    void reactivePipelineShouldMatchSequentialOnUpdateFixture() throws IOException {
+        // Given
+        Fixture fixture = fixture("spotify-to-netease-update.json");
+
+        // When
+        Outcome sequential = convert(fixture, new SequentialTrackPipeline(meterRegistry));
+        Outcome reactive = convert(fixture, reactivePipeline());
+
+        // Then
+        assertThat(sequential.matches()).extracting(SavedMatch::destinationTrackId).contains("ne200", "ne201");
+        assertThat(reactive).isEqualTo(sequential);
+    }
+
+    @Test
+    void stagedPipelineShouldMatchSequentialAndSearchOnIoThreads() throws IOException {
+        // Given
+        Fixture fixture = fixture("spotify-to-netease-create.json");
+        StagedTrackPipeline staged = stagedPipeline();
+
+        // When
+        Outcome sequential = convert(fixture, new SequentialTrackPipeline(meterRegistry));
+        searchThreads.clear();
+        Outcome stagedOutcome = convert(fixture, staged);
+        staged.shutdown();
+
+        // Then
+        assertThat(stagedOutcome).isEqualTo(sequential);
+        assertThat(searchThreads).isNotEmpty().allMatch(name -> name.startsWith("pipeline-io-"));
+        assertThat(meterRegistry.get("spotease.pipeline.queue.depth").tag("stage", "search").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void stagedPipelineShouldMatchSequentialOnUpdateFixture() throws IOException {
+        // Given
+        Fixture fixture = fixture("spotify-to-netease-update.json");
+        StagedTrackPipeline staged = stagedPipeline();
+
+        // When
+        Outcome sequential = convert(fixture, new SequentialTrackPipeline(meterRegistry));
+        Outcome stagedOutcome = convert(fixture, staged);
+        staged.shutdown();
+
+        // Then
+        assertThat(stagedOutcome).isEqualTo(sequential);
+    }
+
+    private StagedTrackPipeline stagedPipeline() {
+        // Queues and windows smaller than the playlists, so that admission has to wait
+        StagedTrackPipeline pipeline = new StagedTrackPipeline(meterRegistry, 2, 4, 2);
+        ReflectionTestUtils.setField(pipeline, "window", 3);
+        ReflectionTestUtils.setField(pipeline, "batchSize", 2);
+        ReflectionTestUtils.setField(pipeline, "playlistBatchSize", 2);
+        return pipeline;
+    }
+
+    private ReactiveTrackPipeline reactivePipeline() {
+        ReactiveTrackPipeline pipeline = new ReactiveTrackPipeline(meterRegistry);
+        // Small batches so that batching and intermediate playlist adds are exercised
+        ReflectionTestUtils.setField(pipeline, "searchConcurrency", 4);
+        ReflectionTestUtils.setField(pipeline, "batchSize", 3);
+        ReflectionTestUtils.setField(pipeline, "batchTimeout", Duration.ofMillis(5));
+        ReflectionTestUtils.setField(pipeline, "playlistBatchSize", 2);
+        return pipeline;
+    }
+
+    private Outcome convert(Fixture fixture, TrackPipeline pipeline) {
+        ConversionJob job = job(fixture.mode());
+
+        ConversionJobRepository jobRepository = mock(ConversionJobRepository.class);
+        when(jobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(jobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        TrackMatchRepository trackMatchRepository = mock(TrackMatchRepository.class);
+        List<TrackMatch> saved = new ArrayList<>();
+        when(trackMatchRepository.save(any())).thenAnswer(invocation -> {
+            saved.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        SpotifyService spotifyService = mock(SpotifyService.class);
+        SpotifyPlaylist source = new SpotifyPlaylist();
+        source.setName("Recorded");
+        source.setTotalTracks(fixture.sourceTracks().size());
+        when(spotifyService.getPlaylistById("token", "source-playlist")).thenReturn(source);
+        when(spotifyService.getPlaylistTracks("token", "source-playlist")).thenReturn(fixture.sourceTracks());
+
+        NeteaseService neteaseService = mock(NeteaseService.class);
+        NeteasePlaylist destination = new NeteasePlaylist();
+        destination.setName("Destination");
+        when(neteaseService.getPlaylistById("cookie", "destination-playlist")).thenReturn(destination);
+        when(neteaseService.getPlaylistTracks("cookie", "destination-playlist")).thenReturn(fixture.destinationTracks());
+        when(neteaseService.createPlaylist("cookie", "Destination")).thenReturn("destination-playlist");
+        when(neteaseService.searchTrack(eq("cookie"), anyString())).thenAnswer(invocation -> {
+            searchThreads.add(Thread.currentThread().getName());
+            Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+            return fixture.searches().getOrDefault(invocation.<String>getArgument(1), List.of());
+        });
+        List<String> added = new ArrayList<>();
+        doAnswer(invocation -> added.addAll(invocation.getArgument(2)))
+                .when(neteaseService).addTracksToPlaylist(eq("cookie"), eq("destination-playlist"), anyList());
+
+        SpotifyTokenService spotifyTokenService = mock(SpotifyTokenService.class);
+        when(spotifyTokenService.getAccessToken(any())).thenReturn("token");
+        when(spotifyTokenService.call(any(), any())).thenCallRealMethod();
+        CredentialProvider credentialProvider = mock(CredentialProvider.class);
+        when(credentialProvider.decrypt(any())).thenReturn("cookie");
+        JobControlService jobControlService = mock(JobControlService.class);
+        JobCancellation cancellation = new JobCancellation();
+        when(jobControlService.register(1L)).thenReturn(cancellation);
+        when(jobControlService.cancellation(1L)).thenReturn(cancellation);
+
+        ConversionWorker worker = new ConversionWorker(jobRepository, trackMatchRepository, spotifyService,
+                neteaseService, new MatchingService(spotifyService, neteaseService), mock(ProgressPublisher.class),
+                mock(MatchEventStream.class), credentialProvider, spotifyTokenService, mock(PlaylistCache.class),
+                mock(PlaylistSyncService.class), new BulkMatchCache(mock(BulkTrackMatchRepository.class),
+                        mock(PlatformTransactionManager.class), meterRegistry), mock(BulkConversionService.class),
+                jobControlService, new PlatformCallLimiter(10, 10, meterRegistry), pipeline, mock(EntityManager.class));
+
+        worker.processConversionJob(1L);
+
+        assertThat(job.getStatus()).isIn(JobStatus.COMPLETED, JobStatus.REVIEW_PENDING);
+        return new Outcome(
+                saved.stream().map(SavedMatch::of).toList(),
+                List.of(job.getProcessedTracks(), job.getHighConfidenceMatches(), job.getLowConfidenceMatches(),
+                        job.getSearchesSaved(), job.getFailedTracks()),
+                added);
+    }
+
+    private static ConversionJob job(ConversionMode mode) {
+        User user = new User();
+        user.setId(1L);
+        user.setNeteaseCookie("encrypted-cookie");
+
+        ConversionJob job = new ConversionJob();
+        job.setId(1L);
+        job.setUser(user);
+        job.setSourcePlatform(Platform.SPOTIFY);
+        job.setSourcePlaylistId("source-playlist");
+        job.setDestinationPlatform(Platform.NETEASE);
+        job.setMode(mode);
+        job.setDestinationPlaylistName("Destination");
+        if (mode != ConversionMode.CREATE) {
+            job.setDestinationPlaylistId("destination-playlist");
+        }
+        job.setStatus(JobStatus.QUEUED);
+        job.setTotalTracks(0);
+        return job;
+    }
+
+    private static Fixture fixture(String name) throws IOException {
+        try (InputStream in = TrackPipelineEquivalenceTest.class.getResourceAsStream("/fixtures/pipeline/" + name)) {
+            return new ObjectMapper().readValue(in, Fixture.class);
+        }
+    }
+
+    /**
+     * A recorded conversion: the source playlist, the destination playlist's tracks and the NetEase
+     * search responses by query. Queries that were not recorded found nothing.
+     */
+    private record Fixture(String description, ConversionMode mode, List<SpotifyTrack> sourceTracks,
+                           List<NeteaseTrack> destinationTracks, Map<String, List<NeteaseTrack>> searches) {
+    }
+
+    private record SavedMatch(String sourceTrackId, String destinationTrackId, MatchStatus status, Double confidence) {
+        static SavedMatch of(TrackMatch match) {
+            return new SavedMatch(match.getSourceTrackId(), match.getDestinationTrackId(), match.getStatus(),
+                    match.getMatchConfidence());
+        }
+    }
+
+    private record Outcome(List<SavedMatch> matches, List<Integer> counters, List<String> addedTrackIds) {
+    }
+}
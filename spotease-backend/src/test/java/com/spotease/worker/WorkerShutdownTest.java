@@ -0,0 +1,77 @@
+package com.spotease.worker;
+
+import com.spotease.service.JobCancellation;
+import com.spotease.service.JobControlService;
+import com.spotease.service.JobDispatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkerShutdownTest {
+
+    @Mock
+    private JobDispatcher jobDispatcher;
+
+    @Mock
+    private JobControlService jobControlService;
+
+    @InjectMocks
+    private WorkerShutdown workerShutdown;
+
+    @Test
+    void shouldStopClaimingAndWaitForJobsToCheckpoint() {
+        // Given: one running job, which has checkpointed by the second look
+        workerShutdown.start();
+        when(jobControlService.requeueRunningJobs()).thenReturn(1);
+        when(jobControlService.runningJobs())
+                .thenReturn(Map.of(1L, new JobCancellation()))
+                .thenReturn(Map.of());
+
+        // When
+        workerShutdown.stop();
+
+        // Then
+        assertThat(workerShutdown.isRunning()).isFalse();
+        verify(jobDispatcher).stopClaiming();
+        verify(jobControlService, atLeast(2)).runningJobs();
+    }
+
+    @Test
+    void shouldGiveUpWaitingAtDeadline() {
+        // Given: a job that never reaches a track boundary
+        ReflectionTestUtils.setField(workerShutdown, "drainTimeout", Duration.ofMillis(200));
+        when(jobControlService.requeueRunningJobs()).thenReturn(1);
+        when(jobControlService.runningJobs()).thenReturn(Map.of(1L, new JobCancellation()));
+
+        // When
+        long start = System.nanoTime();
+        workerShutdown.stop();
+
+        // Then
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isBetween(Duration.ofMillis(200), Duration.ofSeconds(5));
+        verify(jobDispatcher).stopClaiming();
+    }
+
+    @Test
+    void shouldReturnAtOnceWithoutRunningJobs() {
+        // Given
+        when(jobControlService.requeueRunningJobs()).thenReturn(0);
+
+        // When
+        workerShutdown.stop();
+
+        // Then
+        verify(jobDispatcher).stopClaiming();
+        verify(jobControlService, never()).runningJobs();
+    }
+}
@@ -22,6 +22,21 @@ interface NeteaseTrackResponse {
 
 type RawSearchTrack = SpotifyTrackResponse | NeteaseTrackResponse;
 
+// One page of a paginated listing; nextCursor is absent on the last page
+export interface Page<T> {
+  items: T[];
+  nextCursor?: string;
+}
+
+// The backend returns the cursor of the next page in the X-Next-Cursor header
+function toPage<T>(data: T[], headers: Record<string, unknown>): Page<T> {
+  const nextCursor = headers["x-next-cursor"];
+  return {
+    items: data,
+    nextCursor: typeof nextCursor === "string" && nextCursor ? nextCursor : undefined,
+  };
+}
+
 // Normalize search results to a common format
 function normalizeSearchTrack(raw: RawSearchTrack): SearchTrack {
   // Check if it's a Spotify track (has duration_ms)
@@ -50,22 +65,29 @@ function normalizeSearchTrack(raw: RawSearchTrack): SearchTrack {
 }
 
 export const conversionsApi = {
-  // Create new conversion job
-  createConversion: async (
-    request: CreateConversionRequest
-  ): Promise<ConversionJob> => {
+  // Create new conversion job. Retries with the same idempotency key return the job
+  // created by the first attempt instead of queuing a duplicate.
+  createConversion: async ({
+    request,
+    idempotencyKey,
+  }: {
+    request: CreateConversionRequest;
+    idempotencyKey: string;
+  }): Promise<ConversionJob> => {
     const response = await apiClient.post<ConversionJob>(
       "/api/conversions",
-      request
+      request,
+      { headers: { "Idempotency-Key": idempotencyKey } }
     );
     return response.data;
   },
 
-  // Get all user's conversion jobs
-  getConversions: async (): Promise<ConversionJob[]> => {
-    const response =
-      await apiClient.get<ConversionJob[]>("/api/conversions");
-    return response.data;
+  // Get a page of the user's conversion jobs, newest first
+  getConversions: async (cursor?: string): Promise<Page<ConversionJob>> => {
+    const response = await apiClient.get<ConversionJob[]>("/api/conversions", {
+      params: { cursor },
+    });
+    return toPage(response.data, response.headers);
   },
 
   // Get single conversion job details
@@ -76,17 +98,43 @@ export const conversionsApi = {
     return response.data;
   },
 
+  // Cancel, pause or resume a conversion job; a running job stops after its current track
+  cancelConversion: async (jobId: number): Promise<ConversionJob> => {
+    const response = await apiClient.post<ConversionJob>(
+      `/api/conversions/${jobId}/cancel`
+    );
+    return response.data;
+  },
+
+  pauseConversion: async (jobId: number): Promise<ConversionJob> => {
+    const response = await apiClient.post<ConversionJob>(
+      `/api/conversions/${jobId}/pause`
+    );
+    return response.data;
+  },
+
+  resumeConversion: async (jobId: number): Promise<ConversionJob> => {
+    const response = await apiClient.post<ConversionJob>(
+      `/api/conversions/${jobId}/resume`
+    );
+    return response.data;
+  },
+
   // Delete conversion job
   deleteConversion: async (jobId: number): Promise<void> => {
     await apiClient.delete(`/api/conversions/${jobId}`);
   },
 
-  // Get pending matches for review
-  getPendingMatches: async (jobId: number): Promise<TrackMatch[]> => {
+  // Get a page of the matches awaiting review
+  getPendingMatches: async (
+    jobId: number,
+    cursor?: string
+  ): Promise<Page<TrackMatch>> => {
     const response = await apiClient.get<TrackMatch[]>(
-      `/api/conversions/${jobId}/matches/pending`
+      `/api/conversions/${jobId}/matches/pending`,
+      { params: { cursor } }
     );
-    return response.data;
+    return toPage(response.data, response.headers);
   },
 
   // Approve a match (optionally with alternative destination)
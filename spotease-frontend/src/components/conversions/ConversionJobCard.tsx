@@ -28,6 +28,10 @@ const ConversionJobCard = ({ job }: ConversionJobCardProps) => {
         return <Clock className="w-5 h-5 text-blue-600 animate-pulse" />;
       case JobStatus.REVIEW_PENDING:
         return <Clock className="w-5 h-5 text-orange-600" />;
+      case JobStatus.PAUSED:
+        return <Clock className="w-5 h-5 text-gray-600" />;
+      case JobStatus.CANCELLED:
+        return <XCircle className="w-5 h-5 text-gray-600" />;
       default:
         return null;
     }
@@ -61,7 +65,7 @@ const ConversionJobCard = ({ job }: ConversionJobCardProps) => {
               <span className="text-sm uppercase tracking-wide">{job.destinationPlatform}</span>
             </CardTitle>
             <CardDescription className="mt-1">
-              {job.sourcePlaylistName} → {job.destinationPlaylistName}
+              {job.sourcePlaylistName ?? job.sourcePlaylistId} → {job.destinationPlaylistName ?? job.destinationPlaylistId}
             </CardDescription>
           </div>
           <div className={`text-sm font-medium ${getStatusColor()}`}>
@@ -96,6 +100,12 @@ const ConversionJobCard = ({ job }: ConversionJobCardProps) => {
           </div>
         </div>
 
+        {!!job.searchesSaved && (
+          <p className="text-xs text-gray-500">
+            {job.searchesSaved} repeated {job.searchesSaved === 1 ? "track" : "tracks"} matched without a new search
+          </p>
+        )}
+
         {/* Actions */}
         {job.status === JobStatus.REVIEW_PENDING && (
           <Button
@@ -7,11 +7,14 @@ import type { JobStatus } from "@/types/conversion";
 interface WebSocketMessage {
   jobId: number;
   status: JobStatus;
+  sourcePlaylistName?: string;
+  destinationPlaylistName?: string;
   totalTracks: number;
   processedTracks: number;
   highConfidenceMatches: number;
   lowConfidenceMatches: number;
   failedTracks: number;
+  searchesSaved?: number;
   errorMessage?: string;
 }
 
@@ -19,20 +22,24 @@ interface WebSocketMessage {
 export interface JobUpdate {
   id: number;
   status: JobStatus;
+  sourcePlaylistName?: string;
+  destinationPlaylistName?: string;
   totalTracks: number;
   processedTracks: number;
   highConfidenceMatches: number;
   lowConfidenceMatches: number;
   failedTracks: number;
+  searchesSaved?: number;
 }
 
 interface UseWebSocketOptions {
   onJobUpdate?: (update: JobUpdate) => void;
   enabled?: boolean;
+  userId?: number; // Updates are only published to the owning user's topics
   jobId?: number; // Optional: subscribe to specific job only
 }
 
-export const useWebSocket = ({ onJobUpdate, enabled = true, jobId }: UseWebSocketOptions = {}) => {
+export const useWebSocket = ({ onJobUpdate, enabled = true, userId, jobId }: UseWebSocketOptions = {}) => {
   const [isConnected, setIsConnected] = useState(false);
   const clientRef = useRef<Client | null>(null);
   const onJobUpdateRef = useRef(onJobUpdate);
@@ -43,7 +50,7 @@ export const useWebSocket = ({ onJobUpdate, enabled = true, jobId }: UseWebSocke
   }, [onJobUpdate]);
 
   const connect = useCallback(() => {
-    if (!enabled || clientRef.current?.active) return;
+    if (!enabled || !userId || clientRef.current?.active) return;
 
     const wsUrl = import.meta.env.VITE_API_BASE_URL || "http://localhost:8080";
     const sockJsUrl = `${wsUrl}/ws/conversions`;
@@ -74,6 +81,10 @@ export const useWebSocket = ({ onJobUpdate, enabled = true, jobId }: UseWebSocke
               highConfidenceMatches: msg.highConfidenceMatches,
               lowConfidenceMatches: msg.lowConfidenceMatches,
               failedTracks: msg.failedTracks,
+              searchesSaved: msg.searchesSaved,
+              // Names are only known once the worker has validated the playlists
+              ...(msg.sourcePlaylistName && { sourcePlaylistName: msg.sourcePlaylistName }),
+              ...(msg.destinationPlaylistName && { destinationPlaylistName: msg.destinationPlaylistName }),
             };
           } catch (error) {
             console.error("Error parsing WebSocket message:", error);
@@ -81,8 +92,10 @@ export const useWebSocket = ({ onJobUpdate, enabled = true, jobId }: UseWebSocke
           }
         };
 
-        // Subscribe to general conversions topic for all updates
-        client.subscribe("/topic/conversions", (message) => {
+        const userTopic = `/topic/users/${userId}/conversions`;
+
+        // Subscribe to the user's conversions topic for all of their updates
+        client.subscribe(userTopic, (message) => {
           const update = parseMessage(message.body);
           if (update) {
             onJobUpdateRef.current?.(update);
@@ -91,7 +104,7 @@ export const useWebSocket = ({ onJobUpdate, enabled = true, jobId }: UseWebSocke
 
         // If jobId provided, also subscribe to specific job topic
         if (jobId) {
-          client.subscribe(`/topic/conversions/${jobId}`, (message) => {
+          client.subscribe(`${userTopic}/${jobId}`, (message) => {
             const update = parseMessage(message.body);
             if (update) {
               onJobUpdateRef.current?.(update);
@@ -111,7 +124,7 @@ export const useWebSocket = ({ onJobUpdate, enabled = true, jobId }: UseWebSocke
 
     clientRef.current = client;
     client.activate();
-  }, [enabled, jobId]);
+  }, [enabled, userId, jobId]);
 
   useEffect(() => {
     connect();
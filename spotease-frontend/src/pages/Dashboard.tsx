@@ -1,9 +1,9 @@
 import { useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { useQuery, useQueryClient } from '@tanstack/react-query';
+import { useInfiniteQuery, useQueryClient, type InfiniteData } from '@tanstack/react-query';
 import { useAuth } from '@/hooks/useAuth';
 import { useWebSocket, type JobUpdate } from '@/hooks/useWebSocket';
-import { conversionsApi } from '@/api/conversions';
+import { conversionsApi, type Page } from '@/api/conversions';
 import type { ConversionJob } from '@/types/conversion';
 import Layout from '@/components/layout/Layout';
 import ConversionJobCard from '@/components/conversions/ConversionJobCard';
@@ -16,24 +16,43 @@ const Dashboard = () => {
   const { authStatus, isLoading: authLoading } = useAuth();
   const queryClient = useQueryClient();
 
-  // Fetch conversion jobs
-  const { data: jobs, isLoading: jobsLoading } = useQuery({
+  // Fetch conversion jobs, a page at a time
+  const {
+    data,
+    isLoading: jobsLoading,
+    hasNextPage,
+    fetchNextPage,
+    isFetchingNextPage,
+  } = useInfiniteQuery({
     queryKey: ['conversions'],
-    queryFn: conversionsApi.getConversions,
+    queryFn: ({ pageParam }) => conversionsApi.getConversions(pageParam),
+    initialPageParam: undefined as string | undefined,
+    getNextPageParam: (lastPage) => lastPage.nextCursor,
     enabled: authStatus?.authenticated === true,
   });
+  const jobs = data?.pages.flatMap((page) => page.items);
 
   // WebSocket for real-time updates
   useWebSocket({
     enabled: authStatus?.authenticated === true,
+    userId: authStatus?.userId,
     onJobUpdate: (update: JobUpdate) => {
       // Update the job in the cache by merging the partial update
-      queryClient.setQueryData(['conversions'], (oldJobs: ConversionJob[] | undefined) => {
-        if (!oldJobs) return oldJobs;
-        return oldJobs.map((job: ConversionJob) =>
-          job.id === update.id ? { ...job, ...update } : job
-        );
-      });
+      queryClient.setQueryData(
+        ['conversions'],
+        (oldData: InfiniteData<Page<ConversionJob>, string | undefined> | undefined) => {
+          if (!oldData) return oldData;
+          return {
+            ...oldData,
+            pages: oldData.pages.map((page) => ({
+              ...page,
+              items: page.items.map((job: ConversionJob) =>
+                job.id === update.id ? { ...job, ...update } : job
+              ),
+            })),
+          };
+        }
+      );
 
       // Also update individual job cache if it exists
       queryClient.setQueryData(['conversion', update.id], (oldJob: ConversionJob | undefined) => {
@@ -85,6 +104,17 @@ const Dashboard = () => {
             {jobs.map((job) => (
               <ConversionJobCard key={job.id} job={job} />
             ))}
+            {hasNextPage && (
+              <div className="flex justify-center pt-4">
+                <Button
+                  variant="outline"
+                  onClick={() => fetchNextPage()}
+                  disabled={isFetchingNextPage}
+                >
+                  {isFetchingNextPage ? 'Loading...' : 'Load older conversions'}
+                </Button>
+              </div>
+            )}
           </div>
         ) : (
           <div className="text-center py-12 bg-white rounded-lg border border-gray-200">
@@ -1,4 +1,4 @@
-import { useState } from 'react';
+import { useRef, useState } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { useQuery, useMutation, useQueryClient } from '@tanstack/react-query';
 import { playlistsApi } from '@/api/playlists';
@@ -24,6 +24,7 @@ const NewConversion = () => {
   const [conversionMode, setConversionMode] = useState<ConversionMode>(ConversionMode.CREATE);
   const [destinationPlaylistName, setDestinationPlaylistName] = useState('');
   const [destinationPlaylist, setDestinationPlaylist] = useState<Playlist | null>(null);
+  const submissionRef = useRef<{ payload: string; idempotencyKey: string } | null>(null);
 
   // Fetch playlists based on selected source platform
   const { data: spotifyPlaylists, isLoading: spotifyLoading } = useQuery({
@@ -46,7 +47,7 @@ const NewConversion = () => {
     queryFn: destinationPlatform === Platform.SPOTIFY
       ? playlistsApi.getSpotifyPlaylists
       : playlistsApi.getNeteasePlaylists,
-    enabled: step === 3 && conversionMode === ConversionMode.UPDATE,
+    enabled: step === 3 && conversionMode !== ConversionMode.CREATE,
   });
 
   // Create conversion mutation
@@ -99,17 +100,25 @@ const NewConversion = () => {
           ? destinationPlaylistName
           : destinationPlaylist!.name,
       destinationPlaylistId:
-        conversionMode === ConversionMode.UPDATE
+        conversionMode !== ConversionMode.CREATE
           ? destinationPlaylist!.id
           : undefined,
     };
 
-    createConversionMutation.mutate(request);
+    // Reuse the key while the request is unchanged, so double-clicks and retries collapse
+    const payload = JSON.stringify(request);
+    if (submissionRef.current?.payload !== payload) {
+      submissionRef.current = { payload, idempotencyKey: crypto.randomUUID() };
+    }
+    createConversionMutation.mutate({
+      request,
+      idempotencyKey: submissionRef.current.idempotencyKey,
+    });
   };
 
   const canProceedToFinal =
     (conversionMode === ConversionMode.CREATE && destinationPlaylistName.trim().length > 0) ||
-    (conversionMode === ConversionMode.UPDATE && destinationPlaylist !== null);
+    (conversionMode !== ConversionMode.CREATE && destinationPlaylist !== null);
 
   return (
     <Layout>
@@ -232,6 +241,22 @@ const NewConversion = () => {
                     Add missing tracks to an existing playlist
                   </p>
                 </div>
+
+                <div
+                  className={`border rounded-lg p-4 cursor-pointer transition-all ${
+                    conversionMode === ConversionMode.SYNC
+                      ? 'border-blue-500 bg-blue-50'
+                      : 'border-gray-200'
+                  }`}
+                  onClick={() => {
+                    setConversionMode(ConversionMode.SYNC);
+                  }}
+                >
+                  <h3 className="font-semibold">Keep Playlist in Sync</h3>
+                  <p className="text-sm text-gray-600">
+                    Apply only the tracks added or removed since the last sync
+                  </p>
+                </div>
               </CardContent>
             </Card>
 
@@ -250,7 +275,7 @@ const NewConversion = () => {
               </Card>
             )}
 
-            {conversionMode === ConversionMode.UPDATE && (
+            {conversionMode !== ConversionMode.CREATE && (
               <Card>
                 <CardHeader>
                   <CardTitle>Select Destination Playlist</CardTitle>
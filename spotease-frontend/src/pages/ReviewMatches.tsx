@@ -1,12 +1,16 @@
-import { useState } from 'react';
+import { useEffect, useRef, useState } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
-import { useQuery, useMutation, useQueryClient } from '@tanstack/react-query';
+import { useInfiniteQuery, useMutation, useQuery, useQueryClient } from '@tanstack/react-query';
 import { conversionsApi } from '@/api/conversions';
 import Layout from '@/components/layout/Layout';
 import TrackMatchCard from '@/components/conversions/TrackMatchCard';
 import { Button } from '@/components/ui/button';
 import { useToast } from '@/hooks/use-toast';
 import { ArrowLeft } from 'lucide-react';
+import { JobStatus } from '@/types/conversion';
+
+// A running job commits its matches only when it stops; until then they cannot be reviewed
+const RUNNING_STATUSES = [JobStatus.QUEUED, JobStatus.PROCESSING];
 
 const ReviewMatches = () => {
   const { jobId } = useParams<{ jobId: string }>();
@@ -16,12 +20,33 @@ const ReviewMatches = () => {
 
   const [currentIndex, setCurrentIndex] = useState(0);
 
-  // Fetch pending matches
-  const { data: matches, isLoading } = useQuery({
+  // Fetch pending matches, a page at a time
+  const { data, isLoading, hasNextPage, fetchNextPage } = useInfiniteQuery({
     queryKey: ['pendingMatches', jobId],
-    queryFn: () => conversionsApi.getPendingMatches(Number(jobId)),
+    queryFn: ({ pageParam }) => conversionsApi.getPendingMatches(Number(jobId), pageParam),
+    initialPageParam: undefined as string | undefined,
+    getNextPageParam: (lastPage) => lastPage.nextCursor,
+    enabled: !!jobId,
+  });
+  const matches = data?.pages.flatMap((page) => page.items);
+
+  // Poll the job while it runs, then load the matches it committed
+  const { data: job } = useQuery({
+    queryKey: ['conversion', jobId],
+    queryFn: () => conversionsApi.getConversion(Number(jobId)),
     enabled: !!jobId,
+    refetchInterval: (query) =>
+      query.state.data && RUNNING_STATUSES.includes(query.state.data.status) ? 5000 : false,
   });
+  const jobRunning = !!job && RUNNING_STATUSES.includes(job.status);
+
+  const wasRunning = useRef(false);
+  useEffect(() => {
+    if (wasRunning.current && !jobRunning) {
+      queryClient.invalidateQueries({ queryKey: ['pendingMatches', jobId] });
+    }
+    wasRunning.current = jobRunning;
+  }, [jobRunning, jobId, queryClient]);
 
   const currentMatch = matches?.[currentIndex];
 
@@ -83,18 +108,29 @@ const ReviewMatches = () => {
     return conversionsApi.searchAlternatives(Number(jobId), query);
   };
 
-  const moveToNext = () => {
+  const moveToNext = async () => {
     if (matches && currentIndex < matches.length - 1) {
       setCurrentIndex(currentIndex + 1);
-    } else {
-      // All matches reviewed
-      queryClient.invalidateQueries({ queryKey: ['conversions'] });
-      toast({
-        title: 'Review complete',
-        description: 'All matches have been reviewed',
-      });
-      navigate('/dashboard');
+      return;
+    }
+
+    // End of the loaded matches: the review is only complete once there is no next page
+    if (hasNextPage) {
+      const result = await fetchNextPage();
+      const loaded = result.data?.pages.reduce((count, page) => count + page.items.length, 0) ?? 0;
+      if (loaded > currentIndex + 1) {
+        setCurrentIndex(currentIndex + 1);
+        return;
+      }
     }
+
+    // All matches reviewed
+    queryClient.invalidateQueries({ queryKey: ['conversions'] });
+    toast({
+      title: 'Review complete',
+      description: 'All matches have been reviewed',
+    });
+    navigate('/dashboard');
   };
 
   const handleApprove = (alternativeTrack?: {
@@ -117,7 +153,7 @@ const ReviewMatches = () => {
     skipMutation.mutate({ jobId: Number(jobId), matchId: currentMatch.matchId });
   };
 
-  const isProcessing = approveMutation.isPending || skipMutation.isPending;
+  const isProcessing = approveMutation.isPending || skipMutation.isPending || jobRunning;
 
   if (isLoading) {
     return (
@@ -129,6 +165,20 @@ const ReviewMatches = () => {
     );
   }
 
+  if (jobRunning && (!matches || matches.length === 0)) {
+    return (
+      <Layout>
+        <div className="max-w-2xl mx-auto px-4 py-16 text-center">
+          <h2 className="text-2xl font-bold mb-4">Conversion still running</h2>
+          <p className="text-gray-600 mb-8">Matches can be reviewed once the conversion finishes</p>
+          <Button onClick={() => navigate('/dashboard')}>
+            Return to Dashboard
+          </Button>
+        </div>
+      </Layout>
+    );
+  }
+
   if (!matches || matches.length === 0) {
     return (
       <Layout>
@@ -158,7 +208,13 @@ const ReviewMatches = () => {
           <h1 className="text-3xl font-bold text-gray-900">Review Matches</h1>
           <p className="text-gray-600 mt-1">
             Review {currentIndex + 1} of {matches.length}
+            {hasNextPage ? '+' : ''}
           </p>
+          {jobRunning && (
+            <p className="text-sm text-amber-700 mt-2">
+              The conversion is still running. Matches can be reviewed once it finishes.
+            </p>
+          )}
           <div className="mt-4 bg-gray-200 rounded-full h-2">
             <div
               className="bg-blue-600 h-2 rounded-full transition-all"
@@ -3,24 +3,27 @@ import { Platform } from "./playlist";
 export enum ConversionMode {
   CREATE = "CREATE",
   UPDATE = "UPDATE",
+  SYNC = "SYNC",
 }
 
 export enum JobStatus {
   QUEUED = "QUEUED",
   PROCESSING = "PROCESSING",
+  PAUSED = "PAUSED",
   REVIEW_PENDING = "REVIEW_PENDING",
   COMPLETED = "COMPLETED",
   FAILED = "FAILED",
+  CANCELLED = "CANCELLED",
 }
 
 export interface ConversionJob {
   id: number;
   sourcePlatform: Platform;
   sourcePlaylistId: string;
-  sourcePlaylistName: string;
+  sourcePlaylistName?: string; // Filled in once the worker has validated the playlist
   destinationPlatform: Platform;
   destinationPlaylistId?: string;
-  destinationPlaylistName: string;
+  destinationPlaylistName?: string;
   mode: ConversionMode;
   status: JobStatus;
   totalTracks: number;
@@ -28,6 +31,8 @@ export interface ConversionJob {
   highConfidenceMatches: number;
   lowConfidenceMatches: number;
   failedTracks: number;
+  searchesSaved?: number; // Repeated source tracks matched without a new search
+  queuePosition?: number; // Only while the job waits for a worker (GET /api/conversions/{id})
   createdAt: string;
   updatedAt: string;
   completedAt?: string;